@@ -6,8 +6,11 @@ import com.nikonhacker.disassembly.OutputOption;
 import com.nikonhacker.disassembly.Register32;
 import com.nikonhacker.disassembly.WriteListenerRegister32;
 import com.nikonhacker.disassembly.tx.NullRegister32;
+import com.nikonhacker.disassembly.tx.TxCPUState;
 import com.nikonhacker.emu.AddressRange;
 import com.nikonhacker.emu.EmulationFramework;
+import com.nikonhacker.emu.Emulator;
+import com.nikonhacker.emu.MasterClock;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 import com.nikonhacker.gui.EmulatorUI;
 import com.nikonhacker.gui.component.memoryHexEditor.MemoryWatch;
@@ -58,11 +61,17 @@ public class Prefs {
     private String                       lastEepromFileName;
     private Map<String, Integer>[]       ioValueOverrideMap;
     private boolean syncPlay = true;
+    private boolean quantumClock = false;
+    private boolean parallelClock = false;
+    private int     parallelClockQuantumUs;
     private int[]                              serialInterfaceFrameSelectedTab;
     private int[]                              genericSerialFrameSelectedTab;
     private int[]                              ioPortsFrameSelectedTab;
     private EmulationFramework.ExecutionMode[] altExecutionModeForSyncedCpuUponDebug;
     private EmulationFramework.ExecutionMode[] altExecutionModeForSyncedCpuUponStep;
+    private Emulator.Interpreter[]             runInterpreter;
+    private boolean[]                          idleFastForward;
+    private String[]                           idleLoopAddresses;
     private Map<String, Integer>               buttonsState;
     private String[]                           firmwareFilename;
 
@@ -142,7 +151,12 @@ public class Prefs {
         xStream.alias("wlr32", WriteListenerRegister32.class);
         xStream.useAttributeFor(Register32.class, "value");
         xStream.aliasField("v", Register32.class, "value");
-        xStream.aliasField("r", CPUState.class, "regValue");
+        xStream.aliasField("rv", CPUState.class, "regValue");
+        // Register objects from former versions are only read, and converted by readResolve()
+        xStream.aliasField("r", CPUState.class, "legacyRegValue");
+        xStream.aliasField("srs", TxCPUState.class, "shadowRegisterSets");
+        xStream.aliasField("shadowRegisterSets", TxCPUState.class, "legacyShadowRegisterSets");
+        xStream.registerConverter(new WriteListenerRegister32.LegacyConverter());
         return xStream;
     }
 
@@ -555,6 +569,36 @@ public class Prefs {
         this.syncPlay = syncPlay;
     }
 
+    public boolean isQuantumClock() {
+        return quantumClock;
+    }
+
+    public void setQuantumClock(boolean quantumClock) {
+        this.quantumClock = quantumClock;
+    }
+
+    public boolean isParallelClock() {
+        return parallelClock;
+    }
+
+    public void setParallelClock(boolean parallelClock) {
+        this.parallelClock = parallelClock;
+    }
+
+    /**
+     * @return the duration of the time windows chips run in parallel, in microseconds
+     */
+    public int getParallelClockQuantumUs() {
+        if (parallelClockQuantumUs <= 0) {
+            parallelClockQuantumUs = (int) (MasterClock.DEFAULT_PARALLEL_QUANTUM_PS / 1000000);
+        }
+        return parallelClockQuantumUs;
+    }
+
+    public void setParallelClockQuantumUs(int parallelClockQuantumUs) {
+        this.parallelClockQuantumUs = parallelClockQuantumUs;
+    }
+
 
     public EmulationFramework.ExecutionMode getAltExecutionModeForSyncedCpuUponDebug(int chip) {
         if (this.altExecutionModeForSyncedCpuUponDebug == null || this.altExecutionModeForSyncedCpuUponDebug.length != 2) {
@@ -584,6 +628,43 @@ public class Prefs {
         this.altExecutionModeForSyncedCpuUponStep[chip] = altExecutionModeForSyncedCpuUponStep;
     }
 
+    public Emulator.Interpreter getRunInterpreter(int chip) {
+        if (this.runInterpreter == null || this.runInterpreter.length != 2) {
+            this.runInterpreter = new Emulator.Interpreter[]{Emulator.Interpreter.INSTRUCTION, Emulator.Interpreter.INSTRUCTION};
+        }
+        return runInterpreter[chip];
+    }
+
+    public void setRunInterpreter(int chip, Emulator.Interpreter runInterpreter) {
+        if (this.runInterpreter == null || this.runInterpreter.length != 2) {
+            this.runInterpreter = new Emulator.Interpreter[]{Emulator.Interpreter.INSTRUCTION, Emulator.Interpreter.INSTRUCTION};
+        }
+        this.runInterpreter[chip] = runInterpreter;
+    }
+
+    public boolean isIdleFastForward(int chip) {
+        if (idleFastForward == null || idleFastForward.length != 2) idleFastForward = new boolean[]{true, true};
+        return idleFastForward[chip];
+    }
+
+    public void setIdleFastForward(int chip, boolean isIdleFastForward) {
+        if (idleFastForward == null || idleFastForward.length != 2) idleFastForward = new boolean[]{true, true};
+        this.idleFastForward[chip] = isIdleFastForward;
+    }
+
+    /**
+     * @return addresses of idle loops, separated by commas or spaces
+     */
+    public String getIdleLoopAddresses(int chip) {
+        if (idleLoopAddresses == null || idleLoopAddresses.length != 2) idleLoopAddresses = new String[]{"", ""};
+        return idleLoopAddresses[chip];
+    }
+
+    public void setIdleLoopAddresses(int chip, String idleLoopAddresses) {
+        if (this.idleLoopAddresses == null || this.idleLoopAddresses.length != 2) this.idleLoopAddresses = new String[]{"", ""};
+        this.idleLoopAddresses[chip] = idleLoopAddresses;
+    }
+
     public void setButtonState(String key, Integer state) {
         if (buttonsState == null) buttonsState = new HashMap<>();
         buttonsState.put(key, state);
@@ -14,9 +14,15 @@ public abstract class CPUState {
     public int pc;
 
     /**
-     * Register values
+     * Register values.
+     * Registers with side effects (aliases, control registers) are handled by subclasses overriding setReg()
      */
-    protected Register32[] regValue;
+    protected int[] regValue;
+
+    /**
+     * Register objects, as stored by former versions. Only used to read old states and preferences
+     */
+    private Register32[] legacyRegValue;
 
     /** Used for disassembly formatting
      *  TODO could be replaced by another CPUState instance, like the "flags" logic used in triggers
@@ -67,17 +73,54 @@ public abstract class CPUState {
     }
 
     public void setReg(int registerNumber, int newValue) {
-        regValue[registerNumber].setValue(newValue);
+        regValue[registerNumber] = newValue;
     }
 
     public int getReg(int registerNumber) {
-        return regValue[registerNumber].getValue();
+        return regValue[registerNumber];
     }
 
     public int getPc() {
         return pc;
     }
 
+    /**
+     * Copies the values of all registers except pc, including state not stored as a register (e.g. flags)
+     * @param state an array returned by a previous call, or null
+     * @return the array containing the values, reused if possible
+     */
+    public int[] saveRegisters(int[] state) {
+        if (state == null || state.length != regValue.length + 1) {
+            state = new int[regValue.length + 1];
+        }
+        System.arraycopy(regValue, 0, state, 0, regValue.length);
+        state[regValue.length] = getExtraState();
+        return state;
+    }
+
+    /**
+     * @param state an array returned by saveRegisters()
+     * @return true if all registers except pc still have the values saved in the given array
+     */
+    public boolean hasSameRegisters(int[] state) {
+        if (state.length != regValue.length + 1 || state[regValue.length] != getExtraState()) {
+            return false;
+        }
+        for (int i = 0; i < regValue.length; i++) {
+            if (state[i] != regValue[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return state that is not stored in regValue, packed in an int. Subclasses keeping flags apart must override this
+     */
+    protected int getExtraState() {
+        return 0;
+    }
+
     public void setPc(int pc) {
         this.pc = pc;
     }
@@ -97,4 +140,19 @@ public abstract class CPUState {
     public abstract boolean hasAllRegistersZero();
 
     public abstract int getNumStdRegisters();
+
+    /**
+     * This method makes sure loading a state or prefs saved by a former version
+     * converts register objects to plain values
+     */
+    protected Object readResolve() {
+        if (legacyRegValue != null) {
+            regValue = new int[legacyRegValue.length];
+            for (int i = 0; i < legacyRegValue.length; i++) {
+                regValue[i] = legacyRegValue[i].getValue();
+            }
+            legacyRegValue = null;
+        }
+        return this;
+    }
 }
@@ -162,6 +162,12 @@ public abstract class Statement {
 
     public abstract void formatOperandsAndComment(StatementContext context, boolean updateRegisters, Set<OutputOption> outputOptions) throws DisassemblyException;
 
+    /**
+     * Captures the code of this statement and the register and memory values formatOperandsAndComment() would read
+     * if called now with updateRegisters false, so that it can be formatted later from the snapshot
+     */
+    public abstract void captureOperands(StatementContext context, StatementSnapshot snapshot);
+
     public abstract boolean isPotentialStuffing();
 
     public abstract void reset();
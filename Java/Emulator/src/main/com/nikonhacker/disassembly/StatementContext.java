@@ -22,14 +22,21 @@ public class StatementContext {
     /** This is the interrupt controller used in this context */
     public InterruptController interruptController;
 
+    /** True if a jump to nextPc is pending, to be performed after having executed the statement in the delay slot */
+    public boolean hasDelayedPc;
+
     /** This is the requested PC to jump to after having executed the statement in the delay slot */
-    public Integer nextPc;
+    public int nextPc;
+
+    /** True if nextReturnAddress is to be set after having executed the statement in the delay slot */
+    public boolean hasNextReturnAddress;
 
     /** This is the requested return address to set after having executed the statement in the delay slot */
-    public Integer nextReturnAddress;
+    public int nextReturnAddress;
 
-    /** A custom register to be used as target for the return address, after having executed the statement in the delay slot */
-    public Integer nextReturnAddressTargetRegister;
+    /** A custom register to be used as target for the return address, after having executed the statement in the delay slot,
+     * or CPUState.NOREG to use the default one */
+    public int nextReturnAddressTargetRegister = CPUState.NOREG;
 
     /** The function call stack */
     public Deque<CallStackItem> callStack;
@@ -48,20 +55,25 @@ public class StatementContext {
 
     public int cycleIncrement;
 
-    public void setDelayedPc(Integer nextPc) {
+    public void setDelayedPc(int nextPc) {
         this.nextPc = nextPc;
+        this.hasDelayedPc = true;
         this.delaySlotDone = false;
     }
 
-    public void setDelayedPcAndRa(Integer nextPC, Integer nextReturnAddress) {
+    public void setDelayedPcAndRa(int nextPC, int nextReturnAddress) {
         this.nextPc = nextPC;
+        this.hasDelayedPc = true;
         this.nextReturnAddress = nextReturnAddress;
+        this.hasNextReturnAddress = true;
         this.delaySlotDone = false;
     }
 
-    public void setDelayedPcAndRaAndTarget(Integer nextPC, Integer nextReturnAddress, Integer nextReturnAddressTargetRegister) {
+    public void setDelayedPcAndRaAndTarget(int nextPC, int nextReturnAddress, int nextReturnAddressTargetRegister) {
         this.nextPc = nextPC;
+        this.hasDelayedPc = true;
         this.nextReturnAddress = nextReturnAddress;
+        this.hasNextReturnAddress = true;
         this.nextReturnAddressTargetRegister = nextReturnAddressTargetRegister;
         this.delaySlotDone = false;
     }
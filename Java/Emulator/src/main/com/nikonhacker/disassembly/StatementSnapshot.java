@@ -0,0 +1,171 @@
+package com.nikonhacker.disassembly;
+
+import com.nikonhacker.emu.memory.FastMemory;
+import com.nikonhacker.emu.memory.Memory;
+
+/**
+ * What is needed to format an executed statement later, in another thread: its code, and the values of only the
+ * registers and memory its operands refer to, as they were when it was executed.
+ * Capturing them just copies a few ints, so the emulation thread doesn't have to format anything.
+ * Instances are meant to be reused.
+ */
+public class StatementSnapshot {
+    /** Fr statements are at most 3 halfwords long, Tx ones 2 */
+    private static final int MAX_CODE_WORDS = 3;
+    /** Operands of Fr and Tx statements refer to at most 4 distinct registers */
+    private static final int MAX_REGISTERS  = 4;
+
+    /** Address of the statement */
+    public int pc;
+
+    /** (Tx only) ISA mode the statement was executed in */
+    public boolean is16bitIsaMode;
+
+    /** Code of the statement, as halfwords in execution order */
+    private final int[] code = new int[MAX_CODE_WORDS];
+    private int numCodeWords;
+
+    private final int[] registerNumbers = new int[MAX_REGISTERS];
+    private final int[] registerValues  = new int[MAX_REGISTERS];
+    private int numRegisters;
+
+    // Memory operand. Statements of both instruction sets load at most one
+    private int     memoryAddress;
+    private int     memoryNumBytes;
+    private boolean isMemoryStartMapped;
+    private boolean isMemoryEndMapped;
+    private int     memoryValue;
+
+    /**
+     * Starts capturing a new statement
+     */
+    public void clear(int pc) {
+        this.pc = pc;
+        numCodeWords = 0;
+        numRegisters = 0;
+        memoryNumBytes = 0;
+    }
+
+    public void addCodeWord(int halfword) {
+        code[numCodeWords++] = halfword & 0xFFFF;
+    }
+
+    /**
+     * Captures the value of a register read by an operand, if it is defined
+     */
+    public void captureRegister(CPUState cpuState, int registerNumber) {
+        if (!cpuState.isRegisterDefined(registerNumber)) {
+            return;
+        }
+        for (int i = 0; i < numRegisters; i++) {
+            if (registerNumbers[i] == registerNumber) {
+                return;
+            }
+        }
+        registerNumbers[numRegisters] = registerNumber;
+        registerValues[numRegisters] = cpuState.getReg(registerNumber);
+        numRegisters++;
+    }
+
+    /**
+     * Captures the value loaded by a memory operand, with the same accesses and checks as the formatting code
+     * @param numBytes 1, 2 or 4
+     */
+    public void captureMemory(Memory memory, int address, int numBytes) {
+        memoryAddress = address;
+        memoryNumBytes = numBytes;
+        isMemoryStartMapped = memory.isMapped(address);
+        isMemoryEndMapped = isMemoryStartMapped && memory.isMapped(address + numBytes - 1);
+        if (isMemoryEndMapped) {
+            switch (numBytes) {
+                case 1:
+                    memoryValue = memory.loadInstruction8(address);
+                    break;
+                case 2:
+                    memoryValue = memory.loadInstruction16(address);
+                    break;
+                default:
+                    memoryValue = memory.loadInstruction32(address);
+            }
+        }
+    }
+
+    /**
+     * Sets pc and captured registers in the given CPU state, which must not be the one of a running CPU.
+     * Registers are written directly, without the side effects of setReg(), and only captured ones are defined
+     */
+    public void restoreRegisters(CPUState cpuState) {
+        cpuState.pc = pc;
+        cpuState.regValidityBitmap = 0;
+        for (int i = 0; i < numRegisters; i++) {
+            cpuState.regValue[registerNumbers[i]] = registerValues[i];
+            // Same bit as the one tested by isRegisterDefined()
+            cpuState.regValidityBitmap |= (1 << registerNumbers[i]);
+        }
+    }
+
+    /**
+     * Memory as seen by a statement formatted from a snapshot: only its code and its memory operand are mapped.
+     * Only instruction loads are supported, as decoding and formatting only use these.
+     */
+    public static class SnapshotMemory extends FastMemory {
+        private StatementSnapshot snapshot;
+
+        public void setSnapshot(StatementSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean isMapped(int addr) {
+            if (snapshot.memoryNumBytes != 0) {
+                if (addr == snapshot.memoryAddress) {
+                    return snapshot.isMemoryStartMapped;
+                }
+                if (addr == snapshot.memoryAddress + snapshot.memoryNumBytes - 1) {
+                    return snapshot.isMemoryEndMapped;
+                }
+            }
+            return getCodeWordIndex(addr) >= 0;
+        }
+
+        @Override
+        public int loadInstruction8(int addr) {
+            if (snapshot.memoryNumBytes == 1 && addr == snapshot.memoryAddress) {
+                return snapshot.memoryValue;
+            }
+            throw new UnsupportedOperationException("Address 0x" + Integer.toHexString(addr) + " was not captured");
+        }
+
+        @Override
+        public int loadInstruction16(int addr) {
+            if (snapshot.memoryNumBytes == 2 && addr == snapshot.memoryAddress) {
+                return snapshot.memoryValue;
+            }
+            int index = getCodeWordIndex(addr);
+            if (index >= 0) {
+                return snapshot.code[index];
+            }
+            throw new UnsupportedOperationException("Address 0x" + Integer.toHexString(addr) + " was not captured");
+        }
+
+        @Override
+        public int loadInstruction32(int addr) {
+            if (snapshot.memoryNumBytes == 4 && addr == snapshot.memoryAddress) {
+                return snapshot.memoryValue;
+            }
+            int index = getCodeWordIndex(addr);
+            if (index >= 0 && index + 1 < snapshot.numCodeWords) {
+                return (snapshot.code[index] << 16) | snapshot.code[index + 1];
+            }
+            throw new UnsupportedOperationException("Address 0x" + Integer.toHexString(addr) + " was not captured");
+        }
+
+        private int getCodeWordIndex(int addr) {
+            int offset = addr - snapshot.pc;
+            if (offset >= 0 && (offset & 1) == 0 && (offset >> 1) < snapshot.numCodeWords) {
+                return offset >> 1;
+            }
+            return -1;
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.nikonhacker.disassembly;
 
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
 public class WriteListenerRegister32 extends Register32{
     private WriteListener writeListener;
 
@@ -17,4 +23,21 @@ public class WriteListenerRegister32 extends Register32{
         public void afterWrite(int newValue);
     }
 
+    /**
+     * Reads the registers saved by former versions as plain Register32 objects.
+     * Their listeners were anonymous classes of the CPU states, which no longer exist, so they are skipped.
+     */
+    public static class LegacyConverter implements Converter {
+        public boolean canConvert(Class type) {
+            return type == WriteListenerRegister32.class;
+        }
+
+        public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+            writer.addAttribute("v", String.valueOf(((Register32) source).getValue()));
+        }
+
+        public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+            return new Register32(Integer.parseInt(reader.getAttribute("v")));
+        }
+    }
 }
@@ -3,7 +3,6 @@ package com.nikonhacker.disassembly.arm;
 import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.disassembly.OutputOption;
-import com.nikonhacker.disassembly.Register32;
 import com.nikonhacker.emu.interrupt.InterruptRequest;
 import com.nikonhacker.emu.interrupt.fr.FrInterruptRequest;
 
@@ -56,6 +55,9 @@ public class ArmCPUState extends CPUState {
     /* bits of the PSR register (EPSR part) */
     private int EPSR=0;
 
+    /* stack pointer currently copied in SP (MSP or PSP) */
+    private int activeSp = MSP;
+
 
     public static String[] registerLabels;
 
@@ -139,11 +141,21 @@ public class ArmCPUState extends CPUState {
     }
 
     public void setThreadMode(int t) {
-        if (t == 0) {
-            regValue[SP] = regValue[MSP];
+        activeSp = (t == 0) ? MSP : PSP;
+        regValue[SP] = regValue[activeSp];
+    }
+
+    /**
+     * SP is a copy of the stack pointer selected by the thread mode, so writing either of them updates the other
+     */
+    @Override
+    public void setReg(int registerNumber, int newValue) {
+        regValue[registerNumber] = newValue;
+        if (registerNumber == SP) {
+            regValue[activeSp] = newValue;
         }
-        else {
-            regValue[SP] = regValue[PSP];
+        else if (registerNumber == activeSp) {
+            regValue[SP] = newValue;
         }
     }
 
@@ -182,11 +194,8 @@ public class ArmCPUState extends CPUState {
 
     @Override
     public void reset() {
-        regValue = new Register32[registerLabels.length];
-        for (int i = 0; i < regValue.length; i++) {
-            regValue[i] = new Register32(0);
-        }
-        regValue[SP] = regValue[MSP];
+        regValue = new int[registerLabels.length];
+        activeSp = MSP;
         regValidityBitmap = 0;
         setPc(RESET_ADDRESS);
         // read new MSP from +0
@@ -197,10 +206,8 @@ public class ArmCPUState extends CPUState {
     @Override
     public void clear() {
         pc = 0;
-        for (int i = 0; i < regValue.length; i++) {
-            regValue[i] = new Register32(0);
-        }
-        regValue[SP] = regValue[MSP];
+        regValue = new int[registerLabels.length];
+        activeSp = MSP;
         regValidityBitmap = 0;
     }
 
@@ -275,6 +275,17 @@ public class ArmStatement extends Statement {
         return out;
     }
 
+    /**
+     * Operands only refer to the pc
+     */
+    @Override
+    public void captureOperands(StatementContext context, StatementSnapshot snapshot) {
+        snapshot.clear(context.cpuState.pc);
+        for (int i = 0; i < numData; i++) {
+            snapshot.addCodeWord(data[i]);
+        }
+    }
+
     public String getFormattedBinaryStatement() {
         String out = "";
         for (int i = 0; i < 3; ++i) {
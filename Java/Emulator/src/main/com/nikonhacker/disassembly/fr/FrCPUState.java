@@ -3,7 +3,6 @@ package com.nikonhacker.disassembly.fr;
 import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.disassembly.OutputOption;
-import com.nikonhacker.disassembly.Register32;
 import com.nikonhacker.emu.interrupt.InterruptRequest;
 import com.nikonhacker.emu.interrupt.fr.FrInterruptRequest;
 
@@ -84,7 +83,7 @@ public class FrCPUState extends CPUState {
     private int T = 0;
 
     /* bits of the PS register (CCR part) */
-    private int S=0; // only accessible via setter because it also points R15 to correct stack pointer
+    private int S=0; // only accessible via setter because it also switches R15 to correct stack pointer
     public int I=0;
     public int N=0;
     public int Z=0;
@@ -205,11 +204,20 @@ public class FrCPUState extends CPUState {
      */
     public void setS(int newS) {
         S = newS;
-        if (S == 0) {
-            regValue[15] = regValue[SSP];
+        regValue[SP] = regValue[(S == 0) ? SSP : USP];
+    }
+
+    /**
+     * R15 is a copy of the stack pointer selected by the S bit, so writing either of them updates the other
+     */
+    @Override
+    public void setReg(int registerNumber, int newValue) {
+        regValue[registerNumber] = newValue;
+        if (registerNumber == SP) {
+            regValue[(S == 0) ? SSP : USP] = newValue;
         }
-        else {
-            regValue[15] = regValue[USP];
+        else if (registerNumber == ((S == 0) ? SSP : USP)) {
+            regValue[SP] = newValue;
         }
     }
 
@@ -260,6 +268,11 @@ public class FrCPUState extends CPUState {
     }
 
 
+    @Override
+    protected int getExtraState() {
+        return getPS();
+    }
+
     /**
      * Rebuilds PS from individual parts
      * @return PS
@@ -298,11 +311,7 @@ public class FrCPUState extends CPUState {
 
     @Override
     public void reset() {
-        regValue = new Register32[registerLabels.length];
-        for (int i = 0; i < regValue.length; i++) {
-            regValue[i] = new Register32(0);
-        }
-        regValue[15] = regValue[SSP];
+        regValue = new int[registerLabels.length];
         setILM(0xf, false); // 0b1111
         T = 0;
         I = 0;
@@ -316,10 +325,7 @@ public class FrCPUState extends CPUState {
     @Override
     public void clear() {
         pc = 0;
-        for (int i = 0; i < regValue.length; i++) {
-            regValue[i] = new Register32(0);
-        }
-        regValue[15] = regValue[SSP];
+        regValue = new int[registerLabels.length];
         setILM(0, false);
         T = 0;
         I = 0;
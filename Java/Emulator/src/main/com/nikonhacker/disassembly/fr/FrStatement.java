@@ -30,6 +30,8 @@ public class FrStatement extends Statement {
 
     /** coprocessor operation (not implemented yet in operand parsing, only for display) */
     private int c;
+    /** interpreted coprocessor operation, sometimes shifted to the high register list */
+    private int decodedC;
 
     /** start of decoded memory block (used only for display in "v"ector format */
     private int memRangeStart = 0;
@@ -175,6 +177,8 @@ public class FrStatement extends Statement {
         boolean writeDirection = false; // for memory operations
 
         decodedImm = imm;
+        decodedImmBitWidth = immBitWidth;
+        decodedC = c;
         decodedRiRsFs = ri_rs_fs;
         decodedRjRtFt = rj_rt_ft;
 
@@ -216,11 +220,11 @@ public class FrStatement extends Statement {
                     break;
                 case '2':
                     decodedImm <<= 1;
-                    immBitWidth += 1;
+                    decodedImmBitWidth += 1;
                     break;
                 case '4':
                     decodedImm <<= 2;
-                    immBitWidth += 2;
+                    decodedImmBitWidth += 2;
                     break;
 
                 case 'A':
@@ -299,24 +303,24 @@ public class FrStatement extends Statement {
                     if (context.cpuState.isRegisterDefined(decodedRiRsFs))
                     {
                         decodedImm = context.cpuState.getReg(decodedRiRsFs);
-                        immBitWidth = 32;
+                        decodedImmBitWidth = 32;
                     }
                     else
                     {
                         decodedImm = 0;
-                        immBitWidth = 0;
+                        decodedImmBitWidth = 0;
                     }
                     break;
                 case 'J':
                     if (context.cpuState.isRegisterDefined(decodedRjRtFt))
                     {
                         decodedImm = context.cpuState.getReg(decodedRjRtFt);
-                        immBitWidth = 32;
+                        decodedImmBitWidth = 32;
                     }
                     else
                     {
                         decodedImm = 0;
-                        immBitWidth = 0;
+                        decodedImmBitWidth = 0;
                     }
                     break;
 
@@ -327,7 +331,7 @@ public class FrStatement extends Statement {
                 case 'Y':
                     throw new RuntimeException("no more X or Y : operand parsing is now done in decodeOperands()");
                 case 'a':
-                    pos = immBitWidth;
+                    pos = decodedImmBitWidth;
                     while (pos >= 8){
                         pos -= 8;
                         currentBuffer.append(Format.asAscii(decodedImm >> pos));
@@ -336,18 +340,18 @@ public class FrStatement extends Statement {
                 case 'b':
                     /* shift2 */
                     decodedImm += 16;
-                    immBitWidth += 1;
+                    decodedImmBitWidth += 1;
                     break;
                 case 'c':
                     /* coprocessor operation */
-                    currentBuffer.append((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x") + Format.asHex(c, 2));
+                    currentBuffer.append((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x") + Format.asHex(decodedC, 2));
                     break;
                 case 'd':
                     /* unsigned decimal */
                     currentBuffer.append(decodedImm);
                     break;
                 case 'f':
-                    pos = immBitWidth >> 1;
+                    pos = decodedImmBitWidth >> 1;
 
                     tmp = (int)(((1L << pos) - 1) & (decodedImm >> pos));
                     int tmq = (int)(((1L << pos) - 1) & decodedImm);
@@ -381,45 +385,45 @@ public class FrStatement extends Statement {
                     break;
                 case 'n':
                     /* negative constant */
-                    currentBuffer.append(Format.asHexInBitsLength("-" + (outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), -BinaryArithmetics.negativeExtend(immBitWidth, decodedImm), immBitWidth + 1));
+                    currentBuffer.append(Format.asHexInBitsLength("-" + (outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), -BinaryArithmetics.negativeExtend(decodedImmBitWidth, decodedImm), decodedImmBitWidth + 1));
                     break;
                 case 'p':
                     /* pair */
-                    pos = immBitWidth >> 1;
+                    pos = decodedImmBitWidth >> 1;
                     currentBuffer.append(Format.asHexInBitsLength((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), ((1 << pos) - 1) & (decodedImm >> pos), pos));
                     currentBuffer.append(fmt_nxt);
                     currentBuffer.append(Format.asHexInBitsLength((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), ((1 << pos) - 1) & decodedImm, pos));
                     break;
                 case 'q':
                     /* rational */
-                    pos = immBitWidth >> 1;
+                    pos = decodedImmBitWidth >> 1;
                     currentBuffer.append(((1L << pos) - 1) & (decodedImm >> pos));
                     currentBuffer.append("/");
                     currentBuffer.append(((1L << pos) - 1) & decodedImm);
                     break;
                 case 'r':
                     /* relative */
-                    decodedImm = context.cpuState.pc + 2 + BinaryArithmetics.signExtend(immBitWidth, decodedImm);
-                    immBitWidth = 32;
+                    decodedImm = context.cpuState.pc + 2 + BinaryArithmetics.signExtend(decodedImmBitWidth, decodedImm);
+                    decodedImmBitWidth = 32;
                     break;
                 case 's':
                     /* signed constant */
-                    if (BinaryArithmetics.isNegative(immBitWidth, decodedImm))
+                    if (BinaryArithmetics.isNegative(decodedImmBitWidth, decodedImm))
                     {
                         /* avoid "a+-b" : remove the last "+" so that output is "a-b" */
                         if (outputOptions.contains(OutputOption.CSTYLE) && (currentBuffer.charAt(currentBuffer.length() - 1) == '+')) {
                             currentBuffer.delete(currentBuffer.length() - 1, currentBuffer.length() - 1);
                         }
-                        currentBuffer.append(Format.asHexInBitsLength("-" + (outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), BinaryArithmetics.neg(immBitWidth, decodedImm), immBitWidth));
+                        currentBuffer.append(Format.asHexInBitsLength("-" + (outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), BinaryArithmetics.neg(decodedImmBitWidth, decodedImm), decodedImmBitWidth));
                     }
                     else
                     {
-                        currentBuffer.append(Format.asHexInBitsLength((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), decodedImm, immBitWidth - 1));
+                        currentBuffer.append(Format.asHexInBitsLength((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), decodedImm, decodedImmBitWidth - 1));
                     }
                     break;
                 case 'u':
                     /* unsigned constant */
-                    currentBuffer.append(Format.asHexInBitsLength((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), decodedImm, immBitWidth));
+                    currentBuffer.append(Format.asHexInBitsLength((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x"), decodedImm, decodedImmBitWidth));
                     break;
                 case 'v':
                     /* vector */
@@ -429,7 +433,7 @@ public class FrStatement extends Statement {
                     decodedImm |= 0x100;
                     break;
                 case 'y':
-                    c += 8; // use high register list
+                    decodedC += 8; // use high register list
                     // continue with case 'z'
                 case 'z':
                     /* register list */
@@ -445,7 +449,7 @@ public class FrStatement extends Statement {
                                     first = false;
                                 else
                                     currentBuffer.append(",");
-                                currentBuffer.append(FrCPUState.registerLabels[c + 7 - i]);
+                                currentBuffer.append(FrCPUState.registerLabels[decodedC + 7 - i]);
                             }
                         }
                     } else {
@@ -457,7 +461,7 @@ public class FrStatement extends Statement {
                                     first = false;
                                 else
                                     currentBuffer.append(",");
-                                currentBuffer.append(FrCPUState.registerLabels[c + i]);
+                                currentBuffer.append(FrCPUState.registerLabels[decodedC + i]);
                             }
                         }
                     }
@@ -596,6 +600,58 @@ public class FrStatement extends Statement {
         return out;
     }
 
+    @Override
+    public void captureOperands(StatementContext context, StatementSnapshot snapshot) {
+        snapshot.clear(context.cpuState.pc);
+        for (int i = 0; i < numData; i++) {
+            snapshot.addCodeWord(data[i]);
+        }
+        // Only follows the format chars of formatOperandsAndComment() that select or read registers or memory
+        int riRsFs = ri_rs_fs;
+        int rjRtFt = rj_rt_ft;
+        boolean writeDirection = false;
+        String operandFormat = getInstruction().getOperandFormat();
+        for (int i = 0; i < operandFormat.length(); i++) {
+            char formatChar = operandFormat.charAt(i);
+            switch (formatChar) {
+                case 'g':
+                    riRsFs += FrCPUState.DEDICATED_REG_OFFSET;
+                    break;
+                case 'h':
+                    rjRtFt += FrCPUState.DEDICATED_REG_OFFSET;
+                    break;
+                case 'k':
+                    riRsFs += FrCPUState.COPROCESSOR_REG_OFFSET;
+                    break;
+                case 'l':
+                    rjRtFt += FrCPUState.COPROCESSOR_REG_OFFSET;
+                    break;
+                case 'I':
+                    snapshot.captureRegister(context.cpuState, riRsFs);
+                    break;
+                case 'J':
+                    snapshot.captureRegister(context.cpuState, rjRtFt);
+                    break;
+                case 'm':
+                    writeDirection = true;
+                    break;
+                case 'G':
+                case 'H':
+                case 'E':
+                    if (context.cpuState.isRegisterDefined(rjRtFt)) {
+                        snapshot.captureRegister(context.cpuState, rjRtFt);
+                        if (writeDirection) {
+                            snapshot.captureRegister(context.cpuState, riRsFs);
+                        }
+                        else {
+                            snapshot.captureMemory(context.memory, context.cpuState.getReg(rjRtFt), (formatChar == 'E') ? 1 : (formatChar == 'H') ? 2 : 4);
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
     public String getFormattedBinaryStatement() {
         String out = "";
         for (int i = 0; i < 3; ++i) {
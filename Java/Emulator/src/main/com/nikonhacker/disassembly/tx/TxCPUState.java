@@ -4,7 +4,6 @@ import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.disassembly.OutputOption;
 import com.nikonhacker.disassembly.Register32;
-import com.nikonhacker.disassembly.WriteListenerRegister32;
 import com.nikonhacker.emu.CpuPowerModeChangeListener;
 import com.nikonhacker.emu.interrupt.InterruptRequest;
 import com.nikonhacker.emu.interrupt.tx.TxInterruptRequest;
@@ -324,7 +323,18 @@ public class TxCPUState extends CPUState {
 
     // Fields
 
-    private Register32[][] shadowRegisterSets;
+    /**
+     * The 8 register sets. regValue points to the current one.
+     * Registers shared between sets are only up to date in the current set, and are copied upon switching
+     */
+    private int[][] shadowRegisterSets;
+
+    /**
+     * Register set objects, as stored by former versions. Only used to read old states and preferences
+     */
+    private Register32[][] legacyShadowRegisterSets;
+
+    private int currentRegisterSet;
 
     private PowerMode powerMode = PowerMode.IDLE;
 
@@ -412,103 +422,92 @@ public class TxCPUState extends CPUState {
     }
 
     public int getShadowReg(int registerSet, int registerNumber) {
-        return shadowRegisterSets[registerSet][registerNumber].getValue();
+        if (registerSet == currentRegisterSet || isSharedRegister(registerNumber, registerSet, currentRegisterSet)) {
+            return regValue[registerNumber];
+        }
+        return shadowRegisterSets[registerSet][registerNumber];
     }
 
-    public void reset() {
-        powerMode = PowerMode.RUN;
-        shadowRegisterSets = new Register32[8][registerLabels.length];
-        regValue = shadowRegisterSets[0];
-
-        Register32 reg0 = new NullRegister32();
-
-        // All general registers have different values in each set (except 0 is dummy)
-        for (int registerSet = 0; registerSet < 8; registerSet++) {
-            // register 0 is dummy
-            shadowRegisterSets[registerSet][0] = reg0;
-            // base layout : all sets have separate register values
-            for (int i = 1; i < HI; i++) {
-                shadowRegisterSets[registerSet][i] = new Register32(0);
-            }
-        }
+    /**
+     * Tests if the given register holds the same value in both given register sets:
+     * r26-27-28 are common to all sets, r29 is separate in set 0 but common to sets 1-7,
+     * and all registers starting from HI are a single set
+     */
+    private static boolean isSharedRegister(int registerNumber, int registerSet1, int registerSet2) {
+        return registerNumber >= HI
+                || (registerNumber >= K0 && registerNumber <= GP)
+                || (registerNumber == SP && registerSet1 != 0 && registerSet2 != 0);
+    }
 
-        // patch exceptions: r26-27-28 are common to all sets
-        for (int registerSet = 1; registerSet < 8; registerSet++) {
-            //noinspection ManualArrayCopy
-            for (int i = 26; i <= 28; i++) {
-                shadowRegisterSets[registerSet][i] = shadowRegisterSets[0][i];
+    /**
+     * Makes the given register set current, carrying over the values of shared registers
+     * @param registerSet
+     */
+    private void switchRegisterSet(int registerSet) {
+        if (registerSet != currentRegisterSet) {
+            int[] newRegValue = shadowRegisterSets[registerSet];
+            System.arraycopy(regValue, K0, newRegValue, K0, GP - K0 + 1);
+            if (isSharedRegister(SP, currentRegisterSet, registerSet)) {
+                newRegValue[SP] = regValue[SP];
             }
+            System.arraycopy(regValue, HI, newRegValue, HI, regValue.length - HI);
+            regValue = newRegValue;
+            currentRegisterSet = registerSet;
         }
+    }
 
-        // other exception: r29 is separate in set 0, but common to sets 1-7
-        for (int registerSet = 2; registerSet < 8; registerSet++) {
-            shadowRegisterSets[registerSet][29] = shadowRegisterSets[1][29];
+    /**
+     * Register 0 is hardwired to 0, and Status, Cause, IER and SSCR have side effects (in all register sets).
+     * All other registers are plain values.
+     */
+    @Override
+    public void setReg(int registerNumber, int newValue) {
+        if (registerNumber == 0) {
+            return;
         }
-
-        // All registers starting from HI are a single set, so share them
-        for (int i = HI; i < regValue.length; i++) {
-            Register32 r = new Register32();
-            for (int registerSet = 0; registerSet < 8; registerSet++) {
-               shadowRegisterSets[registerSet][i] = r;
-            }
+        regValue[registerNumber] = newValue;
+        if (registerNumber >= Status && registerNumber <= SSCR) {
+            afterControlRegisterWrite(registerNumber, newValue);
         }
+    }
 
-        // Finally, create special registers with listeners:
-
-        // Status register (in all register sets) is special because it can trigger a software interrupt
-        shadowRegisterSets[0][Status] = new WriteListenerRegister32(new WriteListenerRegister32.WriteListener() {
-            @Override
-            public void afterWrite(int newValue) {
-                checkSoftwareInterruptGeneration();
-            }
-        });
-
-        // Cause register (in all register sets) is special because it can trigger a software interrupt
-        shadowRegisterSets[0][Cause] = new WriteListenerRegister32(new WriteListenerRegister32.WriteListener() {
-            @Override
-            public void afterWrite(int newValue) {
+    private void afterControlRegisterWrite(int registerNumber, int newValue) {
+        switch (registerNumber) {
+            case Status:
+            case Cause:
+                // Status and Cause registers can trigger a software interrupt
                 checkSoftwareInterruptGeneration();
-            }
-        });
-
-        // IER register (in all register sets) is special because it toggles the IE bit
-        shadowRegisterSets[0][IER] = new WriteListenerRegister32(new WriteListenerRegister32.WriteListener() {
-            @Override
-            public void afterWrite(int newValue) {
+                break;
+            case IER:
+                // IER register toggles the IE bit
                 if (newValue == 0) {
                     clearStatusIE();
                 }
                 else {
                     setStatusIE();
                 }
-            }
-        });
-
-        // SSCR register (in all register sets) is special because it switches the current register set
-        shadowRegisterSets[0][SSCR] = new WriteListenerRegister32(new WriteListenerRegister32.WriteListener() {
-            @Override
-            public void afterWrite(int newValue) {
+                break;
+            case SSCR:
                 if (isSscrSSDSet()) {
                     /* SSD = Shadow Set Disable.
                      * When the SSD bit is set, the Shadow Register Set is not updated by any interruptions,
                      * only shadow set 0 is accessible, and the value of the CSS field is ignored.
                      */
-                    regValue = shadowRegisterSets[0];
+                    switchRegisterSet(0);
                 }
                 else {
                     /* Otherwise, switch to corresponding register set. */
-                    regValue = shadowRegisterSets[newValue & Sscr_CSS_mask];
+                    switchRegisterSet(newValue & Sscr_CSS_mask);
                 }
-            }
-        });
-
-        // And point to them in all register sets
-        for (int registerSet = 1; registerSet < 8; registerSet++) {
-            shadowRegisterSets[registerSet][Status] = shadowRegisterSets[0][Status];
-            shadowRegisterSets[registerSet][Cause] = shadowRegisterSets[0][Cause];
-            shadowRegisterSets[registerSet][IER] = shadowRegisterSets[0][IER];
-            shadowRegisterSets[registerSet][SSCR] = shadowRegisterSets[0][SSCR];
+                break;
         }
+    }
+
+    public void reset() {
+        powerMode = PowerMode.RUN;
+        shadowRegisterSets = new int[8][registerLabels.length];
+        currentRegisterSet = 0;
+        regValue = shadowRegisterSets[0];
 
         regValidityBitmap = 0;
 
@@ -523,12 +522,8 @@ public class TxCPUState extends CPUState {
     @Override
     public void clear() {
         setPc(0);
-        for (int registerSet = 0; registerSet < 8; registerSet++) {
-            regValue = shadowRegisterSets[registerSet];
-            for (int i = 0; i < regValue.length; i++) {
-                setReg(i, 0);
-            }
-        }
+        shadowRegisterSets = new int[8][registerLabels.length];
+        currentRegisterSet = 0;
         regValue = shadowRegisterSets[0];
 
         regValidityBitmap = 0;
@@ -538,7 +533,7 @@ public class TxCPUState extends CPUState {
     public TxCPUState createCopy() {
         TxCPUState cloneCpuState = new TxCPUState();
         for (int i = 0; i < regValue.length; i++) {
-            cloneCpuState.regValue[i] = new Register32(regValue[i].getValue());
+            cloneCpuState.regValue[i] = regValue[i];
         }
         cloneCpuState.regValidityBitmap = regValidityBitmap;
         cloneCpuState.pc = pc;
@@ -547,12 +542,40 @@ public class TxCPUState extends CPUState {
     }
 
 
+    /**
+     * This method makes sure loading a state or prefs saved by a former version
+     * converts register set objects to plain values
+     */
+    @Override
+    protected Object readResolve() {
+        super.readResolve();
+        if (legacyShadowRegisterSets != null) {
+            shadowRegisterSets = new int[legacyShadowRegisterSets.length][];
+            for (int registerSet = 0; registerSet < legacyShadowRegisterSets.length; registerSet++) {
+                shadowRegisterSets[registerSet] = new int[legacyShadowRegisterSets[registerSet].length];
+                for (int i = 0; i < legacyShadowRegisterSets[registerSet].length; i++) {
+                    shadowRegisterSets[registerSet][i] = legacyShadowRegisterSets[registerSet][i].getValue();
+                }
+            }
+            legacyShadowRegisterSets = null;
+            // Former versions had regValue point to the set selected by SSCR
+            currentRegisterSet = isSscrSSDSet() ? 0 : (regValue[SSCR] & Sscr_CSS_mask);
+            shadowRegisterSets[currentRegisterSet] = regValue;
+        }
+        return this;
+    }
+
+    @Override
+    protected int getExtraState() {
+        return is16bitIsaMode ? 1 : 0;
+    }
+
     public PowerMode getPowerMode() {
         return powerMode;
     }
 
     public void setPowerMode(PowerMode powerMode) {
-        // TODO actually halt or restart processor
+        // While not in RUN mode, the TxEmulator stops executing instructions if idle fast-forward is enabled
         for (CpuPowerModeChangeListener cpuPowerModeChangeListener : cpuPowerModeChangeListeners) {
             cpuPowerModeChangeListener.onCpuPowerModeChange(powerMode);
         }
@@ -565,7 +588,7 @@ public class TxCPUState extends CPUState {
      *   @param val The desired float value for the register.
      **/
     public void setRegisterToFloat(int reg, float val){
-        regValue[reg].setValue(Float.floatToRawIntBits(val));
+        setReg(reg, Float.floatToRawIntBits(val));
     }
 
     /**
@@ -575,7 +598,7 @@ public class TxCPUState extends CPUState {
      *   @param val The desired int bit pattern for the register.
      **/
     public void setRegisterToInt(int reg, int val){
-        regValue[reg].setValue(val);
+        setReg(reg, val);
     }
 
     /**
@@ -592,8 +615,8 @@ public class TxCPUState extends CPUState {
             throw new InvalidRegisterAccessException();
         }
         long bits = Double.doubleToRawLongBits(val);
-        regValue[reg+1].setValue(Format.highOrderLongToInt(bits));  // high order 32 bits
-        regValue[reg].setValue(Format.lowOrderLongToInt(bits)); // low order 32 bits
+        setReg(reg+1, Format.highOrderLongToInt(bits));  // high order 32 bits
+        setReg(reg, Format.lowOrderLongToInt(bits)); // low order 32 bits
     }
 
     /**
@@ -611,8 +634,8 @@ public class TxCPUState extends CPUState {
         if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
         }
-        regValue[reg+1].setValue(Format.highOrderLongToInt(val));  // high order 32 bits
-        regValue[reg].setValue(Format.lowOrderLongToInt(val)); // low order 32 bits
+        setReg(reg+1, Format.highOrderLongToInt(val));  // high order 32 bits
+        setReg(reg, Format.lowOrderLongToInt(val)); // low order 32 bits
     }
 
 
@@ -623,7 +646,7 @@ public class TxCPUState extends CPUState {
      **/
 
     public float getFloatFromRegister(int reg){
-        return Float.intBitsToFloat(regValue[reg].getValue());
+        return Float.intBitsToFloat(regValue[reg]);
     }
 
     /**
@@ -637,7 +660,7 @@ public class TxCPUState extends CPUState {
         if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
         }
-        return Double.longBitsToDouble(Format.twoIntsToLong(regValue[reg + 1].getValue(), regValue[reg].getValue()));
+        return Double.longBitsToDouble(Format.twoIntsToLong(regValue[reg + 1], regValue[reg]));
     }
 
     /**
@@ -652,7 +675,7 @@ public class TxCPUState extends CPUState {
         if (reg % 2 != 0) {
             throw new InvalidRegisterAccessException();
         }
-        return Format.twoIntsToLong(regValue[reg + 1].getValue(), regValue[reg].getValue());
+        return Format.twoIntsToLong(regValue[reg + 1], regValue[reg]);
     }
 
 
@@ -1076,14 +1099,14 @@ public class TxCPUState extends CPUState {
     }
 
     /** This method sets the SSD bit of SSCR.
-     * This will result in switching to register set 0 via the WriteListener on this register
+     * This will result in switching to register set 0 by setReg()
      */
     public void setSscrSSD() {
         setReg(SSCR, Format.setBit(getReg(SSCR), Sscr_SSD_pos));
     }
 
     /** This method clears the SSD bit of SSCR.
-     * This will result in switching to register set according to current CSS value via the WriteListener on this register
+     * This will result in switching to register set according to current CSS value by setReg()
      */
     public void clearSscrSSD() {
         setReg(SSCR, Format.clearBit(getReg(SSCR), Sscr_SSD_pos));
@@ -1107,7 +1130,7 @@ public class TxCPUState extends CPUState {
     }
 
     /** This method sets the CSS field of SSCR.
-     * This will result in switching to the corresponding register set via the WriteListener on this register
+     * This will result in switching to the corresponding register set by setReg()
      */
     public void setSscrCSS(int css) {
         setReg(SSCR, (getReg(SSCR) & ~Sscr_CSS_mask) | (css /*<< Sscr_CSS_pos = 0*/));
@@ -26,6 +26,8 @@ public class TxStatement extends Statement {
 
     /** coprocessor operation (not implemented yet in operand parsing, only for display) */
     private int c;
+    /** interpreted coprocessor operation, sometimes shifted to the high register list */
+    private int decodedC;
 
     /** start of decoded memory block (used only for display in "v"ector format */
     private int memRangeStart = 0;
@@ -396,6 +398,7 @@ public class TxStatement extends Statement {
         /* DISPLAY FORMAT processing */
         decodedImm = imm;
         decodedImmBitWidth = immBitWidth;
+        decodedC = c;
 
         setOperandString(format(context, outputOptions, instruction.getOperandFormat()));
 
@@ -719,7 +722,7 @@ public class TxStatement extends Statement {
                     break;
                 case 'c':
                     /* coprocessor operation */
-                    buffer.append((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x") + Format.asHex(c, 2));
+                    buffer.append((outputOptions.contains(OutputOption.DOLLAR)?"$":"0x") + Format.asHex(decodedC, 2));
                     break;
                 case 'd':
                     /* unsigned decimal */
@@ -876,7 +879,7 @@ public class TxStatement extends Statement {
                     decodedImm |= 0x100;
                     break;
                 case 'y':
-                    c += 8;
+                    decodedC += 8;
                     // goto case 'z'; /*FALLTHROUGH*/
                 case 'z':
                     /* register list */
@@ -953,6 +956,103 @@ public class TxStatement extends Statement {
         }
     }
 
+    @Override
+    public void captureOperands(StatementContext context, StatementSnapshot snapshot) {
+        snapshot.clear(context.cpuState.pc);
+        snapshot.is16bitIsaMode = ((TxCPUState) context.cpuState).is16bitIsaMode;
+        if (numBytes == 4) {
+            snapshot.addCodeWord(binaryStatement >>> 16);
+        }
+        snapshot.addCodeWord(binaryStatement);
+
+        // Only follows the format chars of format() that change the immediate or read registers or memory,
+        // as the address of a memory operand depends on both
+        int immValue = imm;
+        int immValueBitWidth = immBitWidth;
+        for (int part = 0; part < 2; part++) {
+            String formatString = (part == 0) ? instruction.getOperandFormat() : instruction.getCommentFormat();
+            int offset = 0;
+            boolean writeDirection = false;
+            for (int i = 0; i < formatString.length(); i++) {
+                char formatChar = formatString.charAt(i);
+                switch (formatChar) {
+                    case '2':
+                        immValue <<= 1;
+                        immValueBitWidth += 1;
+                        break;
+                    case '4':
+                        immValue <<= 2;
+                        immValueBitWidth += 2;
+                        break;
+                    case '8':
+                        immValue <<= 3;
+                        immValueBitWidth += 3;
+                        break;
+                    case 'b':
+                        immValue += 16;
+                        immValueBitWidth += 1;
+                        break;
+                    case 'x':
+                        immValue |= 0x100;
+                        break;
+                    case 'I':
+                    case 'J':
+                    case 'K':
+                        int register = (formatChar == 'I') ? ri_rs_fs : (formatChar == 'J') ? rj_rt_ft : rd_fd;
+                        if (context.cpuState.isRegisterDefined(register)) {
+                            snapshot.captureRegister(context.cpuState, register);
+                            immValue = context.cpuState.getReg(register);
+                            immValueBitWidth = 32;
+                        }
+                        else {
+                            immValue = 0;
+                            immValueBitWidth = 0;
+                        }
+                        break;
+                    case 'r':
+                        offset = context.cpuState.pc + numBytes;
+                        break;
+                    case 'R':
+                        offset = context.cpuState.pc & 0xF0000000;
+                        break;
+                    case 's':
+                        if (offset != 0) {
+                            immValue = offset + BinaryArithmetics.signExtend(immValueBitWidth, immValue);
+                            immValueBitWidth = 32;
+                        }
+                        break;
+                    case 'u':
+                        if (offset != 0) {
+                            immValue = offset + immValue;
+                            immValueBitWidth = 32;
+                        }
+                        break;
+                    case 'm':
+                        writeDirection = true;
+                        break;
+                    case 'e':
+                    case 'h':
+                    case 'g':
+                        if (context.cpuState.isRegisterDefined(ri_rs_fs)) {
+                            snapshot.captureRegister(context.cpuState, ri_rs_fs);
+                            offset = context.cpuState.getReg(ri_rs_fs);
+                            if (immValueBitWidth < 8)
+                                offset += immValue;
+                            else
+                                offset += BinaryArithmetics.signExtend(immValueBitWidth, immValue);
+                            if (writeDirection) {
+                                snapshot.captureRegister(context.cpuState, rj_rt_ft);
+                            }
+                            else {
+                                snapshot.captureMemory(context.memory, offset, (formatChar == 'e') ? 1 : (formatChar == 'h') ? 2 : 4);
+                            }
+                        }
+                        break;
+                }
+            }
+        }
+    }
+
     @Override
     public int getNumBytes() {
         return numBytes;
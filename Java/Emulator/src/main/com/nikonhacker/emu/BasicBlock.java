@@ -0,0 +1,74 @@
+package com.nikonhacker.emu;
+
+import com.nikonhacker.disassembly.SimulationCode;
+import com.nikonhacker.disassembly.Statement;
+
+import java.util.List;
+
+/**
+ * A basic block is a run of statements that execute one after the other, ending with the first statement
+ * that may change the program flow (followed by its delay slot, if any).
+ * Statements are decoded and linked to their simulation code once, so that executing the block
+ * is a simple loop over pre-bound handlers.
+ */
+public class BasicBlock {
+    /**
+     * Maximum number of statements in a block.
+     * This is also the number of steps unrolled in ClonedBlockTemplate, so that every hot block can be cloned
+     */
+    public static final int MAX_STATEMENTS = 16;
+
+    /** Address of the first statement */
+    final int startPc;
+
+    /** Number of bytes of code the block was built from */
+    final int numBytes;
+
+    final Statement[]      statements;
+    final SimulationCode[] simulationCodes;
+
+    /** Address of the statement following each statement, when executed sequentially */
+    final int[] nextPcs;
+
+    /** Successors already reached from this block, so that they don't have to be looked up again */
+    BasicBlock successor1;
+    int        successor1Generation;
+    BasicBlock successor2;
+    int        successor2Generation;
+
+    /** Number of interpreted executions, to detect hot blocks */
+    int             executionCount;
+    /** Clone of the block, once it is hot */
+    ClonedBlock clonedBlock;
+
+    /** Result of the last breakpoint check, valid as long as break conditions have not changed */
+    int     breakConditionsVersion = -1;
+    boolean containsBreakPoint;
+
+    BasicBlock(int startPc, List<Statement> statements, int endPc) {
+        this.startPc = startPc;
+        this.numBytes = endPc - startPc;
+        int size = statements.size();
+        this.statements = statements.toArray(new Statement[size]);
+        this.simulationCodes = new SimulationCode[size];
+        this.nextPcs = new int[size];
+        int pc = startPc;
+        for (int i = 0; i < size; i++) {
+            simulationCodes[i] = this.statements[i].getInstruction().getSimulationCode();
+            pc += this.statements[i].getNumBytes();
+            nextPcs[i] = pc;
+        }
+    }
+
+    public int getStartPc() {
+        return startPc;
+    }
+
+    public int getNumBytes() {
+        return numBytes;
+    }
+
+    public int size() {
+        return statements.length;
+    }
+}
@@ -0,0 +1,110 @@
+package com.nikonhacker.emu;
+
+import com.nikonhacker.Format;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class gives each hot basic block its own clone of a generic block class.
+ *
+ * No code is generated: each clone is a copy of ClonedBlockTemplate, defined by its own class loader and bound
+ * to the statements of one block. As the JIT profiles each copy separately, every call site in it is
+ * monomorphic, so the simulation code of the statements can be inlined into the clone instead of being
+ * dispatched through the megamorphic interpreter loop.
+ * The statements keep their usual semantics: emulated registers are still read from and written to the
+ * CPU state by the simulation code, and memory is accessed the same way as when interpreting.
+ * A clone belongs to its block, so it is discarded as soon as the code page of the block is written to.
+ *
+ * Each cloner keeps at most MAX_CLONED_BLOCKS clones alive. Beyond that, the oldest clone is dropped and its
+ * block goes back to interpretation (it will be cloned again if it is still hot), so that its class loader
+ * and class can be unloaded and the space used by cloned classes stays bounded.
+ */
+public class BlockCloner {
+    private static final boolean DEBUG_CLONING = false;
+
+    /** Number of interpreted executions after which a block gets cloned */
+    public static final int HOT_THRESHOLD = 5000;
+
+    /** Maximum number of blocks having a clone at a given time */
+    public static final int MAX_CLONED_BLOCKS = 2048;
+
+    private static final String TEMPLATE_CLASS_NAME = ClonedBlockTemplate.class.getName();
+
+    private static byte[] templateBytes;
+
+    /** Cloned blocks, in cloning order. nextSlot is the oldest one once the array is full */
+    private final BasicBlock[] clonedBlocks = new BasicBlock[MAX_CLONED_BLOCKS];
+    private       int          nextSlot;
+
+    /**
+     * @param block a hot basic block
+     * @return a clone bound to the block, or null if it cannot be cloned
+     */
+    public ClonedBlock createClone(BasicBlock block) {
+        ClonedBlock clonedBlock;
+        try {
+            Class<?> blockClass = new BlockClassLoader(getTemplateBytes()).loadClass(TEMPLATE_CLASS_NAME);
+            clonedBlock = (ClonedBlock) blockClass.getDeclaredConstructor().newInstance();
+            clonedBlock.bind(block.statements, block.simulationCodes, block.nextPcs);
+        }
+        catch (Exception e) {
+            // The block just keeps being interpreted
+            if (DEBUG_CLONING) System.err.println("Could not clone block at 0x" + Format.asHex(block.getStartPc(), 8) + ": " + e);
+            return null;
+        }
+
+        BasicBlock oldestBlock = clonedBlocks[nextSlot];
+        if (oldestBlock != null) {
+            oldestBlock.clonedBlock = null;
+            oldestBlock.executionCount = 0;
+        }
+        clonedBlocks[nextSlot] = block;
+        nextSlot = (nextSlot + 1) % MAX_CLONED_BLOCKS;
+        return clonedBlock;
+    }
+
+    private static synchronized byte[] getTemplateBytes() throws IOException {
+        if (templateBytes == null) {
+            InputStream inputStream = ClonedBlockTemplate.class.getResourceAsStream(ClonedBlockTemplate.class.getSimpleName() + ".class");
+            if (inputStream == null) {
+                throw new IOException("Template class file not found");
+            }
+            try {
+                templateBytes = IOUtils.toByteArray(inputStream);
+            }
+            finally {
+                inputStream.close();
+            }
+        }
+        return templateBytes;
+    }
+
+    /**
+     * Defines its own copy of the template class, and delegates all other classes to the emulator's class loader
+     */
+    private static class BlockClassLoader extends ClassLoader {
+        private final byte[] classBytes;
+
+        BlockClassLoader(byte[] classBytes) {
+            super(BlockCloner.class.getClassLoader());
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (TEMPLATE_CLASS_NAME.equals(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    c = defineClass(name, classBytes, 0, classBytes.length);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nikonhacker.emu;
+
+import com.nikonhacker.disassembly.SimulationCode;
+import com.nikonhacker.disassembly.Statement;
+import com.nikonhacker.disassembly.StatementContext;
+
+/**
+ * A basic block executed by its own class, so that the JVM can inline the simulation code of each statement.
+ * See BlockCloner
+ */
+public interface ClonedBlock {
+    /**
+     * Binds this clone to the statements of a basic block
+     * @param statements the decoded statements
+     * @param simulationCodes the simulation code of each statement
+     * @param nextPcs the address following each statement, when executed sequentially
+     */
+    public void bind(Statement[] statements, SimulationCode[] simulationCodes, int[] nextPcs);
+
+    /**
+     * Executes the statements, or until flow leaves the block
+     * @param context the context to execute in
+     * @param emulator the emulator, to perform delay slot processing
+     * @param blockCache the cache the block comes from, to detect self-modifying code
+     * @return the number of cycles used
+     * @throws EmulationException
+     */
+    public int execute(StatementContext context, Emulator emulator, CodeCache<BasicBlock> blockCache) throws EmulationException;
+}
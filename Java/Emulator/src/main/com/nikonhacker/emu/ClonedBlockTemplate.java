@@ -0,0 +1,200 @@
+package com.nikonhacker.emu;
+
+import com.nikonhacker.disassembly.SimulationCode;
+import com.nikonhacker.disassembly.Statement;
+import com.nikonhacker.disassembly.StatementContext;
+
+/**
+ * Template of the classes cloned for hot basic blocks.
+ * BlockCloner defines a copy of this class per block, so that each call site below only ever sees one
+ * SimulationCode implementation and can be inlined by the JIT, whereas the generic loop in Emulator is megamorphic.
+ * The code is unrolled on purpose. Don't turn it into a loop.
+ */
+public final class ClonedBlockTemplate implements ClonedBlock {
+    private int            length;
+
+    private Statement      s0;
+    private SimulationCode c0;
+    private int            n0;
+
+    private Statement      s1;
+    private SimulationCode c1;
+    private int            n1;
+
+    private Statement      s2;
+    private SimulationCode c2;
+    private int            n2;
+
+    private Statement      s3;
+    private SimulationCode c3;
+    private int            n3;
+
+    private Statement      s4;
+    private SimulationCode c4;
+    private int            n4;
+
+    private Statement      s5;
+    private SimulationCode c5;
+    private int            n5;
+
+    private Statement      s6;
+    private SimulationCode c6;
+    private int            n6;
+
+    private Statement      s7;
+    private SimulationCode c7;
+    private int            n7;
+
+    private Statement      s8;
+    private SimulationCode c8;
+    private int            n8;
+
+    private Statement      s9;
+    private SimulationCode c9;
+    private int            n9;
+
+    private Statement      s10;
+    private SimulationCode c10;
+    private int            n10;
+
+    private Statement      s11;
+    private SimulationCode c11;
+    private int            n11;
+
+    private Statement      s12;
+    private SimulationCode c12;
+    private int            n12;
+
+    private Statement      s13;
+    private SimulationCode c13;
+    private int            n13;
+
+    private Statement      s14;
+    private SimulationCode c14;
+    private int            n14;
+
+    private Statement      s15;
+    private SimulationCode c15;
+    private int            n15;
+
+    public ClonedBlockTemplate() {
+    }
+
+    @Override
+    public void bind(Statement[] statements, SimulationCode[] simulationCodes, int[] nextPcs) {
+        length = statements.length;
+        if (length > BasicBlock.MAX_STATEMENTS) {
+            throw new IllegalArgumentException("Block too long to be cloned: " + length + " statements");
+        }
+        Statement[] s = new Statement[BasicBlock.MAX_STATEMENTS];
+        SimulationCode[] c = new SimulationCode[BasicBlock.MAX_STATEMENTS];
+        int[] n = new int[BasicBlock.MAX_STATEMENTS];
+        System.arraycopy(statements, 0, s, 0, length);
+        System.arraycopy(simulationCodes, 0, c, 0, length);
+        System.arraycopy(nextPcs, 0, n, 0, length);
+        s0 = s[0]; c0 = c[0]; n0 = n[0];
+        s1 = s[1]; c1 = c[1]; n1 = n[1];
+        s2 = s[2]; c2 = c[2]; n2 = n[2];
+        s3 = s[3]; c3 = c[3]; n3 = n[3];
+        s4 = s[4]; c4 = c[4]; n4 = n[4];
+        s5 = s[5]; c5 = c[5]; n5 = n[5];
+        s6 = s[6]; c6 = c[6]; n6 = n[6];
+        s7 = s[7]; c7 = c[7]; n7 = n[7];
+        s8 = s[8]; c8 = c[8]; n8 = n[8];
+        s9 = s[9]; c9 = c[9]; n9 = n[9];
+        s10 = s[10]; c10 = c[10]; n10 = n[10];
+        s11 = s[11]; c11 = c[11]; n11 = n[11];
+        s12 = s[12]; c12 = c[12]; n12 = n[12];
+        s13 = s[13]; c13 = c[13]; n13 = n[13];
+        s14 = s[14]; c14 = c[14]; n14 = n[14];
+        s15 = s[15]; c15 = c[15]; n15 = n[15];
+    }
+
+    @Override
+    public int execute(StatementContext context, Emulator emulator, CodeCache<BasicBlock> blockCache) throws EmulationException {
+        final int generation = blockCache.getGeneration();
+        int cycles = 0;
+
+        c0.simulate(s0, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 1 || context.cpuState.pc != n0 || blockCache.getGeneration() != generation) return cycles;
+
+        c1.simulate(s1, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 2 || context.cpuState.pc != n1 || blockCache.getGeneration() != generation) return cycles;
+
+        c2.simulate(s2, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 3 || context.cpuState.pc != n2 || blockCache.getGeneration() != generation) return cycles;
+
+        c3.simulate(s3, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 4 || context.cpuState.pc != n3 || blockCache.getGeneration() != generation) return cycles;
+
+        c4.simulate(s4, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 5 || context.cpuState.pc != n4 || blockCache.getGeneration() != generation) return cycles;
+
+        c5.simulate(s5, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 6 || context.cpuState.pc != n5 || blockCache.getGeneration() != generation) return cycles;
+
+        c6.simulate(s6, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 7 || context.cpuState.pc != n6 || blockCache.getGeneration() != generation) return cycles;
+
+        c7.simulate(s7, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 8 || context.cpuState.pc != n7 || blockCache.getGeneration() != generation) return cycles;
+
+        c8.simulate(s8, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 9 || context.cpuState.pc != n8 || blockCache.getGeneration() != generation) return cycles;
+
+        c9.simulate(s9, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 10 || context.cpuState.pc != n9 || blockCache.getGeneration() != generation) return cycles;
+
+        c10.simulate(s10, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 11 || context.cpuState.pc != n10 || blockCache.getGeneration() != generation) return cycles;
+
+        c11.simulate(s11, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 12 || context.cpuState.pc != n11 || blockCache.getGeneration() != generation) return cycles;
+
+        c12.simulate(s12, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 13 || context.cpuState.pc != n12 || blockCache.getGeneration() != generation) return cycles;
+
+        c13.simulate(s13, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 14 || context.cpuState.pc != n13 || blockCache.getGeneration() != generation) return cycles;
+
+        c14.simulate(s14, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 15 || context.cpuState.pc != n14 || blockCache.getGeneration() != generation) return cycles;
+
+        c15.simulate(s15, context);
+        cycles += context.cycleIncrement;
+        if (context.hasDelayedPc) emulator.processDelaySlot();
+        if (length == 16 || context.cpuState.pc != n15 || blockCache.getGeneration() != generation) return cycles;
+
+        return cycles;
+    }
+}
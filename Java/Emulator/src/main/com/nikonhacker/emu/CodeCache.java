@@ -0,0 +1,102 @@
+package com.nikonhacker.emu;
+
+import com.nikonhacker.emu.memory.DebuggableMemory;
+import com.nikonhacker.emu.memory.listener.CodePageWriteListener;
+
+/**
+ * This class keeps objects derived from code (e.g. already decoded statements or basic blocks), indexed by the
+ * address they were built from, so that the emulator does not have to fetch and decode them again each time
+ * they are executed.
+ * Entries are organized per memory page, and a page is dropped as soon as memory reports it was written to,
+ * so that self-modifying or copied code is decoded again.
+ */
+public class CodeCache<T> implements CodePageWriteListener {
+    private static final int OFFSET_BITS = 16;
+    private static final int NUM_PAGES   = 0x10000;
+
+    private final DebuggableMemory memory;
+
+    /** log2 of the minimum instruction alignment */
+    private final int alignmentBits;
+
+    private final Object[][] pages = new Object[NUM_PAGES][];
+
+    /** Incremented each time entries are dropped, so that holders of entries can detect they may be stale */
+    private int generation;
+
+    /**
+     * Creates a cache for the given memory
+     * @param memory the memory code is fetched from
+     * @param alignmentBits log2 of the minimum instruction alignment (1 for 16-bit instructions, 2 for 32-bit ones)
+     */
+    public CodeCache(DebuggableMemory memory, int alignmentBits) {
+        this.memory = memory;
+        this.alignmentBits = alignmentBits;
+        memory.addCodePageWriteListener(this);
+    }
+
+    /**
+     * @param pc the address of the code
+     * @return the entry previously stored for that address, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public final T get(int pc) {
+        Object[] page = pages[pc >>> OFFSET_BITS];
+        if (page == null) {
+            return null;
+        }
+        return (T) page[(pc & ((1 << OFFSET_BITS) - 1)) >>> alignmentBits];
+    }
+
+    /**
+     * Stores an entry.
+     * Entries spanning two pages are not cached, as a write to the second page would go unnoticed
+     * @param pc the address of the code
+     * @param numBytes the number of bytes of code the entry was built from
+     * @param entry the entry to store
+     */
+    public void put(int pc, int numBytes, T entry) {
+        int pte = pc >>> OFFSET_BITS;
+        if (((pc + numBytes - 1) >>> OFFSET_BITS) != pte) {
+            return;
+        }
+        Object[] page = pages[pte];
+        if (page == null) {
+            page = new Object[1 << (OFFSET_BITS - alignmentBits)];
+            pages[pte] = page;
+            memory.watchCodePage(pte);
+        }
+        page[(pc & ((1 << OFFSET_BITS) - 1)) >>> alignmentBits] = entry;
+    }
+
+    /**
+     * @return a counter that changes each time entries are dropped
+     */
+    public final int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Drops all cached entries, e.g. because the instruction maps they refer to were rebuilt
+     */
+    public void clear() {
+        for (int pte = 0; pte < NUM_PAGES; pte++) {
+            pages[pte] = null;
+        }
+        generation++;
+    }
+
+    /**
+     * Stops tracking memory modifications, e.g. when the emulator is discarded
+     */
+    public void dispose() {
+        memory.removeCodePageWriteListener(this);
+        clear();
+    }
+
+    @Override
+    public void onCodePageWrite(int pte) {
+        pages[pte] = null;
+        generation++;
+    }
+}
@@ -0,0 +1,19 @@
+package com.nikonhacker.emu;
+
+/**
+ * This interface allows classes to be notified when the emulator reaches a given cycle count,
+ * instead of being called after each instruction.
+ * @see Emulator#scheduleCycleDeadline(CycleDeadlineListener, long)
+ */
+public interface CycleDeadlineListener {
+    /** Value returned by onCycleDeadline() when no further notification is wanted */
+    public static final long NO_DEADLINE = -1;
+
+    /**
+     * This method is called after the instruction during which the requested cycle count was reached
+     * @param deadline the cycle count at which notification was requested. The current count may be a bit further
+     *                 when instructions take several cycles
+     * @return the cycle count at which to be notified next, or NO_DEADLINE
+     */
+    public long onCycleDeadline(long deadline);
+}
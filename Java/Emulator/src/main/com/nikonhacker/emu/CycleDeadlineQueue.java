@@ -0,0 +1,120 @@
+package com.nikonhacker.emu;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap of cycle deadlines, with at most one deadline per listener
+ */
+public class CycleDeadlineQueue {
+    private long[]                  deadlines = new long[4];
+    private CycleDeadlineListener[] listeners = new CycleDeadlineListener[4];
+    private int                     size;
+
+    /**
+     * @return the earliest deadline, or Long.MAX_VALUE if the queue is empty
+     */
+    public long getNextDeadline() {
+        return (size == 0) ? Long.MAX_VALUE : deadlines[0];
+    }
+
+    /**
+     * @return the listener having the earliest deadline, or null if the queue is empty
+     */
+    public CycleDeadlineListener getNextListener() {
+        return (size == 0) ? null : listeners[0];
+    }
+
+    /**
+     * Sets the deadline of the given listener, replacing the previous one if any
+     */
+    public void schedule(CycleDeadlineListener listener, long deadline) {
+        remove(listener);
+        if (size == deadlines.length) {
+            deadlines = Arrays.copyOf(deadlines, size * 2);
+            listeners = Arrays.copyOf(listeners, size * 2);
+        }
+        deadlines[size] = deadline;
+        listeners[size] = listener;
+        siftUp(size++);
+    }
+
+    /**
+     * @return true if the listener had a deadline
+     */
+    public boolean remove(CycleDeadlineListener listener) {
+        for (int i = 0; i < size; i++) {
+            if (listeners[i] == listener) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(CycleDeadlineListener listener) {
+        for (int i = 0; i < size; i++) {
+            if (listeners[i] == listener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(listeners, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void removeAt(int i) {
+        size--;
+        if (i != size) {
+            deadlines[i] = deadlines[size];
+            listeners[i] = listeners[size];
+            siftDown(i);
+            siftUp(i);
+        }
+        listeners[size] = null;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (deadlines[parent] <= deadlines[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            if (left < size && deadlines[left] < deadlines[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && deadlines[left + 1] < deadlines[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == i) {
+                break;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long deadline = deadlines[i];
+        deadlines[i] = deadlines[j];
+        deadlines[j] = deadline;
+        CycleDeadlineListener listener = listeners[i];
+        listeners[i] = listeners[j];
+        listeners[j] = listener;
+    }
+}
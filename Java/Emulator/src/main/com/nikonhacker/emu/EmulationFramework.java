@@ -35,6 +35,7 @@ import com.nikonhacker.emu.peripherials.ioPort.IoPort;
 import com.nikonhacker.emu.peripherials.ioPort.Pin;
 import com.nikonhacker.emu.peripherials.ioPort.fr.FrIoPort;
 import com.nikonhacker.emu.peripherials.ioPort.tx.TxIoPort;
+import com.nikonhacker.emu.peripherials.ioPort.util.ChipBridgeIoWire;
 import com.nikonhacker.emu.peripherials.ioPort.util.FixedSourceComponent;
 import com.nikonhacker.emu.peripherials.jpegCodec.JpegCodec;
 import com.nikonhacker.emu.peripherials.jpegCodec.fr.FrJpegCodec;
@@ -66,6 +67,7 @@ import com.nikonhacker.emu.peripherials.serialInterface.lcd.LcdDriver;
 import com.nikonhacker.emu.peripherials.serialInterface.sensorBridge.Ei155;
 import com.nikonhacker.emu.peripherials.serialInterface.tx.TxHSerialInterface;
 import com.nikonhacker.emu.peripherials.serialInterface.tx.TxSerialInterface;
+import com.nikonhacker.emu.peripherials.serialInterface.util.ChipBridgeSerialWire;
 import com.nikonhacker.emu.peripherials.serialInterface.util.SpiBus;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 import com.nikonhacker.emu.trigger.condition.AlwaysBreakCondition;
@@ -433,7 +435,7 @@ public class EmulationFramework {
             // TODO passing cpu, memory and interrupt controller a second time although they're in the platform
             // TODO sounds weird...
             emulator[chip].setContext(memory, cpuState, interruptController);
-            emulator[chip].clearCycleCounterListeners();
+            emulator[chip].clearCycleDeadlines();
 
             // TODO: let user choose whether he wants to load at reset address or refer to a dfr/dtx file's "-i" option
             // That would allow to load "relocatable" areas at their right place.
@@ -672,21 +674,30 @@ public class EmulationFramework {
         // Reconnect Fr Serial channel 5 with Tx serial interface HSC0
         SerialInterface frSerialInterface5 = frSerialInterfaces[5];
         SerialInterface txSerialInterfaceH0 = txSerialInterfaces[TxIoListener.NUM_SERIAL_IF + 0];
-        frSerialInterface5.connectTargetDevice(txSerialInterfaceH0);
-        txSerialInterfaceH0.connectTargetDevice(frSerialInterface5);
+        frSerialInterface5.connectTargetDevice(new ChipBridgeSerialWire("FR SI5 to TX HSC0", txSerialInterfaceH0, masterClock, Constants.CHIP_FR, Constants.CHIP_TX));
+        txSerialInterfaceH0.connectTargetDevice(new ChipBridgeSerialWire("TX HSC0 to FR SI5", frSerialInterface5, masterClock, Constants.CHIP_TX, Constants.CHIP_FR));
+    }
+
+    /**
+     * Connects a pin of the FR chip to a pin of the TX chip, through a bridge so that chips can run in parallel
+     */
+    private void interconnectChipPins(Pin frPin, Pin txPin) {
+        ChipBridgeIoWire bridge = new ChipBridgeIoWire(frPin.getName() + "-" + txPin.getName(), masterClock, Constants.CHIP_FR, Constants.CHIP_TX);
+        Pin.interconnect(frPin, bridge.getPin1());
+        Pin.interconnect(bridge.getPin2(), txPin);
     }
 
     private void interconnectChipIoPorts(IoPort[] frIoPorts, IoPort[] txIoPorts, final FrInterruptController frInterruptController) {
         // FR 0x50000100.bit5 => TX P53 (INTF), triggered (low) by FR at 001A8CBE and 001A8E24 and set back hi at 001A8E58
-        Pin.interconnect(frIoPorts[IoPort.PORT_0].getPin(5), txIoPorts[IoPort.PORT_5].getPin(3));
+        interconnectChipPins(frIoPorts[IoPort.PORT_0].getPin(5), txIoPorts[IoPort.PORT_5].getPin(3));
 
         // TX PC3 => FR 0x50000107.bit6 (INT16) , tested by FR at 001A885C, 001A8896 (init) and 001A8976 (send header)
-        Pin.interconnect(frIoPorts[IoPort.PORT_7].getPin(6), txIoPorts[IoPort.PORT_C].getPin(3));
+        interconnectChipPins(frIoPorts[IoPort.PORT_7].getPin(6), txIoPorts[IoPort.PORT_C].getPin(3));
 
         // TODO TX ??? => FR 0x5000010B.bit3 (INT23) autofocus reached (for beep)
 
         // TX P45 => FR (INT 0x15)
-        Pin.interconnect(new Pin(Constants.CHIP_LABEL[Constants.CHIP_FR] + " INT0x15") {
+        interconnectChipPins(new Pin(Constants.CHIP_LABEL[Constants.CHIP_FR] + " INT0x15") {
                 @Override
                 public final void setInputValue(int value) {
                     // channel 5 interrupt 0x15
@@ -695,7 +706,7 @@ public class EmulationFramework {
             }, txIoPorts[IoPort.PORT_4].getPin(5));
 
         // TX P50 => FR (INT 0x11)
-        Pin.interconnect(new Pin(Constants.CHIP_LABEL[Constants.CHIP_FR] + " INT0x11") {
+        interconnectChipPins(new Pin(Constants.CHIP_LABEL[Constants.CHIP_FR] + " INT0x11") {
                 @Override
                 public final void setInputValue(int value) {
                     // channel 1 interrupt 0x11
@@ -704,7 +715,7 @@ public class EmulationFramework {
             }, txIoPorts[IoPort.PORT_5].getPin(0));
 
         // FR 50000100.bit4 => TX P52
-        Pin.interconnect(frIoPorts[IoPort.PORT_0].getPin(4), txIoPorts[IoPort.PORT_5].getPin(2));
+        interconnectChipPins(frIoPorts[IoPort.PORT_0].getPin(4), txIoPorts[IoPort.PORT_5].getPin(2));
     }
 
 
@@ -721,6 +732,12 @@ public class EmulationFramework {
             throw new RuntimeException("No Image loaded !");
         }
 
+        // Only plain runs may trade exact interrupt timing for speed
+        emulator[chip].setInterpreter(executionMode == ExecutionMode.RUN ? prefs.getRunInterpreter(chip) : Emulator.Interpreter.INSTRUCTION);
+        // Idle time is skipped in all modes, as long as nothing has to be checked after each instruction
+        emulator[chip].setIdleFastForward(prefs.isIdleFastForward(chip));
+        emulator[chip].setIdleLoopAddresses(parseIdleLoopAddresses(prefs.getIdleLoopAddresses(chip)));
+
         if (executionMode == ExecutionMode.STEP) {
             emulator[chip].addBreakCondition(new AlwaysBreakCondition());
         }
@@ -749,6 +766,28 @@ public class EmulationFramework {
         }
     }
 
+    /**
+     * @param addresses addresses separated by commas or spaces. Invalid ones are reported and ignored
+     */
+    private int[] parseIdleLoopAddresses(String addresses) {
+        List<Integer> addressList = new ArrayList<Integer>();
+        for (String address : addresses.trim().split("[,\\s]+")) {
+            if (address.length() > 0) {
+                try {
+                    addressList.add(Format.parseUnsigned(address));
+                }
+                catch (ParsingException e) {
+                    System.err.println("Ignoring invalid idle loop address '" + address + "': " + e.getMessage());
+                }
+            }
+        }
+        int[] result = new int[addressList.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = addressList.get(i);
+        }
+        return result;
+    }
+
     public void prepareEmulation(final int chip) {
         //System.err.println("Preparing emulation of " + Constants.CHIP_LABEL[chip]);
         isEmulatorPlaying[chip] = true;
@@ -777,6 +816,8 @@ public class EmulationFramework {
 
             platform[chip].getCpuState().pc = BASE_ADDRESS_FUNCTION_CALL[chip];
 
+            emulator[chip].setInterpreter(debugMode ? Emulator.Interpreter.INSTRUCTION : prefs.getRunInterpreter(chip));
+
             if (debugMode) {
                 for (BreakTrigger breakTrigger : prefs.getTriggers(chip)) {
                     if (breakTrigger.mustBreak() || breakTrigger.mustBeLogged()) {
@@ -828,6 +869,15 @@ public class EmulationFramework {
 
         // Don't store disassembled code via XStream (Java heap overflow)
         xStream.omitField(EmulationFramework.class, "codeStructure");
+        xStream.omitField(FrEmulator.class, "statementCache");
+        xStream.omitField(FrEmulator.class, "blockCache");
+        xStream.omitField(TxEmulator.class, "statementCache16");
+        xStream.omitField(TxEmulator.class, "statementCache32");
+        xStream.omitField(TxEmulator.class, "blockCache16");
+        xStream.omitField(TxEmulator.class, "blockCache32");
+        xStream.omitField(Emulator.class, "blockCloner");
+        xStream.omitField(Emulator.class, "skippedIdleTicks");
+        xStream.omitField(Emulator.class, "statementFormatter");
 
         // Don't store prefs
         xStream.omitField(EmulationFramework.class, "prefs");
@@ -838,6 +888,21 @@ public class EmulationFramework {
 
         // Don't store callback handler
         xStream.omitField(MasterClock.class, "clockableCallbackHandlers");
+        // Ignore the schedule of states saved before the event queue existed
+        xStream.omitField(MasterClock.class, "steps");
+        xStream.omitField(MasterClock.class, "masterClockTickDurationPs");
+        xStream.omitField(MasterClock.ClockableEntry.class, "counterValue");
+        xStream.omitField(MasterClock.ClockableEntry.class, "counterThreshold");
+        // Event queues are rebuilt on load. Fields of the single queue version are ignored
+        xStream.omitField(MasterClock.class, "domains");
+        xStream.omitField(MasterClock.class, "windowEndPs");
+        xStream.omitField(MasterClock.class, "barrier");
+        xStream.omitField(MasterClock.ClockableEntry.class, "domain");
+        xStream.omitField(MasterClock.class, "queue");
+        xStream.omitField(MasterClock.class, "entriesByClockable");
+        xStream.omitField(MasterClock.class, "queueSize");
+        xStream.omitField(MasterClock.class, "entriesToReschedule");
+        xStream.omitField(MasterClock.class, "rescheduleRequested");
         xStream.omitField(CameraLed.class, "listener");
 // instead of omit we close window before save
 //        xStream.omitField(IoPort.class, "IoPortConfigListener");
@@ -848,7 +913,12 @@ public class EmulationFramework {
         xStream.alias("wlr32", WriteListenerRegister32.class);
         xStream.useAttributeFor(Register32.class, "value");
         xStream.aliasField("v", Register32.class, "value");
-        xStream.aliasField("r", CPUState.class, "regValue");
+        xStream.aliasField("rv", CPUState.class, "regValue");
+        // Register objects from former versions are only read, and converted by readResolve()
+        xStream.aliasField("r", CPUState.class, "legacyRegValue");
+        xStream.aliasField("srs", TxCPUState.class, "shadowRegisterSets");
+        xStream.aliasField("shadowRegisterSets", TxCPUState.class, "legacyShadowRegisterSets");
+        xStream.registerConverter(new WriteListenerRegister32.LegacyConverter());
         return xStream;
     }
 
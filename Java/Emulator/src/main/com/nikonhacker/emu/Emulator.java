@@ -1,38 +1,99 @@
 package com.nikonhacker.emu;
 
 import com.nikonhacker.Constants;
-import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.*;
 import com.nikonhacker.emu.memory.DebuggableMemory;
+import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.peripherials.interruptController.InterruptController;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 import com.nikonhacker.emu.trigger.condition.AndCondition;
 import com.nikonhacker.emu.trigger.condition.BreakCondition;
-import com.nikonhacker.emu.trigger.condition.BreakPointCondition;
+import com.nikonhacker.emu.trigger.condition.BreakConditionIndex;
+import com.nikonhacker.emu.trigger.condition.MemoryValueBreakCondition;
+import com.nikonhacker.emu.trigger.condition.RegisterConditionEvaluator;
 import com.nikonhacker.gui.component.disassembly.DisassemblyLogger;
 
 import java.io.PrintWriter;
 import java.util.*;
 
-public abstract class Emulator implements Clockable {
+public abstract class Emulator implements QuantumClockable {
+    /** Maximum distance of a backward branch for its target to be considered as the start of an idle loop */
+    private static final int MAX_IDLE_LOOP_BYTES = 64;
+
+    /** Strategy used to execute code */
+    public static enum Interpreter {
+        /** Fetch and execute one instruction per step, checking interrupts and break conditions after each one */
+        INSTRUCTION("Instruction by instruction"),
+
+        /** Execute whole basic blocks, checking interrupts and break conditions at block boundaries only */
+        BLOCK("Basic blocks"),
+
+        /** Same as BLOCK, but frequently executed blocks run in their own clone of a block class. See BlockCloner */
+        TIERED("Basic blocks, hot ones cloned");
+        private String label;
+
+        Interpreter(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
     protected long                       totalCycles;
     protected DisassemblyLogger          logger;
     protected PrintWriter                breakLogPrintWriter;
     protected       int                  sleepIntervalMs = 0;
-    protected final List<BreakCondition> breakConditions = new ArrayList<BreakCondition>();
-    protected final HashMap<Integer, BreakCondition> pcBreakConditions = new HashMap<Integer, BreakCondition>();
-    protected       boolean              breakConditionsPresent;
+    /** Break conditions are replaced as a whole when changed, so that the emulator thread can read them without locking */
+    protected volatile BreakConditionIndex breakConditions = BreakConditionIndex.EMPTY;
     protected       Set<OutputOption>    outputOptions   = EnumSet.noneOf(OutputOption.class);
     protected       boolean              exitSleepLoop   = false;
+    protected       Interpreter          interpreter     = Interpreter.INSTRUCTION;
+
+    /** Incremented each time break conditions change, so that basic blocks know their check is outdated */
+    protected volatile int               breakConditionsVersion;
+    /** Clones hot blocks in TIERED mode. Created on first use */
+    private BlockCloner blockCloner;
+    /** Only used by the logger thread, once created */
+    private LoggedStatementFormatter statementFormatter;
+
+    /** Value of the memory word write counter when memory conditions were last evaluated */
+    private int lastWordWriteCount;
+    /** Version of memory activity listeners when memory conditions were watched */
+    private int watchedActivityListenersVersion;
 
     StatementContext context = new StatementContext();
 
+    /** Number of ticks given to the current call to onClockTicks(), and number of ticks already processed */
+    private int quantumTicks;
+    private int processedTicks;
+
     protected Platform platform;
 
-    protected final List<CycleCounterListener> cycleCounterListeners = new ArrayList<CycleCounterListener>();
+    /** Listeners waiting for a given cycle count */
+    private final CycleDeadlineQueue cycleDeadlines = new CycleDeadlineQueue();
+    /** Copy of the earliest deadline, so that checking deadlines only costs one comparison per instruction */
+    private volatile long nextCycleDeadline = Long.MAX_VALUE;
 
     protected Statement statement;
 
+    /** If true, time spent waiting for an interrupt is skipped instead of being interpreted */
+    private boolean idleFastForward = false;
+    /** Addresses of loops declared as only waiting for an interrupt */
+    private volatile int[] idleLoopAddresses = new int[0];
+    /** Target of the last short backward branch, with the state of registers and memory and the cycle count when it was reached */
+    private int idleLoopPc = -1;
+    private int[] idleLoopRegisters;
+    private int idleLoopAccessCount;
+    private long idleLoopStartCycles;
+    /** Number of cycles of one iteration of the loop at idleLoopPc */
+    private long idleLoopCycles;
+    /** True if the loop at idleLoopPc can only be left by an interrupt */
+    private boolean idleLoopDetected;
+    /** Number of ticks consumed without executing instructions because the CPU was idle */
+    private long skippedIdleTicks;
+
     /**
      * An Emulator must receive a platform.
      * @param platform
@@ -69,6 +130,13 @@ public abstract class Emulator implements Clockable {
         return totalCycles;
     }
 
+    /**
+     * @return the number of ticks, included in the cycle count, that were skipped by idle fast-forward
+     */
+    public long getSkippedIdleTicks() {
+        return skippedIdleTicks;
+    }
+
     /**
      * Changes the sleep interval between instructions
      * @param sleepIntervalMs
@@ -77,39 +145,88 @@ public abstract class Emulator implements Clockable {
         this.sleepIntervalMs = sleepIntervalMs;
     }
 
-    public final void clearBreakConditions() {
-        synchronized (breakConditions) {
-            breakConditions.clear();
-            pcBreakConditions.clear();
-            breakConditionsPresent = false;
+    public Interpreter getInterpreter() {
+        return interpreter;
+    }
+
+    /**
+     * Selects the way code is executed
+     * @param interpreter
+     */
+    public void setInterpreter(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * Enables skipping the clock ticks during which the CPU is idle, straight to the next event that may wake it up.
+     * The CPU is idle when it is in a low power mode, or when it spins in an idle loop: a loop that was declared
+     * as such, or a short one that reached its start twice without writing memory, reading I/O or changing registers
+     * @param idleFastForward
+     */
+    public void setIdleFastForward(boolean idleFastForward) {
+        this.idleFastForward = idleFastForward;
+        idleLoopPc = -1;
+        idleLoopDetected = false;
+    }
+
+    /**
+     * Declares loops that are only left after an interrupt, e.g. because they poll a flag set by an interrupt handler.
+     * Contrary to detected ones, they may write memory or read I/O registers
+     * @param idleLoopAddresses the addresses the loops branch back to
+     */
+    public void setIdleLoopAddresses(int[] idleLoopAddresses) {
+        this.idleLoopAddresses = idleLoopAddresses.clone();
+        idleLoopPc = -1;
+        idleLoopDetected = false;
+    }
+
+    public final synchronized void clearBreakConditions() {
+        for (BreakCondition breakCondition : breakConditions.getAllConditions()) {
+            for (MemoryValueBreakCondition memoryValueBreakCondition : getMemoryValueBreakConditions(breakCondition)) {
+                memoryValueBreakCondition.unwatch();
+            }
         }
+        breakConditions = BreakConditionIndex.EMPTY;
+        breakConditionsVersion++;
     }
 
-    public final void addBreakCondition(BreakCondition breakCondition) {
-        boolean isPCCondition = false;
-        int pc = 0;
+    public final synchronized void addBreakCondition(BreakCondition breakCondition) {
+        // Memory values are only read again after they are written
+        for (MemoryValueBreakCondition memoryValueBreakCondition : getMemoryValueBreakConditions(breakCondition)) {
+            memoryValueBreakCondition.watch(platform.memory);
+        }
+        breakConditions = breakConditions.with(breakCondition);
+        breakConditionsVersion++;
+    }
 
-        if (breakCondition instanceof BreakPointCondition) {
-            isPCCondition = true;
-            pc = ((BreakPointCondition)breakCondition).getPc();
-        } else if (breakCondition instanceof AndCondition) {
-            List<BreakCondition> conditions = ((AndCondition)breakCondition).getConditions();
-            if (conditions.size() == 1) {
-                BreakCondition brk = conditions.get(0);
-                if (brk instanceof BreakPointCondition) {
-                    isPCCondition = true;
-                    pc = ((BreakPointCondition)brk).getPc();
-                }
+    /**
+     * Watches memory values again, and sorts conditions again accordingly, after memory activity listeners changed:
+     * the value at an address that became listened must be read at each evaluation, and conversely
+     */
+    private synchronized void rewatchBreakConditions() {
+        watchedActivityListenersVersion = platform.memory.getActivityListenersVersion();
+        BreakConditionIndex conditions = BreakConditionIndex.EMPTY;
+        for (BreakCondition breakCondition : breakConditions.getAllConditions()) {
+            for (MemoryValueBreakCondition memoryValueBreakCondition : getMemoryValueBreakConditions(breakCondition)) {
+                memoryValueBreakCondition.watch(platform.memory);
             }
+            conditions = conditions.with(breakCondition);
         }
-        synchronized (breakConditions) {
-            if (isPCCondition) {
-                pcBreakConditions.put(pc,breakCondition);
-            } else {
-                breakConditions.add(breakCondition);
+        breakConditions = conditions;
+        breakConditionsVersion++;
+    }
+
+    private static List<MemoryValueBreakCondition> getMemoryValueBreakConditions(BreakCondition breakCondition) {
+        List<MemoryValueBreakCondition> memoryValueBreakConditions = new ArrayList<MemoryValueBreakCondition>();
+        if (breakCondition instanceof MemoryValueBreakCondition) {
+            memoryValueBreakConditions.add((MemoryValueBreakCondition) breakCondition);
+        }
+        else if (breakCondition instanceof AndCondition) {
+            for (BreakCondition subCondition : ((AndCondition) breakCondition).getConditions()) {
+                memoryValueBreakConditions.addAll(getMemoryValueBreakConditions(subCondition));
             }
-            breakConditionsPresent = true;
         }
+        return memoryValueBreakConditions;
     }
 
     public void exitSleepLoop() {
@@ -151,23 +268,104 @@ public abstract class Emulator implements Clockable {
      */
     public abstract BreakCondition onClockTick() throws EmulationException ;
 
-    public void addCycleCounterListener(CycleCounterListener cycleCounterListener) {
-        synchronized (cycleCounterListeners) {
-            if (!cycleCounterListeners.contains(cycleCounterListener)) {
-                cycleCounterListeners.add(cycleCounterListener);
+    /**
+     * Perform emulation steps until the given number of clock ticks is consumed or a break condition is met.
+     * Ticks of multi-cycle instructions are skipped without a call to onClockTick()
+     * @param ticks the number of ticks to consume
+     * @return the condition that made emulation stop, or null if it should continue
+     * @throws EmulationException
+     */
+    @Override
+    public BreakCondition onClockTicks(int ticks) throws EmulationException {
+        quantumTicks = ticks;
+        processedTicks = 0;
+        while (processedTicks < quantumTicks) {
+            if (context.cycleIncrement > 1) {
+                int skippedTicks = Math.min(context.cycleIncrement - 1, quantumTicks - processedTicks);
+                context.cycleIncrement -= skippedTicks;
+                processedTicks += skippedTicks;
+            }
+            else {
+                int skippedTicks = getSkippableIdleTicks();
+                BreakCondition breakCondition;
+                if (skippedTicks > 0) {
+                    // A deadline reached by the skip is reached during its last tick, which is the current time for listeners
+                    processedTicks += skippedTicks - 1;
+                    breakCondition = skipIdleTicks(skippedTicks);
+                    processedTicks++;
+                }
+                else {
+                    breakCondition = onClockTick();
+                    processedTicks++;
+                }
+                if (breakCondition != null) {
+                    return breakCondition;
+                }
             }
         }
+        return null;
     }
 
-    public void removeCycleCounterListener(CycleCounterListener cycleCounterListener) {
-        synchronized (cycleCounterListeners) {
-            cycleCounterListeners.remove(cycleCounterListener);
+    /**
+     * Nothing can happen to an idle CPU before the next event of another device (end of the quantum) or a cycle deadline.
+     * In an idle loop, only whole iterations ending before the next deadline are skipped, so that the state and cycle
+     * count are the same as if they had been run, and the deadline is reached by the same instruction
+     * @return the number of ticks to skip, or 0 if the CPU is not idle or fast-forward is not possible
+     */
+    private int getSkippableIdleTicks() {
+        long ticks;
+        if (idleLoopDetected && platform.cpuState.pc == idleLoopPc) {
+            ticks = Math.min(quantumTicks - processedTicks, nextCycleDeadline - totalCycles - 1);
+            ticks -= ticks % idleLoopCycles;
+        }
+        else if (isWaitingForInterrupt()) {
+            ticks = Math.min(quantumTicks - processedTicks, Math.max(1, nextCycleDeadline - totalCycles));
         }
+        else {
+            return 0;
+        }
+        return (ticks > 0 && isFastForwardPossible()) ? (int) ticks : 0;
     }
 
-    public void clearCycleCounterListeners() {
-        synchronized (cycleCounterListeners) {
-            cycleCounterListeners.clear();
+    @Override
+    public int getProcessedTicks() {
+        return processedTicks;
+    }
+
+    @Override
+    public void endQuantum() {
+        quantumTicks = processedTicks + 1;
+    }
+
+    /**
+     * Asks to be notified once the cycle count reaches the given value
+     * @param cycleDeadlineListener the listener to notify. Its previous deadline, if any, is replaced
+     * @param deadline the cycle count, typically getTotalCycles() + some delay
+     */
+    public void scheduleCycleDeadline(CycleDeadlineListener cycleDeadlineListener, long deadline) {
+        synchronized (cycleDeadlines) {
+            cycleDeadlines.schedule(cycleDeadlineListener, deadline);
+            nextCycleDeadline = cycleDeadlines.getNextDeadline();
+        }
+    }
+
+    public void cancelCycleDeadline(CycleDeadlineListener cycleDeadlineListener) {
+        synchronized (cycleDeadlines) {
+            cycleDeadlines.remove(cycleDeadlineListener);
+            nextCycleDeadline = cycleDeadlines.getNextDeadline();
+        }
+    }
+
+    public boolean isCycleDeadlineScheduled(CycleDeadlineListener cycleDeadlineListener) {
+        synchronized (cycleDeadlines) {
+            return cycleDeadlines.contains(cycleDeadlineListener);
+        }
+    }
+
+    public void clearCycleDeadlines() {
+        synchronized (cycleDeadlines) {
+            cycleDeadlines.clear();
+            nextCycleDeadline = Long.MAX_VALUE;
         }
     }
 
@@ -176,16 +374,297 @@ public abstract class Emulator implements Clockable {
         return Constants.CHIP_LABEL[getChip()] + " Emulator";
     }
 
-    protected void logIfRequested(DisassemblyLogger logger) throws DisassemblyException {
-        if (logger != null && logger.mustLog(platform.cpuState.pc)) {
-            StringBuilder msg = new StringBuilder();
-            if (logger.isIncludeTimestamp()) {
-                msg.append(platform.getMasterClock().getFormatedTotalElapsedTimeMs()).append(" ");
+    /**
+     * @return true if the CPU is in a low power mode, waiting for an interrupt to resume execution
+     */
+    protected boolean isWaitingForInterrupt() {
+        return false;
+    }
+
+    /**
+     * Idle ticks are only skipped if nothing requires inspecting the state after each instruction
+     * @return true if idle fast-forward is enabled, and not prevented by logging, sleep interval or break conditions
+     */
+    protected final boolean isFastForwardPossible() {
+        return idleFastForward
+                && logger == null
+                && sleepIntervalMs == 0
+                && !breakConditions.hasOtherConditions();
+    }
+
+    /**
+     * Consumes the given number of clock ticks without executing instructions, keeping the cycle count in step.
+     * Conditions are then checked as after an instruction, as cycle deadline listeners may have changed them,
+     * e.g. to stop emulation. Then the idle loop, if any, is run once more to make sure it was not left in between
+     * @param ticks
+     * @return the condition that requires emulation to stop, or null if it should continue
+     */
+    protected final BreakCondition skipIdleTicks(int ticks) {
+        totalCycles += ticks;
+        skippedIdleTicks += ticks;
+        checkCycleDeadlines();
+        idleLoopDetected = false;
+        idleLoopStartCycles = totalCycles;
+        if (!breakConditions.isEmpty()) {
+            return processConditions();
+        }
+        return null;
+    }
+
+    /**
+     * Looks for an idle loop if the last executed code branched backwards. Must be called after each instruction or block
+     * @param fromPc the address of the instruction or block that was executed
+     */
+    protected final void checkIdleLoop(int fromPc) {
+        if (idleFastForward) {
+            int pc = platform.cpuState.pc;
+            if (pc <= fromPc) {
+                onBackwardBranch(pc, fromPc);
+            }
+            else {
+                // Flow went on, e.g. in an interrupt handler
+                idleLoopDetected = false;
             }
-            msg.append("0x").append(Format.asHex(platform.cpuState.pc, 8));
+        }
+    }
 
+    private void onBackwardBranch(int pc, int fromPc) {
+        boolean isDeclaredIdleLoop = false;
+        for (int idleLoopAddress : idleLoopAddresses) {
+            if (idleLoopAddress == pc) {
+                isDeclaredIdleLoop = true;
+                break;
+            }
+        }
+        if (isDeclaredIdleLoop || fromPc - pc < MAX_IDLE_LOOP_BYTES) {
+            int accessCount = platform.memory.getObservableAccessCount();
+            if (pc == idleLoopPc && (isDeclaredIdleLoop || accessCount == idleLoopAccessCount && platform.cpuState.hasSameRegisters(idleLoopRegisters))) {
+                // Running the loop again would have the same result, so it can only be left after an interrupt
+                idleLoopCycles = totalCycles - idleLoopStartCycles;
+                idleLoopDetected = true;
+            }
+            else {
+                idleLoopPc = pc;
+                idleLoopRegisters = platform.cpuState.saveRegisters(idleLoopRegisters);
+                idleLoopAccessCount = accessCount;
+                idleLoopDetected = false;
+            }
+            // Iterations are timed from one arrival to the next
+            idleLoopStartCycles = totalCycles;
+        }
+    }
+
+    /**
+     * Basic blocks are only executed if nothing requires inspecting the state after each instruction:
+     * no disassembly log, no sleep between instructions, no step request and no break condition other than breakpoints
+     * @return true if the next step may execute a whole basic block
+     */
+    protected final boolean isBlockExecutionPossible() {
+        return interpreter != Interpreter.INSTRUCTION
+                && logger == null
+                && sleepIntervalMs == 0
+                && !breakConditions.hasOtherConditions();
+    }
+
+    /**
+     * Execute all statements of a basic block, or until flow leaves it (e.g. exception or self-modified code).
+     * Cycle deadlines are checked once for the whole block,
+     * and next clock ticks are skipped according to the total number of cycles
+     * @param block the block to execute
+     * @param blockCache the cache the block comes from
+     */
+    protected final void executeBlock(BasicBlock block, CodeCache<BasicBlock> blockCache) throws EmulationException {
+        int blockCycles = 0;
+        // Instructions that don't report their cycle count take one cycle
+        context.cycleIncrement = 1;
+        if (block.clonedBlock != null) {
+            statement = block.statements[0];
+            blockCycles = block.clonedBlock.execute(context, this, blockCache);
+        }
+        else {
+            int generation = blockCache.getGeneration();
+            int last = block.statements.length - 1;
+            for (int i = 0; i <= last; i++) {
+                statement = block.statements[i];
+                block.simulationCodes[i].simulate(statement, context);
+                blockCycles += context.cycleIncrement;
+
+                if (context.hasDelayedPc) {
+                    processDelaySlot();
+                }
+                if (i < last && (platform.cpuState.pc != block.nextPcs[i] || blockCache.getGeneration() != generation)) {
+                    break;
+                }
+            }
+            if (interpreter == Interpreter.TIERED && ++block.executionCount == BlockCloner.HOT_THRESHOLD) {
+                if (blockCloner == null) {
+                    blockCloner = new BlockCloner();
+                }
+                block.clonedBlock = blockCloner.createClone(block);
+            }
+        }
+
+        totalCycles += blockCycles;
+        checkCycleDeadlines();
+        context.cycleIncrement = blockCycles;
+        checkIdleLoop(block.startPc);
+    }
+
+    /**
+     * Moves to the branch target if the delay slot was just executed, or marks the delay slot as pending.
+     * Must only be called when context.hasDelayedPc is set.
+     * This method is public so that cloned blocks can call it
+     */
+    public abstract void processDelaySlot();
+
+    /**
+     * Notifies listeners whose deadline has been reached. Must be called after totalCycles is updated
+     */
+    protected final void checkCycleDeadlines() {
+        if (totalCycles >= nextCycleDeadline) {
+            processCycleDeadlines();
+        }
+    }
+
+    private void processCycleDeadlines() {
+        synchronized (cycleDeadlines) {
+            long deadline;
+            while ((deadline = cycleDeadlines.getNextDeadline()) <= totalCycles) {
+                CycleDeadlineListener cycleDeadlineListener = cycleDeadlines.getNextListener();
+                cycleDeadlines.remove(cycleDeadlineListener);
+                long nextDeadline = cycleDeadlineListener.onCycleDeadline(deadline);
+                if (nextDeadline != CycleDeadlineListener.NO_DEADLINE) {
+                    cycleDeadlines.schedule(cycleDeadlineListener, nextDeadline);
+                }
+            }
+            nextCycleDeadline = cycleDeadlines.getNextDeadline();
+        }
+    }
+
+    /**
+     * Fetches and decodes the statement at the given address, if it can be cached
+     * @param pc the address of the statement
+     * @return the decoded statement, or null if it cannot be cached and must be fetched each time it is executed
+     * @throws DisassemblyException
+     */
+    protected abstract Statement getCacheableStatement(int pc) throws DisassemblyException;
+
+    /**
+     * Returns the basic block starting at the given address, building it if needed
+     * @param blockCache the cache to use
+     * @param previous the block executed just before, or null
+     * @param pc the address of the first statement
+     * @return the block, or null if no block can be built at that address
+     */
+    protected final BasicBlock getBlock(CodeCache<BasicBlock> blockCache, BasicBlock previous, int pc) {
+        int generation = blockCache.getGeneration();
+        // Follow the links of the previous block first
+        if (previous != null) {
+            if (previous.successor1 != null && previous.successor1.startPc == pc && previous.successor1Generation == generation) {
+                return previous.successor1;
+            }
+            if (previous.successor2 != null && previous.successor2.startPc == pc && previous.successor2Generation == generation) {
+                return previous.successor2;
+            }
+        }
+        BasicBlock block = blockCache.get(pc);
+        if (block == null) {
+            block = buildBlock(pc);
+            if (block == null) {
+                return null;
+            }
+            blockCache.put(pc, block.numBytes, block);
+            generation = blockCache.getGeneration();
+        }
+        if (previous != null) {
+            if (previous.successor1 == null || previous.successor1Generation != generation) {
+                previous.successor1 = block;
+                previous.successor1Generation = generation;
+            }
+            else {
+                previous.successor2 = block;
+                previous.successor2Generation = generation;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Builds the basic block starting at the given address.
+     * A block ends after the first statement changing the program flow (and its delay slot, if any),
+     * before a statement that cannot be cached, or at a page boundary
+     * @param startPc the address of the first statement
+     * @return the block, or null if the first statement cannot be part of a block
+     */
+    private BasicBlock buildBlock(int startPc) {
+        List<Statement> statements = new ArrayList<Statement>();
+        int pc = startPc;
+        try {
+            while (statements.size() < BasicBlock.MAX_STATEMENTS) {
+                Statement blockStatement = getCacheableStatement(pc);
+                if (blockStatement == null || !isInSamePage(startPc, pc + blockStatement.getNumBytes() - 1)) {
+                    break;
+                }
+                Instruction instruction = blockStatement.getInstruction();
+                if (instruction.hasDelaySlot()) {
+                    // The branch and its delay slot must be executed together
+                    int delaySlotPc = pc + blockStatement.getNumBytes();
+                    Statement delaySlotStatement = getCacheableStatement(delaySlotPc);
+                    if (delaySlotStatement != null && isInSamePage(startPc, delaySlotPc + delaySlotStatement.getNumBytes() - 1)) {
+                        statements.add(blockStatement);
+                        statements.add(delaySlotStatement);
+                        pc = delaySlotPc + delaySlotStatement.getNumBytes();
+                    }
+                    break;
+                }
+                statements.add(blockStatement);
+                pc += blockStatement.getNumBytes();
+                if (instruction.getFlowType() != Instruction.FlowType.NONE) {
+                    break;
+                }
+            }
+        }
+        catch (Exception e) {
+            // What follows cannot be decoded (e.g. data after the last reachable statement). End the block before it
+        }
+        if (statements.isEmpty()) {
+            return null;
+        }
+        return new BasicBlock(startPc, statements, pc);
+    }
+
+    private static boolean isInSamePage(int addr1, int addr2) {
+        return (addr1 >>> 16) == (addr2 >>> 16);
+    }
+
+    /**
+     * @param block
+     * @return true if a breakpoint is set on a statement of the block other than the first one,
+     * which means it must be executed instruction by instruction
+     */
+    protected final boolean containsBreakPoint(BasicBlock block) {
+        int version = breakConditionsVersion;
+        if (block.breakConditionsVersion != version) {
+            BreakConditionIndex conditions = breakConditions;
+            block.containsBreakPoint = false;
+            for (int i = 0; i < block.statements.length - 1; i++) {
+                if (conditions.isBreakPoint(block.nextPcs[i])) {
+                    block.containsBreakPoint = true;
+                    break;
+                }
+            }
+            block.breakConditionsVersion = version;
+        }
+        return block.containsBreakPoint;
+    }
+
+    protected void logIfRequested(DisassemblyLogger logger) throws DisassemblyException {
+        if (logger != null && logger.mustLog(platform.cpuState.pc)) {
+            // Only capture raw values here: the logger formats the line in its own thread
+            long timestamp = logger.isIncludeTimestamp() ? platform.getMasterClock().getTotalElapsedTimePs() : DisassemblyLogger.NO_TIMESTAMP;
+            int indentLevel = 0;
             if (logger.isIncludeIndent()) {
-                msg.append(logger.getIndent());
+                indentLevel = logger.getIndentLevel();
                 switch(statement.getInstruction().getFlowType()) {
                     case CALL:
                     case INT:
@@ -198,10 +677,52 @@ public abstract class Emulator implements Clockable {
             }
 
             if (logger.isIncludeInstruction()) {
-                statement.formatOperandsAndComment(context, false, outputOptions);
-                msg.append(" ").append(statement.toString(outputOptions));
+                // Operands and comments depend on the current CPU state and memory, so the values they refer to
+                // are captured now, and formatted in the logger thread
+                if (statementFormatter == null) {
+                    statementFormatter = new LoggedStatementFormatter();
+                }
+                logger.logStatement(timestamp, platform.cpuState.pc, indentLevel, statement, context, statementFormatter);
             }
-            logger.println(msg.toString());
+            else {
+                logger.logInstruction(timestamp, platform.cpuState.pc, indentLevel, null);
+            }
+        }
+    }
+
+    /**
+     * Decodes the statement captured in the given snapshot, in the logger thread
+     * @param snapshot the snapshot of the statement
+     * @param memory the memory holding the code of the statement
+     * @return a statement that is not the one being executed, ready to be formatted
+     * @throws DisassemblyException
+     */
+    protected abstract Statement decodeSnapshot(StatementSnapshot snapshot, Memory memory) throws DisassemblyException;
+
+    /**
+     * @return a CPU state of the kind of this emulator, only used to format logged statements
+     */
+    protected abstract CPUState createFormattingCpuState();
+
+    /**
+     * Formats the statements logged by this emulator from their snapshots, in the logger thread.
+     * It keeps its own context, so that delay slots are rendered as when formatting in the emulator thread.
+     */
+    private class LoggedStatementFormatter implements DisassemblyLogger.StatementFormatter {
+        private final StatementSnapshot.SnapshotMemory memory  = new StatementSnapshot.SnapshotMemory();
+        private final StatementContext                 context = new StatementContext();
+
+        LoggedStatementFormatter() {
+            context.cpuState = createFormattingCpuState();
+            context.memory = memory;
+        }
+
+        public String format(StatementSnapshot snapshot) throws DisassemblyException {
+            memory.setSnapshot(snapshot);
+            snapshot.restoreRegisters(context.cpuState);
+            Statement statement = decodeSnapshot(snapshot, memory);
+            statement.formatOperandsAndComment(context, false, outputOptions);
+            return statement.toString(outputOptions);
         }
     }
 
@@ -255,21 +776,51 @@ public abstract class Emulator implements Clockable {
     }
     
     protected final BreakCondition processConditions() {
-        synchronized(breakConditions) {
-            // check fast pc-based conditions first
-            final BreakCondition pcBreakCondition = pcBreakConditions.get(platform.cpuState.getPc()&(~1));
-            if (pcBreakCondition!=null) {
-                if (executeBreakCondition(pcBreakCondition))
-                    return pcBreakCondition;
-            }
-            // check all other conditions if any
-            if (!breakConditions.isEmpty())
-                for (BreakCondition breakCondition : breakConditions) {
-                    if (breakCondition.matches(platform.cpuState, platform.memory)) {
+        if (platform.memory.getActivityListenersVersion() != watchedActivityListenersVersion) {
+            rewatchBreakConditions();
+        }
+        final BreakConditionIndex conditions = breakConditions;
+        // check fast pc-based conditions first
+        final int pc = platform.cpuState.getPc();
+        if (conditions.isBreakPoint(pc)) {
+            for (BreakCondition breakCondition : conditions.getPcConditions(pc)) {
+                if (BreakConditionIndex.isBreakPointOnly(breakCondition) || breakCondition.matches(platform.cpuState, platform.memory)) {
+                    if (executeBreakCondition(breakCondition))
+                        return breakCondition;
+                }
+            }
+        }
+        // check conditions on memory values only if a watched word was written, and only those reading that word
+        final BreakCondition[] memoryConditions = conditions.getMemoryConditions();
+        if (memoryConditions.length != 0) {
+            final int wordWriteCount = platform.memory.getWordWriteCount();
+            if (wordWriteCount != lastWordWriteCount) {
+                for (int i = 0; i < memoryConditions.length; i++) {
+                    final BreakCondition breakCondition = memoryConditions[i];
+                    if (conditions.isMemoryConditionOutdated(i) && breakCondition.matches(platform.cpuState, platform.memory)) {
                         if (executeBreakCondition(breakCondition))
+                            // Counter is not updated, so that remaining conditions are checked after the break
                             return breakCondition;
                     }
                 }
+                lastWordWriteCount = wordWriteCount;
+            }
+        }
+        // check conditions testing registers
+        final RegisterConditionEvaluator registerConditionEvaluator = conditions.getRegisterConditionEvaluator();
+        if (registerConditionEvaluator != null) {
+            for (int i = registerConditionEvaluator.findMatch(platform.cpuState, platform.memory, 0); i >= 0; i = registerConditionEvaluator.findMatch(platform.cpuState, platform.memory, i + 1)) {
+                final BreakCondition breakCondition = registerConditionEvaluator.getCondition(i);
+                if (executeBreakCondition(breakCondition))
+                    return breakCondition;
+            }
+        }
+        // check all other conditions if any
+        for (BreakCondition breakCondition : conditions.getOtherConditions()) {
+            if (breakCondition.matches(platform.cpuState, platform.memory)) {
+                if (executeBreakCondition(breakCondition))
+                    return breakCondition;
+            }
         }
         return null;
     }
@@ -0,0 +1,23 @@
+package com.nikonhacker.emu;
+
+/**
+ * A Clockable whose ticks mostly do nothing observable, e.g. a timer counting up to a compare value.
+ * Instead of calling it at each tick, the MasterClock only calls it at the tick of its next event,
+ * and the device computes the effect of the skipped ticks itself.
+ * When its state is read or changed in between, the device asks the MasterClock how many ticks elapsed
+ * (see MasterClock.consumeElapsedTicks()), and requests rescheduling if the time of its next event changed.
+ */
+public interface EventClockable extends Clockable {
+    /**
+     * @return the number of ticks from the last processed tick to the next one with an observable effect, at least 1,
+     * or Integer.MAX_VALUE if no event is foreseen
+     */
+    public int getTicksToNextEvent();
+
+    /**
+     * This method is called instead of onClockTick() at the time of the next event
+     * @param ticks the number of ticks elapsed since the last processed tick, the last one occurring now
+     * @return null if the device still wants to be "clocked", or any object the method wants to return
+     */
+    public Object onClockTicks(int ticks) throws Exception;
+}
@@ -2,13 +2,18 @@ package com.nikonhacker.emu;
 
 import com.nikonhacker.Constants;
 import com.nikonhacker.Format;
+import com.nikonhacker.disassembly.CPUState;
+import com.nikonhacker.disassembly.DisassemblyException;
 import com.nikonhacker.disassembly.OutputOption;
 import com.nikonhacker.disassembly.ParsingException;
+import com.nikonhacker.disassembly.Statement;
+import com.nikonhacker.disassembly.StatementSnapshot;
 import com.nikonhacker.disassembly.fr.FrCPUState;
 import com.nikonhacker.disassembly.fr.FrInstructionSet;
 import com.nikonhacker.disassembly.fr.FrStatement;
 import com.nikonhacker.emu.interrupt.fr.FrInterruptRequest;
 import com.nikonhacker.emu.memory.DebuggableMemory;
+import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.peripherials.clock.fr.FrClockGenerator;
 import com.nikonhacker.emu.peripherials.interruptController.fr.FrInterruptController;
 import com.nikonhacker.emu.trigger.condition.BreakCondition;
@@ -30,9 +35,22 @@ public class FrEmulator extends Emulator {
     private Set<OutputOption> lastOutputOptions;
     private boolean lastOutputOptionsValid = false;
 
+    /** Statements already decoded, indexed by PC. Created upon first use, as memory can be replaced (e.g. state loading) */
+    private CodeCache<FrStatement> statementCache;
+
+    /** Basic blocks already built, indexed by start PC. Created along with the statement cache */
+    private CodeCache<BasicBlock> blockCache;
+
+    /** Last basic block executed, to follow its links to successors */
+    private BasicBlock lastBlock;
+
+    /** Statement used to decode instructions that cannot be cached */
+    private final FrStatement uncachedStatement;
+
     public FrEmulator(Platform platform) {
         super(platform);
-        statement = new FrStatement();
+        uncachedStatement = new FrStatement();
+        statement = uncachedStatement;
     }
 
     @Override
@@ -44,6 +62,11 @@ public class FrEmulator extends Emulator {
 
             super.setOutputOptions(outputOptions);
             FrInstructionSet.init(outputOptions);
+            // Cached statements refer to instructions of the previous maps
+            if (statementCache != null) {
+                statementCache.clear();
+                blockCache.clear();
+            }
             FrStatement.initFormatChars(outputOptions);
             FrCPUState.initRegisterLabels(outputOptions);
         }
@@ -74,76 +97,33 @@ public class FrEmulator extends Emulator {
         }
 
         try {
-            statement.reset();
-
-            // FETCH
-            ((FrStatement)statement).getNextStatement(platform.memory, platform.cpuState.pc);
-
-            // DECODE
-            statement.setInstruction(FrInstructionSet.instructionMap[((FrStatement)statement).data[0]]);
-            ((FrStatement)statement).decodeOperands(platform.cpuState.pc, platform.memory);
-
-            // LOG
-            logIfRequested(logger);
-
-            // ACTUAL INSTRUCTION EXECUTION
-            statement.getInstruction().getSimulationCode().simulate(statement, context);
+            if (statementCache == null) {
+                statementCache = new CodeCache<FrStatement>(platform.memory, 1);
+                blockCache = new CodeCache<BasicBlock>(platform.memory, 1);
+            }
 
-            // Notify CPU cycle listeners
-            int cycleListenerNumber = 0;
-            while (cycleListenerNumber < cycleCounterListeners.size()) {
-                CycleCounterListener cycleCounterListener = cycleCounterListeners.get(cycleListenerNumber);
-                if (cycleCounterListener.onCycleCountChange(totalCycles, context.cycleIncrement)) {
-                    cycleListenerNumber++;
-                }
-                else {
-                    cycleCounterListeners.remove(cycleCounterListener);
+            BasicBlock block = null;
+            if (isBlockExecutionPossible()) {
+                block = getBlock(blockCache, lastBlock, platform.cpuState.pc);
+                if (block != null && containsBreakPoint(block)) {
+                    block = null;
                 }
             }
+            lastBlock = block;
 
-            totalCycles += context.cycleIncrement;
-
-            /* Delay slot processing */
-            if (context.nextPc != null) {
-                if (context.delaySlotDone) {
-                    platform.cpuState.pc = context.nextPc;
-                    context.nextPc = null;
-                    if (context.nextReturnAddress != null) {
-                        platform.cpuState.setReg(FrCPUState.RP, context.nextReturnAddress);
-                        context.nextReturnAddress = null;
-                    }
-                }
-                else {
-                    context.delaySlotDone = true;
+            if (block != null) {
+                executeBlock(block, blockCache);
+                // Delay slots are always part of the block, so the block never ends in one
+                if (!context.hasDelayedPc) {
+                    checkInterrupts();
                 }
             }
             else {
-                // If not in a delay slot, check interrupts
-                if(platform.interruptController.hasPendingRequests()) { // This call is not synchronized, so it skips fast
-                    FrInterruptRequest interruptRequest = (FrInterruptRequest) platform.interruptController.getNextRequest();
-                    //Double test because lack of synchronization means the status could have changed in between
-                    if (interruptRequest != null) {
-                        if (platform.cpuState.accepts(interruptRequest)){
-                            if (logger != null) {
-                                DisassemblyLogger printer2 = logger;
-                                if (printer2 != null) {
-                                    if(printer2.isIncludeInterruptMarks()) {
-                                        printer2.println(platform.getMasterClock().getFormatedTotalElapsedTimeMs() + " ------------------------- Accepting " + interruptRequest);
-                                    }
-                                    printer2.indent();
-                                }
-                            }
-                            platform.interruptController.removeEdgeTriggeredRequest(interruptRequest);
-                            ((FrInterruptController)platform.interruptController).processInterrupt(interruptRequest.getInterruptNumber(), platform.cpuState.pc, context);
-
-                            ((FrCPUState)platform.cpuState).setILM(interruptRequest.getICR(), false);
-                        }
-                    }
-                }
+                executeStatement();
             }
 
             // Process breakConditions
-            if (breakConditionsPresent) {
+            if (!breakConditions.isEmpty()) {
                 BreakCondition breakCondition = processConditions();
                 if (breakCondition != null) {
                     return breakCondition;
@@ -171,6 +151,134 @@ public class FrEmulator extends Emulator {
         return null;
     }
 
+    /**
+     * Fetch, decode and execute the statement at PC, then check interrupts unless in a delay slot
+     */
+    private void executeStatement() throws EmulationException, DisassemblyException {
+        int pc = platform.cpuState.pc;
+        statement = statementCache.get(pc);
+        if (statement == null) {
+            statement = decodeStatement(platform.cpuState.pc);
+        }
+
+        // LOG
+        logIfRequested(logger);
+
+        // ACTUAL INSTRUCTION EXECUTION
+        statement.getInstruction().getSimulationCode().simulate(statement, context);
+
+        totalCycles += context.cycleIncrement;
+
+        checkCycleDeadlines();
+
+        if (context.hasDelayedPc) {
+            processDelaySlot();
+        }
+        else {
+            // If not in a delay slot, check interrupts
+            checkInterrupts();
+        }
+
+        checkIdleLoop(pc);
+    }
+
+    @Override
+    public void processDelaySlot() {
+        if (context.delaySlotDone) {
+            platform.cpuState.pc = context.nextPc;
+            context.hasDelayedPc = false;
+            if (context.hasNextReturnAddress) {
+                platform.cpuState.setReg(FrCPUState.RP, context.nextReturnAddress);
+                context.hasNextReturnAddress = false;
+            }
+        }
+        else {
+            context.delaySlotDone = true;
+        }
+    }
+
+    private void checkInterrupts() {
+        if(platform.interruptController.hasPendingRequests()) { // This call is not synchronized, so it skips fast
+            FrInterruptRequest interruptRequest = (FrInterruptRequest) platform.interruptController.getNextRequest();
+            //Double test because lack of synchronization means the status could have changed in between
+            if (interruptRequest != null) {
+                if (platform.cpuState.accepts(interruptRequest)){
+                    if (logger != null) {
+                        DisassemblyLogger printer2 = logger;
+                        if (printer2 != null) {
+                            if(printer2.isIncludeInterruptMarks()) {
+                                printer2.println(platform.getMasterClock().getFormatedTotalElapsedTimeMs() + " ------------------------- Accepting " + interruptRequest);
+                            }
+                            printer2.indent();
+                        }
+                    }
+                    platform.interruptController.removeEdgeTriggeredRequest(interruptRequest);
+                    ((FrInterruptController)platform.interruptController).processInterrupt(interruptRequest.getInterruptNumber(), platform.cpuState.pc, context);
+
+                    ((FrCPUState)platform.cpuState).setILM(interruptRequest.getICR(), false);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Statement getCacheableStatement(int pc) {
+        FrStatement frStatement = statementCache.get(pc);
+        if (frStatement == null) {
+            if (platform.memory.isListened(pc)) {
+                return null;
+            }
+            frStatement = decodeStatement(pc);
+            if (frStatement == uncachedStatement) {
+                return null;
+            }
+        }
+        return frStatement;
+    }
+
+    /**
+     * Fetches and decodes the statement at the given address, and caches it if possible
+     * @param pc the address of the statement
+     * @return the decoded statement
+     */
+    private FrStatement decodeStatement(int pc) {
+        // Instruction fetches from areas with activity listeners must remain visible to them, so don't cache these
+        boolean cacheable = !platform.memory.isListened(pc);
+        FrStatement frStatement = cacheable ? new FrStatement() : uncachedStatement;
+        frStatement.reset();
+
+        // FETCH
+        frStatement.getNextStatement(platform.memory, pc);
+
+        // DECODE
+        frStatement.setInstruction(FrInstructionSet.instructionMap[frStatement.data[0]]);
+        frStatement.decodeOperands(pc, platform.memory);
+
+        if (cacheable) {
+            for (int i = 1; i < frStatement.numData; i++) {
+                if (platform.memory.isListened(pc + 2 * i)) {
+                    return frStatement;
+                }
+            }
+            statementCache.put(pc, frStatement.getNumBytes(), frStatement);
+        }
+        return frStatement;
+    }
+
+    @Override
+    protected Statement decodeSnapshot(StatementSnapshot snapshot, Memory memory) {
+        FrStatement frStatement = new FrStatement();
+        frStatement.getNextStatement(memory, snapshot.pc);
+        frStatement.setInstruction(FrInstructionSet.instructionMap[frStatement.data[0]]);
+        frStatement.decodeOperands(snapshot.pc, memory);
+        return frStatement;
+    }
+
+    @Override
+    protected CPUState createFormattingCpuState() {
+        return new FrCPUState();
+    }
+
 
     public static void main(String[] args) throws IOException, EmulationException, ParsingException {
         if (args.length < 2) {
@@ -4,76 +4,163 @@ import com.nikonhacker.Constants;
 
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
 
 public class MasterClock implements Runnable {
 
     public static final long PS_PER_MS = 1_000_000_000;
     public static final long PS_PER_SEC = 1_000_000_000_000L;
 
+    /**
+     * In quantum mode, maximum duration a QuantumClockable may run in one call.
+     * This bounds the skew between chips, which can run ahead of each other within a quantum
+     */
+    public static final long MAX_QUANTUM_PS = 10 * PS_PER_MS / 1000;
+
+    /**
+     * Maximum duration a QuantumClockable may run in one call outside quantum mode, even if no other event is due.
+     * This also keeps tick count computations within the range of a long
+     */
+    private static final long MAX_BUDGET_PS = PS_PER_MS;
+
+    /** Default duration of the time windows chips run in parallel, in parallel mode */
+    public static final long DEFAULT_PARALLEL_QUANTUM_PS = 100 * PS_PER_MS / 1000;
+
     private DecimalFormat milliSecondFormatter = new DecimalFormat("0000.000000000");
 
     private ClockableCallbackHandler[] clockableCallbackHandlers;
     /**
-     * All objects to "clock", encapsulated in an internal class to store their counter value and threshold
+     * All objects to "clock", encapsulated in an internal class to store their frequency and next tick time
      */
     private final List<ClockableEntry> entries = new CopyOnWriteArrayList<>();
 
+    /**
+     * The entry of each Clockable, so that devices accessed by firmware find theirs without scanning entries.
+     * Replaced as a whole when entries are added or removed. Rebuilt when deserialized
+     */
+    private volatile Map<Clockable, ClockableEntry> entriesByClockable = new IdentityHashMap<>();
+
     private boolean syncPlay = false;
 
-    private boolean running = false;
+    /**
+     * If true, QuantumClockables run until the next tick of another kind of Clockable (up to MAX_QUANTUM_PS),
+     * ignoring other QuantumClockables. Otherwise, they only run until the next tick of any other Clockable.
+     */
+    private boolean quantumMode = false;
+
+    /**
+     * If true, the Clockables of each chip are run by a separate thread. Threads run in lockstep, by time windows
+     * of parallelQuantumPs, and messages between chips (see post()) are delivered one window later.
+     */
+    private boolean parallelMode = false;
+
+    private long parallelQuantumPs = DEFAULT_PARALLEL_QUANTUM_PS;
+
+    private volatile boolean running = false;
 
     /**
      * The total elapsed time since the start of the MasterClock, in picoseconds (e-12)
      * MAX_LONG being (2e63 - 1) = 9.22e18, it will overflow after 9223372 seconds,
      * which is 2562 hours or more than 100 emulated days.
+     * While the clock runs, the time of each domain is authoritative. This field is updated when the clock stops.
      */
     private long totalElapsedTimePs;
 
+    /** Sequence number given to entries, so that entries due at the same time always run in the same order */
+    private int entrySequence;
+
     /**
-     * The duration represented by one MasterClock "tick", in picoseconds (1e-12 seconds)
+     * The domains entries are distributed into: a single one, or one per chip in parallel mode.
+     * Rebuilt when deserialized
      */
-    private long masterClockTickDurationPs;
+    private Domain[] domains = createDomains();
+
+    /** In parallel mode, end of the time window all domains are running */
+    private long windowEndPs;
+
+    /** In parallel mode, the barrier domain threads wait at, at the end of each window */
+    private CyclicBarrier barrier;
+
+    public MasterClock() {
+    }
+
+    private Domain[] createDomains() {
+        if (parallelMode) {
+            return new Domain[]{new Domain(Constants.CHIP_FR), new Domain(Constants.CHIP_TX)};
+        }
+        else {
+            return new Domain[]{new Domain(-1)};
+        }
+    }
+
+    private Domain getDomain(int chip) {
+        return (domains.length > 1 && chip == Constants.CHIP_TX) ? domains[1] : domains[0];
+    }
 
     /**
-     * A temp flag to indicate that the computing of intervals based on frequencies must be performed again
-     * (due to a change in the list of Clockable, or a frequency change)
+     * Requests all entries to be checked for a frequency or state change
      */
-    private boolean rescheduleRequested;
+    public void requestResheduling() {
+        for (ClockableEntry entry : entries) {
+            requestResheduling(entry);
+        }
+    }
 
     /**
-     * Optimized list of steps to execute
+     * Requests the given Clockable to be checked for a frequency or state change
+     * @param clockable
      */
-    private List<ClockExecutionStep> steps;
+    public void requestResheduling(Clockable clockable) {
+        ClockableEntry entry = entriesByClockable.get(clockable);
+        if (entry != null) {
+            requestResheduling(entry);
+        }
+    }
 
-    public MasterClock() {
+    /**
+     * Requests all Clockables of the given chip to be checked for a frequency change, e.g. after a clock generator
+     * reconfiguration
+     * @param chip Constants.CHIP_FR or Constants.CHIP_TX
+     */
+    public void requestResheduling(int chip) {
+        for (ClockableEntry entry : entries) {
+            if (entry.clockable.getChip() == chip) {
+                requestResheduling(entry);
+            }
+        }
     }
 
-    public void requestResheduling() {
-        rescheduleRequested = true;
+    private void requestResheduling(ClockableEntry entry) {
+        entry.domain.requestResheduling(entry);
     }
 
     /**
      * Add a clockable object.
      * @param clockable the object to wake up repeatedly
      * @param clockableCallbackHandlerChip the chip to call on exit or Exception
+     * @param precise ignored. With the event queue, all entries tick at their exact time
      */
     public synchronized void add(Clockable clockable, int clockableCallbackHandlerChip, boolean enabled, boolean precise) {
         //System.err.println("Adding " + clockable.getClass().getSimpleName());
         // Check if already present
-        boolean found = false;
+        ClockableEntry foundEntry = null;
         for (ClockableEntry entry : entries) {
             if (entry.clockable == clockable) {
                 // make sure it is enabled
                 entry.enabled = true;
-                found = true;
+                foundEntry = entry;
                 break;
             }
         }
-        if (!found) {
-            entries.add(new ClockableEntry(clockable, clockableCallbackHandlerChip, enabled, precise));
+        if (foundEntry == null) {
+            foundEntry = new ClockableEntry(clockable, clockableCallbackHandlerChip, enabled, precise, entrySequence++);
+            foundEntry.domain = getDomain(clockable.getChip());
+            entries.add(foundEntry);
+            updateEntriesByClockable();
         }
-        requestResheduling();
+        requestResheduling(foundEntry);
     }
 
     /**
@@ -94,128 +181,117 @@ public class MasterClock implements Runnable {
             if (entry.clockable == clockable) {
                 //System.err.println("Removing " + entry.clockable.getClass().getSimpleName());
                 entries.remove(entry);
+                updateEntriesByClockable();
+                entry.removed = true;
+                requestResheduling(entry);
                 break;
             }
         }
-        requestResheduling();
     }
 
-    private void prepareSchedule() {
-        // Reset indicator, if set
-        rescheduleRequested = false;
-
-        // Determine least common multiple of all frequencies
-        long leastCommonMultipleFrequency = 1;
-        int maxUnpreciseFrequency = 1;
-
-        // Precompute all frequencies
-        Map<ClockableEntry,Integer> entryFrequencies = new HashMap<>();
+    /**
+     * Returns the number of ticks of the given EventClockable that occurred since its last processed tick, up to now,
+     * and marks them as processed. The tick of its next event is never counted, as it is processed at its time
+     * by a call to onClockTicks().
+     * This must be called before any change to the state of the device, and typically when its state is read
+     * @param clockable
+     * @return the number of ticks the device must apply to its state, possibly 0
+     */
+    public int consumeElapsedTicks(EventClockable clockable) {
+        ClockableEntry entry = entriesByClockable.get(clockable);
+        if (entry == null || entry.queueIndex < 0 || entry.pendingTicks <= 1) {
+            return 0;
+        }
+        int ticks = entry.getTicksBeforeNextTick(entry.domain.getCurrentTimePs());
+        entry.consumeTicks(ticks);
+        return ticks;
+    }
 
-        // Compute least common multiple frequency
+    private void updateEntriesByClockable() {
+        Map<Clockable, ClockableEntry> map = new IdentityHashMap<>();
         for (ClockableEntry entry : entries) {
-            final int frequencyHz = entry.clockable.getFrequencyHz();
-            entryFrequencies.put(entry, frequencyHz);
+            map.put(entry.clockable, entry);
+        }
+        entriesByClockable = map;
+    }
 
-            if (frequencyHz > 0) {
-                // skip unprecise entrys like serial, etc
-                if (entry.isPrecise) {
-                    leastCommonMultipleFrequency = longLCM(frequencyHz, leastCommonMultipleFrequency);
-                } else {
-                    maxUnpreciseFrequency = frequencyHz;
-                }
-                entry.isFrequencyZero = false;
-            }
-            else {
-                entry.isFrequencyZero = true;
-            }
+    /**
+     * Runs the given action on behalf of the given chip.
+     * In parallel mode, the action is run by the thread of the target chip, one parallel quantum after the current
+     * time of the source chip, so that it is delivered at the same emulated time whatever the speed of each thread.
+     * Otherwise, it is run immediately.
+     * This must be used for all interactions between chips (serial lines, pins)
+     * @param sourceChip the chip calling this method
+     * @param targetChip the chip the action acts upon
+     * @param action
+     */
+    public void post(int sourceChip, int targetChip, Runnable action) {
+        Domain sourceDomain = getDomain(sourceChip);
+        Domain targetDomain = getDomain(targetChip);
+        if (sourceDomain == targetDomain) {
+            action.run();
         }
-        // not likely, but possible: unprecise items accept drift of 25%
-        if (leastCommonMultipleFrequency < (maxUnpreciseFrequency<<2)) {
-            // include unprecise entries also in calculation
-            for (ClockableEntry entry : entries) {
-                if (!entry.isPrecise) {
-                    int frequencyHz = entryFrequencies.get(entry);
-                    leastCommonMultipleFrequency = longLCM(frequencyHz, leastCommonMultipleFrequency);
-                }
-            }
+        else {
+            sourceDomain.post(targetDomain, action);
         }
+    }
 
-        // OK. Now set each counter threshold to the value of lcm/freq
-        int leastCommonCounterThreshold = 1;
-        for (ClockableEntry entry : entries) {
-            if (!entry.isFrequencyZero) {
-                int newThreshold = (int) (leastCommonMultipleFrequency / entryFrequencies.get(entry));
-                if (entry.counterThreshold != 0) {
-                    // Adjust value according to new threshold
-                    entry.counterValue = entry.counterValue * newThreshold / entry.counterThreshold;
-                }
-                // Set new threshold
-                entry.counterThreshold = newThreshold;
-                leastCommonCounterThreshold = intLCM(newThreshold, leastCommonCounterThreshold);
-            }
+    public void setSyncPlay(boolean syncPlay) {
+        this.syncPlay = syncPlay;
+    }
+
+    public boolean isQuantumMode() {
+        return quantumMode;
+    }
+
+    /**
+     * Enables or disables quantum mode. See MAX_QUANTUM_PS
+     * @param quantumMode
+     */
+    public void setQuantumMode(boolean quantumMode) {
+        this.quantumMode = quantumMode;
+    }
+
+    public boolean isParallelMode() {
+        return parallelMode;
+    }
+
+    /**
+     * Enables or disables parallel mode. Only taken into account when the clock is stopped.
+     * Entries keep their phase, and messages between chips still in transit are delivered immediately
+     * @param parallelMode
+     */
+    public synchronized void setParallelMode(boolean parallelMode) {
+        if (running || parallelMode == this.parallelMode) {
+            return;
         }
-        // TODO
-        // coderat: Problem fixed for serial port transfer time at low baudrates (96 KBps or 9600 Bps) - they are ignored during
-        // calculations by setting isPrecise=false
-        //
-        // BUT in general cases with two different Clockables with extremly low frequency and extremly high frequency
-        // still exist, yielding huge treshholds and Emulator runing slow or virtually hanging.
-        if (leastCommonCounterThreshold>20000)
-            System.out.println("WARNING: MasterClock calculations take too long("+ leastCommonCounterThreshold +"), because frequencies are very different. Some timers will be unprecise !!!");
-
-        masterClockTickDurationPs = PS_PER_SEC/leastCommonMultipleFrequency;
-
-        // DEBUG
-//        System.err.println("MasterClock reconfigured with one tick=" + masterClockTickDurationPs + "ps, with the following entries:");
-//        for (ClockableEntry entry : entries) {
-//            System.err.println("  " + (entry.enabled ? "ON: " : "OFF:") + entry.clockable.toString() + " @" + entryFrequencies.get(entry) + "Hz, every " + entry.counterThreshold + " ticks");
-//            System.err.print("  Pattern: ");
-//            for(int stepNumber = 0; stepNumber < leastCommonCounterThreshold; stepNumber++) {
-//                if (stepNumber % entry.counterThreshold == 0) {
-//                    System.err.print("X");
-//                }
-//                else {
-//                    System.err.print("-");
-//                }
-//            }
-//            System.err.println();
-//        }
-//        System.err.println("---------------------------------------");
-
-        // This is the start of the new "optimized" structure
-        // This one gets rid of the entries that don't have to run at each step, and of the useless steps
-        steps = new ArrayList<>();
-        for(int stepNumber = 0; stepNumber < leastCommonCounterThreshold; stepNumber++) {
-            ClockExecutionStep step = new ClockExecutionStep();
-            // Collect all entries that should run at this step
-            for (ClockableEntry entry : entries) {
-                if (stepNumber % entry.counterThreshold == 0) {
-                    step.entriesToRunAtThisStep.add(entry);
-                }
-            }
-            if (step.entriesToRunAtThisStep.isEmpty()) {
-                // Nothing has to run here, so drop this step, but add one "tick" to the previous step's duration
-                steps.get(steps.size() - 1).stepDurationPs += masterClockTickDurationPs;
-            }
-            else {
-                // Some entries have to run at this step, so keep it and give it the duration of one "tick"
-                step.stepDurationPs = masterClockTickDurationPs;
-                steps.add(step);
-            }
+        long timePs = getTotalElapsedTimePs();
+        for (Domain domain : domains) {
+            domain.flushMessages();
         }
+        this.parallelMode = parallelMode;
+        domains = createDomains();
+        for (Domain domain : domains) {
+            domain.timePs = timePs;
+        }
+        for (ClockableEntry entry : entries) {
+            entry.queueIndex = -1;
+            entry.domain = getDomain(entry.clockable.getChip());
+        }
+        requestResheduling();
+    }
 
-        // DEBUG
-//        System.err.println("List of the steps:");
-//        for (ClockExecutionStep step : steps) {
-//            System.err.println("During " + step.stepDurationPs + "ps:");
-//            for (ClockableEntry clockableEntry : step.entriesToRunAtThisStep) {
-//                System.err.println("  " + clockableEntry.clockable.toString());
-//            }
-//        }
+    public long getParallelQuantumPs() {
+        return parallelQuantumPs;
     }
 
-    public void setSyncPlay(boolean syncPlay) {
-        this.syncPlay = syncPlay;
+    /**
+     * Sets the duration of the time windows chips run in parallel.
+     * Longer windows mean less synchronization, but a longer delay for messages between chips
+     * @param parallelQuantumPs
+     */
+    public void setParallelQuantumPs(long parallelQuantumPs) {
+        this.parallelQuantumPs = Math.max(1, parallelQuantumPs);
     }
 
     /**
@@ -229,85 +305,74 @@ public class MasterClock implements Runnable {
         }
     }
 
+    /**
+     * Runs one thread per domain, all running the same time window before waiting for each other at the barrier.
+     * The barrier action delivers the messages exchanged during the window, and stops the clock when all entries are disabled.
+     * The first domain is run by the calling thread
+     */
+    private void runParallel() {
+        windowEndPs = getTotalElapsedTimePs() + parallelQuantumPs;
+        barrier = new CyclicBarrier(domains.length, new Runnable() {
+            @Override
+            public void run() {
+                for (Domain domain : domains) {
+                    domain.deliverOutbox();
+                }
+                totalElapsedTimePs = windowEndPs;
+                if (allEntriesDisabled()) {
+                    running = false;
+                }
+                else {
+                    windowEndPs += parallelQuantumPs;
+                }
+            }
+        });
+        for (int i = 1; i < domains.length; i++) {
+            final Domain domain = domains[i];
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    domain.runWindows();
+                }
+            }, "MasterClock " + Constants.CHIP_LABEL[domain.chip]).start();
+        }
+        domains[0].runWindows();
+    }
+
     /**
      * This is the way to run the clock synchronously. Normally only called internally.
      * Use start() instead to start the clock.
-     * Note: this is the optimized version that only executes useful entries of useful steps
+     * Note: time jumps directly from one event to the next one, so the cost only depends on the number of ticks
+     * actually processed
      */
     public void run() {
-        List<ClockableEntry> entriesToDisable = new ArrayList<>();
-        int stepNumber = 0;
-        ClockExecutionStep step;
+        running = true;
+        if (domains.length > 1) {
+            runParallel();
+            return;
+        }
+        Domain domain = domains[0];
         // Infinite loop
         while (running) {
-            if (rescheduleRequested) {
-                prepareSchedule();
-            }
-            // Iterate on all steps
-            for (stepNumber = 0; stepNumber < steps.size(); stepNumber++) {
-                step = steps.get(stepNumber);
-                // For each step, execute all entries that should run at this step
-                for (ClockableEntry currentEntry : step.entriesToRunAtThisStep) {
-                    // TODO get rid of the isFrequencyZero by recomputing useful steps at each frequency change
-                    if (currentEntry.enabled && !currentEntry.isFrequencyZero) {
-                        // If it's enabled. Call its onClockTick() method
-                        try {
-                            Object result = currentEntry.clockable.onClockTick();
-                            if (result != null) {
-                                // A non-null result means this entry shouldn't run anymore
-                                entriesToDisable.add(currentEntry);
-                                // Warn the callback method
-                                if (currentEntry.clockableCallbackHandlerChip >=0) {
-                                    clockableCallbackHandlers[currentEntry.clockableCallbackHandlerChip].onNormalExit(result);
-                                }
-                            }
-                        }
-                        catch (Exception e) {
-                            // In case of exception this entry shouldn't run anymore
-                            entriesToDisable.add(currentEntry);
-                            // Warn the callback method
-                            if (currentEntry.clockableCallbackHandlerChip >=0) {
-                                clockableCallbackHandlers[currentEntry.clockableCallbackHandlerChip].onException(e);
-                            }
-                        }
-
-                    }
+            domain.runUntil(Long.MAX_VALUE);
+            if (running && domain.isIdle()) {
+                if (allEntriesDisabled()) {
+                    running = false;
                 }
-                // Check if some entries need to be disabled
-                if (!entriesToDisable.isEmpty()) {
-                    for (ClockableEntry entryToDisable : entriesToDisable) {
-                        disableEntry(entryToDisable);
-                    }
-                    entriesToDisable.clear();
-
-                    // Check if all entries are disabled
-                    if (allEntriesDisabled()) {
-                        // All entries are now disabled. Stop clock
-                        running = false;
-                        break;
-                    }
-                }
-                // Increment elapsed time
-                totalElapsedTimePs += step.stepDurationPs;
-
-                if (rescheduleRequested) {
-                    // To perform reschedule, we need to exit the loop on steps
-                    // Note that this is not really transparent as it will "reset" the count of the steps...
-                    break;
+                else {
+                    // Enabled entries are all stopped (zero frequency). Wait for a change
+                    Thread.yield();
                 }
             }
         }
-
-        // If we got here, one entry at least was just disabled and caused the clock to stop.
-        // Before we exit, let's rotate the list so that when the clock restarts, it resumes exactly where it left off
-        // To do so, the next entry to run will be rotated to the start
-        Collections.rotate(steps, -1 - stepNumber);
+        totalElapsedTimePs = domain.timePs;
     }
 
     public void enableClockable(Clockable clockable) {
         for (ClockableEntry candidateEntry : entries) {
             if (candidateEntry.clockable == clockable) {
                 candidateEntry.enabled = true;
+                requestResheduling(candidateEntry);
                 if (candidateEntry.clockable instanceof Emulator) {
                     setLinkedEntriesEnabled(candidateEntry.clockable.getChip(), true);
                 }
@@ -325,10 +390,12 @@ public class MasterClock implements Runnable {
         // Actually disable that entry
         //System.err.println("Disabling " + currentEntry.clockable.getClass().getSimpleName());
         entryToDisable.enabled = false;
+        requestResheduling(entryToDisable);
         if (entryToDisable.clockable instanceof Emulator) {
             setLinkedEntriesEnabled(entryToDisable.clockable.getChip(), false);
             if (syncPlay) {
                 // Warn all other emulators that they are forced to stop, and disable them
+                // In parallel mode, they stop as soon as their thread notices it, at the latest at the end of the window
                 for (ClockableEntry candidateEntry : entries) {
                     if (candidateEntry.enabled && candidateEntry.clockable instanceof Emulator) {
                         //System.err.println("Calling onNormalExit() on callback for " + candidateEntry.clockable.getClass().getSimpleName());
@@ -337,6 +404,7 @@ public class MasterClock implements Runnable {
                         }
                         //System.err.println("Disabling " + candidateEntry.clockable.getClass().getSimpleName());
                         candidateEntry.enabled = false;
+                        requestResheduling(candidateEntry);
                         setLinkedEntriesEnabled(candidateEntry.clockable.getChip(), false);
                     }
                 }
@@ -355,6 +423,7 @@ public class MasterClock implements Runnable {
                 }
                 //System.err.println((enabled?"Enabling ":"Disabling ") + candidateEntry.clockable.getClass().getSimpleName());
                 candidateEntry.enabled = enabled;
+                requestResheduling(candidateEntry);
             }
         }
     }
@@ -371,12 +440,29 @@ public class MasterClock implements Runnable {
     }
 
     public void resetTotalElapsedTimePs() {
+        // Keep the phase of all entries
+        long timePs = getTotalElapsedTimePs();
+        for (ClockableEntry entry : entries) {
+            entry.nextTickPs -= timePs;
+            entry.lastTickPs -= timePs;
+        }
+        for (Domain domain : domains) {
+            domain.shiftTime(-timePs);
+        }
         totalElapsedTimePs = 0;
     }
 
 
+    /**
+     * @return the current time. During a call to a QuantumClockable, this is the time of the tick it is processing.
+     * In parallel mode, this is the time of the chip that is late
+     */
     public long getTotalElapsedTimePs() {
-        return totalElapsedTimePs;
+        long timePs = domains[0].getCurrentTimePs();
+        for (int i = 1; i < domains.length; i++) {
+            timePs = Math.min(timePs, domains[i].getCurrentTimePs());
+        }
+        return timePs;
     }
 
     /**
@@ -385,10 +471,13 @@ public class MasterClock implements Runnable {
      */
     public void setTotalElapsedTimePsForDebug(long totalElapsedTimePs) {
         this.totalElapsedTimePs = totalElapsedTimePs;
+        for (Domain domain : domains) {
+            domain.timePs = totalElapsedTimePs;
+        }
     }
 
     public String getFormatedTotalElapsedTimeMs() {
-        return milliSecondFormatter.format(totalElapsedTimePs/(double)PS_PER_MS) + "ms";
+        return milliSecondFormatter.format(getTotalElapsedTimePs()/(double)PS_PER_MS) + "ms";
     }
 
 
@@ -413,57 +502,591 @@ public class MasterClock implements Runnable {
     }
 
     /**
-     * Greatest common divider (int)
-     * @param a
-     * @param b
-     * @return
+     * Domains are not saved. Rebuild them, and put all entries back in the queues
      */
-    private static int intGCD(int a, int b) {
-        while (b > 0) {
-            int temp = b;
-            b = a % b; // % is remainder
-            a = temp;
+    private Object readResolve() {
+        if (parallelQuantumPs == 0) {
+            parallelQuantumPs = DEFAULT_PARALLEL_QUANTUM_PS;
         }
-        return a;
+        domains = createDomains();
+        for (Domain domain : domains) {
+            domain.timePs = totalElapsedTimePs;
+        }
+        for (ClockableEntry entry : entries) {
+            entry.queueIndex = -1;
+            entry.domain = getDomain(entry.clockable.getChip());
+        }
+        updateEntriesByClockable();
+        requestResheduling();
+        return this;
+    }
+
+    public void setupClockableCallbackHandlers(ClockableCallbackHandler[] clockableCallbackHandlers) {
+        this.clockableCallbackHandlers = clockableCallbackHandlers;
     }
 
     /**
-     * Least common multiple (long)
-     * A little trickier, but probably the best approach is reduction by the GCD,
-     * which can be similarly iterated:
+     * A set of entries run by a single thread, with its own event queue and time
      */
-    private static long longLCM(long a, long b) {
-        return a * (b / longGCD(a, b));
+    class Domain {
+        /** The chip whose entries this domain runs, or -1 for all */
+        final int chip;
+
+        /** Time of the event being processed */
+        long timePs;
+
+        /**
+         * Event queue: a binary min-heap of the enabled entries with a non-zero frequency, ordered by next tick time.
+         * Only accessed by the thread of this domain. Other threads request changes via entriesToReschedule
+         */
+        private ClockableEntry[] queue = new ClockableEntry[16];
+        private int queueSize;
+
+        /**
+         * Entries added, removed, enabled, disabled, or whose frequency may have changed since the last tick.
+         * Access is synchronized on this list
+         */
+        private final List<ClockableEntry> entriesToReschedule = new ArrayList<>();
+
+        /**
+         * A flag to indicate entriesToReschedule is not empty, so that the clock loop does not have to lock
+         */
+        private volatile boolean rescheduleRequested;
+
+        /** The entry of the QuantumClockable being called, if any, to know the exact current time */
+        private ClockableEntry runningQuantumEntry;
+
+        /** Messages from other domains, ordered by delivery time. Only accessed by the thread of this domain */
+        private final PriorityQueue<Message> messages = new PriorityQueue<>();
+
+        /**
+         * Messages to other domains posted during the current window. Moved to the target domains at the end of
+         * the window. Access is synchronized on this list
+         */
+        private final List<Message> outbox = new ArrayList<>();
+
+        private int messageSequence;
+
+        private final List<ClockableEntry> entriesToDisable = new ArrayList<>();
+
+        Domain(int chip) {
+            this.chip = chip;
+        }
+
+        void requestResheduling(ClockableEntry entry) {
+            if (entry.clockable instanceof EventClockable) {
+                entry.rescheduleTimePs = getCurrentTimePs();
+                // The next event may now occur before the end of the running quantum
+                ClockableEntry quantumEntry = runningQuantumEntry;
+                if (quantumEntry != null) {
+                    ((QuantumClockable) quantumEntry.clockable).endQuantum();
+                }
+            }
+            synchronized (entriesToReschedule) {
+                if (!entriesToReschedule.contains(entry)) {
+                    entriesToReschedule.add(entry);
+                }
+                rescheduleRequested = true;
+            }
+        }
+
+        /**
+         * @return the current time, in picoseconds. During a call to a QuantumClockable, this is the time of the tick
+         * it is processing, which can be later than timePs
+         */
+        long getCurrentTimePs() {
+            ClockableEntry quantumEntry = runningQuantumEntry;
+            if (quantumEntry != null) {
+                return quantumEntry.getTickTimePs(((QuantumClockable) quantumEntry.clockable).getProcessedTicks());
+            }
+            return timePs;
+        }
+
+        /**
+         * Posts a message to another domain, to be delivered one parallel quantum from now
+         */
+        void post(Domain targetDomain, Runnable action) {
+            synchronized (outbox) {
+                outbox.add(new Message(getCurrentTimePs() + parallelQuantumPs, messageSequence++, targetDomain, action));
+            }
+        }
+
+        /**
+         * Moves messages posted during the window to their target domains. Only called when all domain threads wait
+         */
+        void deliverOutbox() {
+            synchronized (outbox) {
+                for (Message message : outbox) {
+                    message.targetDomain.messages.add(message);
+                }
+                outbox.clear();
+            }
+        }
+
+        /**
+         * Runs all pending messages immediately, e.g. when leaving parallel mode
+         */
+        void flushMessages() {
+            deliverOutbox();
+            while (!messages.isEmpty()) {
+                messages.poll().action.run();
+            }
+        }
+
+        void shiftTime(long deltaPs) {
+            timePs += deltaPs;
+            for (Message message : messages) {
+                message.timePs += deltaPs;
+            }
+        }
+
+        /**
+         * @return true if there is nothing to run
+         */
+        boolean isIdle() {
+            return queueSize == 0 && messages.isEmpty() && !rescheduleRequested;
+        }
+
+        /**
+         * Runs windows until the clock stops. In parallel mode, this is the loop of the domain thread
+         */
+        void runWindows() {
+            try {
+                while (running) {
+                    runUntil(windowEndPs);
+                    barrier.await();
+                }
+            }
+            catch (InterruptedException | BrokenBarrierException e) {
+                running = false;
+            }
+        }
+
+        /**
+         * Updates the position in the queue of all entries for which it was requested.
+         * Entries entering the queue tick immediately. Entries already queued keep their phase unless their frequency
+         * changed, in which case their next tick is one new period from now.
+         * EventClockables are instead rescheduled at the tick of their next event, counted from their last processed tick
+         */
+        private void processRescheduleRequests() {
+            synchronized (entriesToReschedule) {
+                rescheduleRequested = false;
+                for (ClockableEntry entry : entriesToReschedule) {
+                    int frequencyHz = (entry.removed || !entry.enabled) ? 0 : entry.clockable.getFrequencyHz();
+                    entry.isFrequencyZero = (frequencyHz <= 0);
+                    if (entry.isFrequencyZero) {
+                        if (entry.queueIndex >= 0) {
+                            removeFromQueue(entry);
+                        }
+                    }
+                    else if (entry.clockable instanceof EventClockable) {
+                        if (entry.queueIndex < 0) {
+                            // Counting starts now
+                            entry.setFrequency(frequencyHz, entry.rescheduleTimePs);
+                            entry.lastTickPs = entry.rescheduleTimePs;
+                            entry.lastTickRemainder = 0;
+                            scheduleEvent(entry);
+                            addToQueue(entry);
+                        }
+                        else {
+                            if (entry.frequencyHz != frequencyHz) {
+                                // Counting goes on from the last processed tick, at the new pace
+                                entry.setFrequency(frequencyHz, entry.lastTickPs);
+                                entry.lastTickRemainder = 0;
+                            }
+                            scheduleEvent(entry);
+                            siftUp(entry.queueIndex);
+                            siftDown(entry.queueIndex);
+                        }
+                    }
+                    else if (entry.queueIndex < 0) {
+                        entry.setFrequency(frequencyHz, timePs);
+                        addToQueue(entry);
+                    }
+                    else if (entry.frequencyHz != frequencyHz) {
+                        entry.setFrequency(frequencyHz, timePs);
+                        entry.advance(1);
+                        siftUp(entry.queueIndex);
+                        siftDown(entry.queueIndex);
+                    }
+                }
+                entriesToReschedule.clear();
+            }
+        }
+
+        /**
+         * Sets the next tick of an EventClockable entry to the tick of its next event, but not further than MAX_BUDGET_PS,
+         * so that it is called at least once per MAX_BUDGET_PS whatever its state.
+         * The entry must not be moved in the queue yet.
+         */
+        private void scheduleEvent(ClockableEntry entry) {
+            int ticks = ((EventClockable) entry.clockable).getTicksToNextEvent();
+            int maxTicks = (int) Math.max(1, MAX_BUDGET_PS / Math.max(1, entry.periodPs));
+            entry.scheduleTicks(Math.max(1, Math.min(ticks, maxTicks)));
+        }
+
+        private void addToQueue(ClockableEntry entry) {
+            if (queueSize == queue.length) {
+                queue = Arrays.copyOf(queue, queueSize * 2);
+            }
+            queue[queueSize] = entry;
+            entry.queueIndex = queueSize;
+            queueSize++;
+            siftUp(entry.queueIndex);
+        }
+
+        private void removeFromQueue(ClockableEntry entry) {
+            int index = entry.queueIndex;
+            queueSize--;
+            ClockableEntry last = queue[queueSize];
+            queue[queueSize] = null;
+            entry.queueIndex = -1;
+            if (index < queueSize) {
+                queue[index] = last;
+                last.queueIndex = index;
+                siftUp(index);
+                siftDown(index);
+            }
+        }
+
+        private void siftUp(int index) {
+            ClockableEntry entry = queue[index];
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+                ClockableEntry parent = queue[parentIndex];
+                if (!entry.isBefore(parent)) {
+                    break;
+                }
+                queue[index] = parent;
+                parent.queueIndex = index;
+                index = parentIndex;
+            }
+            queue[index] = entry;
+            entry.queueIndex = index;
+        }
+
+        private void siftDown(int index) {
+            ClockableEntry entry = queue[index];
+            while (true) {
+                int childIndex = 2 * index + 1;
+                if (childIndex >= queueSize) {
+                    break;
+                }
+                if (childIndex + 1 < queueSize && queue[childIndex + 1].isBefore(queue[childIndex])) {
+                    childIndex++;
+                }
+                ClockableEntry child = queue[childIndex];
+                if (!child.isBefore(entry)) {
+                    break;
+                }
+                queue[index] = child;
+                child.queueIndex = index;
+                index = childIndex;
+            }
+            queue[index] = entry;
+            entry.queueIndex = index;
+        }
+
+        /**
+         * Computes the number of ticks the entry at the head of the queue can process before another entry is due
+         * @param entry the head of the queue, a QuantumClockable
+         * @param endPs time before which the domain must stop (next message or end of window)
+         * @return the number of ticks, at least 1
+         */
+        private int getTickBudget(ClockableEntry entry, long endPs) {
+            long deadlinePs;
+            if (quantumMode) {
+                // Only ticks of other kinds of Clockables are deadlines
+                deadlinePs = Math.min(entry.nextTickPs + MAX_QUANTUM_PS, endPs);
+                for (int i = 1; i < queueSize; i++) {
+                    ClockableEntry other = queue[i];
+                    if (!(other.clockable instanceof QuantumClockable) && other.nextTickPs < deadlinePs) {
+                        deadlinePs = other.nextTickPs;
+                    }
+                }
+            }
+            else {
+                // The next entry is one of the children of the head
+                deadlinePs = Math.min(entry.nextTickPs + MAX_BUDGET_PS, endPs);
+                if (queueSize > 1 && queue[1].nextTickPs < deadlinePs) {
+                    deadlinePs = queue[1].nextTickPs;
+                }
+                if (queueSize > 2 && queue[2].nextTickPs < deadlinePs) {
+                    deadlinePs = queue[2].nextTickPs;
+                }
+            }
+            return entry.getTicksBefore(deadlinePs);
+        }
+
+        /**
+         * Runs entries and messages due strictly before the given time.
+         * Returns when there is nothing left to run before that time, or when the clock is stopped
+         * @param endPs
+         */
+        void runUntil(long endPs) {
+            while (running) {
+                if (rescheduleRequested) {
+                    processRescheduleRequests();
+                }
+
+                // Messages are delivered before entries due at the same time
+                long nextMessagePs = messages.isEmpty() ? Long.MAX_VALUE : messages.peek().timePs;
+                if (queueSize == 0 || queue[0].nextTickPs >= nextMessagePs) {
+                    if (nextMessagePs >= endPs) {
+                        return;
+                    }
+                    timePs = nextMessagePs;
+                    messages.poll().action.run();
+                    continue;
+                }
+
+                // Execute the entry that is due first
+                ClockableEntry currentEntry = queue[0];
+                if (!currentEntry.enabled) {
+                    // Disabled by another thread
+                    removeFromQueue(currentEntry);
+                    continue;
+                }
+                if (currentEntry.nextTickPs >= endPs) {
+                    return;
+                }
+                timePs = currentEntry.nextTickPs;
+
+                int ticks;
+                boolean isQuantumClockable = false;
+                boolean isEventClockable = false;
+                if (currentEntry.clockable instanceof QuantumClockable) {
+                    ticks = getTickBudget(currentEntry, Math.min(endPs, nextMessagePs));
+                    isQuantumClockable = (ticks > 1);
+                }
+                else if (currentEntry.clockable instanceof EventClockable) {
+                    // All ticks up to this one are processed by the call below
+                    ticks = Math.max(1, currentEntry.pendingTicks);
+                    currentEntry.lastTickPs = currentEntry.nextTickPs;
+                    currentEntry.lastTickRemainder = currentEntry.nextTickRemainder;
+                    currentEntry.pendingTicks = 0;
+                    isEventClockable = true;
+                }
+                else {
+                    ticks = 1;
+                }
+                try {
+                    Object result;
+                    if (isQuantumClockable) {
+                        runningQuantumEntry = currentEntry;
+                        try {
+                            result = ((QuantumClockable) currentEntry.clockable).onClockTicks(ticks);
+                        }
+                        finally {
+                            runningQuantumEntry = null;
+                            // The quantum may have ended early
+                            ticks = Math.max(1, Math.min(ticks, ((QuantumClockable) currentEntry.clockable).getProcessedTicks()));
+                        }
+                    }
+                    else if (isEventClockable) {
+                        result = ((EventClockable) currentEntry.clockable).onClockTicks(ticks);
+                    }
+                    else {
+                        result = currentEntry.clockable.onClockTick();
+                    }
+                    if (result != null) {
+                        // A non-null result means this entry shouldn't run anymore
+                        entriesToDisable.add(currentEntry);
+                        // Warn the callback method
+                        if (currentEntry.clockableCallbackHandlerChip >=0) {
+                            clockableCallbackHandlers[currentEntry.clockableCallbackHandlerChip].onNormalExit(result);
+                        }
+                    }
+                }
+                catch (Exception e) {
+                    // In case of exception this entry shouldn't run anymore
+                    entriesToDisable.add(currentEntry);
+                    // Warn the callback method
+                    if (currentEntry.clockableCallbackHandlerChip >=0) {
+                        clockableCallbackHandlers[currentEntry.clockableCallbackHandlerChip].onException(e);
+                    }
+                }
+
+                // Move entry to its next tick. It may have been moved by a reschedule request in between
+                if (currentEntry.queueIndex >= 0) {
+                    if (isEventClockable) {
+                        scheduleEvent(currentEntry);
+                    }
+                    else {
+                        currentEntry.advance(ticks);
+                    }
+                    siftDown(currentEntry.queueIndex);
+                }
+
+                // Check if some entries need to be disabled
+                if (!entriesToDisable.isEmpty()) {
+                    for (ClockableEntry entryToDisable : entriesToDisable) {
+                        disableEntry(entryToDisable);
+                    }
+                    entriesToDisable.clear();
+                }
+            }
+        }
     }
 
     /**
-     * Least common multiple (int)
-     * A little trickier, but probably the best approach is reduction by the GCD,
-     * which can be similarly iterated:
+     * An action posted by a domain to another one, to be run at a given time
      */
-    private static int intLCM(int a, int b) {
-        return a * (b / intGCD(a, b));
-    }
+    static class Message implements Comparable<Message> {
+        long           timePs;
+        final int      sequence;
+        final Domain   targetDomain;
+        final Runnable action;
 
-    public void setupClockableCallbackHandlers(ClockableCallbackHandler[] clockableCallbackHandlers) {
-        this.clockableCallbackHandlers = clockableCallbackHandlers;
+        Message(long timePs, int sequence, Domain targetDomain, Runnable action) {
+            this.timePs = timePs;
+            this.sequence = sequence;
+            this.targetDomain = targetDomain;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Message other) {
+            if (timePs != other.timePs) {
+                return timePs < other.timePs ? -1 : 1;
+            }
+            return Integer.compare(sequence, other.sequence);
+        }
     }
 
-    // This is a wrapper for the device, its counter value and its counter threshold
+    // This is a wrapper for the device, its frequency and the time of its next tick
     static class ClockableEntry {
         final Clockable        clockable;
         final int clockableCallbackHandlerChip;
-        int counterValue     = 0;
-        int counterThreshold = 0;
+        final int sequence;
         boolean enabled;
         boolean isFrequencyZero;
         boolean isPrecise;
+        boolean removed;
 
-        public ClockableEntry(Clockable clockable, int clockableCallbackHandlerChip, boolean enabled, boolean isPrecise) {
+        /** The domain running this entry */
+        Domain domain;
+
+        /** Position in the queue of the domain, or -1 if not queued */
+        int queueIndex = -1;
+
+        int frequencyHz;
+        /**
+         * The period is kept as an exact fraction of picoseconds, (periodPs + periodRemainder / periodDivider),
+         * so that ticks don't drift, whatever the frequency
+         */
+        long periodPs;
+        long periodRemainder;
+        long periodDivider;
+
+        /** Time of the next tick, plus fractional part (nextTickRemainder / periodDivider) */
+        long nextTickPs;
+        long nextTickRemainder;
+
+        /**
+         * For EventClockables only: time of the last processed tick, plus fractional part,
+         * and number of ticks from that one to the next tick, which is the one of the next event
+         */
+        long lastTickPs;
+        long lastTickRemainder;
+        int  pendingTicks;
+
+        /** For EventClockables only: time at which the last rescheduling was requested */
+        long rescheduleTimePs;
+
+        public ClockableEntry(Clockable clockable, int clockableCallbackHandlerChip, boolean enabled, boolean isPrecise, int sequence) {
             this.clockable = clockable;
             this.clockableCallbackHandlerChip = clockableCallbackHandlerChip;
             this.enabled = enabled;
             this.isPrecise = isPrecise;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Changes the frequency. The next tick will occur at the given time
+         */
+        void setFrequency(int frequencyHz, long currentTimePs) {
+            this.frequencyHz = frequencyHz;
+            long gcd = longGCD(PS_PER_SEC, frequencyHz);
+            long periodNumerator = PS_PER_SEC / gcd;
+            periodDivider = frequencyHz / gcd;
+            periodPs = periodNumerator / periodDivider;
+            periodRemainder = periodNumerator % periodDivider;
+            nextTickPs = currentTimePs;
+            nextTickRemainder = 0;
+        }
+
+        /**
+         * Moves the next tick the given number of periods later
+         */
+        void advance(int ticks) {
+            long remainder = nextTickRemainder + ticks * periodRemainder;
+            nextTickPs += ticks * periodPs + remainder / periodDivider;
+            nextTickRemainder = remainder % periodDivider;
+        }
+
+        /**
+         * @return the time of the tick occurring the given number of periods after the next tick
+         */
+        long getTickTimePs(int ticks) {
+            return nextTickPs + ticks * periodPs + (nextTickRemainder + ticks * periodRemainder) / periodDivider;
+        }
+
+        /**
+         * For EventClockables: sets the next tick the given number of periods after the last processed one
+         */
+        void scheduleTicks(int ticks) {
+            pendingTicks = ticks;
+            long remainder = lastTickRemainder + ticks * periodRemainder;
+            nextTickPs = lastTickPs + ticks * periodPs + remainder / periodDivider;
+            nextTickRemainder = remainder % periodDivider;
+        }
+
+        /**
+         * For EventClockables: moves the last processed tick the given number of periods later
+         */
+        void consumeTicks(int ticks) {
+            pendingTicks -= ticks;
+            long remainder = lastTickRemainder + ticks * periodRemainder;
+            lastTickPs += ticks * periodPs + remainder / periodDivider;
+            lastTickRemainder = remainder % periodDivider;
+        }
+
+        /**
+         * For EventClockables: counts the pending ticks occurring strictly before the given time, not including the next tick
+         */
+        int getTicksBeforeNextTick(long timePs) {
+            if (timePs > nextTickPs) {
+                return pendingTicks - 1;
+            }
+            // Tick #k before the next one occurs at nextTickPs + (nextTickRemainder - k * periodNumerator) / periodDivider
+            long periodNumerator = periodPs * periodDivider + periodRemainder;
+            long ticksAtOrAfter = ((nextTickPs - timePs) * periodDivider + nextTickRemainder) / periodNumerator + 1;
+            return (int) Math.max(0, pendingTicks - ticksAtOrAfter);
+        }
+
+        /**
+         * @return the number of ticks of this entry occurring strictly before the given time, at least 1
+         */
+        int getTicksBefore(long deadlinePs) {
+            long available = deadlinePs - 1 - nextTickPs;
+            if (available <= 0) {
+                return 1;
+            }
+            // Tick #n occurs at nextTickPs + (n * periodNumerator + nextTickRemainder) / periodDivider
+            long periodNumerator = periodPs * periodDivider + periodRemainder;
+            long ticks = ((available + 1) * periodDivider - nextTickRemainder + periodNumerator - 1) / periodNumerator;
+            return (int) Math.min(Math.max(ticks, 1), Integer.MAX_VALUE);
+        }
+
+        /**
+         * @return true if this entry must run before the other one
+         */
+        boolean isBefore(ClockableEntry other) {
+            if (nextTickPs != other.nextTickPs) {
+                return nextTickPs < other.nextTickPs;
+            }
+            return sequence < other.sequence;
         }
 
         @Override
@@ -471,9 +1094,4 @@ public class MasterClock implements Runnable {
             return "ClockableEntry (" + (enabled ?"ON":"OFF") +") for " + clockable + '}';
         }
     }
-
-    static class ClockExecutionStep {
-        long stepDurationPs;
-        List<ClockableEntry> entriesToRunAtThisStep = new ArrayList<>();
-    }
 }
@@ -0,0 +1,28 @@
+package com.nikonhacker.emu;
+
+/**
+ * A Clockable able to consume several clock ticks in a single call,
+ * e.g. an emulator running instructions until its cycle budget is exhausted.
+ * In quantum mode, the MasterClock uses this to call it once between two ticks of other devices.
+ */
+public interface QuantumClockable extends Clockable {
+    /**
+     * This method is called instead of onClockTick() to process a number of consecutive ticks
+     * @param ticks the number of ticks to process, at least 1
+     * @return null if the device still wants to be "clocked", or any object the method wants to return.
+     * In the latter case, the remaining ticks are lost
+     */
+    public Object onClockTicks(int ticks) throws Exception;
+
+    /**
+     * @return the number of ticks processed so far by the current (or last) call to onClockTicks()
+     */
+    public int getProcessedTicks();
+
+    /**
+     * Requests the current call to onClockTicks() to return as soon as the tick being processed is over,
+     * e.g. because the device changed the time of the next event of another device.
+     * Ticks that were not processed will be given again in the next call
+     */
+    public void endQuantum();
+}
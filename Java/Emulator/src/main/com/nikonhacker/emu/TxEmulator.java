@@ -2,12 +2,17 @@ package com.nikonhacker.emu;
 
 import com.nikonhacker.Constants;
 import com.nikonhacker.Format;
+import com.nikonhacker.disassembly.CPUState;
+import com.nikonhacker.disassembly.DisassemblyException;
 import com.nikonhacker.disassembly.OutputOption;
+import com.nikonhacker.disassembly.Statement;
+import com.nikonhacker.disassembly.StatementSnapshot;
 import com.nikonhacker.disassembly.tx.TxCPUState;
 import com.nikonhacker.disassembly.tx.TxInstructionSet;
 import com.nikonhacker.disassembly.tx.TxStatement;
 import com.nikonhacker.emu.interrupt.InterruptRequest;
 import com.nikonhacker.emu.interrupt.tx.TxInterruptRequest;
+import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.peripherials.clock.tx.TxClockGenerator;
 import com.nikonhacker.emu.peripherials.interruptController.tx.TxInterruptController;
 import com.nikonhacker.emu.trigger.condition.BreakCondition;
@@ -21,9 +26,27 @@ public class TxEmulator extends Emulator {
     private Set<OutputOption> lastOutputOptions;
     private boolean lastOutputOptionsValid = false;
 
+    /**
+     * Statements already decoded, indexed by PC, one cache per ISA mode.
+     * Created upon first use, as memory can be replaced (e.g. state loading)
+     */
+    private CodeCache<TxStatement> statementCache16;
+    private CodeCache<TxStatement> statementCache32;
+
+    /** Basic blocks already built, indexed by start PC, one cache per ISA mode. Created along with statement caches */
+    private CodeCache<BasicBlock> blockCache16;
+    private CodeCache<BasicBlock> blockCache32;
+
+    /** Last basic block executed, to follow its links to successors */
+    private BasicBlock lastBlock;
+
+    /** Statement used to decode instructions that cannot be cached */
+    private final TxStatement uncachedStatement;
+
     public TxEmulator(Platform platform) {
         super(platform);
-        statement = new TxStatement();
+        uncachedStatement = new TxStatement();
+        statement = uncachedStatement;
     }
 
     @Override
@@ -35,6 +58,13 @@ public class TxEmulator extends Emulator {
         
             super.setOutputOptions(outputOptions);
             TxInstructionSet.init(outputOptions);
+            // Cached statements refer to instructions of the previous maps
+            if (statementCache16 != null) {
+                statementCache16.clear();
+                statementCache32.clear();
+                blockCache16.clear();
+                blockCache32.clear();
+            }
             TxStatement.initFormatChars(outputOptions);
             TxCPUState.initRegisterLabels(outputOptions);
         }
@@ -51,6 +81,14 @@ public class TxEmulator extends Emulator {
         return ((TxClockGenerator)platform.getClockGenerator()).getfCpuHz();
     }
 
+    /**
+     * @return true if a WAIT instruction or the clock generator put the CPU in a stand-by mode
+     */
+    @Override
+    protected boolean isWaitingForInterrupt() {
+        return ((TxCPUState) platform.cpuState).getPowerMode() != TxCPUState.PowerMode.RUN;
+    }
+
     /**
      * Perform one emulation step
      * @return the condition that requires emulation to stop, or null if it should continue
@@ -58,94 +96,52 @@ public class TxEmulator extends Emulator {
      */
     @Override
     public BreakCondition onClockTick() throws EmulationException {
-        // TODO skip clock ticks if previous instruction required several cycles
+        // Skip clock ticks if previous basic block required several cycles
+        // TODO also skip them if previous instruction required several cycles
+        if (context.cycleIncrement > 1) {
+            context.cycleIncrement--;
+            return null;
+        }
 
-        try {
-            statement.reset();
+        // A CPU in stand-by doesn't execute instructions until an interrupt wakes it up
+        if (isWaitingForInterrupt() && isFastForwardPossible()) {
+            return skipIdleTicks(1);
+        }
 
-            if (((TxCPUState) platform.cpuState).is16bitIsaMode) {
-                // FETCH
-                ((TxStatement)statement).fill16bInstruction(platform.memory.loadInstruction16(platform.cpuState.pc), platform.cpuState.pc, platform.memory);
-                // DECODE
-                ((TxStatement)statement).decode16BitOperands(platform.cpuState.pc);
-            }
-            else {
-                // FETCH
-                ((TxStatement)statement).fill32bInstruction(platform.memory.loadInstruction32(platform.cpuState.pc));
-                // DECODE
-                ((TxStatement)statement).decode32BitOperands();
+        try {
+            if (statementCache16 == null) {
+                statementCache16 = new CodeCache<TxStatement>(platform.memory, 1);
+                statementCache32 = new CodeCache<TxStatement>(platform.memory, 2);
+                blockCache16 = new CodeCache<BasicBlock>(platform.memory, 1);
+                blockCache32 = new CodeCache<BasicBlock>(platform.memory, 2);
             }
 
-            // LOG
-            logIfRequested(logger);
-
-            // ACTUAL INSTRUCTION EXECUTION
-            statement.getInstruction().getSimulationCode().simulate(statement, context);
-
-            // Notify CPU cycle listeners
-            int cycleListenerNumber = 0;
-            while (cycleListenerNumber < cycleCounterListeners.size()) {
-                CycleCounterListener cycleCounterListener = cycleCounterListeners.get(cycleListenerNumber);
-                if (cycleCounterListener.onCycleCountChange(totalCycles, 1)) {
-                    cycleListenerNumber++;
-                }
-                else {
-                    cycleCounterListeners.remove(cycleCounterListener);
+            BasicBlock block = null;
+            if (isBlockExecutionPossible()) {
+                boolean is16bitIsaMode = ((TxCPUState) platform.cpuState).is16bitIsaMode;
+                CodeCache<BasicBlock> blockCache = is16bitIsaMode ? blockCache16 : blockCache32;
+                block = getBlock(blockCache, lastBlock, platform.cpuState.pc);
+                if (block != null && containsBreakPoint(block)) {
+                    block = null;
                 }
-            }
-
-            totalCycles ++; // approximation
-
-            /* Delay slot processing */
-            if (context.nextPc != null) {
-                if (context.delaySlotDone) {
-                    platform.cpuState.setPc(context.nextPc);
-                    context.nextPc = null;
-                    if (context.nextReturnAddress != null) {
-                        int targetRegister = TxCPUState.RA;
-                        if (context.nextReturnAddressTargetRegister != null) {
-                            targetRegister = context.nextReturnAddressTargetRegister;
-                            context.nextReturnAddressTargetRegister = null;
-                        }
-                        platform.cpuState.setReg(targetRegister, context.nextReturnAddress);
-                        context.nextReturnAddress = null;
+                if (block != null) {
+                    executeBlock(block, blockCache);
+                    // Links to successors are only valid within the same ISA mode
+                    lastBlock = (((TxCPUState) platform.cpuState).is16bitIsaMode == is16bitIsaMode) ? block : null;
+                    // Delay slots are always part of the block, so the block never ends in one
+                    if (!context.hasDelayedPc) {
+                        checkInterrupts();
                     }
                 }
-                else {
-                    context.delaySlotDone = true;
-                }
             }
-            else {
-                // If not in a delay slot, check interrupts
-                if(platform.interruptController.hasPendingRequests()) { // This call is not synchronized, so it skips fast
-                    final InterruptRequest interruptRequest = platform.interruptController.getNextRequest();
-                    //Double test because lack of synchronization means the status could have changed in between
-                    if (interruptRequest != null) {
-                        if (platform.cpuState.accepts(interruptRequest)){
-                            if (logger != null) {
-                                DisassemblyLogger printer2 = logger;
-                                if (printer2 != null) {
-                                    if(printer2.isIncludeInterruptMarks()) {
-                                        printer2.println(platform.getMasterClock().getFormatedTotalElapsedTimeMs() + " ------------------------- Accepting " + interruptRequest);
-                                    }
-                                    printer2.indent();
-                                }
-                            }
-                            // TODO : We probably should not remove the request from queue automatically.
-                            // TODO   This has to be done explicitely by writing to INTCLR register
-                            platform.interruptController.removeEdgeTriggeredRequest(interruptRequest);
-                            // TODO : Currently, interrupts are not checked in delay slots (see above).
-                            // TODO   Permit that and use address of branch instruction instead of PC if in delay slot !
-                            // Note : must use getPc() so that current ISA mode is stored and restored when returning from interrupt
-                            context.pushInterrupt(interruptRequest);
-                            ((TxInterruptController)platform.interruptController).processInterrupt((TxInterruptRequest) interruptRequest, platform.cpuState.getPc(), context);
-                        }
-                    }
-                }
+
+            if (block == null) {
+                lastBlock = null;
+                executeStatement();
             }
 
             // Process breakConditions
-            if (breakConditionsPresent) {
+            if (!breakConditions.isEmpty()) {
                 BreakCondition breakCondition = processConditions();
                 if (breakCondition != null) {
                     return breakCondition;
@@ -173,4 +169,169 @@ public class TxEmulator extends Emulator {
         return null;
     }
 
+    /**
+     * Fetch, decode and execute the statement at PC, then check interrupts unless in a delay slot
+     */
+    private void executeStatement() throws EmulationException, DisassemblyException {
+        int pc = platform.cpuState.pc;
+        if (((TxCPUState) platform.cpuState).is16bitIsaMode) {
+            statement = statementCache16.get(platform.cpuState.pc);
+            if (statement == null) {
+                statement = decode16bStatement(platform.cpuState.pc);
+            }
+        }
+        else {
+            statement = statementCache32.get(platform.cpuState.pc);
+            if (statement == null) {
+                statement = decode32bStatement(platform.cpuState.pc);
+            }
+        }
+
+        // LOG
+        logIfRequested(logger);
+
+        // ACTUAL INSTRUCTION EXECUTION
+        statement.getInstruction().getSimulationCode().simulate(statement, context);
+
+        totalCycles ++; // approximation
+
+        checkCycleDeadlines();
+
+        if (context.hasDelayedPc) {
+            processDelaySlot();
+        }
+        else {
+            // If not in a delay slot, check interrupts
+            checkInterrupts();
+        }
+
+        checkIdleLoop(pc);
+    }
+
+    @Override
+    public void processDelaySlot() {
+        if (context.delaySlotDone) {
+            platform.cpuState.setPc(context.nextPc);
+            context.hasDelayedPc = false;
+            if (context.hasNextReturnAddress) {
+                int targetRegister = TxCPUState.RA;
+                if (context.nextReturnAddressTargetRegister != CPUState.NOREG) {
+                    targetRegister = context.nextReturnAddressTargetRegister;
+                    context.nextReturnAddressTargetRegister = CPUState.NOREG;
+                }
+                platform.cpuState.setReg(targetRegister, context.nextReturnAddress);
+                context.hasNextReturnAddress = false;
+            }
+        }
+        else {
+            context.delaySlotDone = true;
+        }
+    }
+
+    private void checkInterrupts() {
+        if(platform.interruptController.hasPendingRequests()) { // This call is not synchronized, so it skips fast
+            final InterruptRequest interruptRequest = platform.interruptController.getNextRequest();
+            //Double test because lack of synchronization means the status could have changed in between
+            if (interruptRequest != null) {
+                if (platform.cpuState.accepts(interruptRequest)){
+                    if (logger != null) {
+                        DisassemblyLogger printer2 = logger;
+                        if (printer2 != null) {
+                            if(printer2.isIncludeInterruptMarks()) {
+                                printer2.println(platform.getMasterClock().getFormatedTotalElapsedTimeMs() + " ------------------------- Accepting " + interruptRequest);
+                            }
+                            printer2.indent();
+                        }
+                    }
+                    // TODO : We probably should not remove the request from queue automatically.
+                    // TODO   This has to be done explicitely by writing to INTCLR register
+                    platform.interruptController.removeEdgeTriggeredRequest(interruptRequest);
+                    // TODO : Currently, interrupts are not checked in delay slots (see above).
+                    // TODO   Permit that and use address of branch instruction instead of PC if in delay slot !
+                    // Note : must use getPc() so that current ISA mode is stored and restored when returning from interrupt
+                    context.pushInterrupt(interruptRequest);
+                    ((TxInterruptController)platform.interruptController).processInterrupt((TxInterruptRequest) interruptRequest, platform.cpuState.getPc(), context);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Statement getCacheableStatement(int pc) throws DisassemblyException {
+        boolean is16bitIsaMode = ((TxCPUState) platform.cpuState).is16bitIsaMode;
+        TxStatement txStatement = is16bitIsaMode ? statementCache16.get(pc) : statementCache32.get(pc);
+        if (txStatement == null) {
+            if (platform.memory.isListened(pc)) {
+                return null;
+            }
+            txStatement = is16bitIsaMode ? decode16bStatement(pc) : decode32bStatement(pc);
+            if (txStatement == uncachedStatement) {
+                return null;
+            }
+        }
+        return txStatement;
+    }
+
+    /**
+     * Fetches and decodes the 16-bit ISA statement at the given address, and caches it if possible
+     * @param pc the address of the statement
+     * @return the decoded statement
+     */
+    private TxStatement decode16bStatement(int pc) throws DisassemblyException {
+        // Instruction fetches from areas with activity listeners must remain visible to them, so don't cache these
+        boolean cacheable = !platform.memory.isListened(pc);
+        TxStatement txStatement = cacheable ? new TxStatement() : uncachedStatement;
+        txStatement.reset();
+
+        // FETCH
+        txStatement.fill16bInstruction(platform.memory.loadInstruction16(pc), pc, platform.memory);
+        // DECODE
+        txStatement.decode16BitOperands(pc);
+
+        if (cacheable && !(txStatement.isExtended() && platform.memory.isListened(pc + 2))) {
+            statementCache16.put(pc, txStatement.getNumBytes(), txStatement);
+        }
+        return txStatement;
+    }
+
+    /**
+     * Fetches and decodes the 32-bit ISA statement at the given address, and caches it if possible
+     * @param pc the address of the statement
+     * @return the decoded statement
+     */
+    private TxStatement decode32bStatement(int pc) throws DisassemblyException {
+        // Instruction fetches from areas with activity listeners must remain visible to them, so don't cache these
+        boolean cacheable = !platform.memory.isListened(pc);
+        TxStatement txStatement = cacheable ? new TxStatement() : uncachedStatement;
+        txStatement.reset();
+
+        // FETCH
+        txStatement.fill32bInstruction(platform.memory.loadInstruction32(pc));
+        // DECODE
+        txStatement.decode32BitOperands();
+
+        if (cacheable) {
+            statementCache32.put(pc, txStatement.getNumBytes(), txStatement);
+        }
+        return txStatement;
+    }
+
+    @Override
+    protected Statement decodeSnapshot(StatementSnapshot snapshot, Memory memory) throws DisassemblyException {
+        TxStatement txStatement = new TxStatement();
+        if (snapshot.is16bitIsaMode) {
+            txStatement.fill16bInstruction(memory.loadInstruction16(snapshot.pc), snapshot.pc, memory);
+            txStatement.decode16BitOperands(snapshot.pc);
+        }
+        else {
+            txStatement.fill32bInstruction(memory.loadInstruction32(snapshot.pc));
+            txStatement.decode32BitOperands();
+        }
+        return txStatement;
+    }
+
+    @Override
+    protected CPUState createFormattingCpuState() {
+        return new TxCPUState();
+    }
 }
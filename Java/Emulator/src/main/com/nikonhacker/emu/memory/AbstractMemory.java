@@ -30,14 +30,18 @@ public abstract class AbstractMemory implements Memory {
     /** The maximum amount of RAM available */
     public static final long MAX_RAM = (long) PAGE_SIZE * (long) NUM_PAGES;
 
+    /**
+     * Shared contents of the readable and writable pages that were mapped but never written. Such pages have a null
+     * writable entry, so that their first store gives them their own storage (see {@link #getResidentPage(int)}).
+     * It must never be modified
+     */
+    static final byte[] ZERO_PAGE = new byte[PAGE_SIZE];
+
     /** The memory backing store */
     byte readableMemory[][];
     byte writableMemory[][];
     byte executableMemory[][];
 
-    /** Do we have more optimal nio mmap operation? */
-    boolean HAVE_java_nio_FileChannelImpl_nio_mmap_file = false;
-
     protected boolean logMemoryMessages = true;
 
     public AbstractMemory() {
@@ -65,6 +69,71 @@ public abstract class AbstractMemory implements Memory {
         return address >>> OFFSET_BITS;
     }
 
+    /*
+     * Multi-byte accesses inside a page, so that 16 and 32-bit accesses only look the page up once.
+     * Callers must check that the access doesn't cross the end of the page.
+     */
+
+    /** Read a big endian halfword, sign extended */
+    static int getSigned16(byte[] pageData, int offset) {
+        return (pageData[offset] << 8) | (pageData[offset + 1] & 0xFF);
+    }
+
+    /** Read a big endian halfword, zero extended */
+    static int getUnsigned16(byte[] pageData, int offset) {
+        return ((pageData[offset] & 0xFF) << 8) | (pageData[offset + 1] & 0xFF);
+    }
+
+    /** Read a big endian word */
+    static int get32(byte[] pageData, int offset) {
+        return (pageData[offset] << 24) | ((pageData[offset + 1] & 0xFF) << 16)
+                | ((pageData[offset + 2] & 0xFF) << 8) | (pageData[offset + 3] & 0xFF);
+    }
+
+    /** Write a big endian halfword */
+    static void put16(byte[] pageData, int offset, int value) {
+        pageData[offset] = (byte) (value >> 8);
+        pageData[offset + 1] = (byte) value;
+    }
+
+    /** Write a big endian word */
+    static void put32(byte[] pageData, int offset, int value) {
+        pageData[offset] = (byte) (value >> 24);
+        pageData[offset + 1] = (byte) (value >> 16);
+        pageData[offset + 2] = (byte) (value >> 8);
+        pageData[offset + 3] = (byte) value;
+    }
+
+    /** Read a little endian halfword, sign extended */
+    static int getSigned16LE(byte[] pageData, int offset) {
+        return (pageData[offset + 1] << 8) | (pageData[offset] & 0xFF);
+    }
+
+    /** Read a little endian halfword, zero extended */
+    static int getUnsigned16LE(byte[] pageData, int offset) {
+        return ((pageData[offset + 1] & 0xFF) << 8) | (pageData[offset] & 0xFF);
+    }
+
+    /** Read a little endian word */
+    static int get32LE(byte[] pageData, int offset) {
+        return (pageData[offset + 3] << 24) | ((pageData[offset + 2] & 0xFF) << 16)
+                | ((pageData[offset + 1] & 0xFF) << 8) | (pageData[offset] & 0xFF);
+    }
+
+    /** Write a little endian halfword */
+    static void put16LE(byte[] pageData, int offset, int value) {
+        pageData[offset + 1] = (byte) (value >> 8);
+        pageData[offset] = (byte) value;
+    }
+
+    /** Write a little endian word */
+    static void put32LE(byte[] pageData, int offset, int value) {
+        pageData[offset + 3] = (byte) (value >> 24);
+        pageData[offset + 2] = (byte) (value >> 16);
+        pageData[offset + 1] = (byte) (value >> 8);
+        pageData[offset] = (byte) value;
+    }
+
     /**
      * Find free consecutive pages
      *
@@ -111,9 +180,7 @@ public abstract class AbstractMemory implements Memory {
             MemoryMapException.unalignedAddress(addr);
         }
 
-        // Create memory
         int numPages = (len + PAGE_SIZE - 1) / PAGE_SIZE;
-        byte pages[][] = new byte[numPages][PAGE_SIZE];
 
         // Find address if not specified
         if (addr == 0) {
@@ -138,10 +205,19 @@ public abstract class AbstractMemory implements Memory {
                         + Integer.toHexString(addr) + " len=" + len);
             }
 
-            // Allocate pages
-            readableMemory[pte + i] = read ? pages[i] : new byte[0];
-            writableMemory[pte + i] = write ? pages[i] : new byte[0];
-            executableMemory[pte + i] = exec ? pages[i] : new byte[0];
+            if (read && write) {
+                // Share the zero page until the first store
+                readableMemory[pte + i] = ZERO_PAGE;
+                writableMemory[pte + i] = null;
+                executableMemory[pte + i] = exec ? ZERO_PAGE : new byte[0];
+            }
+            else {
+                // Allocate page
+                byte page[] = new byte[PAGE_SIZE];
+                readableMemory[pte + i] = read ? page : new byte[0];
+                writableMemory[pte + i] = write ? page : new byte[0];
+                executableMemory[pte + i] = exec ? page : new byte[0];
+            }
         }
 
         return addr;
@@ -183,68 +259,28 @@ public abstract class AbstractMemory implements Memory {
         try {
             // Get page table entry
             int pte = getPTE(addr);
-            // Can we optimise the reads to use mmap?
-            if (!HAVE_java_nio_FileChannelImpl_nio_mmap_file) {
-                // Sub-optimal
-                file.seek(offset);
-                for (int i = 0; i < num_pages; i++) {
-                    // Check pages aren't already allocated
-                    if (getPage(pte + i) != null) {
-                        throw new Error("Memory map of already mapped location addr=0x" + Integer.toHexString(addr) + " len=" + len);
-                    }
-                    // Allocate page
-                    byte page[] = new byte[PAGE_SIZE];
-                    if (i == 0) { // first read, start from offset upto a page length
-                        file.read(page, getOffset(addr), PAGE_SIZE - getOffset(addr));
-                    }
-                    else if (i == (num_pages - 1)) { // last read
-                        file.read(page, 0, ((len - getOffset(addr)) % PAGE_SIZE));
-                    }
-                    else {
-                        file.read(page);
-                    }
-
-                    readableMemory[pte + i] = read ? page : new byte[0];
-                    writableMemory[pte + i] = write ? page : new byte[0];
-                    executableMemory[pte + i] = exec ? page : new byte[0];
+            // Pages are byte arrays, so the file contents are copied (see OffHeapMemory to map them)
+            file.seek(offset);
+            for (int i = 0; i < num_pages; i++) {
+                // Check pages aren't already allocated
+                if (getPage(pte + i) != null) {
+                    throw new Error("Memory map of already mapped location addr=0x" + Integer.toHexString(addr) + " len=" + len);
                 }
-            }
-            else {
-                for (int i = 0; i < num_pages; i++) {
-                    // Check pages aren't already allocated
-                    if (getPage(pte + i) != null) {
-                        throw new Error("Memory map of already mapped location addr=0x" + Integer.toHexString(addr) + " len=" + len);
-                    }
-
-                    // Allocate page
-                    if (read && write) {
-                        readableMemory[pte + i] = file.getChannel().map(
-                                FileChannel.MapMode.READ_WRITE, offset + (i * PAGE_SIZE),
-                                PAGE_SIZE).array();
-                        writableMemory[pte + i] = readableMemory[pte + i];
-                        if (exec) {
-                            executableMemory[pte + i] = readableMemory[pte + i];
-                        }
-                    }
-                    else if (read) {
-                        readableMemory[pte + i] = file.getChannel().map(
-                                FileChannel.MapMode.READ_ONLY, offset + (i * PAGE_SIZE),
-                                PAGE_SIZE).array();
-                        if (exec) {
-                            executableMemory[pte + i] = readableMemory[pte + i];
-                        }
-                    }
-                    else if (exec) {
-                        executableMemory[pte + i] = file.getChannel().map(
-                                FileChannel.MapMode.READ_ONLY, offset + (i * PAGE_SIZE),
-                                PAGE_SIZE).array();
-                    }
-                    else {
-                        throw new Error("Unable to map address 0x"
-                                + Integer.toHexString(addr) + " with permissions "
-                                + (read ? "r" : "-") + (write ? "w" : "-") + (exec ? "x" : "-"));
-                    }
+                // Allocate page
+                byte page[] = new byte[PAGE_SIZE];
+                if (i == 0) { // first read, start from offset upto a page length
+                    file.read(page, getOffset(addr), PAGE_SIZE - getOffset(addr));
                 }
+                else if (i == (num_pages - 1)) { // last read
+                    file.read(page, 0, ((len - getOffset(addr)) % PAGE_SIZE));
+                }
+                else {
+                    file.read(page);
+                }
+
+                readableMemory[pte + i] = read ? page : new byte[0];
+                writableMemory[pte + i] = write ? page : new byte[0];
+                executableMemory[pte + i] = exec ? page : new byte[0];
             }
             return addr;
         } catch (IOException e) {
@@ -273,6 +309,27 @@ public abstract class AbstractMemory implements Memory {
         return null;
     }
 
+    /**
+     * Returns the page currently mapped at the given page table entry, after giving it its own storage if it was
+     * still sharing the zero page. This must be used instead of {@link #getPage(int)} to write to the page.
+     *
+     * @param pte The page table entry, for which a page is to be retrieved.
+     * @return The page (R,W,X) mapped at the given page table entry or null, if no page is currently mapped
+     *         to that entry.
+     */
+    final byte[] getResidentPage(int pte) {
+        byte[] page = getPage(pte);
+        if (page == ZERO_PAGE) {
+            page = new byte[PAGE_SIZE];
+            readableMemory[pte] = page;
+            writableMemory[pte] = page;
+            if (executableMemory[pte] == ZERO_PAGE) {
+                executableMemory[pte] = page;
+            }
+        }
+        return page;
+    }
+
     /**
      * Returns the page containing the given address.
      *
@@ -366,7 +423,7 @@ public abstract class AbstractMemory implements Memory {
 
         while (len > 0) {
             int pte = getPTE(address);
-            byte[] page = getPage(pte);
+            byte[] page = getResidentPage(pte);
 
             if (page == null)
                 throw new RuntimeException("Segmentation fault at 0x" + Format.asHex(address, 8));
@@ -388,11 +445,11 @@ public abstract class AbstractMemory implements Memory {
         while (bytesRemainingToRead > 0) {
             int bytesRemainingInPage = getPageSize() - offset;
             int bytesToRead = (int) Math.min(bytesRemainingInPage, bytesRemainingToRead);
-            byte[] page = getPage(pte);
+            byte[] page = getResidentPage(pte);
             if (page == null) {
                 // Unallocated page, allocate it
                 map(pte << OFFSET_BITS, getPageSize(), true, !isWriteProtected, true);
-                page = getPage(pte);
+                page = getResidentPage(pte);
             }
             int bytesRead = fis.read(page, offset, bytesToRead);
             if (bytesRead != bytesToRead) {
@@ -433,7 +490,7 @@ public abstract class AbstractMemory implements Memory {
             while (bytesPushed < rangeSize) {
                 int page = getPTE(address);
                 int offset = getOffset(address);
-                byte[] pageBuffer = getPage(page);
+                byte[] pageBuffer = getResidentPage(page);
                 int byteCount = Math.min(rangeSize - bytesPushed, PAGE_SIZE - offset);
                 buffer.get(pageBuffer, offset, byteCount);
                 address += byteCount;
@@ -464,6 +521,9 @@ public abstract class AbstractMemory implements Memory {
         fos.close();
     }
 
+    /**
+     * @return the number of mapped pages, including the ones still sharing the zero page
+     */
     public int getNumUsedPages() {
         int numPages = 0;
         for (int i = 0; i < NUM_PAGES; i++) {
@@ -474,10 +534,25 @@ public abstract class AbstractMemory implements Memory {
         return numPages;
     }
 
+    /**
+     * @return the number of mapped pages having their own storage, that is excluding the ones still sharing the zero page
+     */
+    public int getNumResidentPages() {
+        int numPages = 0;
+        for (int i = 0; i < NUM_PAGES; i++) {
+            byte[] page = getPage(i);
+            if (page != null && page != ZERO_PAGE) {
+                numPages++;
+            }
+        }
+        return numPages;
+    }
+
     public void saveAllToStream(OutputStream outputStream) throws IOException {
         // Header contains one byte per page, each with the 3 LSB representing R/W/X
         for (int i = 0; i < NUM_PAGES; i++) {
-            outputStream.write((byte) ((readableMemory[i] == null ? 0 : 0x4) | (writableMemory[i] == null ? 0 : 0x2) | (executableMemory[i] == null ? 0 : 0x1)));
+            boolean writable = writableMemory[i] != null || readableMemory[i] == ZERO_PAGE;
+            outputStream.write((byte) ((readableMemory[i] == null ? 0 : 0x4) | (writable ? 0x2 : 0) | (executableMemory[i] == null ? 0 : 0x1)));
         }
         // Then write the contents of used pages
         for (int i = 0; i < NUM_PAGES; i++) {
@@ -512,7 +587,24 @@ public abstract class AbstractMemory implements Memory {
                 while (bytesRead != PAGE_SIZE) {
                     bytesRead += inputStream.read(values, bytesRead, PAGE_SIZE - bytesRead);
                 }
+                if (readableMemory[i] == values && writableMemory[i] == values && isZero(values)) {
+                    // Share the zero page again until the next store
+                    readableMemory[i] = ZERO_PAGE;
+                    writableMemory[i] = null;
+                    if (executableMemory[i] == values) {
+                        executableMemory[i] = ZERO_PAGE;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isZero(byte[] page) {
+        for (byte b : page) {
+            if (b != 0) {
+                return false;
             }
         }
+        return true;
     }
 }
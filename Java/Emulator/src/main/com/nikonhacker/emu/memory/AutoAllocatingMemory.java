@@ -148,8 +148,11 @@ public class AutoAllocatingMemory extends AbstractMemory implements Memory {
 
         byte[] pageData = writableMemory[getPTE(addr)];
         if (pageData == null) {
-            map(truncateToPage(addr), PAGE_SIZE, true, true, true);
-            pageData = writableMemory[getPTE(addr)];
+            // Unmapped page, or first store to a page sharing the zero page
+            if (getPage(getPTE(addr)) == null) {
+                map(truncateToPage(addr), PAGE_SIZE, true, true, true);
+            }
+            pageData = getResidentPage(getPTE(addr));
         }
         pageData[getOffset(addr)] = (byte) value;
     }
@@ -9,11 +9,22 @@
  */
 package com.nikonhacker.emu.memory;
 
+import com.nikonhacker.disassembly.Range;
+import com.nikonhacker.emu.memory.listener.CodePageWriteListener;
 import com.nikonhacker.emu.memory.listener.MemoryActivityListener;
+import com.nikonhacker.emu.memory.listener.WordWriteListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
  * Part of this file is taken from PearColator project
@@ -28,6 +39,32 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
 
     private List<MemoryActivityListener> activityListeners = new ArrayList<MemoryActivityListener>();
 
+    /**
+     * Listeners that may match an address of each page, in call order, or null if accesses to the page are not listened.
+     * Rebuilt as a whole when listeners change, so that accesses can read it without locking
+     */
+    private volatile MemoryActivityListener[][] pageListeners = new MemoryActivityListener[NUM_PAGES][];
+
+    /** Incremented each time activity listeners are added or removed */
+    private volatile int activityListenersVersion;
+
+    /** Pages containing code that was decoded and cached, and whose modification must be reported */
+    private boolean[] watchedCodePages = new boolean[NUM_PAGES];
+
+    private final List<CodePageWriteListener> codePageWriteListeners = new ArrayList<CodePageWriteListener>();
+
+    /** Number of watched words in each page, so that stores to other pages are not slowed down */
+    private int[] watchedWordCounts = new int[NUM_PAGES];
+
+    /** Listeners per watched word address. Replaced as a whole when changed, so that stores can read it without locking */
+    private volatile Map<Integer, WordWriteListener[]> wordWriteListeners = new HashMap<Integer, WordWriteListener[]>();
+
+    /** Incremented each time a watched word is written or a listener is added */
+    private volatile int wordWriteCount;
+
+    /** Incremented by each store, and by each load seen by an activity listener (e.g. a read of an I/O register) */
+    private int observableAccessCount;
+
     public enum AccessSource{
         /** Access due to code reading/writing to memory */
         CODE,
@@ -47,9 +84,14 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
 
     public void clear() {
         super.clear();
+        // Note: this method is also called by the super constructor, before fields are initialized
+        if (watchedCodePages != null) {
+            invalidateCodePages();
+            invalidateWatchedWords();
+        }
     }
 
-    public void addActivityListener(MemoryActivityListener activityListener) {
+    public synchronized void addActivityListener(MemoryActivityListener activityListener) {
         if (activityListener.isReadOnly()) {
             // add at the end so that logging occurs after modifications
             activityListeners.add(activityListener);
@@ -58,10 +100,263 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
             // add at the start so that modifications occur before logging
             activityListeners.add(0, activityListener);
         }
+        rebuildPageListeners();
+        // Cached code may now be covered by a listener wanting to see instruction fetches
+        invalidateCodePages();
+    }
+
+    public synchronized boolean removeActivityListener(MemoryActivityListener activityListener) {
+        boolean removed = activityListeners.remove(activityListener);
+        if (removed) {
+            rebuildPageListeners();
+        }
+        return removed;
+    }
+
+    /**
+     * @return a counter that changes each time activity listeners are added or removed, so that choices made
+     * according to isListened() can be revisited
+     */
+    public final int getActivityListenersVersion() {
+        return activityListenersVersion;
+    }
+
+    /**
+     * Dispatches activity listeners to the pages they may match.
+     * Consecutive pages with the same listeners share the same array
+     */
+    private void rebuildPageListeners() {
+        MemoryActivityListener[][] newPageListeners = new MemoryActivityListener[NUM_PAGES][];
+        List<MemoryActivityListener> listeners = new ArrayList<MemoryActivityListener>();
+        MemoryActivityListener[] previous = null;
+        for (int pte = 0; pte < NUM_PAGES; pte++) {
+            listeners.clear();
+            for (MemoryActivityListener activityListener : activityListeners) {
+                if (activityListener.matchesPage(pte)) {
+                    listeners.add(activityListener);
+                }
+            }
+            if (!listeners.isEmpty()) {
+                if (previous == null || !listeners.equals(Arrays.asList(previous))) {
+                    previous = listeners.toArray(new MemoryActivityListener[listeners.size()]);
+                }
+                newPageListeners[pte] = previous;
+            }
+        }
+        pageListeners = newPageListeners;
+        activityListenersVersion++;
+    }
+
+    /**
+     * Tells if at least one activity listener is interested in the given address
+     * @param addr the address to test
+     * @return true if accessing that address triggers listeners
+     */
+    public boolean isListened(int addr) {
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null) {
+            for (MemoryActivityListener activityListener : listeners) {
+                if (activityListener.matches(addr)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if at least one of the given consecutive bytes is watched by an activity listener
+     */
+    public boolean isListened(int addr, int length) {
+        for (int i = 0; i < length; i++) {
+            if (pageListeners[getPTE(addr + i)] == null) {
+                // Skip to the next page
+                i += PAGE_SIZE - 1 - getOffset(addr + i);
+            }
+            else if (isListened(addr + i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void addCodePageWriteListener(CodePageWriteListener codePageWriteListener) {
+        synchronized (codePageWriteListeners) {
+            if (!codePageWriteListeners.contains(codePageWriteListener)) {
+                codePageWriteListeners.add(codePageWriteListener);
+            }
+        }
+    }
+
+    public void removeCodePageWriteListener(CodePageWriteListener codePageWriteListener) {
+        synchronized (codePageWriteListeners) {
+            codePageWriteListeners.remove(codePageWriteListener);
+        }
+    }
+
+    /**
+     * Declares that information derived from the contents of the given page has been cached, so that
+     * CodePageWriteListeners are notified upon the next modification of that page
+     * @param pte the page table entry (address >>> 16)
+     */
+    public void watchCodePage(int pte) {
+        watchedCodePages[pte] = true;
+    }
+
+    /**
+     * Notifies CodePageWriteListeners that all watched pages have to be considered modified
+     */
+    public void invalidateCodePages() {
+        for (int pte = 0; pte < NUM_PAGES; pte++) {
+            if (watchedCodePages[pte]) {
+                onCodePageWrite(pte);
+            }
+        }
+    }
+
+    private void onCodePageWrite(int pte) {
+        watchedCodePages[pte] = false;
+        synchronized (codePageWriteListeners) {
+            for (CodePageWriteListener codePageWriteListener : codePageWriteListeners) {
+                codePageWriteListener.onCodePageWrite(pte);
+            }
+        }
+    }
+
+    /**
+     * Asks to be notified each time a byte of the word containing the given address is written
+     * @param addr an address in the word to watch
+     * @param wordWriteListener the listener to notify
+     */
+    public synchronized void addWordWriteListener(int addr, WordWriteListener wordWriteListener) {
+        int wordAddress = addr & ~3;
+        Map<Integer, WordWriteListener[]> newListeners = new HashMap<Integer, WordWriteListener[]>(wordWriteListeners);
+        WordWriteListener[] listeners = newListeners.get(wordAddress);
+        if (listeners == null) {
+            listeners = new WordWriteListener[]{wordWriteListener};
+            watchedWordCounts[getPTE(wordAddress)]++;
+        }
+        else {
+            listeners = Arrays.copyOf(listeners, listeners.length + 1);
+            listeners[listeners.length - 1] = wordWriteListener;
+        }
+        newListeners.put(wordAddress, listeners);
+        wordWriteListeners = newListeners;
+        // The listener has not seen the current value yet
+        wordWriteCount++;
+    }
+
+    public synchronized void removeWordWriteListener(int addr, WordWriteListener wordWriteListener) {
+        int wordAddress = addr & ~3;
+        WordWriteListener[] listeners = wordWriteListeners.get(wordAddress);
+        if (listeners == null) {
+            return;
+        }
+        List<WordWriteListener> remaining = new ArrayList<WordWriteListener>(Arrays.asList(listeners));
+        if (!remaining.remove(wordWriteListener)) {
+            return;
+        }
+        Map<Integer, WordWriteListener[]> newListeners = new HashMap<Integer, WordWriteListener[]>(wordWriteListeners);
+        if (remaining.isEmpty()) {
+            newListeners.remove(wordAddress);
+            watchedWordCounts[getPTE(wordAddress)]--;
+        }
+        else {
+            newListeners.put(wordAddress, remaining.toArray(new WordWriteListener[remaining.size()]));
+        }
+        wordWriteListeners = newListeners;
+    }
+
+    /**
+     * @return a counter that changes each time a watched word is written, so that evaluating conditions on watched
+     * words can be skipped as long as it keeps the same value
+     */
+    public final int getWordWriteCount() {
+        return wordWriteCount;
+    }
+
+    /**
+     * @return a counter that changes each time memory is written or a listened address is read, so that code
+     * keeping the same counter value can be considered as having no effect on memory or I/O
+     */
+    public final int getObservableAccessCount() {
+        return observableAccessCount;
+    }
+
+    /**
+     * Notifies WordWriteListeners that all watched words have to be considered modified
+     */
+    private void invalidateWatchedWords() {
+        for (Map.Entry<Integer, WordWriteListener[]> entry : wordWriteListeners.entrySet()) {
+            for (WordWriteListener wordWriteListener : entry.getValue()) {
+                wordWriteListener.onWordWrite(entry.getKey());
+            }
+        }
+        wordWriteCount++;
+        observableAccessCount++;
+    }
+
+    private void onWatchedPageWrite(int addr) {
+        int wordAddress = addr & ~3;
+        WordWriteListener[] listeners = wordWriteListeners.get(wordAddress);
+        if (listeners != null) {
+            for (WordWriteListener wordWriteListener : listeners) {
+                wordWriteListener.onWordWrite(wordAddress);
+            }
+            wordWriteCount++;
+        }
+    }
+
+    /**
+     * Notifies the WordWriteListeners of the words overlapping a block of bytes within a page, once per word
+     */
+    private void onWatchedRangeWrite(int firstAddr, int lastAddr) {
+        int page = getPTE(firstAddr);
+        int firstOffset = getOffset(firstAddr) & ~3;
+        int lastOffset = getOffset(lastAddr);
+        for (Map.Entry<Integer, WordWriteListener[]> entry : wordWriteListeners.entrySet()) {
+            int wordAddress = entry.getKey();
+            if (getPTE(wordAddress) == page && getOffset(wordAddress) >= firstOffset && getOffset(wordAddress) <= lastOffset) {
+                for (WordWriteListener wordWriteListener : entry.getValue()) {
+                    wordWriteListener.onWordWrite(wordAddress);
+                }
+                wordWriteCount++;
+            }
+        }
+    }
+
+    @Override
+    public void unmap(int addr, int len) {
+        super.unmap(addr, len);
+        invalidateCodePages();
+        invalidateWatchedWords();
     }
 
-    public boolean removeActivityListener(MemoryActivityListener activityListener) {
-        return activityListeners.remove(activityListener);
+    @Override
+    public void changeProtection(int address, int len, boolean newRead, boolean newWrite, boolean newExec) {
+        super.changeProtection(address, len, newRead, newWrite, newExec);
+        invalidateCodePages();
+    }
+
+    @Override
+    public void loadFile(File file, int startAddress, boolean isWriteProtected) throws IOException {
+        super.loadFile(file, startAddress, isWriteProtected);
+        invalidateCodePages();
+        invalidateWatchedWords();
+    }
+
+    @Override
+    public void loadFile(File sourceFile, Collection<Range> ranges, boolean isWriteProtected) throws IOException {
+        super.loadFile(sourceFile, ranges, isWriteProtected);
+        invalidateCodePages();
+        invalidateWatchedWords();
+    }
+
+    @Override
+    public void loadAllFromStream(InputStream inputStream) throws IOException {
+        super.loadAllFromStream(inputStream);
+        invalidateCodePages();
+        invalidateWatchedWords();
     }
 
     /**
@@ -85,9 +380,11 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
             }
 
             byte value = pageData[offset];
-            if (accessSource != null) {
-                for (MemoryActivityListener activityListener : activityListeners) {
+            MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+            if (listeners != null && accessSource != null) {
+                for (MemoryActivityListener activityListener : listeners) {
                     if (activityListener.matches(addr)) {
+                        observableAccessCount++;
                         Byte b = activityListener.onLoadData8(pageData, addr, value, accessSource);
                         if (b != null) {
                             value = b;
@@ -126,9 +423,11 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
             }
 
             byte value = pageData[offset];
-            if (accessSource != null) {
-                for (MemoryActivityListener activityListener : activityListeners) {
+            MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+            if (listeners != null && accessSource != null) {
+                for (MemoryActivityListener activityListener : listeners) {
                     if (activityListener.matches(addr)) {
+                        observableAccessCount++;
                         Byte b = activityListener.onLoadData8(pageData, addr, value, accessSource);
                         if (b != null) {
                             value = b;
@@ -156,10 +455,21 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
     
     public int loadSigned16(int addr, AccessSource accessSource) {
-        int value = (loadSigned8(addr, null) << 8) | loadUnsigned8(addr + 1, null);
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int value;
+        int offset = getOffset(addr);
+        byte[] pageData = readableMemory[getPTE(addr)];
+        if (pageData != null && offset <= PAGE_SIZE - 2) {
+            value = getSigned16(pageData, offset);
+        }
+        else {
+            // Unmapped page (mapped upon first access) or access crossing a page boundary
+            value = (loadSigned8(addr, null) << 8) | loadUnsigned8(addr + 1, null);
+        }
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
+                    observableAccessCount++;
                     Integer i = activityListener.onLoadData16(readableMemory[getPTE(addr)], addr, value, accessSource);
                     if (i != null) {
                         value = i;
@@ -184,10 +494,21 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
     
     public int loadUnsigned16(int addr, AccessSource accessSource) {
-        int value = (loadUnsigned8(addr, null) << 8) | loadUnsigned8(addr + 1, null);
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int value;
+        int offset = getOffset(addr);
+        byte[] pageData = readableMemory[getPTE(addr)];
+        if (pageData != null && offset <= PAGE_SIZE - 2) {
+            value = getUnsigned16(pageData, offset);
+        }
+        else {
+            // Unmapped page (mapped upon first access) or access crossing a page boundary
+            value = (loadUnsigned8(addr, null) << 8) | loadUnsigned8(addr + 1, null);
+        }
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
+                    observableAccessCount++;
                     Integer i = activityListener.onLoadData16(readableMemory[getPTE(addr)], addr, value, accessSource);
                     if (i != null) {
                         value = i;
@@ -211,11 +532,22 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
 
     public int load32(int addr, AccessSource accessSource) {
-        int value = (loadSigned8(addr, null) << 24) | (loadUnsigned8(addr + 1, null) << 16)
-                | (loadUnsigned8(addr + 2, null) << 8) | loadUnsigned8(addr + 3, null);
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int value;
+        int offset = getOffset(addr);
+        byte[] pageData = readableMemory[getPTE(addr)];
+        if (pageData != null && offset <= PAGE_SIZE - 4) {
+            value = get32(pageData, offset);
+        }
+        else {
+            // Unmapped page (mapped upon first access) or access crossing a page boundary
+            value = (loadSigned8(addr, null) << 24) | (loadUnsigned8(addr + 1, null) << 16)
+                    | (loadUnsigned8(addr + 2, null) << 8) | loadUnsigned8(addr + 3, null);
+        }
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
+                    observableAccessCount++;
                     Integer i = activityListener.onLoadData32(readableMemory[getPTE(addr)], addr, value, accessSource);
                     if (i != null) {
                         value = i;
@@ -240,8 +572,9 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     public int loadInstruction8(int addr, AccessSource accessSource) {
         int page = getPTE(addr);
         int offset = getOffset(addr);
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
                     activityListener.onLoadInstruction8(executableMemory[page], addr, executableMemory[page][offset], accessSource);
                 }
@@ -255,9 +588,19 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
 
     public int loadInstruction16(int addr, AccessSource accessSource) {
-        int value = (loadInstruction8(addr, null) << 8) | loadInstruction8(addr + 1, null);
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int value;
+        int offset = getOffset(addr);
+        byte[] pageData = executableMemory[getPTE(addr)];
+        if (pageData != null && offset <= PAGE_SIZE - 2) {
+            value = getUnsigned16(pageData, offset);
+        }
+        else {
+            // Access crossing a page boundary, or failing
+            value = (loadInstruction8(addr, null) << 8) | loadInstruction8(addr + 1, null);
+        }
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
                     activityListener.onLoadInstruction16(executableMemory[getPTE(addr)], addr, value, accessSource);
                 }
@@ -277,11 +620,21 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
 
     public int loadInstruction32(int addr, AccessSource accessSource) {
-        int value = (loadInstruction8(addr, null) << 24)
-                | (loadInstruction8(addr + 1, null) << 16)
-                | (loadInstruction8(addr + 2, null) << 8) | loadInstruction8(addr + 3, null);
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int value;
+        int offset = getOffset(addr);
+        byte[] pageData = executableMemory[getPTE(addr)];
+        if (pageData != null && offset <= PAGE_SIZE - 4) {
+            value = get32(pageData, offset);
+        }
+        else {
+            // Access crossing a page boundary, or failing
+            value = (loadInstruction8(addr, null) << 24)
+                    | (loadInstruction8(addr + 1, null) << 16)
+                    | (loadInstruction8(addr + 2, null) << 8) | loadInstruction8(addr + 3, null);
+        }
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
                     activityListener.onLoadInstruction32(executableMemory[getPTE(addr)], addr, value, accessSource);
                 }
@@ -304,19 +657,57 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
         int page = getPTE(addr);
         int offset = getOffset(addr);
 
-        byte[] pageData = writableMemory[page];
-        if (pageData == null) {
-            map(truncateToPage(addr), PAGE_SIZE, true, true, true);
-            pageData = writableMemory[page];
-        }
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        byte[] pageData = getWritablePage(page);
+        MemoryActivityListener[] listeners = pageListeners[getPTE(addr)];
+        if (listeners != null && accessSource != null) {
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
                     activityListener.onStore8(pageData, addr, (byte) value, accessSource);
                 }
             }
         }
         pageData[offset] = (byte) value;
+        onStore(page, addr, addr);
+    }
+
+    /**
+     * @return the writable page at the given page table entry, mapping it if needed
+     */
+    private byte[] getWritablePage(int page) {
+        byte[] pageData = writableMemory[page];
+        if (pageData == null) {
+            // Unmapped page, or first store to a page sharing the zero page
+            if (getPage(page) == null) {
+                map(page << OFFSET_BITS, PAGE_SIZE, true, true, true);
+            }
+            pageData = getResidentPage(page);
+        }
+        return pageData;
+    }
+
+    /**
+     * Reports a store of consecutive bytes within a page to code and word watchers
+     * @param page the page table entry of the bytes
+     * @param firstAddr the address of the first byte written
+     * @param lastAddr the address of the last byte written
+     */
+    private void onStore(int page, int firstAddr, int lastAddr) {
+        observableAccessCount++;
+        if (watchedCodePages[page]) {
+            onCodePageWrite(page);
+        }
+        if (watchedWordCounts[page] != 0) {
+            if (lastAddr - firstAddr < 4) {
+                onWatchedPageWrite(firstAddr);
+                if ((firstAddr & ~3) != (lastAddr & ~3)) {
+                    // Unaligned store spanning two words
+                    onWatchedPageWrite(lastAddr);
+                }
+            }
+            else {
+                onWatchedRangeWrite(firstAddr, lastAddr);
+            }
+        }
     }
 
     /**
@@ -330,15 +721,30 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
 
     public void store16(int addr, int value, AccessSource accessSource) {
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int page = getPTE(addr);
+        int offset = getOffset(addr);
+        byte[] pageData = writableMemory[page];
+        MemoryActivityListener[] listeners = pageListeners[page];
+        if (listeners != null && accessSource != null) {
+            if (pageData == null) {
+                // Listeners get the page actually written, even on the first store to a page sharing the zero page
+                pageData = getWritablePage(page);
+            }
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
-                    activityListener.onStore16(writableMemory[getPTE(addr)], addr, value, accessSource);
+                    activityListener.onStore16(pageData, addr, value, accessSource);
                 }
             }
         }
-        store8(addr, value >> 8, null);
-        store8(addr + 1, value, null);
+        if (pageData != null && offset <= PAGE_SIZE - 2) {
+            put16(pageData, offset, value);
+            onStore(page, addr, addr + 1);
+        }
+        else {
+            // Unmapped page, page sharing the zero page, or access crossing a page boundary
+            store8(addr, value >> 8, null);
+            store8(addr + 1, value, null);
+        }
     }
 
     /**
@@ -352,17 +758,151 @@ public class DebuggableMemory extends AbstractMemory implements Memory {
     }
 
     public void store32(int addr, int value, AccessSource accessSource) {
-        if (accessSource != null) {
-            for (MemoryActivityListener activityListener : activityListeners) {
+        int page = getPTE(addr);
+        int offset = getOffset(addr);
+        byte[] pageData = writableMemory[page];
+        MemoryActivityListener[] listeners = pageListeners[page];
+        if (listeners != null && accessSource != null) {
+            if (pageData == null) {
+                // Listeners get the page actually written, even on the first store to a page sharing the zero page
+                pageData = getWritablePage(page);
+            }
+            for (MemoryActivityListener activityListener : listeners) {
                 if (activityListener.matches(addr)) {
-                    activityListener.onStore32(writableMemory[getPTE(addr)], addr, value, accessSource);
+                    activityListener.onStore32(pageData, addr, value, accessSource);
                 }
             }
         }
-        store8(addr, value >> 24, null);
-        store8(addr + 1, value >> 16, null);
-        store8(addr + 2, value >> 8, null);
-        store8(addr + 3, value, null);
+        if (pageData != null && offset <= PAGE_SIZE - 4) {
+            put32(pageData, offset, value);
+            onStore(page, addr, addr + 3);
+        }
+        else {
+            // Unmapped page, page sharing the zero page, or access crossing a page boundary
+            store8(addr, value >> 24, null);
+            store8(addr + 1, value >> 16, null);
+            store8(addr + 2, value >> 8, null);
+            store8(addr + 3, value, null);
+        }
     }
 
+    /*
+     * Block transfers, for peripherals moving whole buffers.
+     * Pages without activity listener are accessed with System.arraycopy() or Arrays.fill(), and code and word
+     * watchers are notified once per page range. Bytes of pages having activity listeners are accessed one by one
+     * as by loadUnsigned8() and store8(), so that listeners see them.
+     */
+
+    /**
+     * Reads consecutive bytes
+     * @param addr the address of the first byte
+     * @param buffer the array to copy bytes to
+     * @param offset the index in buffer of the first byte
+     * @param length the number of bytes to read
+     */
+    public void loadBlock(int addr, byte[] buffer, int offset, int length, AccessSource accessSource) {
+        while (length > 0) {
+            int page = getPTE(addr);
+            int count = Math.min(length, PAGE_SIZE - getOffset(addr));
+            if (pageListeners[page] != null && accessSource != null) {
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = (byte) loadUnsigned8(addr + i, accessSource);
+                }
+            }
+            else {
+                byte[] pageData = readableMemory[page];
+                if (pageData == null) {
+                    map(truncateToPage(addr), PAGE_SIZE, true, true, true);
+                    pageData = readableMemory[page];
+                }
+                System.arraycopy(pageData, getOffset(addr), buffer, offset, count);
+            }
+            addr += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes consecutive bytes
+     * @param addr the address of the first byte
+     * @param buffer the array to copy bytes from
+     * @param offset the index in buffer of the first byte
+     * @param length the number of bytes to write
+     */
+    public void storeBlock(int addr, byte[] buffer, int offset, int length, AccessSource accessSource) {
+        while (length > 0) {
+            int page = getPTE(addr);
+            int count = Math.min(length, PAGE_SIZE - getOffset(addr));
+            if (pageListeners[page] != null && accessSource != null) {
+                for (int i = 0; i < count; i++) {
+                    store8(addr + i, buffer[offset + i], accessSource);
+                }
+            }
+            else {
+                System.arraycopy(buffer, offset, getWritablePage(page), getOffset(addr), count);
+                onStore(page, addr, addr + count - 1);
+            }
+            addr += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Copies consecutive bytes. The result is the one of a byte by byte copy in increasing addresses, unless the
+     * destination starts inside the source range
+     * @param from the address of the first byte to read
+     * @param to the address of the first byte to write
+     * @param length the number of bytes to copy
+     */
+    public void copy(int from, int to, int length, AccessSource accessSource) {
+        while (length > 0) {
+            int fromPage = getPTE(from);
+            int toPage = getPTE(to);
+            int count = Math.min(length, PAGE_SIZE - Math.max(getOffset(from), getOffset(to)));
+            if ((pageListeners[fromPage] != null || pageListeners[toPage] != null) && accessSource != null) {
+                for (int i = 0; i < count; i++) {
+                    store8(to + i, loadUnsigned8(from + i, accessSource), accessSource);
+                }
+            }
+            else {
+                byte[] toData = getWritablePage(toPage);
+                byte[] fromData = readableMemory[fromPage];
+                if (fromData == null) {
+                    map(truncateToPage(from), PAGE_SIZE, true, true, true);
+                    fromData = readableMemory[fromPage];
+                }
+                System.arraycopy(fromData, getOffset(from), toData, getOffset(to), count);
+                onStore(toPage, to, to + count - 1);
+            }
+            from += count;
+            to += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Sets consecutive bytes to the same value
+     * @param addr the address of the first byte
+     * @param value the value to store in each byte
+     * @param length the number of bytes to write
+     */
+    public void fill(int addr, int value, int length, AccessSource accessSource) {
+        while (length > 0) {
+            int page = getPTE(addr);
+            int count = Math.min(length, PAGE_SIZE - getOffset(addr));
+            if (pageListeners[page] != null && accessSource != null) {
+                for (int i = 0; i < count; i++) {
+                    store8(addr + i, value, accessSource);
+                }
+            }
+            else {
+                Arrays.fill(getWritablePage(page), getOffset(addr), getOffset(addr) + count, (byte) value);
+                onStore(page, addr, addr + count - 1);
+            }
+            addr += count;
+            length -= count;
+        }
+    }
 }
@@ -63,6 +63,14 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @return the sign extended result
      */
     public int loadSigned16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = readableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return getSigned16(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadSigned8(addr) << 8) | loadUnsigned8(addr + 1);
     }
 
@@ -73,6 +81,14 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @return the zero extended result
      */
     public int loadUnsigned16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = readableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return getUnsigned16(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadUnsigned8(addr) << 8) | loadUnsigned8(addr + 1);
     }
 
@@ -83,6 +99,14 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @return the result
      */
     public int load32(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            byte[] pageData = readableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return get32(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadSigned8(addr) << 24) | (loadUnsigned8(addr + 1) << 16)
                 | (loadUnsigned8(addr + 2) << 8) | loadUnsigned8(addr + 3);
     }
@@ -99,6 +123,14 @@ public class FastMemory extends AbstractMemory implements Memory  {
     }
 
     public int loadInstruction16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = executableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return getUnsigned16(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadInstruction8(addr) << 8) | loadInstruction8(addr + 1);
     }
 
@@ -109,6 +141,14 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @return the result
      */
     public int loadInstruction32(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            byte[] pageData = executableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return get32(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadInstruction8(addr) << 24)
                 | (loadInstruction8(addr + 1) << 16)
                 | (loadInstruction8(addr + 2) << 8) | loadInstruction8(addr + 3);
@@ -121,7 +161,12 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @param addr  the address of where to store
      */
     public final void store8(int addr, int value) {
-        writableMemory[AbstractMemory.getPTE(addr)][AbstractMemory.getOffset(addr)] = (byte) value;
+        byte[] pageData = writableMemory[AbstractMemory.getPTE(addr)];
+        if (pageData == null) {
+            // First store to a page sharing the zero page
+            pageData = getResidentPage(AbstractMemory.getPTE(addr));
+        }
+        pageData[AbstractMemory.getOffset(addr)] = (byte) value;
     }
 
     /**
@@ -131,6 +176,15 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @param addr  the address of where to store
      */
     public void store16(int addr, int value) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = writableMemory[getPTE(addr)];
+            if (pageData != null) {
+                put16(pageData, offset, value);
+                return;
+            }
+        }
+        // Unmapped page, page sharing the zero page, or access crossing a page boundary
         store8(addr, value >> 8);
         store8(addr + 1, value);
     }
@@ -142,6 +196,15 @@ public class FastMemory extends AbstractMemory implements Memory  {
      * @param addr  the address of where to store
      */
     public void store32(int addr, int value) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            byte[] pageData = writableMemory[getPTE(addr)];
+            if (pageData != null) {
+                put32(pageData, offset, value);
+                return;
+            }
+        }
+        // Unmapped page, page sharing the zero page, or access crossing a page boundary
         store8(addr, value >> 24);
         store8(addr + 1, value >> 16);
         store8(addr + 2, value >> 8);
@@ -55,6 +55,14 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @return the sign extended result
      */
     public int loadSigned16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = readableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return getSigned16LE(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadSigned8(addr+1) << 8) | loadUnsigned8(addr);
     }
 
@@ -65,6 +73,14 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @return the zero extended result
      */
     public int loadUnsigned16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = readableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return getUnsigned16LE(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadUnsigned8(addr+1) << 8) | loadUnsigned8(addr);
     }
 
@@ -75,6 +91,14 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @return the result
      */
     public int load32(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            byte[] pageData = readableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return get32LE(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadSigned8(addr+3) << 24) | (loadUnsigned8(addr + 2) << 16)
                 | (loadUnsigned8(addr + 1) << 8) | loadUnsigned8(addr);
     }
@@ -91,6 +115,14 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
     }
 
     public int loadInstruction16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = executableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return getUnsigned16LE(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadInstruction8(addr+1) << 8) | loadInstruction8(addr);
     }
 
@@ -101,6 +133,14 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @return the result
      */
     public int loadInstruction32(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            byte[] pageData = executableMemory[getPTE(addr)];
+            if (pageData != null) {
+                return get32LE(pageData, offset);
+            }
+        }
+        // Unmapped page or access crossing a page boundary
         return (loadInstruction8(addr+3) << 24)
                 | (loadInstruction8(addr + 2) << 16)
                 | (loadInstruction8(addr + 1) << 8) | loadInstruction8(addr);
@@ -113,7 +153,12 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @param addr  the address of where to store
      */
     public final void store8(int addr, int value) {
-        writableMemory[AbstractMemory.getPTE(addr)][AbstractMemory.getOffset(addr)] = (byte) value;
+        byte[] pageData = writableMemory[AbstractMemory.getPTE(addr)];
+        if (pageData == null) {
+            // First store to a page sharing the zero page
+            pageData = getResidentPage(AbstractMemory.getPTE(addr));
+        }
+        pageData[AbstractMemory.getOffset(addr)] = (byte) value;
     }
 
     /**
@@ -123,6 +168,15 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @param addr  the address of where to store
      */
     public void store16(int addr, int value) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            byte[] pageData = writableMemory[getPTE(addr)];
+            if (pageData != null) {
+                put16LE(pageData, offset, value);
+                return;
+            }
+        }
+        // Unmapped page, page sharing the zero page, or access crossing a page boundary
         store8(addr + 1, value >> 8);
         store8(addr, value);
     }
@@ -134,6 +188,15 @@ public class FastMemoryLE extends AbstractMemory implements Memory  {
      * @param addr  the address of where to store
      */
     public void store32(int addr, int value) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            byte[] pageData = writableMemory[getPTE(addr)];
+            if (pageData != null) {
+                put32LE(pageData, offset, value);
+                return;
+            }
+        }
+        // Unmapped page, page sharing the zero page, or access crossing a page boundary
         store8(addr + 3, value >> 24);
         store8(addr + 2, value >> 16);
         store8(addr + 1, value >> 8);
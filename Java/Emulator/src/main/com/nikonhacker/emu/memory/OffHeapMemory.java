@@ -0,0 +1,519 @@
+package com.nikonhacker.emu.memory;
+
+import com.nikonhacker.Format;
+import com.nikonhacker.disassembly.Range;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+
+/**
+ * Memory storing its pages off-heap, in direct or memory-mapped ByteBuffers instead of byte arrays, so that large
+ * RAM areas do not weigh on the garbage collector.
+ * Anonymous mappings are allocated as direct buffers or, if a backing file is given, as regions of that file at an
+ * offset equal to their address (the file is sparse on most file systems). Memory contents then live in the OS page
+ * cache and can be shared or snapshotted through the file.
+ * Files loaded with loadFile() are mapped directly, read-only if write protected or else privately so that stores
+ * never reach the file, except for pages they only partially cover, which get a copy of the file contents.
+ * Like FastMemory, accesses to unmapped memory throw a NullPointerException. Pages are not available as byte
+ * arrays, so this memory cannot be observed by memory activity listeners as DebuggableMemory is.
+ */
+public class OffHeapMemory implements Memory {
+    /** Same paging as AbstractMemory, so that state snapshots are interchangeable */
+    private static final int PAGE_SIZE   = AbstractMemory.PAGE_SIZE;
+    private static final int OFFSET_BITS = AbstractMemory.OFFSET_BITS;
+    private static final int NUM_PAGES   = AbstractMemory.NUM_PAGES;
+
+    /** Largest region allocated or mapped at once, as a ByteBuffer is limited to 2GB */
+    private static final int MAX_CHUNK_PAGES = 0x4000;
+
+    /** Page entry for a missing permission */
+    private static final ByteBuffer NO_ACCESS = ByteBuffer.allocate(0);
+
+    private final ByteOrder byteOrder;
+    private final boolean   isBigEndian;
+
+    /** File backing anonymous mappings, or null to allocate them as direct buffers */
+    private final RandomAccessFile backingFile;
+
+    /** The memory backing store */
+    private ByteBuffer readableMemory[];
+    private ByteBuffer writableMemory[];
+    private ByteBuffer executableMemory[];
+
+    private boolean logMemoryMessages = false;
+
+    public OffHeapMemory(ByteOrder byteOrder) {
+        this(byteOrder, null);
+    }
+
+    /**
+     * @param byteOrder the endianness of multi-byte accesses
+     * @param backingFile file opened for writing to back anonymous mappings, or null to allocate them as direct buffers
+     */
+    public OffHeapMemory(ByteOrder byteOrder, RandomAccessFile backingFile) {
+        this.byteOrder = byteOrder;
+        this.isBigEndian = (byteOrder == ByteOrder.BIG_ENDIAN);
+        this.backingFile = backingFile;
+        clear();
+    }
+
+    @Override
+    public void setLogMemoryMessages(boolean logMemoryMessages) {
+        this.logMemoryMessages = logMemoryMessages;
+    }
+
+    public void clear() {
+        readableMemory = new ByteBuffer[NUM_PAGES];
+        writableMemory = new ByteBuffer[NUM_PAGES];
+        executableMemory = new ByteBuffer[NUM_PAGES];
+    }
+
+    private static int getOffset(int address) {
+        return address & (PAGE_SIZE - 1);
+    }
+
+    private static int getPTE(int address) {
+        return address >>> OFFSET_BITS;
+    }
+
+    /**
+     * Allocates storage for consecutive pages
+     * @param pte the page table entry of the first page
+     */
+    private ByteBuffer allocate(int pte, int numPages) throws IOException {
+        if (backingFile == null) {
+            return ByteBuffer.allocateDirect(numPages * PAGE_SIZE);
+        }
+        return backingFile.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) pte << OFFSET_BITS, (long) numPages * PAGE_SIZE);
+    }
+
+    /**
+     * Sets consecutive pages to slices of the given buffer
+     * @param pte the page table entry of the first page
+     */
+    private void setPages(int pte, ByteBuffer buffer, int numPages, boolean read, boolean write, boolean exec) {
+        for (int i = 0; i < numPages; i++) {
+            buffer.limit((i + 1) * PAGE_SIZE);
+            buffer.position(i * PAGE_SIZE);
+            ByteBuffer page = buffer.slice().order(byteOrder);
+            readableMemory[pte + i] = read ? page : NO_ACCESS;
+            writableMemory[pte + i] = write ? page : NO_ACCESS;
+            executableMemory[pte + i] = exec ? page : NO_ACCESS;
+        }
+    }
+
+    /**
+     * @return the storage of the page mapped at the given page table entry, whatever its permissions,
+     * or null if no page is mapped there
+     */
+    private ByteBuffer getPage(int pte) {
+        if (readableMemory[pte] != null && readableMemory[pte] != NO_ACCESS)
+            return readableMemory[pte];
+
+        if (writableMemory[pte] != null && writableMemory[pte] != NO_ACCESS)
+            return writableMemory[pte];
+
+        if (executableMemory[pte] != null && executableMemory[pte] != NO_ACCESS)
+            return executableMemory[pte];
+
+        return null;
+    }
+
+    /**
+     * Map an anonymous page of memory
+     *
+     * @param addr  the address to map
+     * @param len   the amount of memory to map
+     * @param read  is the page readable
+     * @param write is the page writable
+     * @param exec  is the page executable
+     */
+    public int map(int addr, int len, boolean read, boolean write, boolean exec) throws MemoryMapException {
+        // Check address is page aligned
+        if ((addr % PAGE_SIZE) != 0) {
+            MemoryMapException.unalignedAddress(addr);
+        }
+
+        if (logMemoryMessages) {
+            System.out.println("Anonymous mapping: addr=0x"
+                    + Integer.toHexString(addr) + " len=" + len + (read ? " r" : " -")
+                    + (write ? "w" : "-") + (exec ? "x" : "-"));
+        }
+
+        int numPages = (len + PAGE_SIZE - 1) / PAGE_SIZE;
+        int pte = getPTE(addr);
+        // Check pages aren't already allocated
+        for (int i = 0; i < numPages; i++) {
+            if (isMapped((pte + i) << OFFSET_BITS)) {
+                throw new Error("Memory map of already mapped location addr=0x"
+                        + Integer.toHexString(addr) + " len=" + len);
+            }
+        }
+        try {
+            for (int i = 0; i < numPages; i += MAX_CHUNK_PAGES) {
+                int chunkPages = Math.min(numPages - i, MAX_CHUNK_PAGES);
+                setPages(pte + i, allocate(pte + i, chunkPages), chunkPages, read, write, exec);
+            }
+        } catch (IOException e) {
+            throw new Error(e);
+        }
+        return addr;
+    }
+
+    /**
+     * Map pages of memory from file. Stores to writable pages are written to the file
+     *
+     * @param file  the file map in from
+     * @param addr  the address to map
+     * @param len   the amount of memory to map
+     * @param read  is the page readable
+     * @param write is the page writable
+     * @param exec  is the page executable
+     */
+    public int map(RandomAccessFile file, long offset, int addr, int len,
+                   boolean read, boolean write, boolean exec) throws MemoryMapException {
+        // Check address is page aligned
+        if ((addr % PAGE_SIZE) != 0) {
+            MemoryMapException.unalignedAddress(addr);
+        }
+        if (logMemoryMessages) {
+            System.out.println("Mapping file " + file + " offset=" + offset
+                    + " addr=0x" + Integer.toHexString(addr) + " len=" + len
+                    + (read ? " r" : " -") + (write ? "w" : "-") + (exec ? "x" : "-"));
+        }
+        int numPages = (len + PAGE_SIZE - 1) / PAGE_SIZE;
+        int pte = getPTE(addr);
+        for (int i = 0; i < numPages; i++) {
+            if (isMapped((pte + i) << OFFSET_BITS)) {
+                throw new Error("Memory map of already mapped location addr=0x" + Integer.toHexString(addr) + " len=" + len);
+            }
+        }
+        try {
+            mapFileRegion(file.getChannel(), offset, addr, numPages * PAGE_SIZE, write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, read, write, exec);
+        } catch (IOException e) {
+            throw new Error(e);
+        }
+        return addr;
+    }
+
+    /**
+     * Maps a region of a file at the given address. Runs of unmapped pages entirely covered by the region (and by the
+     * file, unless it can be extended) are mapped directly, in one go. Other pages are allocated if needed, and get a
+     * copy of the file contents.
+     * @param mode the mode to map the file with, or null to copy all pages
+     */
+    private void mapFileRegion(FileChannel channel, long fileOffset, int addr, int len, FileChannel.MapMode mode,
+                               boolean read, boolean write, boolean exec) throws IOException {
+        long fileSize = channel.size();
+        boolean canExtend = (mode == FileChannel.MapMode.READ_WRITE);
+        while (len > 0) {
+            int pte = getPTE(addr);
+            int offset = getOffset(addr);
+            int count = Math.min(len, PAGE_SIZE - offset);
+            if (mode != null && offset == 0 && count == PAGE_SIZE && !isMapped(addr) && (canExtend || fileOffset + PAGE_SIZE <= fileSize)) {
+                int numPages = 1;
+                while (numPages < MAX_CHUNK_PAGES
+                        && pte + numPages < NUM_PAGES
+                        && len >= (numPages + 1) * PAGE_SIZE
+                        && !isMapped((pte + numPages) << OFFSET_BITS)
+                        && (canExtend || fileOffset + (long) (numPages + 1) * PAGE_SIZE <= fileSize)) {
+                    numPages++;
+                }
+                setPages(pte, channel.map(mode, fileOffset, (long) numPages * PAGE_SIZE), numPages, read, write, exec);
+                count = numPages * PAGE_SIZE;
+            }
+            else {
+                if (!isMapped(addr)) {
+                    setPages(pte, allocate(pte, 1), 1, read, write, exec);
+                }
+                ByteBuffer target = getPage(pte).duplicate();
+                target.limit(offset + count);
+                target.position(offset);
+                while (target.hasRemaining() && channel.read(target, fileOffset + target.position() - offset) > 0) {
+                    // read until the end of the region or of the file
+                }
+            }
+            addr += count;
+            fileOffset += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Unmap a page of memory
+     *
+     * @param addr the address to unmap
+     * @param len  the amount of memory to unmap
+     */
+    public void unmap(int addr, int len) {
+        for (int i = 0; i < len; i += PAGE_SIZE) {
+            int pte = getPTE(addr + i);
+            if (isMapped(addr + i)) {
+                readableMemory[pte] = null;
+                writableMemory[pte] = null;
+                executableMemory[pte] = null;
+            }
+            else {
+                throw new Error("Unmapping memory that's not mapped addr=0x" + Integer.toHexString(addr) + " len=" + len);
+            }
+        }
+    }
+
+    public boolean isMapped(int addr) {
+        int pte = getPTE(addr);
+        return readableMemory[pte] != null || writableMemory[pte] != null || executableMemory[pte] != null;
+    }
+
+    public int getNumPages() {
+        return NUM_PAGES;
+    }
+
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    public boolean isPageAligned(int addr) {
+        return (addr % PAGE_SIZE) == 0;
+    }
+
+    public int truncateToPage(int addr) {
+        return (addr >> OFFSET_BITS) << OFFSET_BITS;
+    }
+
+    public int truncateToNextPage(int addr) {
+        return ((addr + PAGE_SIZE - 1) >> OFFSET_BITS) << OFFSET_BITS;
+    }
+
+    public int getNumUsedPages() {
+        int numPages = 0;
+        for (int i = 0; i < NUM_PAGES; i++) {
+            if ((readableMemory[i] != null) || (writableMemory[i] != null) || (executableMemory[i] != null)) {
+                numPages++;
+            }
+        }
+        return numPages;
+    }
+
+    public int loadSigned8(int addr) {
+        return readableMemory[getPTE(addr)].get(getOffset(addr));
+    }
+
+    public int loadUnsigned8(int addr) {
+        return readableMemory[getPTE(addr)].get(getOffset(addr)) & 0xFF;
+    }
+
+    public int loadSigned16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            return readableMemory[getPTE(addr)].getShort(offset);
+        }
+        // Access crossing a page boundary
+        return isBigEndian ? (loadSigned8(addr) << 8) | loadUnsigned8(addr + 1)
+                           : (loadSigned8(addr + 1) << 8) | loadUnsigned8(addr);
+    }
+
+    public int loadUnsigned16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            return readableMemory[getPTE(addr)].getShort(offset) & 0xFFFF;
+        }
+        // Access crossing a page boundary
+        return isBigEndian ? (loadUnsigned8(addr) << 8) | loadUnsigned8(addr + 1)
+                           : (loadUnsigned8(addr + 1) << 8) | loadUnsigned8(addr);
+    }
+
+    public int load32(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            return readableMemory[getPTE(addr)].getInt(offset);
+        }
+        // Access crossing a page boundary
+        return isBigEndian ? (loadUnsigned16(addr) << 16) | loadUnsigned16(addr + 2)
+                           : (loadUnsigned16(addr + 2) << 16) | loadUnsigned16(addr);
+    }
+
+    public int loadInstruction8(int addr) {
+        return executableMemory[getPTE(addr)].get(getOffset(addr)) & 0xFF;
+    }
+
+    public int loadInstruction16(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            return executableMemory[getPTE(addr)].getShort(offset) & 0xFFFF;
+        }
+        // Access crossing a page boundary
+        return isBigEndian ? (loadInstruction8(addr) << 8) | loadInstruction8(addr + 1)
+                           : (loadInstruction8(addr + 1) << 8) | loadInstruction8(addr);
+    }
+
+    public int loadInstruction32(int addr) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            return executableMemory[getPTE(addr)].getInt(offset);
+        }
+        // Access crossing a page boundary
+        return isBigEndian ? (loadInstruction16(addr) << 16) | loadInstruction16(addr + 2)
+                           : (loadInstruction16(addr + 2) << 16) | loadInstruction16(addr);
+    }
+
+    public void store8(int addr, int value) {
+        writableMemory[getPTE(addr)].put(getOffset(addr), (byte) value);
+    }
+
+    public void store16(int addr, int value) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 2) {
+            writableMemory[getPTE(addr)].putShort(offset, (short) value);
+        }
+        else {
+            // Access crossing a page boundary
+            store8(addr, isBigEndian ? value >> 8 : value);
+            store8(addr + 1, isBigEndian ? value : value >> 8);
+        }
+    }
+
+    public void store32(int addr, int value) {
+        int offset = getOffset(addr);
+        if (offset <= PAGE_SIZE - 4) {
+            writableMemory[getPTE(addr)].putInt(offset, value);
+        }
+        else {
+            // Access crossing a page boundary
+            store16(addr, isBigEndian ? value >> 16 : value);
+            store16(addr + 2, isBigEndian ? value : value >> 16);
+        }
+    }
+
+    public void changeProtection(int address, int len, boolean newRead, boolean newWrite, boolean newExec) {
+        while (len > 0) {
+            int pte = getPTE(address);
+            ByteBuffer page = getPage(pte);
+
+            if (page == null)
+                throw new RuntimeException("Segmentation fault at 0x" + Format.asHex(address, 8));
+
+            readableMemory[pte] = newRead ? page : NO_ACCESS;
+            writableMemory[pte] = newWrite ? page : NO_ACCESS;
+            executableMemory[pte] = newExec ? page : NO_ACCESS;
+
+            address += PAGE_SIZE;
+            len -= PAGE_SIZE;
+        }
+    }
+
+    public void loadFile(File file, int startAddress, boolean isWriteProtected) throws IOException {
+        FileChannel.MapMode mode = getLoadMode(file, isWriteProtected);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, (mode == FileChannel.MapMode.PRIVATE) ? "rw" : "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            mapFileRegion(channel, 0, startAddress, (int) channel.size(), mode, true, !isWriteProtected, true);
+        }
+        finally {
+            // Mappings remain valid after the file is closed
+            randomAccessFile.close();
+        }
+    }
+
+    public void loadFile(File file, Collection<Range> ranges, boolean isWriteProtected) throws IOException {
+        FileChannel.MapMode mode = getLoadMode(file, isWriteProtected);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, (mode == FileChannel.MapMode.PRIVATE) ? "rw" : "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            for (Range range : ranges) {
+                if (range.getFileOffset() >= channel.size()) {
+                    throw new IOException("Error : expected file offset " + range.getFileOffset() + " do not exist");
+                }
+                mapFileRegion(channel, range.getFileOffset(), range.getStart(), range.getEnd() - range.getStart() + 1, mode, true, !isWriteProtected, true);
+            }
+        }
+        finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * @return the mode to map a loaded file with, or null if it has to be copied
+     */
+    private static FileChannel.MapMode getLoadMode(File file, boolean isWriteProtected) {
+        if (isWriteProtected) {
+            return FileChannel.MapMode.READ_ONLY;
+        }
+        // A private mapping requires a channel opened for writing, although the file is never modified
+        return file.canWrite() ? FileChannel.MapMode.PRIVATE : null;
+    }
+
+    public void saveToFile(File file, int startAddress, int length) throws IOException {
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            FileChannel channel = fos.getChannel();
+            while (length > 0) {
+                int pte = getPTE(startAddress);
+                int offset = getOffset(startAddress);
+                int count = Math.min(length, PAGE_SIZE - offset);
+                ByteBuffer page = getPage(pte);
+                // Unallocated pages are saved as zeroes
+                ByteBuffer source = (page == null) ? ByteBuffer.allocate(PAGE_SIZE) : page.duplicate();
+                source.limit(offset + count);
+                source.position(offset);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                startAddress += count;
+                length -= count;
+            }
+        }
+        finally {
+            fos.close();
+        }
+    }
+
+    public void saveAllToStream(OutputStream outputStream) throws IOException {
+        // Header contains one byte per page, each with the 3 LSB representing R/W/X, as in AbstractMemory
+        for (int i = 0; i < NUM_PAGES; i++) {
+            outputStream.write((byte) ((readableMemory[i] == null ? 0 : 0x4) | (writableMemory[i] == null ? 0 : 0x2) | (executableMemory[i] == null ? 0 : 0x1)));
+        }
+        // Then write the contents of used pages
+        byte[] values = new byte[PAGE_SIZE];
+        for (int i = 0; i < NUM_PAGES; i++) {
+            if (isMapped(i << OFFSET_BITS)) {
+                ByteBuffer page = getPage(i);
+                if (page == null) {
+                    // No permission at all, contents are not accessible
+                    outputStream.write(new byte[PAGE_SIZE]);
+                }
+                else {
+                    ByteBuffer source = page.duplicate();
+                    source.clear();
+                    source.get(values);
+                    outputStream.write(values);
+                }
+            }
+        }
+    }
+
+    public void loadAllFromStream(InputStream inputStream) throws IOException {
+        clear();
+        // Header contains one byte per page, each with the 3 LSB representing R/W/X
+        byte[] flags = new byte[NUM_PAGES];
+        for (int i = 0; i < NUM_PAGES; i++) {
+            flags[i] = (byte) inputStream.read();
+        }
+        // Then read the contents of used pages
+        byte[] values = new byte[PAGE_SIZE];
+        for (int i = 0; i < NUM_PAGES; i++) {
+            if (flags[i] != 0) {
+                setPages(i, allocate(i, 1), 1, (flags[i] & 0x4) != 0, (flags[i] & 0x2) != 0, (flags[i] & 0x1) != 0);
+                int bytesRead = 0;
+                while (bytesRead != PAGE_SIZE) {
+                    bytesRead += inputStream.read(values, bytesRead, PAGE_SIZE - bytesRead);
+                }
+                ByteBuffer target = getPage(i).duplicate();
+                target.clear();
+                target.put(values);
+            }
+        }
+    }
+}
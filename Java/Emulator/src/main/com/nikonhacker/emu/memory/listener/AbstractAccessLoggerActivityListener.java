@@ -1,89 +1,48 @@
 package com.nikonhacker.emu.memory.listener;
 
-import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
-import com.nikonhacker.emu.MasterClock;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 
-import java.io.PrintWriter;
 import java.util.Set;
 
+/**
+ * Logs the accesses from the selected sources to an {@link AccessTraceRecorder}, which formats or writes them in the background
+ */
 public abstract class AbstractAccessLoggerActivityListener implements MemoryActivityListener {
-    private PrintWriter                        printWriter;
-    private CPUState                           cpuState;
-    private Set<DebuggableMemory.AccessSource> selectedAccessSources;
-    private MasterClock                        masterClock;
+    private volatile AccessTraceRecorder                recorder;
+    private          CPUState                           cpuState;
+    private          Set<DebuggableMemory.AccessSource> selectedAccessSources;
 
-    public AbstractAccessLoggerActivityListener(PrintWriter printWriter, CPUState cpuState, Set<DebuggableMemory.AccessSource> selectedAccessSources, MasterClock masterClock) {
-        this.printWriter = printWriter;
+    public AbstractAccessLoggerActivityListener(AccessTraceRecorder recorder, CPUState cpuState, Set<DebuggableMemory.AccessSource> selectedAccessSources) {
+        this.recorder = recorder;
         this.cpuState = cpuState;
         this.selectedAccessSources = selectedAccessSources;
-        this.masterClock = masterClock;
     }
 
+    /**
+     * Sends subsequent accesses to another recorder. The previous one is left open
+     */
+    public void setRecorder(AccessTraceRecorder recorder) {
+        this.recorder = recorder;
+    }
 
     public Byte onLoadData8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "            read from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value & 0xFF, 2) + "        ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_READ, 1, address, value & 0xFF, cpuState.pc, accessSource);
         }
         return null;
     }
 
     public Integer onLoadData16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "            read from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value & 0xFFFF, 4) + "      ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_READ, 2, address, value & 0xFFFF, cpuState.pc, accessSource);
         }
         return null;
     }
 
     public Integer onLoadData32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "            read from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value, 8) + "  ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_READ, 4, address, value, cpuState.pc, accessSource);
         }
         return null;
     }
@@ -91,128 +50,38 @@ public abstract class AbstractAccessLoggerActivityListener implements MemoryActi
 
     public void onLoadInstruction8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "   CODE EXECUTED from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value & 0xFF, 2) + "        ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_EXECUTE, 1, address, value & 0xFF, cpuState.pc, accessSource);
         }
     }
 
     public void onLoadInstruction16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "   CODE EXECUTED from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value & 0xFFFF, 4) + "      ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_EXECUTE, 2, address, value & 0xFFFF, cpuState.pc, accessSource);
         }
     }
 
     public void onLoadInstruction32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "   CODE EXECUTED from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value, 8) + "  ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_EXECUTE, 4, address, value, cpuState.pc, accessSource);
         }
     }
 
 
     public void onStore8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "0x" + Format.asHex(value & 0xFF, 2) + "       written to 0x" + Format.asHex(address, 8) + "               ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_WRITE, 1, address, value & 0xFF, cpuState.pc, accessSource);
         }
     }
 
     public void onStore16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "0x" + Format.asHex(value & 0xFFFF, 4) + "     written to 0x" + Format.asHex(address, 8) + "               ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_WRITE, 2, address, value & 0xFFFF, cpuState.pc, accessSource);
         }
     }
 
     public void onStore32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
         if (selectedAccessSources.contains(accessSource)) {
-            String msg = "0x" + Format.asHex(value, 8) + " written to 0x" + Format.asHex(address, 8) + "               ";
-            switch (accessSource) {
-                case CODE:
-                    msg += "(@0x" + Format.asHex(cpuState.pc, 8) + ")";
-                    break;
-                case DMA:
-                    msg += "(DMA ctrlr)";
-                    break;
-                case IMGA:
-                    msg += "(IMGA ctrlr)";
-                    break;
-            }
-            if (masterClock != null) {
-                msg = masterClock.getFormatedTotalElapsedTimeMs() + " " + msg;
-            }
-            printWriter.println(msg);
+            recorder.record(AccessTraceRecorder.KIND_WRITE, 4, address, value, cpuState.pc, accessSource);
         }
     }
 }
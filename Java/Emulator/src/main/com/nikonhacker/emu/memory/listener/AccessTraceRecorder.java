@@ -0,0 +1,191 @@
+package com.nikonhacker.emu.memory.listener;
+
+import com.nikonhacker.emu.MasterClock;
+import com.nikonhacker.emu.memory.DebuggableMemory;
+
+import java.io.*;
+
+/**
+ * Records memory accesses as fixed-size records in a preallocated ring buffer.
+ * A background thread drains the buffer, either writing the records to a binary trace file (see {@link AccessTraceRenderer}
+ * to turn it into text) or rendering them to a PrintWriter, so that the emulation thread never formats text nor performs I/O.
+ * When the buffer is full, the recording thread waits for the drain thread instead of dropping records.
+ */
+public class AccessTraceRecorder {
+    public static final int KIND_READ    = 0;
+    public static final int KIND_EXECUTE = 1;
+    public static final int KIND_WRITE   = 2;
+
+    /** Marks a trace file, followed by the format version */
+    static final long FILE_MAGIC   = 0x4E48_4143_4354_5243L; // "NHACCTRC"
+    static final int  FILE_VERSION = 1;
+
+    /** Timestamp of records made without a master clock */
+    static final long NO_TIMESTAMP = -1;
+
+    private static final int CAPACITY          = 1 << 16; // records
+    private static final int DRAIN_INTERVAL_MS = 20;
+
+    private final MasterClock masterClock;
+
+    // One array per record field. Only the recording threads write them, only the drain thread reads them
+    private final long[] timestamps = new long[CAPACITY];
+    private final int[]  addresses  = new int[CAPACITY];
+    private final int[]  values     = new int[CAPACITY];
+    private final int[]  pcs        = new int[CAPACITY];
+    private final int[]  infos      = new int[CAPACITY];
+
+    /** Number of records made. Written after the record itself, so that it publishes it to the drain thread */
+    private volatile long    head;
+    /** Number of records drained */
+    private volatile long    tail;
+    private volatile boolean closed;
+
+    private final DataOutputStream outputStream;
+    private final PrintWriter      printWriter;
+    private final Thread           drainThread;
+    private       IOException      drainException;
+
+    /**
+     * Creates a recorder writing a binary trace to the given file
+     * @param masterClock used to timestamp records, may be null
+     */
+    public AccessTraceRecorder(File traceFile, MasterClock masterClock) throws IOException {
+        this(new DataOutputStream(new BufferedOutputStream(new FileOutputStream(traceFile))), null, masterClock);
+        outputStream.writeLong(FILE_MAGIC);
+        outputStream.writeInt(FILE_VERSION);
+        drainThread.start();
+    }
+
+    /**
+     * Creates a recorder rendering records as text lines to the given PrintWriter
+     * @param masterClock used to timestamp records, may be null
+     */
+    public AccessTraceRecorder(PrintWriter printWriter, MasterClock masterClock) {
+        this(null, printWriter, masterClock);
+        drainThread.start();
+    }
+
+    private AccessTraceRecorder(DataOutputStream outputStream, PrintWriter printWriter, MasterClock masterClock) {
+        this.outputStream = outputStream;
+        this.printWriter = printWriter;
+        this.masterClock = masterClock;
+        drainThread = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "Access trace drain");
+        drainThread.setDaemon(true);
+    }
+
+    /**
+     * Records an access. Does nothing once the recorder is closed.
+     * @param kind one of KIND_READ, KIND_EXECUTE or KIND_WRITE
+     * @param width access width in bytes
+     * @param value accessed value, already masked to the access width
+     * @param pc address of the instruction performing the access
+     */
+    public synchronized void record(int kind, int width, int address, int value, int pc, DebuggableMemory.AccessSource accessSource) {
+        long index = head;
+        while (index - tail >= CAPACITY) {
+            if (closed) {
+                return;
+            }
+            Thread.yield();
+        }
+        if (closed) {
+            return;
+        }
+        int slot = (int) index & (CAPACITY - 1);
+        timestamps[slot] = (masterClock == null) ? NO_TIMESTAMP : masterClock.getTotalElapsedTimePs();
+        addresses[slot] = address;
+        values[slot] = value;
+        pcs[slot] = pc;
+        infos[slot] = (kind << 16) | (width << 8) | accessSource.ordinal();
+        head = index + 1;
+    }
+
+    /**
+     * Stops recording, waits for all pending records to be drained, and closes the trace file if any
+     * @throws IOException if writing the trace file failed
+     */
+    public void close() throws IOException {
+        // Taking the lock guarantees no record is half-written when the drain thread sees the flag
+        synchronized (this) {
+            closed = true;
+        }
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainException != null) {
+            throw drainException;
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                // Read the flag before head: once closed, head cannot move anymore
+                boolean wasClosed = closed;
+                long index = tail;
+                long end = head;
+                if (index == end) {
+                    if (wasClosed) {
+                        break;
+                    }
+                    flush();
+                    Thread.sleep(DRAIN_INTERVAL_MS);
+                    continue;
+                }
+                for (; index < end; index++) {
+                    int slot = (int) index & (CAPACITY - 1);
+                    if (outputStream != null) {
+                        outputStream.writeLong(timestamps[slot]);
+                        outputStream.writeInt(addresses[slot]);
+                        outputStream.writeInt(values[slot]);
+                        outputStream.writeInt(pcs[slot]);
+                        outputStream.writeInt(infos[slot]);
+                    }
+                    else {
+                        int info = infos[slot];
+                        printWriter.println(AccessTraceRenderer.format(timestamps[slot], info >> 16, (info >> 8) & 0xFF, addresses[slot], values[slot], pcs[slot], DebuggableMemory.AccessSource.values()[info & 0xFF]));
+                    }
+                }
+                tail = end;
+            }
+        }
+        catch (IOException e) {
+            drainException = e;
+        }
+        catch (InterruptedException e) {
+            // stop draining
+        }
+        finally {
+            // Unblock recording threads if draining stopped early
+            closed = true;
+            try {
+                if (outputStream != null) {
+                    outputStream.close();
+                }
+                else {
+                    printWriter.flush();
+                }
+            } catch (IOException e) {
+                if (drainException == null) {
+                    drainException = e;
+                }
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+        else {
+            printWriter.flush();
+        }
+    }
+}
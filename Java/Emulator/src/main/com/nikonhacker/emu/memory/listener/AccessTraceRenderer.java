@@ -0,0 +1,100 @@
+package com.nikonhacker.emu.memory.listener;
+
+import com.nikonhacker.Format;
+import com.nikonhacker.emu.MasterClock;
+import com.nikonhacker.emu.memory.DebuggableMemory;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.text.DecimalFormat;
+
+/**
+ * Renders memory access records as the text lines of the access loggers.
+ * Run it on a binary trace written by {@link AccessTraceRecorder} to get the same output as a live log.
+ */
+public class AccessTraceRenderer {
+
+    private static final DecimalFormat milliSecondFormatter = new DecimalFormat("0000.000000000");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: " + AccessTraceRenderer.class.getName() + " <trace file> [<output text file>]");
+            System.exit(1);
+        }
+        PrintWriter printWriter = new PrintWriter(new BufferedWriter((args.length == 2) ? new FileWriter(args[1]) : new OutputStreamWriter(System.out)));
+        try {
+            render(new File(args[0]), printWriter);
+        }
+        finally {
+            printWriter.close();
+        }
+    }
+
+    /**
+     * Renders all records of a binary trace file
+     */
+    public static void render(File traceFile, PrintWriter printWriter) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(traceFile)));
+        try {
+            if (inputStream.readLong() != AccessTraceRecorder.FILE_MAGIC || inputStream.readInt() != AccessTraceRecorder.FILE_VERSION) {
+                throw new IOException(traceFile + " is not a memory access trace");
+            }
+            DebuggableMemory.AccessSource[] accessSources = DebuggableMemory.AccessSource.values();
+            while (true) {
+                long timestamp;
+                try {
+                    timestamp = inputStream.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                int address = inputStream.readInt();
+                int value = inputStream.readInt();
+                int pc = inputStream.readInt();
+                int info = inputStream.readInt();
+                printWriter.println(format(timestamp, info >> 16, (info >> 8) & 0xFF, address, value, pc, accessSources[info & 0xFF]));
+            }
+        }
+        finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Formats one access
+     * @param timestamp time of the access in ps, or AccessTraceRecorder.NO_TIMESTAMP
+     * @param kind one of the AccessTraceRecorder.KIND_* constants
+     * @param width access width in bytes
+     */
+    public static String format(long timestamp, int kind, int width, int address, int value, int pc, DebuggableMemory.AccessSource accessSource) {
+        int nbChars = width * 2;
+        String msg;
+        switch (kind) {
+            case AccessTraceRecorder.KIND_READ:
+                msg = "            read from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value, nbChars) + StringUtils.repeat(' ', 10 - nbChars);
+                break;
+            case AccessTraceRecorder.KIND_EXECUTE:
+                msg = "   CODE EXECUTED from 0x" + Format.asHex(address, 8) + " : 0x" + Format.asHex(value, nbChars) + StringUtils.repeat(' ', 10 - nbChars);
+                break;
+            default:
+                msg = "0x" + Format.asHex(value, nbChars) + StringUtils.repeat(' ', 9 - nbChars) + "written to 0x" + Format.asHex(address, 8) + "               ";
+        }
+        switch (accessSource) {
+            case CODE:
+                msg += "(@0x" + Format.asHex(pc, 8) + ")";
+                break;
+            case DMA:
+                msg += "(DMA ctrlr)";
+                break;
+            case IMGA:
+                msg += "(IMGA ctrlr)";
+                break;
+        }
+        if (timestamp != AccessTraceRecorder.NO_TIMESTAMP) {
+            // DecimalFormat is not thread safe
+            synchronized (milliSecondFormatter) {
+                msg = milliSecondFormatter.format(timestamp / (double) MasterClock.PS_PER_MS) + "ms " + msg;
+            }
+        }
+        return msg;
+    }
+}
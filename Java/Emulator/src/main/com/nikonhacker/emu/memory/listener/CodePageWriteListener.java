@@ -0,0 +1,15 @@
+package com.nikonhacker.emu.memory.listener;
+
+/**
+ * This interface allows classes keeping information derived from code (e.g. decoded statements) to be notified
+ * when a page they depend on is written to.
+ * Pages must first be declared using DebuggableMemory.watchCodePage()
+ */
+public interface CodePageWriteListener {
+    /**
+     * This method is called the first time a watched page is modified after having been declared.
+     * The page is not watched anymore after this call, so it must be declared again if needed.
+     * @param pte the page table entry (address >>> 16) of the page that was modified
+     */
+    void onCodePageWrite(int pte);
+}
@@ -44,6 +44,13 @@ public abstract class IoActivityListener implements MemoryActivityListener {
         // Do nothing. Loading instruction from register has no sense
     }
 
+    /**
+     * @return true if at least one address of the given page is such that (address & addressMask) == baseAddress
+     */
+    protected static boolean pageMatches(int pte, int baseAddress, int addressMask) {
+        return ((pte << 16) & addressMask) == (baseAddress & 0xFFFF_0000);
+    }
+
     protected void warn(String message) {
         System.err.println(message + " at 0x" + Format.asHex(platform.getCpuState().pc, 8));
     }
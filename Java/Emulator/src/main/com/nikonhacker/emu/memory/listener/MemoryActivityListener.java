@@ -12,6 +12,15 @@ public interface MemoryActivityListener {
      */
     boolean matches(int address);
 
+    /**
+     * Method used to determine the pages in which matches() must be called.
+     * Accesses to other pages don't involve this activity listener at all
+     *
+     * @param pte the page table entry to test (address >>> 16)
+     * @return true if at least one address of the page may belong to an area to watch
+     */
+    boolean matchesPage(int pte);
+
     /**
      * Method used to declare if this activity listener is a logger or can also modify data in onLoadXX methods
      * This is to make sure that logging happens AFTER modifiers have processed data, so that the logs reflects the
@@ -1,17 +1,15 @@
 package com.nikonhacker.emu.memory.listener;
 
 import com.nikonhacker.disassembly.CPUState;
-import com.nikonhacker.emu.MasterClock;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 
-import java.io.PrintWriter;
 import java.util.EnumSet;
 
 public class PageAccessLoggerActivityListener extends AbstractAccessLoggerActivityListener implements MemoryActivityListener {
     private int targetPage;
 
-    public PageAccessLoggerActivityListener(PrintWriter printWriter, int targetPage, CPUState cpuState, EnumSet<DebuggableMemory.AccessSource> selectedAccessSources, MasterClock masterClock) {
-        super(printWriter, cpuState, selectedAccessSources, masterClock);
+    public PageAccessLoggerActivityListener(AccessTraceRecorder recorder, int targetPage, CPUState cpuState, EnumSet<DebuggableMemory.AccessSource> selectedAccessSources) {
+        super(recorder, cpuState, selectedAccessSources);
         this.targetPage = targetPage;
     }
 
@@ -20,6 +18,11 @@ public class PageAccessLoggerActivityListener extends AbstractAccessLoggerActivi
         return address >>> 16 == targetPage;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pte == targetPage;
+    }
+
     @Override
     public boolean isReadOnly() {
         return true;
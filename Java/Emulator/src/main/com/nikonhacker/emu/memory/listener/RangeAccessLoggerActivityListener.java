@@ -2,10 +2,8 @@ package com.nikonhacker.emu.memory.listener;
 
 import com.nikonhacker.BinaryArithmetics;
 import com.nikonhacker.disassembly.CPUState;
-import com.nikonhacker.emu.MasterClock;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 
-import java.io.PrintWriter;
 import java.util.Set;
 
 public class RangeAccessLoggerActivityListener extends AbstractAccessLoggerActivityListener implements MemoryActivityListener {
@@ -13,8 +11,8 @@ public class RangeAccessLoggerActivityListener extends AbstractAccessLoggerActiv
     private final int minAddress;
     private final int maxAddress;
 
-    public RangeAccessLoggerActivityListener(PrintWriter printWriter, int minAddress, int maxAddress, CPUState cpuState, Set<DebuggableMemory.AccessSource> selectedAccessSources, MasterClock masterClock) {
-        super(printWriter, cpuState, selectedAccessSources, masterClock);
+    public RangeAccessLoggerActivityListener(AccessTraceRecorder recorder, int minAddress, int maxAddress, CPUState cpuState, Set<DebuggableMemory.AccessSource> selectedAccessSources) {
+        super(recorder, cpuState, selectedAccessSources);
         this.minAddress = minAddress;
         this.maxAddress = maxAddress;
     }
@@ -25,6 +23,11 @@ public class RangeAccessLoggerActivityListener extends AbstractAccessLoggerActiv
             && !BinaryArithmetics.isGreaterThanUnsigned(address, maxAddress);
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pte >= minAddress >>> 16 && pte <= maxAddress >>> 16;
+    }
+
     @Override
     public boolean isReadOnly() {
         return true;
@@ -9,6 +9,11 @@ public class RangeCheckerMemoryActivityListener extends Abstract8BitMemoryActivi
         return true;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return true;
+    }
+
     @Override
     public boolean isReadOnly() {
         return true;
@@ -0,0 +1,44 @@
+package com.nikonhacker.emu.memory.listener;
+
+import com.nikonhacker.Format;
+
+import java.util.Arrays;
+
+/**
+ * Maps each offset of a 64kB I/O page to the peripheral block it belongs to.
+ * Blocks are declared once when the listener is built, then each access costs a single array lookup
+ * instead of a chain of range tests before reaching the register switch of the block.
+ */
+public class RegisterBlockMap {
+    /** Block of all addresses not declared in the map */
+    public static final byte NO_BLOCK = 0;
+
+    private final byte[] blocks = new byte[0x1_0000];
+
+    /**
+     * Declares the addresses from startAddress (inclusive) to endAddress (exclusive) as belonging to the given block.
+     * Only the offset within the page is considered.
+     * @return this map, so that declarations can be chained
+     */
+    public RegisterBlockMap add(int startAddress, int endAddress, byte block) {
+        int startOffset = startAddress & 0xFFFF;
+        int endOffset = startOffset + (endAddress - startAddress);
+        if (block == NO_BLOCK || endOffset > blocks.length) {
+            throw new IllegalArgumentException("Invalid register block 0x" + Format.asHex(startAddress, 8) + "-0x" + Format.asHex(endAddress, 8));
+        }
+        for (int offset = startOffset; offset < endOffset; offset++) {
+            if (blocks[offset] != NO_BLOCK) {
+                throw new IllegalArgumentException("Register block at 0x" + Format.asHex(startAddress, 8) + " overlaps another block");
+            }
+        }
+        Arrays.fill(blocks, startOffset, endOffset, block);
+        return this;
+    }
+
+    /**
+     * @return the block the given address belongs to, or NO_BLOCK
+     */
+    public final byte get(int address) {
+        return blocks[address & 0xFFFF];
+    }
+}
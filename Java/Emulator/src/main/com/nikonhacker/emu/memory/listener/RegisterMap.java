@@ -0,0 +1,190 @@
+package com.nikonhacker.emu.memory.listener;
+
+import com.nikonhacker.Format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registers of an I/O block, each declared once with its offset, width, name and the way to read and write it
+ * on the peripheral unit holding its value.
+ * Declarations fill one flat array per access width, so each 8, 16 or 32-bit access is dispatched with a single
+ * lookup instead of a switch. The declarations can also be listed, e.g. to present the block in the UI.
+ * @param <T> type of the peripheral unit the registers belong to
+ */
+public class RegisterMap<T> {
+
+    /**
+     * How a register is read and written on its unit
+     */
+    public interface Accessor<T> {
+        int get(T unit);
+
+        void set(T unit, int value);
+    }
+
+    public static class Register<T> {
+        public final  int         offset;
+        /** 8, 16 or 32 */
+        public final  int         width;
+        public final  String      name;
+        private final Accessor<T> accessor;
+
+        private Register(int offset, int width, String name, Accessor<T> accessor) {
+            this.offset = offset;
+            this.width = width;
+            this.name = name;
+            this.accessor = accessor;
+        }
+
+        public final int load(T unit) {
+            return accessor.get(unit);
+        }
+
+        public final void store(T unit, int value) {
+            accessor.set(unit, value);
+        }
+
+        @Override
+        public String toString() {
+            return name + " (0x" + Format.asHex(offset, 3) + ", " + width + "-bit)";
+        }
+    }
+
+    private final int offsetMask;
+
+    // Dispatch tables, indexed by offset. They only extend up to the last declared register
+    private Register<T>[] loads8   = newTable(0);
+    private Register<T>[] loads16  = newTable(0);
+    private Register<T>[] loads32  = newTable(0);
+    private Register<T>[] stores8  = newTable(0);
+    private Register<T>[] stores16 = newTable(0);
+    private Register<T>[] stores32 = newTable(0);
+
+    private final List<Register<T>> registers = new ArrayList<>();
+
+    /**
+     * @param size number of addresses covered by the block. Must be a power of 2: only the offset of an address
+     *             within an aligned range of that size is considered
+     */
+    public RegisterMap(int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Register map size 0x" + Integer.toHexString(size) + " is not a power of 2");
+        }
+        offsetMask = size - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Register<T>[] newTable(int length) {
+        return new Register[length];
+    }
+
+    /**
+     * Declares a register answering to loads and stores
+     * @param offset offset of the register within the block
+     * @param width 8, 16 or 32. The register only answers to accesses of that width
+     * @return this map, so that declarations can be chained
+     */
+    public RegisterMap<T> add(int offset, int width, String name, Accessor<T> accessor) {
+        return add(offset, width, name, accessor, true);
+    }
+
+    /**
+     * Declares a register answering to stores only. Loads at its offset are left unhandled
+     * @see #add(int, int, String, Accessor)
+     */
+    public RegisterMap<T> addWriteOnly(int offset, int width, String name, Accessor<T> accessor) {
+        return add(offset, width, name, accessor, false);
+    }
+
+    private RegisterMap<T> add(int offset, int width, String name, Accessor<T> accessor, boolean readable) {
+        if (width != 8 && width != 16 && width != 32) {
+            throw new IllegalArgumentException("Register " + name + " has invalid width " + width);
+        }
+        if (offset < 0 || offset > offsetMask || (offset & (width / 8 - 1)) != 0) {
+            throw new IllegalArgumentException("Register " + name + " has invalid offset 0x" + Integer.toHexString(offset));
+        }
+        Register<T> register = new Register<>(offset, width, name, accessor);
+        switch (width) {
+            case 8:
+                if (readable) loads8 = put(loads8, register);
+                stores8 = put(stores8, register);
+                break;
+            case 16:
+                if (readable) loads16 = put(loads16, register);
+                stores16 = put(stores16, register);
+                break;
+            default:
+                if (readable) loads32 = put(loads32, register);
+                stores32 = put(stores32, register);
+        }
+        registers.add(register);
+        return this;
+    }
+
+    private static <T> Register<T>[] put(Register<T>[] table, Register<T> register) {
+        if (register.offset >= table.length) {
+            table = Arrays.copyOf(table, register.offset + 1);
+        }
+        else if (table[register.offset] != null) {
+            throw new IllegalArgumentException("Register " + register.name + " is declared at the same offset as " + table[register.offset].name);
+        }
+        table[register.offset] = register;
+        return table;
+    }
+
+    private static <T> Register<T> get(Register<T>[] table, int offset) {
+        return offset < table.length ? table[offset] : null;
+    }
+
+    /**
+     * @return the register answering to 8-bit loads at the given address, or null
+     */
+    public final Register<T> getForLoad8(int address) {
+        return get(loads8, address & offsetMask);
+    }
+
+    /**
+     * @return the register answering to 16-bit loads at the given address, or null
+     */
+    public final Register<T> getForLoad16(int address) {
+        return get(loads16, address & offsetMask);
+    }
+
+    /**
+     * @return the register answering to 32-bit loads at the given address, or null
+     */
+    public final Register<T> getForLoad32(int address) {
+        return get(loads32, address & offsetMask);
+    }
+
+    /**
+     * @return the register answering to 8-bit stores at the given address, or null
+     */
+    public final Register<T> getForStore8(int address) {
+        return get(stores8, address & offsetMask);
+    }
+
+    /**
+     * @return the register answering to 16-bit stores at the given address, or null
+     */
+    public final Register<T> getForStore16(int address) {
+        return get(stores16, address & offsetMask);
+    }
+
+    /**
+     * @return the register answering to 32-bit stores at the given address, or null
+     */
+    public final Register<T> getForStore32(int address) {
+        return get(stores32, address & offsetMask);
+    }
+
+    /**
+     * @return all registers, in declaration order
+     */
+    public List<Register<T>> getRegisters() {
+        return Collections.unmodifiableList(registers);
+    }
+}
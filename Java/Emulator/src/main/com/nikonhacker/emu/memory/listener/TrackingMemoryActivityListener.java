@@ -54,6 +54,11 @@ public class TrackingMemoryActivityListener extends Abstract8BitMemoryActivityLi
         return true;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return true;
+    }
+
     @Override
     public boolean isReadOnly() {
         return true;
@@ -0,0 +1,17 @@
+package com.nikonhacker.emu.memory.listener;
+
+/**
+ * This interface allows classes depending on the value of a few memory words (e.g. memory break conditions)
+ * to be notified when these words are written to, instead of reading them again after each instruction.
+ * Words must be declared using DebuggableMemory.addWordWriteListener()
+ */
+public interface WordWriteListener {
+    /**
+     * This method is called each time a watched word is written, by code or by DMA.
+     * A halfword, word or block store calls it once per word it writes, after writing all its bytes. A store spanning
+     * two words, or a store of a byte of memory handled by activity listeners, can still call it before the other
+     * bytes are written: implementations should only take note that the word changed, and read it later.
+     * @param wordAddress the address of the word, aligned to 4 bytes
+     */
+    void onWordWrite(int wordAddress);
+}
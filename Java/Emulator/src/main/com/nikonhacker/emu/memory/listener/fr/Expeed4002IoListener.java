@@ -4,6 +4,7 @@ import com.nikonhacker.Format;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterMap;
 import com.nikonhacker.emu.peripherials.resolutionConverter.fr.FrResolutionConverter;
 
 // addressing resolution converter units
@@ -17,6 +18,74 @@ public class Expeed4002IoListener extends IoActivityListener {
 
     public static final int NUM_RESOLUTION_CONVERTER = 3;
 
+    private static final RegisterMap.Accessor<FrResolutionConverter> UNIMPLEMENTED = new RegisterMap.Accessor<FrResolutionConverter>() {
+        public int get(FrResolutionConverter c) { return c.getRegUnimplemented(); }
+        public void set(FrResolutionConverter c, int value) { c.setRegUnimplemented(value); }
+    };
+
+    public static final RegisterMap<FrResolutionConverter> REGISTERS = new RegisterMap<FrResolutionConverter>(0x1_0000)
+            .add(0x000, 16, "Unknown000", UNIMPLEMENTED)
+            .add(0x002, 16, "Command", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getCommand(); }
+                public void set(FrResolutionConverter c, int value) { c.setCommand(value); }
+            })
+            .add(0x004, 16, "Unknown004", UNIMPLEMENTED)
+            .add(0x006, 16, "Unknown006", UNIMPLEMENTED)
+            .add(0x008, 16, "Unknown008", UNIMPLEMENTED)
+            .add(0x00A, 16, "Unknown00A", UNIMPLEMENTED)
+            .add(0x00C, 16, "InterruptStatus", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getInterruptStatus(); }
+                public void set(FrResolutionConverter c, int value) { c.setInterruptStatus(value); }
+            })
+            .add(0x010, 16, "ScaleFactor0", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getScaleFactor0(); }
+                public void set(FrResolutionConverter c, int value) { c.setScaleFactor0(value); }
+            })
+            .add(0x012, 16, "ScaleFactor1", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getScaleFactor1(); }
+                public void set(FrResolutionConverter c, int value) { c.setScaleFactor1(value); }
+            })
+            .add(0x014, 16, "ScaleFactor2", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getScaleFactor2(); }
+                public void set(FrResolutionConverter c, int value) { c.setScaleFactor2(value); }
+            })
+            .add(0x016, 16, "ScaleFactor3", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getScaleFactor3(); }
+                public void set(FrResolutionConverter c, int value) { c.setScaleFactor3(value); }
+            })
+            .add(0x018, 16, "DestinationImageWidth", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getDestinationImageWidth(); }
+                public void set(FrResolutionConverter c, int value) { c.setDestinationImageWidth(value); }
+            })
+            .add(0x01A, 16, "DestinationImageHeight", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getDestinationImageHeight(); }
+                public void set(FrResolutionConverter c, int value) { c.setDestinationImageHeight(value); }
+            })
+            .add(0x020, 16, "SourceBufferWidth", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getSourceBufferWidth(); }
+                public void set(FrResolutionConverter c, int value) { c.setSourceBufferWidth(value); }
+            })
+            .add(0x022, 16, "DestinationBufferWidth", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getDestinationBufferWidth(); }
+                public void set(FrResolutionConverter c, int value) { c.setDestinationBufferWidth(value); }
+            })
+            .add(0x02C, 16, "SourceAddressLo", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getSourceAddressLo(); }
+                public void set(FrResolutionConverter c, int value) { c.setSourceAddressLo(value); }
+            })
+            .add(0x02E, 16, "DestinationAddressLo", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getDestinationAddressLo(); }
+                public void set(FrResolutionConverter c, int value) { c.setDestinationAddressLo(value); }
+            })
+            .add(0x030, 32, "SourceAddressHi", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getSourceAddressHi(); }
+                public void set(FrResolutionConverter c, int value) { c.setSourceAddressHi(value); }
+            })
+            .add(0x040, 32, "DestinationAddressHi", new RegisterMap.Accessor<FrResolutionConverter>() {
+                public int get(FrResolutionConverter c) { return c.getDestinationAddressHi(); }
+                public void set(FrResolutionConverter c, int value) { c.setDestinationAddressHi(value); }
+            });
+
     public Expeed4002IoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -27,112 +96,61 @@ public class Expeed4002IoListener extends IoActivityListener {
     }
 
     @Override
-    public Byte onLoadData8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
+    public boolean matchesPage(int pte) {
+        return pageMatches(pte, BASE_ADDRESS1, ADDRESS_MASK1) || pageMatches(pte, BASE_ADDRESS2, ADDRESS_MASK2);
+    }
+
+    private static int getUnit(int addr) {
+        return ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
+    }
 
-        FrResolutionConverter resolutionConverter = (FrResolutionConverter)(platform.getResolutionConverter()[unit]);
-        switch (addr&0xFFFF) {
-            default:
-                if (logRegisterMessages) warn("ResolutionConverter(" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load8 is not supported yet");
-        }
+    private FrResolutionConverter getResolutionConverter(int addr) {
+        return (FrResolutionConverter)(platform.getResolutionConverter()[getUnit(addr)]);
+    }
+
+    @Override
+    public Byte onLoadData8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<FrResolutionConverter> register = REGISTERS.getForLoad8(addr);
+        if (register != null) return (byte) register.load(getResolutionConverter(addr));
+        if (logRegisterMessages) warn("ResolutionConverter(" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load8 is not supported yet");
         return null;
     }
 
     @Override
     public Integer onLoadData16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
-
-        FrResolutionConverter resolutionConverter = (FrResolutionConverter)(platform.getResolutionConverter()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x002: return resolutionConverter.getCommand();
-            case 0x00C: return resolutionConverter.getInterruptStatus();
-            case 0x010: return resolutionConverter.getScaleFactor0();
-            case 0x012: return resolutionConverter.getScaleFactor1();
-            case 0x014: return resolutionConverter.getScaleFactor2();
-            case 0x016: return resolutionConverter.getScaleFactor3();
-            case 0x018: return resolutionConverter.getDestinationImageWidth();
-            case 0x01A: return resolutionConverter.getDestinationImageHeight();
-            case 0x020: return resolutionConverter.getSourceBufferWidth();
-            case 0x022: return resolutionConverter.getDestinationBufferWidth();
-            case 0x02C: return resolutionConverter.getSourceAddressLo();
-            case 0x02E: return resolutionConverter.getDestinationAddressLo();
-            case 0x000:
-            case 0x004:
-            case 0x006:
-            case 0x008:
-            case 0x00A:
-                return resolutionConverter.getRegUnimplemented();
-            default:
-                if (logRegisterMessages) warn("ResolutionConverter(" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load16 is not supported yet");
-        }
+        final RegisterMap.Register<FrResolutionConverter> register = REGISTERS.getForLoad16(addr);
+        if (register != null) return register.load(getResolutionConverter(addr));
+        if (logRegisterMessages) warn("ResolutionConverter(" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load16 is not supported yet");
         return null;
     }
 
     @Override
     public Integer onLoadData32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
-
-        FrResolutionConverter resolutionConverter = (FrResolutionConverter)(platform.getResolutionConverter()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x030: return resolutionConverter.getSourceAddressHi();
-            case 0x040: return resolutionConverter.getDestinationAddressHi();
-            default:
-                if (logRegisterMessages) warn("ResolutionConverter(" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load32 is not supported yet");
-        }
+        final RegisterMap.Register<FrResolutionConverter> register = REGISTERS.getForLoad32(addr);
+        if (register != null) return register.load(getResolutionConverter(addr));
+        if (logRegisterMessages) warn("ResolutionConverter(" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load32 is not supported yet");
         return null;
     }
 
 
     @Override
     public void onStore8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
-
-        FrResolutionConverter resolutionConverter = (FrResolutionConverter)(platform.getResolutionConverter()[unit]);
-        switch (addr&0xFFFF) {
-            default:
-                if (logRegisterMessages) warn("ResolutionConverter(" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrResolutionConverter> register = REGISTERS.getForStore8(addr);
+        if (register != null) register.store(getResolutionConverter(addr), value);
+        else if (logRegisterMessages) warn("ResolutionConverter(" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
     }
 
     @Override
     public void onStore16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
-
-        FrResolutionConverter resolutionConverter = (FrResolutionConverter)(platform.getResolutionConverter()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x002: resolutionConverter.setCommand(value); break;
-            case 0x00C: resolutionConverter.setInterruptStatus(value); break;
-            case 0x010: resolutionConverter.setScaleFactor0(value); break;
-            case 0x012: resolutionConverter.setScaleFactor1(value); break;
-            case 0x014: resolutionConverter.setScaleFactor2(value); break;
-            case 0x016: resolutionConverter.setScaleFactor3(value); break;
-            case 0x018: resolutionConverter.setDestinationImageWidth(value); break;
-            case 0x01A: resolutionConverter.setDestinationImageHeight(value); break;
-            case 0x020: resolutionConverter.setSourceBufferWidth(value); break;
-            case 0x022: resolutionConverter.setDestinationBufferWidth(value); break;
-            case 0x02C: resolutionConverter.setSourceAddressLo(value); break;
-            case 0x02E: resolutionConverter.setDestinationAddressLo(value); break;
-            case 0x000:
-            case 0x004:
-            case 0x006:
-            case 0x008:
-            case 0x00A:
-                resolutionConverter.setRegUnimplemented(value); break;
-            default:
-                if (logRegisterMessages) warn("ResolutionConverter(" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrResolutionConverter> register = REGISTERS.getForStore16(addr);
+        if (register != null) register.store(getResolutionConverter(addr), value);
+        else if (logRegisterMessages) warn("ResolutionConverter(" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
     }
 
     @Override
     public void onStore32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&0x100000)!=0 ? 2 : ((addr>>16)&1) );
-
-        FrResolutionConverter resolutionConverter = (FrResolutionConverter)(platform.getResolutionConverter()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x030: resolutionConverter.setSourceAddressHi(value); break;
-            case 0x040: resolutionConverter.setDestinationAddressHi(value); break;
-            default:
-                if (logRegisterMessages) warn("ResolutionConverter(" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrResolutionConverter> register = REGISTERS.getForStore32(addr);
+        if (register != null) register.store(getResolutionConverter(addr), value);
+        else if (logRegisterMessages) warn("ResolutionConverter(" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
     }
 }
@@ -3,6 +3,7 @@ package com.nikonhacker.emu.memory.listener.fr;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterMap;
 
 // main image processor component
 public class Expeed4006IoListener extends IoActivityListener {
@@ -10,6 +11,15 @@ public class Expeed4006IoListener extends IoActivityListener {
     public static final int BASE_ADDRESS = 0x4006_0000;
     public static final int ADDRESS_MASK = 0xFFFF_F000;
 
+    /** Registers are not backed by any peripheral yet, so there is no unit */
+    public static final RegisterMap<Void> REGISTERS = new RegisterMap<Void>(0x1_0000)
+            // this bit tells that access to image processor registers is possible
+            // return fake acknowledge at register 0x40060010
+            .add(0x010, 16, "Acknowledge", new RegisterMap.Accessor<Void>() {
+                public int get(Void unit) { return 0x1000; }
+                public void set(Void unit, int value) { /* ignored */ }
+            });
+
     public Expeed4006IoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -19,37 +29,51 @@ public class Expeed4006IoListener extends IoActivityListener {
         return (address & ADDRESS_MASK) == BASE_ADDRESS;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pageMatches(pte, BASE_ADDRESS, ADDRESS_MASK);
+    }
+
 
     @Override
     public Byte onLoadData8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<Void> register = REGISTERS.getForLoad8(address);
+        if (register != null) return (byte) register.load(null);
         return null;
     }
 
     @Override
     public Integer onLoadData16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
-        // this bit tells that access to image processor registers is possible
-        // return fake acknowledge at register 0x40060010
-        if (address == 0x40060010) return 0x1000;
+        final RegisterMap.Register<Void> register = REGISTERS.getForLoad16(address);
+        if (register != null) return register.load(null);
         // otherwise, ignore
         return null;
     }
 
     @Override
     public Integer onLoadData32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<Void> register = REGISTERS.getForLoad32(address);
+        if (register != null) return register.load(null);
         return null;
     }
 
 
     @Override
     public void onStore8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<Void> register = REGISTERS.getForStore8(address);
+        if (register != null) register.store(null, value);
     }
 
     @Override
     public void onStore16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
-        //warn("Storing 0x" + Format.asHex(value, 4) + " to unknown register (DSP) located at 0x" + Format.asHex(address, 8));
+        final RegisterMap.Register<Void> register = REGISTERS.getForStore16(address);
+        if (register != null) register.store(null, value);
+        //else warn("Storing 0x" + Format.asHex(value, 4) + " to unknown register (DSP) located at 0x" + Format.asHex(address, 8));
     }
 
     @Override
     public void onStore32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<Void> register = REGISTERS.getForStore32(address);
+        if (register != null) register.store(null, value);
     }
 }
@@ -4,6 +4,7 @@ import com.nikonhacker.Format;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterMap;
 import com.nikonhacker.emu.peripherials.jpegCodec.fr.FrJpegCodec;
 
 // addressing JPEG encoder/decoder units
@@ -14,6 +15,102 @@ public class Expeed40X3IoListener extends IoActivityListener {
 
     public static final int NUM_JPEG_CODEC = 2;
 
+    private static final RegisterMap.Accessor<FrJpegCodec> UNIMPLEMENTED = new RegisterMap.Accessor<FrJpegCodec>() {
+        public int get(FrJpegCodec c) { return c.getRegUnimplemented(); }
+        public void set(FrJpegCodec c, int value) { c.setRegUnimplemented(value); }
+    };
+
+    public static final RegisterMap<FrJpegCodec> REGISTERS = new RegisterMap<FrJpegCodec>(0x1_0000)
+            .add(0x000, 8, "Reg000", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getReg000(); }
+                public void set(FrJpegCodec c, int value) { c.setReg000((byte) value); }
+            })
+            .add(0x007, 8, "JPEGHeightHi", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getJPEGHeightHi(); }
+                public void set(FrJpegCodec c, int value) { /* not writable */ }
+            })
+            .add(0x008, 8, "JPEGHeightLo", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getJPEGHeightLo(); }
+                public void set(FrJpegCodec c, int value) { /* not writable */ }
+            })
+            .add(0x009, 8, "JPEGWidthHi", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getJPEGWidthHi(); }
+                public void set(FrJpegCodec c, int value) { /* not writable */ }
+            })
+            .add(0x00A, 8, "JPEGWidthLo", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getJPEGWidthLo(); }
+                public void set(FrJpegCodec c, int value) { /* not writable */ }
+            })
+            .add(0x00F, 8, "InterruptStatus", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getInterruptStatus(); }
+                public void set(FrJpegCodec c, int value) { c.setInterruptStatus((byte) value); }
+            })
+            .add(0x410, 8, "ErrorCode", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getErrorCode(); }
+                public void set(FrJpegCodec c, int value) { c.setErrorCode((byte) value); }
+            })
+            .addWriteOnly(0x001, 8, "Unknown001", UNIMPLEMENTED)
+            .addWriteOnly(0x00E, 8, "Unknown00E", UNIMPLEMENTED)
+            .add(0x400, 16, "Reg400", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getReg400(); }
+                public void set(FrJpegCodec c, int value) { c.setReg400(value); }
+            })
+            .add(0x402, 16, "Reg402", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getReg402(); }
+                public void set(FrJpegCodec c, int value) { c.setReg402(value); }
+            })
+            .add(0x404, 16, "Command", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getCommand(); }
+                public void set(FrJpegCodec c, int value) { c.setCommand(value); }
+            })
+            .add(0xF02, 16, "YWidth", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getYWidth(); }
+                public void set(FrJpegCodec c, int value) { c.setYWidth(value); }
+            })
+            .add(0xF04, 16, "OutputWidth", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getOutputWidth(); }
+                public void set(FrJpegCodec c, int value) { c.setOutputWidth(value); }
+            })
+            .add(0xF06, 16, "OutputHeight", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getOutputHeight(); }
+                public void set(FrJpegCodec c, int value) { c.setOutputHeight(value); }
+            })
+            .add(0xF08, 16, "CbCrWidth", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getCbCrWidth(); }
+                public void set(FrJpegCodec c, int value) { c.setCbCrWidth(value); }
+            })
+            .add(0xFF6, 16, "TransferInterruptStatus", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getTransferInterruptStatus(); }
+                public void set(FrJpegCodec c, int value) { c.setTransferInterruptStatus(value); }
+            })
+            .add(0x40A, 16, "Unknown40A", UNIMPLEMENTED)
+            .add(0xF00, 16, "UnknownF00", UNIMPLEMENTED)
+            .add(0xF0C, 16, "UnknownF0C", UNIMPLEMENTED)
+            .add(0xF0E, 16, "UnknownF0E", UNIMPLEMENTED)
+            .add(0xF1C, 16, "UnknownF1C", UNIMPLEMENTED)
+            .add(0xF20, 16, "UnknownF20", UNIMPLEMENTED)
+            .add(0xFF4, 16, "UnknownFF4", UNIMPLEMENTED)
+            .add(0xF10, 32, "DstAddrY", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getDstAddrY(); }
+                public void set(FrJpegCodec c, int value) { c.setDstAddrY(value); }
+            })
+            .add(0xF14, 32, "DstAddrCb", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getDstAddrCb(); }
+                public void set(FrJpegCodec c, int value) { c.setDstAddrCb(value); }
+            })
+            .add(0xF18, 32, "DstAddrCr", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getDstAddrCr(); }
+                public void set(FrJpegCodec c, int value) { c.setDstAddrCr(value); }
+            })
+            .add(0xF24, 32, "SizeJpeg", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getSizeJpeg(); }
+                public void set(FrJpegCodec c, int value) { c.setSizeJpeg(value); }
+            })
+            .add(0xF28, 32, "SrcAddrJpeg", new RegisterMap.Accessor<FrJpegCodec>() {
+                public int get(FrJpegCodec c) { return c.getSrcAddrJpeg(); }
+                public void set(FrJpegCodec c, int value) { c.setSrcAddrJpeg(value); }
+            });
+
     public Expeed40X3IoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -23,133 +120,62 @@ public class Expeed40X3IoListener extends IoActivityListener {
         return (address & ADDRESS_MASK) == BASE_ADDRESS;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pageMatches(pte, BASE_ADDRESS, ADDRESS_MASK);
+    }
+
+    private static int getUnit(int addr) {
+        return ((addr&0x100000)!=0 ? 1 : 0);
+    }
+
+    private FrJpegCodec getJpegCodec(int addr) {
+        return (FrJpegCodec)(platform.getJpegCodec()[getUnit(addr)]);
+    }
+
     @Override
     public Byte onLoadData8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        int unit = ((addr&0x100000)!=0 ? 1 : 0);
-
-        FrJpegCodec jpegCodec = (FrJpegCodec)(platform.getJpegCodec()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x000: return jpegCodec.getReg000();
-            case 0x007: return jpegCodec.getJPEGHeightHi();
-            case 0x008: return jpegCodec.getJPEGHeightLo();
-            case 0x009: return jpegCodec.getJPEGWidthHi();
-            case 0x00A: return jpegCodec.getJPEGWidthLo();
-            case 0x00F: return jpegCodec.getInterruptStatus();
-            case 0x410: return jpegCodec.getErrorCode();
-            default:
-                if (logRegisterMessages) warn("JpegCodec (" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load8 is not supported yet");
-        }
+        final RegisterMap.Register<FrJpegCodec> register = REGISTERS.getForLoad8(addr);
+        if (register != null) return (byte) register.load(getJpegCodec(addr));
+        if (logRegisterMessages) warn("JpegCodec (" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load8 is not supported yet");
         return null;
     }
 
     @Override
     public Integer onLoadData16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        int unit = ((addr&0x100000)!=0 ? 1 : 0);
-
-        FrJpegCodec jpegCodec = (FrJpegCodec)(platform.getJpegCodec()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x400: return jpegCodec.getReg400();
-            case 0x402: return jpegCodec.getReg402();
-            case 0x404: return jpegCodec.getCommand();
-            case 0xF02: return jpegCodec.getYWidth();
-            case 0xF04: return jpegCodec.getOutputWidth();
-            case 0xF06: return jpegCodec.getOutputHeight();
-            case 0xF08: return jpegCodec.getCbCrWidth();
-            case 0xFF6: return jpegCodec.getTransferInterruptStatus();
-            case 0x40A:
-            case 0xF00:
-            case 0xF0C:
-            case 0xF0E:
-            case 0xF1C:
-            case 0xF20:
-            case 0xFF4:
-                return jpegCodec.getRegUnimplemented();
-            default:
-                if (logRegisterMessages) warn("JpegCodec (" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load16 is not supported yet");
-        }
+        final RegisterMap.Register<FrJpegCodec> register = REGISTERS.getForLoad16(addr);
+        if (register != null) return register.load(getJpegCodec(addr));
+        if (logRegisterMessages) warn("JpegCodec (" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load16 is not supported yet");
         return null;
     }
 
     @Override
     public Integer onLoadData32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        int unit = ((addr&0x100000)!=0 ? 1 : 0);
-
-        FrJpegCodec jpegCodec = (FrJpegCodec)(platform.getJpegCodec()[unit]);
-        switch (addr&0xFFFF) {
-            case 0xF10: return jpegCodec.getDstAddrY();
-            case 0xF14: return jpegCodec.getDstAddrCb();
-            case 0xF18: return jpegCodec.getDstAddrCr();
-            case 0xF24: return jpegCodec.getSizeJpeg();
-            case 0xF28: return jpegCodec.getSrcAddrJpeg();
-            default:
-                if (logRegisterMessages) warn("JpegCodec (" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load32 is not supported yet");
-        }
+        final RegisterMap.Register<FrJpegCodec> register = REGISTERS.getForLoad32(addr);
+        if (register != null) return register.load(getJpegCodec(addr));
+        if (logRegisterMessages) warn("JpegCodec (" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load32 is not supported yet");
         return null;
     }
 
 
     @Override
     public void onStore8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        int unit = ((addr&0x100000)!=0 ? 1 : 0);
-
-        FrJpegCodec jpegCodec = (FrJpegCodec)(platform.getJpegCodec()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x000: jpegCodec.setReg000(value); break;
-            case 0x00F: jpegCodec.setInterruptStatus(value); break;
-            case 0x410: jpegCodec.setErrorCode(value); break;
-            case 0x007: // not writable
-            case 0x008:
-            case 0x009:
-            case 0x00A:
-                break;
-            case 0x001:
-            case 0x00E:
-                jpegCodec.setRegUnimplemented(value); break;
-            default:
-                if (logRegisterMessages) warn("JpegCodec (" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrJpegCodec> register = REGISTERS.getForStore8(addr);
+        if (register != null) register.store(getJpegCodec(addr), value);
+        else if (logRegisterMessages) warn("JpegCodec (" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
     }
 
     @Override
     public void onStore16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        int unit = ((addr&0x100000)!=0 ? 1 : 0);
-
-        FrJpegCodec jpegCodec = (FrJpegCodec)(platform.getJpegCodec()[unit]);
-        switch (addr&0xFFFF) {
-            case 0x400: jpegCodec.setReg400(value); break;
-            case 0x402: jpegCodec.setReg402(value); break;
-            case 0x404: jpegCodec.setCommand(value); break;
-            case 0xF02: jpegCodec.setYWidth(value); break;
-            case 0xF04: jpegCodec.setOutputWidth(value); break;
-            case 0xF06: jpegCodec.setOutputHeight(value); break;
-            case 0xF08: jpegCodec.setCbCrWidth(value); break;
-            case 0xFF6: jpegCodec.setTransferInterruptStatus(value); break;
-            case 0x40A:
-            case 0xF00:
-            case 0xF0C:
-            case 0xF0E:
-            case 0xF1C:
-            case 0xF20:
-            case 0xFF4:
-                jpegCodec.setRegUnimplemented(value); break;
-            default:
-                if (logRegisterMessages) warn("JpegCodec (" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrJpegCodec> register = REGISTERS.getForStore16(addr);
+        if (register != null) register.store(getJpegCodec(addr), value);
+        else if (logRegisterMessages) warn("JpegCodec (" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
     }
 
     @Override
     public void onStore32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        int unit = ((addr&0x100000)!=0 ? 1 : 0);
-
-        FrJpegCodec jpegCodec = (FrJpegCodec)(platform.getJpegCodec()[unit]);
-        switch (addr&0xFFFF) {
-            case 0xF10: jpegCodec.setDstAddrY(value); break;
-            case 0xF14: jpegCodec.setDstAddrCb(value); break;
-            case 0xF18: jpegCodec.setDstAddrCr(value); break;
-            case 0xF24: jpegCodec.setSizeJpeg(value); break;
-            case 0xF28: jpegCodec.setSrcAddrJpeg(value); break;
-            default:
-                if (logRegisterMessages) warn("JpegCodec (" + unit + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrJpegCodec> register = REGISTERS.getForStore32(addr);
+        if (register != null) register.store(getJpegCodec(addr), value);
+        else if (logRegisterMessages) warn("JpegCodec (" + getUnit(addr) + "): Register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
     }
 }
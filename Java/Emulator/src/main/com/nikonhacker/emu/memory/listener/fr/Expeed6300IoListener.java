@@ -4,6 +4,7 @@ import com.nikonhacker.Format;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterMap;
 import com.nikonhacker.emu.peripherials.sdController.fr.FrSdController;
 
 // addressing resolution converter units
@@ -17,6 +18,9 @@ public class Expeed6300IoListener extends IoActivityListener {
 
     public static final int NUM_SD_CONTROLLER = 2;
 
+    /** No register is implemented yet */
+    public static final RegisterMap<FrSdController> REGISTERS = new RegisterMap<FrSdController>(0x1_0000);
+
     public Expeed6300IoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -26,61 +30,59 @@ public class Expeed6300IoListener extends IoActivityListener {
         return (((address & ADDRESS_MASK1) == BASE_ADDRESS1) || ((address & ADDRESS_MASK2) == BASE_ADDRESS2));
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pageMatches(pte, BASE_ADDRESS1, ADDRESS_MASK1) || pageMatches(pte, BASE_ADDRESS2, ADDRESS_MASK2);
+    }
+
+    private FrSdController getSdController(int addr) {
+        final int unit = ( (addr&4000000)!=0 ? 1 : 0 );
+        return (FrSdController)(platform.getSdController()[unit]);
+    }
+
     @Override
     public Byte onLoadData8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<FrSdController> register = REGISTERS.getForLoad8(addr);
+        if (register != null) return (byte) register.load(getSdController(addr));
         if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load8 is not supported yet");
         return null;
     }
 
     @Override
     public Integer onLoadData16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&4000000)!=0 ? 1 : 0 );
-
-        FrSdController sdController = (FrSdController)(platform.getSdController()[unit]);
-        switch (addr&0xFFFF) {
-            default:
-                if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load16 is not supported yet");
-        }
+        final RegisterMap.Register<FrSdController> register = REGISTERS.getForLoad16(addr);
+        if (register != null) return register.load(getSdController(addr));
+        if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load16 is not supported yet");
         return null;
     }
 
     @Override
     public Integer onLoadData32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&4000000)!=0 ? 1 : 0 );
-
-        FrSdController sdController = (FrSdController)(platform.getSdController()[unit]);
-        switch (addr&0xFFFF) {
-            default:
-                if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load32 is not supported yet");
-        }
+        final RegisterMap.Register<FrSdController> register = REGISTERS.getForLoad32(addr);
+        if (register != null) return register.load(getSdController(addr));
+        if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Load32 is not supported yet");
         return null;
     }
 
 
     @Override
     public void onStore8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
+        final RegisterMap.Register<FrSdController> register = REGISTERS.getForStore8(addr);
+        if (register != null) register.store(getSdController(addr), value);
+        else if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
     }
 
     @Override
     public void onStore16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&4000000)!=0 ? 1 : 0 );
-
-        FrSdController sdController = (FrSdController)(platform.getSdController()[unit]);
-        switch (addr&0xFFFF) {
-            default:
-                if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrSdController> register = REGISTERS.getForStore16(addr);
+        if (register != null) register.store(getSdController(addr), value);
+        else if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
     }
 
     @Override
     public void onStore32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        final int unit = ( (addr&4000000)!=0 ? 1 : 0 );
-
-        FrSdController sdController = (FrSdController)(platform.getSdController()[unit]);
-        switch (addr&0xFFFF) {
-            default:
-                if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
-        }
+        final RegisterMap.Register<FrSdController> register = REGISTERS.getForStore32(addr);
+        if (register != null) register.store(getSdController(addr), value);
+        else if (logRegisterMessages) warn("SD controller ("+(addr&0x4000000)+"):register 0x" + Format.asHex(addr&0xFFF, 3) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
     }
 }
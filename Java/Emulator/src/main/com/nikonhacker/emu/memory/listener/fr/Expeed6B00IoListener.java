@@ -3,6 +3,7 @@ package com.nikonhacker.emu.memory.listener.fr;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterBlockMap;
 import com.nikonhacker.emu.peripherials.interruptController.fr.FrSharedInterruptCircuit;
 
 public class Expeed6B00IoListener extends IoActivityListener {
@@ -17,6 +18,14 @@ public class Expeed6B00IoListener extends IoActivityListener {
     private static final int REGISTER_SHARED_INT_STATUS_BEGIN = 0x6B000080;
     private static final int REGISTER_SHARED_INT_STATUS_END   = 0x6B0000BB;
 
+    // Register blocks of the page
+    private static final byte BLOCK_SHARED_INT_CONFIG = 1;
+    private static final byte BLOCK_SHARED_INT_STATUS = 2;
+
+    private static final RegisterBlockMap IO_BLOCKS = new RegisterBlockMap()
+            .add(REGISTER_SHARED_INT_CONFIG_BEGIN, REGISTER_SHARED_INT_CONFIG_END + 1, BLOCK_SHARED_INT_CONFIG)
+            .add(REGISTER_SHARED_INT_STATUS_BEGIN, REGISTER_SHARED_INT_STATUS_END + 1, BLOCK_SHARED_INT_STATUS);
+
     public Expeed6B00IoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -26,42 +35,50 @@ public class Expeed6B00IoListener extends IoActivityListener {
         return (address & ADDRESS_MASK) == BASE_ADDRESS;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pageMatches(pte, BASE_ADDRESS, ADDRESS_MASK);
+    }
+
     @Override
     public Byte onLoadData8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_SHARED_INT_CONFIG_BEGIN && addr <= REGISTER_SHARED_INT_CONFIG_END) {
-            // shared interrupt circuit
-            stop("Shared interrupt config registers cannot be accessed by 8-bit for now");
-        } else if (addr >= REGISTER_SHARED_INT_STATUS_BEGIN && addr <= REGISTER_SHARED_INT_STATUS_END) {
-            // shared interrupt circuit
-            stop("Shared interrupt circuit registers cannot be accessed by 8-bit for now");
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_SHARED_INT_CONFIG:
+                // shared interrupt circuit
+                stop("Shared interrupt config registers cannot be accessed by 8-bit for now");
+                break;
+            case BLOCK_SHARED_INT_STATUS:
+                // shared interrupt circuit
+                stop("Shared interrupt circuit registers cannot be accessed by 8-bit for now");
+                break;
         }
         return null;
     }
 
     @Override
     public Integer onLoadData16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_SHARED_INT_CONFIG_BEGIN && addr <= REGISTER_SHARED_INT_CONFIG_END) {
-            // shared interrupt circuit
-            stop("Shared interrupt config registers cannot be accessed by 16-bit for now");
-        } else if (addr >= REGISTER_SHARED_INT_STATUS_BEGIN && addr <= REGISTER_SHARED_INT_STATUS_END) {
-            // shared interrupt circuit
-            stop("Shared interrupt circuit registers cannot be accessed by 16-bit for now");
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_SHARED_INT_CONFIG:
+                // shared interrupt circuit
+                stop("Shared interrupt config registers cannot be accessed by 16-bit for now");
+                break;
+            case BLOCK_SHARED_INT_STATUS:
+                // shared interrupt circuit
+                stop("Shared interrupt circuit registers cannot be accessed by 16-bit for now");
+                break;
         }
         return null;
     }
 
     @Override
     public Integer onLoadData32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_SHARED_INT_CONFIG_BEGIN && addr <= REGISTER_SHARED_INT_CONFIG_END) {
-            // shared interrupt circuit
-            FrSharedInterruptCircuit sharedInterruptCircuit = (FrSharedInterruptCircuit)platform.getSharedInterruptCircuit();
-
-            return sharedInterruptCircuit.getConfigReg((addr-REGISTER_SHARED_INT_CONFIG_BEGIN)>>2);
-        } else if (addr >= REGISTER_SHARED_INT_STATUS_BEGIN && addr <= REGISTER_SHARED_INT_STATUS_END) {
-            // shared interrupt circuit
-            FrSharedInterruptCircuit sharedInterruptCircuit = (FrSharedInterruptCircuit)platform.getSharedInterruptCircuit();
-
-            return sharedInterruptCircuit.getStatusReg((addr-REGISTER_SHARED_INT_STATUS_BEGIN)>>2);
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_SHARED_INT_CONFIG:
+                // shared interrupt circuit
+                return ((FrSharedInterruptCircuit)platform.getSharedInterruptCircuit()).getConfigReg((addr-REGISTER_SHARED_INT_CONFIG_BEGIN)>>2);
+            case BLOCK_SHARED_INT_STATUS:
+                // shared interrupt circuit
+                return ((FrSharedInterruptCircuit)platform.getSharedInterruptCircuit()).getStatusReg((addr-REGISTER_SHARED_INT_STATUS_BEGIN)>>2);
         }
         return null;
     }
@@ -69,39 +86,40 @@ public class Expeed6B00IoListener extends IoActivityListener {
 
     @Override
     public void onStore8(byte[] pageData, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-       if (addr >= REGISTER_SHARED_INT_CONFIG_BEGIN && addr <= REGISTER_SHARED_INT_CONFIG_END) {
-           // shared interrupt circuit
-            stop("Shared interrupt config registers cannot be written by 8-bit for now");
-       } else if (addr >= REGISTER_SHARED_INT_STATUS_BEGIN && addr <= REGISTER_SHARED_INT_STATUS_END) {
-           // shared interrupt circuit
-            
-           // ignore write
-       }
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_SHARED_INT_CONFIG:
+                // shared interrupt circuit
+                stop("Shared interrupt config registers cannot be written by 8-bit for now");
+                break;
+            case BLOCK_SHARED_INT_STATUS:
+                // shared interrupt circuit: ignore write
+                break;
+        }
     }
 
     @Override
     public void onStore16(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-       if (addr >= REGISTER_SHARED_INT_CONFIG_BEGIN && addr <= REGISTER_SHARED_INT_CONFIG_END) {
-           // shared interrupt circuit
-            stop("Shared interrupt config registers cannot be written by 16-bit for now");
-       } else if (addr >= REGISTER_SHARED_INT_STATUS_BEGIN && addr <= REGISTER_SHARED_INT_STATUS_END) {
-           // shared interrupt circuit
-            
-           // ignore write
-       }
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_SHARED_INT_CONFIG:
+                // shared interrupt circuit
+                stop("Shared interrupt config registers cannot be written by 16-bit for now");
+                break;
+            case BLOCK_SHARED_INT_STATUS:
+                // shared interrupt circuit: ignore write
+                break;
+        }
     }
 
     @Override
     public void onStore32(byte[] pageData, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-       if (addr >= REGISTER_SHARED_INT_CONFIG_BEGIN && addr <= REGISTER_SHARED_INT_CONFIG_END) {
-           // shared interrupt circuit
-            FrSharedInterruptCircuit sharedInterruptCircuit = (FrSharedInterruptCircuit)platform.getSharedInterruptCircuit();
-
-            sharedInterruptCircuit.setConfigReg((addr-REGISTER_SHARED_INT_CONFIG_BEGIN)>>2,value);
-       } else if (addr >= REGISTER_SHARED_INT_STATUS_BEGIN && addr <= REGISTER_SHARED_INT_STATUS_END) {
-           // shared interrupt circuit
-            
-           // ignore write
-       }
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_SHARED_INT_CONFIG:
+                // shared interrupt circuit
+                ((FrSharedInterruptCircuit)platform.getSharedInterruptCircuit()).setConfigReg((addr-REGISTER_SHARED_INT_CONFIG_BEGIN)>>2,value);
+                break;
+            case BLOCK_SHARED_INT_STATUS:
+                // shared interrupt circuit: ignore write
+                break;
+        }
     }
 }
@@ -4,6 +4,7 @@ import com.nikonhacker.Format;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterMap;
 import com.nikonhacker.emu.peripherials.ioPort.fr.FrIoPort;
 
 public class ExpeedPinIoListener extends IoActivityListener {
@@ -17,6 +18,24 @@ public class ExpeedPinIoListener extends IoActivityListener {
     /* Range of I/O Ports. D5100 specific */
     public static final int NUM_PORT          = 14;
 
+    /** One value and one config register per port. The port is given by the lower byte of the address */
+    public static final RegisterMap<FrIoPort> REGISTERS = new RegisterMap<>(0x1_0000);
+
+    static {
+        RegisterMap.Accessor<FrIoPort> value = new RegisterMap.Accessor<FrIoPort>() {
+            public int get(FrIoPort port) { return port.getValue(); }
+            public void set(FrIoPort port, int value) { port.setValue((byte) value); }
+        };
+        RegisterMap.Accessor<FrIoPort> config = new RegisterMap.Accessor<FrIoPort>() {
+            public int get(FrIoPort port) { return port.getFunctionRegister(); }
+            public void set(FrIoPort port, int value) { port.setFunctionRegister((byte) value); }
+        };
+        for (int portNumber = 0; portNumber < NUM_PORT; portNumber++) {
+            REGISTERS.add((PORT_VALUE_ADDRESS & 0xFFFF) + portNumber, 8, "Value" + portNumber, value);
+            REGISTERS.add((PORT_CONFIG_ADDRESS & 0xFFFF) + portNumber, 8, "Config" + portNumber, config);
+        }
+    }
+
     public ExpeedPinIoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -27,69 +46,56 @@ public class ExpeedPinIoListener extends IoActivityListener {
     }
 
     @Override
-    public Byte onLoadData8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
-        final int portNumber = address & 0xFF;
-        if (portNumber<NUM_PORT) {
-            final FrIoPort port = (FrIoPort)(platform.getIoPorts()[portNumber]);
-            switch (address& 0xFFFFFF00) {
-                case PORT_VALUE_ADDRESS:
-                    return port.getValue();
-                case PORT_CONFIG_ADDRESS:
-                    return port.getFunctionRegister();
-            }
-        }
-        return null;
+    public final boolean matchesPage(int pte) {
+        return pageMatches(pte, PORT_BASE_ADDRESS, PORT_ADDRESS_MASK);
     }
 
-    @Override
-    public Integer onLoadData16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
+    private FrIoPort getPort(int address) {
+        return (FrIoPort)(platform.getIoPorts()[address & 0xFF]);
+    }
+
+    private static boolean isPortRegister(int address) {
         switch (address& 0xFFFFFF00) {
             case PORT_VALUE_ADDRESS:
             case PORT_CONFIG_ADDRESS:
-                warn("Loading 16b data from Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
+                return true;
         }
+        return false;
+    }
+
+    @Override
+    public Byte onLoadData8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
+        final RegisterMap.Register<FrIoPort> register = REGISTERS.getForLoad8(address);
+        if (register != null) return (byte) register.load(getPort(address));
+        return null;
+    }
+
+    @Override
+    public Integer onLoadData16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
+        if (isPortRegister(address)) warn("Loading 16b data from Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
         return null;
     }
 
     @Override
     public Integer onLoadData32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
-        switch (address& 0xFFFFFF00) {
-            case PORT_VALUE_ADDRESS:
-            case PORT_CONFIG_ADDRESS:
-                warn("Loading 32b data from Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
-        }
+        if (isPortRegister(address)) warn("Loading 32b data from Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
         return null;
     }
 
 
     @Override
     public void onStore8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
-        final int portNumber = address & 0xFF;
-        if (portNumber<NUM_PORT) {
-            final FrIoPort port = (FrIoPort)(platform.getIoPorts()[portNumber]);
-            switch (address& 0xFFFFFF00) {
-                case PORT_VALUE_ADDRESS: port.setValue(value); break;
-                case PORT_CONFIG_ADDRESS: port.setFunctionRegister(value); break;
-            }
-
-        }
+        final RegisterMap.Register<FrIoPort> register = REGISTERS.getForStore8(address);
+        if (register != null) register.store(getPort(address), value);
     }
 
     @Override
     public void onStore16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
-        switch (address& 0xFFFFFF00) {
-            case PORT_VALUE_ADDRESS:
-            case PORT_CONFIG_ADDRESS:
-                warn("Storing 16b data to Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
-        }
+        if (isPortRegister(address)) warn("Storing 16b data to Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
     }
 
     @Override
     public void onStore32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
-        switch (address& 0xFFFFFF00) {
-            case PORT_VALUE_ADDRESS:
-            case PORT_CONFIG_ADDRESS:
-                warn("Storing 32b data to Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
-        }
+        if (isPortRegister(address)) warn("Storing 32b data to Pin Port register 0x" + Format.asHex(address, 8) + " is not implemented");
     }
 }
@@ -4,6 +4,7 @@ import com.nikonhacker.Format;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.IoActivityListener;
+import com.nikonhacker.emu.memory.listener.RegisterBlockMap;
 import com.nikonhacker.emu.peripherials.adConverter.tx.TxAdConverter;
 import com.nikonhacker.emu.peripherials.adConverter.tx.TxAdUnit;
 import com.nikonhacker.emu.peripherials.clock.tx.TxClockGenerator;
@@ -216,6 +217,32 @@ public class TxIoListener extends IoActivityListener {
     private static final int REGISTER_ADACOMREG1  = 0xFF00_4D58; // register
 
 
+    // Peripheral blocks of the I/O page
+    private static final byte BLOCK_IMC           = 1;
+    private static final byte BLOCK_DMA           = 2;
+    private static final byte BLOCK_RTC           = 3;
+    private static final byte BLOCK_HSERIAL       = 4;
+    private static final byte BLOCK_IMCG          = 5;
+    private static final byte BLOCK_KEY           = 6;
+    private static final byte BLOCK_PORT          = 7;
+    private static final byte BLOCK_TIMER         = 8;
+    private static final byte BLOCK_CAPTURE_TIMER = 9;
+    private static final byte BLOCK_SERIAL        = 10;
+    private static final byte BLOCK_AD            = 11;
+
+    private static final RegisterBlockMap IO_BLOCKS = new RegisterBlockMap()
+            .add(REGISTER_IMC00, REGISTER_IMC19 + 4, BLOCK_IMC)
+            .add(REGISTER_CCR0, REGISTER_CCR0 + (NUM_DMA_CHANNEL << DMA_CHANNEL_OFFSET_SHIFT), BLOCK_DMA)
+            .add(REGISTER_HOURR, REGISTER_RESTR + 4, BLOCK_RTC)
+            .add(REGISTER_HSC0BUF, REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT), BLOCK_HSERIAL)
+            .add(REGISTER_IMCGA, REGISTER_IMCG11 + 4, BLOCK_IMCG)
+            .add(REGISTER_KWUPST00, REGISTER_KWUPINT + 4, BLOCK_KEY)
+            .add(REGISTER_PORT0, REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT), BLOCK_PORT)
+            .add(REGISTER_TB0EN, REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT), BLOCK_TIMER)
+            .add(REGISTER_TCEN, REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT), BLOCK_CAPTURE_TIMER)
+            .add(REGISTER_SC0EN, REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT), BLOCK_SERIAL)
+            .add(REGISTER_ADACLK, REGISTER_ADACLK + (NUM_AD_UNIT << AD_UNIT_OFFSET_SHIFT), BLOCK_AD);
+
     public TxIoListener(Platform platform, boolean logRegisterMessages) {
         super(platform, logRegisterMessages);
     }
@@ -225,6 +252,11 @@ public class TxIoListener extends IoActivityListener {
         return address >>> 16 == 0xFF00;
     }
 
+    @Override
+    public boolean matchesPage(int pte) {
+        return pte == 0xFF00;
+    }
+
     /**
      * Called when reading 8-bit value from register address range
      *
@@ -235,329 +267,342 @@ public class TxIoListener extends IoActivityListener {
      * @return value to be returned, or null to return previously written value like normal memory
      */
     public Byte onLoadData8(byte[] ioPage, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_IMC00 && addr < (REGISTER_IMC19+4)) {
-            // IMC registers.
-            return (byte)(((TxInterruptController)platform.getInterruptController()).getImc(addr-REGISTER_IMC00));
-        }
-        if (addr >= REGISTER_PORT0 && addr < REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT)) {
-            // Port configuration registers
-            int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
-            TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
-            switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
-                case REGISTER_PORT0 + 3:
-                    return txIoPort.getValue();
-                case REGISTER_PORT0CR + 3:
-                    return txIoPort.getControlRegister();
-                case REGISTER_PORT0FC1 + 3:
-                    return txIoPort.getFunctionRegister1();
-                case REGISTER_PORT0FC2 + 3:
-                    return txIoPort.getFunctionRegister2();
-                case REGISTER_PORT0FC3 + 3:
-                    return txIoPort.getFunctionRegister3();
-                case REGISTER_PORT0ODE + 3:
-                    return txIoPort.getOpenDrainControlRegister();
-                case REGISTER_PORT0PUP + 3:
-                    return txIoPort.getPullUp();
-                case REGISTER_PORT0PIE + 3:
-                    return txIoPort.getInputEnableControlRegister();
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_IMC: {
+                // IMC registers.
+                return (byte)(((TxInterruptController)platform.getInterruptController()).getImc(addr-REGISTER_IMC00));
             }
-        }
-        else if (addr >= REGISTER_TB0EN && addr < REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT)) {
-            // Timer configuration registers
-            int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
-            TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
-            switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
-                case REGISTER_TB0EN + 3:
-                    return (byte) txTimer.getTben();
-                case REGISTER_TB0RUN + 3:
-                    return (byte) txTimer.getTbrun();
-                case REGISTER_TB0CR + 3:
-                    return (byte) txTimer.getTbcr();
-                case REGISTER_TB0MOD + 3:
-                    return (byte) txTimer.getTbmod();
-                case REGISTER_TB0FFCR + 3:
-                    return (byte) txTimer.getTbffcr();
-                case REGISTER_TB0ST + 3:
-                    return (byte) txTimer.getTbst();
-                case REGISTER_TB0IM + 3:
-                    return (byte) txTimer.getTbim();
-                case REGISTER_TB0UC + 2:
-                case REGISTER_TB0UC + 3:
-                    stop("The TBnUC register cannot be accessed by 8-bit");
-                case REGISTER_TB0RG0 + 2:
-                case REGISTER_TB0RG0 + 3:
-                    stop("The TBnRG0 register cannot be accessed by 8-bit for now");
-                case REGISTER_TB0RG1 + 2:
-                case REGISTER_TB0RG1 + 3:
-                    stop("The TBnRG1 register cannot be accessed by 8-bit for now");
-                case REGISTER_TB0CP0 + 3:
-                    return (byte) txTimer.getTbcp0();
-                case REGISTER_TB0CP1 + 3:
-                    return (byte) txTimer.getTbcp1();
-            }
-        }
-        else if (addr >= REGISTER_TCEN && addr < REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT )) {
-            // Capture Input configuration registers
-            TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
-            if (addr < REGISTER_CMPCTL0) {
-                switch (addr) {
-                    case REGISTER_TCEN + 3:
-                        return (byte)txInputCaptureTimer.getTcen();
-                    case REGISTER_TBTRUN + 3:
-                        return (byte)txInputCaptureTimer.getTbtrun();
-                    case REGISTER_TBTCR + 3:
-                        return (byte)txInputCaptureTimer.getTbtcr();
-                    case REGISTER_TBTCAP + 3:
-                        return (byte)txInputCaptureTimer.getTbtcap();
-                    case REGISTER_TBTRDCAP + 3:
-                        return (byte)txInputCaptureTimer.getCurrentValue();
+            case BLOCK_PORT: {
+                // Port configuration registers
+                int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
+                TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
+                switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
+                    case REGISTER_PORT0 + 3:
+                        return txIoPort.getValue();
+                    case REGISTER_PORT0CR + 3:
+                        return txIoPort.getControlRegister();
+                    case REGISTER_PORT0FC1 + 3:
+                        return txIoPort.getFunctionRegister1();
+                    case REGISTER_PORT0FC2 + 3:
+                        return txIoPort.getFunctionRegister2();
+                    case REGISTER_PORT0FC3 + 3:
+                        return txIoPort.getFunctionRegister3();
+                    case REGISTER_PORT0ODE + 3:
+                        return txIoPort.getOpenDrainControlRegister();
+                    case REGISTER_PORT0PUP + 3:
+                        return txIoPort.getPullUp();
+                    case REGISTER_PORT0PIE + 3:
+                        return txIoPort.getInputEnableControlRegister();
                 }
+                break;
             }
-            else if (addr < REGISTER_CAPCR0) {
-                int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
-                switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
-                    case REGISTER_CMPCTL0 + 3:
-                        return (byte) txInputCaptureTimer.getCmpctl(compareChannel);
-                    case REGISTER_TCCMP0 + 3:
-                        return (byte) txInputCaptureTimer.getTccmp(compareChannel);
+            case BLOCK_TIMER: {
+                // Timer configuration registers
+                int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
+                TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
+                switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
+                    case REGISTER_TB0EN + 3:
+                        return (byte) txTimer.getTben();
+                    case REGISTER_TB0RUN + 3:
+                        return (byte) txTimer.getTbrun();
+                    case REGISTER_TB0CR + 3:
+                        return (byte) txTimer.getTbcr();
+                    case REGISTER_TB0MOD + 3:
+                        return (byte) txTimer.getTbmod();
+                    case REGISTER_TB0FFCR + 3:
+                        return (byte) txTimer.getTbffcr();
+                    case REGISTER_TB0ST + 3:
+                        return (byte) txTimer.getTbst();
+                    case REGISTER_TB0IM + 3:
+                        return (byte) txTimer.getTbim();
+                    case REGISTER_TB0UC + 2:
+                    case REGISTER_TB0UC + 3:
+                        stop("The TBnUC register cannot be accessed by 8-bit");
+                    case REGISTER_TB0RG0 + 2:
+                    case REGISTER_TB0RG0 + 3:
+                        stop("The TBnRG0 register cannot be accessed by 8-bit for now");
+                    case REGISTER_TB0RG1 + 2:
+                    case REGISTER_TB0RG1 + 3:
+                        stop("The TBnRG1 register cannot be accessed by 8-bit for now");
+                    case REGISTER_TB0CP0 + 3:
+                        return (byte) txTimer.getTbcp0();
+                    case REGISTER_TB0CP1 + 3:
+                        return (byte) txTimer.getTbcp1();
                 }
+                break;
             }
-            else {
-                int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
-                switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
-                    case REGISTER_CAPCR0 + 3:
-                        return (byte) txInputCaptureTimer.getCapcr(captureChannel);
-                    case REGISTER_TCCAP0 + 3:
-                        return (byte) txInputCaptureTimer.getTccap(captureChannel);
+            case BLOCK_CAPTURE_TIMER: {
+                // Capture Input configuration registers
+                TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
+                if (addr < REGISTER_CMPCTL0) {
+                    switch (addr) {
+                        case REGISTER_TCEN + 3:
+                            return (byte)txInputCaptureTimer.getTcen();
+                        case REGISTER_TBTRUN + 3:
+                            return (byte)txInputCaptureTimer.getTbtrun();
+                        case REGISTER_TBTCR + 3:
+                            return (byte)txInputCaptureTimer.getTbtcr();
+                        case REGISTER_TBTCAP + 3:
+                            return (byte)txInputCaptureTimer.getTbtcap();
+                        case REGISTER_TBTRDCAP + 3:
+                            return (byte)txInputCaptureTimer.getCurrentValue();
+                    }
+                }
+                else if (addr < REGISTER_CAPCR0) {
+                    int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
+                    switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
+                        case REGISTER_CMPCTL0 + 3:
+                            return (byte) txInputCaptureTimer.getCmpctl(compareChannel);
+                        case REGISTER_TCCMP0 + 3:
+                            return (byte) txInputCaptureTimer.getTccmp(compareChannel);
+                    }
                 }
+                else {
+                    int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
+                    switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
+                        case REGISTER_CAPCR0 + 3:
+                            return (byte) txInputCaptureTimer.getCapcr(captureChannel);
+                        case REGISTER_TCCAP0 + 3:
+                            return (byte) txInputCaptureTimer.getTccap(captureChannel);
+                    }
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_SC0EN && addr < REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT)) {
-            // Serial Interface configuration registers
-            int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
-            switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
-                case REGISTER_SC0EN + 3:
-                    return (byte) txSerialInterface.getEn();
-                case REGISTER_SC0BUF + 3:
-                    return (byte) txSerialInterface.getBuf();
-                case REGISTER_SC0CR + 3:
-                    return (byte) txSerialInterface.getCr();
-                case REGISTER_SC0MOD0 + 3:
-                    return (byte) txSerialInterface.getMod0();
-                case REGISTER_SC0MOD1 + 3:
-                    return (byte) txSerialInterface.getMod1();
-                case REGISTER_SC0MOD2 + 3:
-                    return (byte) txSerialInterface.getMod2();
-                case REGISTER_BR0CR + 3:
-                    return (byte) txSerialInterface.getBrcr();
-                case REGISTER_BR0ADD + 3:
-                    return (byte) txSerialInterface.getBradd();
-                case REGISTER_SC0RFC + 3:
-                    return (byte) txSerialInterface.getRfc();
-                case REGISTER_SC0TFC + 3:
-                    return (byte) txSerialInterface.getTfc();
-                case REGISTER_SC0RST + 3:
-                    return (byte) txSerialInterface.getRst();
-                case REGISTER_SC0TST + 3:
-                    return (byte) txSerialInterface.getTst();
-                case REGISTER_SC0FCNF + 3:
-                    return (byte) txSerialInterface.getFcnf();
+            case BLOCK_SERIAL: {
+                // Serial Interface configuration registers
+                int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
+                switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_SC0EN + 3:
+                        return (byte) txSerialInterface.getEn();
+                    case REGISTER_SC0BUF + 3:
+                        return (byte) txSerialInterface.getBuf();
+                    case REGISTER_SC0CR + 3:
+                        return (byte) txSerialInterface.getCr();
+                    case REGISTER_SC0MOD0 + 3:
+                        return (byte) txSerialInterface.getMod0();
+                    case REGISTER_SC0MOD1 + 3:
+                        return (byte) txSerialInterface.getMod1();
+                    case REGISTER_SC0MOD2 + 3:
+                        return (byte) txSerialInterface.getMod2();
+                    case REGISTER_BR0CR + 3:
+                        return (byte) txSerialInterface.getBrcr();
+                    case REGISTER_BR0ADD + 3:
+                        return (byte) txSerialInterface.getBradd();
+                    case REGISTER_SC0RFC + 3:
+                        return (byte) txSerialInterface.getRfc();
+                    case REGISTER_SC0TFC + 3:
+                        return (byte) txSerialInterface.getTfc();
+                    case REGISTER_SC0RST + 3:
+                        return (byte) txSerialInterface.getRst();
+                    case REGISTER_SC0TST + 3:
+                        return (byte) txSerialInterface.getTst();
+                    case REGISTER_SC0FCNF + 3:
+                        return (byte) txSerialInterface.getFcnf();
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HSC0BUF && addr < REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT)) {
-            // Hi-speed Serial Interface configuration registers
-            int hserialInterfaceNr = (addr - REGISTER_HSC0BUF) >> HSERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[NUM_SERIAL_IF + hserialInterfaceNr];
-            switch (addr - (hserialInterfaceNr << HSERIAL_OFFSET_SHIFT)) {
-                case REGISTER_HSC0BUF: // No +3. These are all 8-bit register (even if hsc0buf leaves 3 blank addresses)
-                    return (byte) txSerialInterface.getBuf();
-                case REGISTER_HBR0ADD:
-                    return (byte) txSerialInterface.getBradd();
-                case REGISTER_HSC0MOD1:
-                    return (byte) txSerialInterface.getMod1();
-                case REGISTER_HSC0MOD2:
-                    return (byte) txSerialInterface.getMod2();
-                case REGISTER_HSC0EN:
-                    return (byte) txSerialInterface.getEn();
-                case REGISTER_HSC0RFC:
-                    return (byte) txSerialInterface.getRfc();
-                case REGISTER_HSC0TFC:
-                    return (byte) txSerialInterface.getTfc();
-                case REGISTER_HSC0RST:
-                    return (byte) txSerialInterface.getRst();
-                case REGISTER_HSC0TST:
-                    return (byte) txSerialInterface.getTst();
-                case REGISTER_HSC0FCNF:
-                    return (byte) txSerialInterface.getFcnf();
-                case REGISTER_HSC0CR:
-                    return (byte) txSerialInterface.getCr();
-                case REGISTER_HSC0MOD0:
-                    return (byte) txSerialInterface.getMod0();
-                case REGISTER_HBR0CR:
-                    return (byte) txSerialInterface.getBrcr();
+            case BLOCK_HSERIAL: {
+                // Hi-speed Serial Interface configuration registers
+                int hserialInterfaceNr = (addr - REGISTER_HSC0BUF) >> HSERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[NUM_SERIAL_IF + hserialInterfaceNr];
+                switch (addr - (hserialInterfaceNr << HSERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_HSC0BUF: // No +3. These are all 8-bit register (even if hsc0buf leaves 3 blank addresses)
+                        return (byte) txSerialInterface.getBuf();
+                    case REGISTER_HBR0ADD:
+                        return (byte) txSerialInterface.getBradd();
+                    case REGISTER_HSC0MOD1:
+                        return (byte) txSerialInterface.getMod1();
+                    case REGISTER_HSC0MOD2:
+                        return (byte) txSerialInterface.getMod2();
+                    case REGISTER_HSC0EN:
+                        return (byte) txSerialInterface.getEn();
+                    case REGISTER_HSC0RFC:
+                        return (byte) txSerialInterface.getRfc();
+                    case REGISTER_HSC0TFC:
+                        return (byte) txSerialInterface.getTfc();
+                    case REGISTER_HSC0RST:
+                        return (byte) txSerialInterface.getRst();
+                    case REGISTER_HSC0TST:
+                        return (byte) txSerialInterface.getTst();
+                    case REGISTER_HSC0FCNF:
+                        return (byte) txSerialInterface.getFcnf();
+                    case REGISTER_HSC0CR:
+                        return (byte) txSerialInterface.getCr();
+                    case REGISTER_HSC0MOD0:
+                        return (byte) txSerialInterface.getMod0();
+                    case REGISTER_HBR0CR:
+                        return (byte) txSerialInterface.getBrcr();
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_CCR0 && addr < REGISTER_CCR0 + (NUM_DMA_CHANNEL << DMA_CHANNEL_OFFSET_SHIFT)) {
-            // DMA channel configuration registers
-            int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
-            TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
-            switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
-                case REGISTER_CCR0:
-                case REGISTER_CCR0 + 1:
-                case REGISTER_CCR0 + 2:
-                case REGISTER_CCR0 + 3:
-                    return (byte)(channel.getCcr() >> ((3 - (addr & 0b11)) * 8));
-                case REGISTER_CSR0 + 3:
-                    return (byte)channel.getCsr();
-                case REGISTER_SAR0 + 3:
-                    return (byte)channel.getSar();
-                case REGISTER_DAR0 + 3:
-                    return (byte)channel.getDar();
-                case REGISTER_BCR0 + 3:
-                    return (byte)channel.getBcr();
-                case REGISTER_DTCR0 + 3:
-                    return (byte)channel.getDtcr();
+            case BLOCK_DMA: {
+                // DMA channel configuration registers
+                int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
+                TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
+                switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
+                    case REGISTER_CCR0:
+                    case REGISTER_CCR0 + 1:
+                    case REGISTER_CCR0 + 2:
+                    case REGISTER_CCR0 + 3:
+                        return (byte)(channel.getCcr() >> ((3 - (addr & 0b11)) * 8));
+                    case REGISTER_CSR0 + 3:
+                        return (byte)channel.getCsr();
+                    case REGISTER_SAR0 + 3:
+                        return (byte)channel.getSar();
+                    case REGISTER_DAR0 + 3:
+                        return (byte)channel.getDar();
+                    case REGISTER_BCR0 + 3:
+                        return (byte)channel.getBcr();
+                    case REGISTER_DTCR0 + 3:
+                        return (byte)channel.getDtcr();
 
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HOURR && addr < REGISTER_RESTR + 4) {
-            // RTC registers
-            TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
-            switch (addr) {
-                case REGISTER_HOURR + 1:
-                    return realtimeClock.getHourr();
-                case REGISTER_MINR:
-                    return realtimeClock.getMinr();
-                case REGISTER_SECR:
-                    return realtimeClock.getSecr();
+            case BLOCK_RTC: {
+                // RTC registers
+                TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
+                switch (addr) {
+                    case REGISTER_HOURR + 1:
+                        return realtimeClock.getHourr();
+                    case REGISTER_MINR:
+                        return realtimeClock.getMinr();
+                    case REGISTER_SECR:
+                        return realtimeClock.getSecr();
 
-                case REGISTER_YEARR:
-                    return realtimeClock.getYearr();
-                case REGISTER_MONTHR:
-                    return realtimeClock.getMonthr();
-                case REGISTER_DATER:
-                    return realtimeClock.getDater();
-                case REGISTER_DAYR:
-                    return realtimeClock.getDayr();
+                    case REGISTER_YEARR:
+                        return realtimeClock.getYearr();
+                    case REGISTER_MONTHR:
+                        return realtimeClock.getMonthr();
+                    case REGISTER_DATER:
+                        return realtimeClock.getDater();
+                    case REGISTER_DAYR:
+                        return realtimeClock.getDayr();
 
-                case REGISTER_PAGER + 3:
-                    return (byte)realtimeClock.getPager();
+                    case REGISTER_PAGER + 3:
+                        return (byte)realtimeClock.getPager();
 
-                case REGISTER_RESTR + 3:
-                    return (byte)realtimeClock.getRestr();
+                    case REGISTER_RESTR + 3:
+                        return (byte)realtimeClock.getRestr();
 
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a RTC register");
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a RTC register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_KWUPST00 && addr < REGISTER_KWUPINT + 4) {
-            // Key registers
-            TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
-            int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
-            switch (addr) {
-                case REGISTER_PKEY:
-                case REGISTER_PKEY + 1:
-                case REGISTER_PKEY + 2:
-                case REGISTER_PKEY + 3:
-                    return (byte)(keyCircuit.getPKEY() >> ((3 - (addr & 0b11)) * 8));
-                case REGISTER_KWUPCNT + 3:
-                    return (byte)keyCircuit.getKWUPCNT();
-                case REGISTER_KWUPCLR + 3:
-                    return (byte)keyCircuit.getKWUPCLR();
-                case REGISTER_KWUPINT:
-                case REGISTER_KWUPINT + 1:
-                case REGISTER_KWUPINT + 2:
-                case REGISTER_KWUPINT + 3:
-                    return keyCircuit.getKWUPINTn(addr & 0b11);
-                default:
-                    if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT)) {
-                        return (byte)keyCircuit.keys[keyNumber].getKWUPST();
-                    }
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+            case BLOCK_KEY: {
+                // Key registers
+                TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
+                int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
+                switch (addr) {
+                    case REGISTER_PKEY:
+                    case REGISTER_PKEY + 1:
+                    case REGISTER_PKEY + 2:
+                    case REGISTER_PKEY + 3:
+                        return (byte)(keyCircuit.getPKEY() >> ((3 - (addr & 0b11)) * 8));
+                    case REGISTER_KWUPCNT + 3:
+                        return (byte)keyCircuit.getKWUPCNT();
+                    case REGISTER_KWUPCLR + 3:
+                        return (byte)keyCircuit.getKWUPCLR();
+                    case REGISTER_KWUPINT:
+                    case REGISTER_KWUPINT + 1:
+                    case REGISTER_KWUPINT + 2:
+                    case REGISTER_KWUPINT + 3:
+                        return keyCircuit.getKWUPINTn(addr & 0b11);
+                    default:
+                        if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT)) {
+                            return (byte)keyCircuit.keys[keyNumber].getKWUPST();
+                        }
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_ADACLK && addr < REGISTER_ADACLK + (NUM_AD_UNIT << AD_UNIT_OFFSET_SHIFT)) {
-            // AD unit configuration registers
-            int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
-            TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
-            int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
-            if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
-                int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
-                if (channelNumber < unit.getNumChannels()) {
-                    return (byte)unit.getReg(channelNumber);
+            case BLOCK_AD: {
+                // AD unit configuration registers
+                int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
+                TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
+                int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
+                if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
+                    int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
+                    if (channelNumber < unit.getNumChannels()) {
+                        return (byte)unit.getReg(channelNumber);
+                    }
+                    else {
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    }
                 }
                 else {
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    switch (shiftedAddress) {
+                        case REGISTER_ADACLK + 3:
+                            return (byte)unit.getClk();
+                        case REGISTER_ADAMOD0 + 3:
+                            return (byte)unit.getMod0();
+                        case REGISTER_ADAMOD1 + 3:
+                            return (byte)unit.getMod1();
+                        case REGISTER_ADAMOD2 + 3:
+                            return (byte)unit.getMod2();
+                        case REGISTER_ADAMOD3 + 3:
+                            return (byte)unit.getMod3();
+                        case REGISTER_ADAMOD4 + 3:
+                            return (byte)unit.getMod4();
+                        case REGISTER_ADAMOD5 + 3:
+                            return (byte)unit.getMod5();
+                        case REGISTER_ADAREGSP + 3:
+                            return (byte)(unit.getRegSp());
+                        case REGISTER_ADACOMREG0 + 3:
+                            return (byte)(unit.getComReg0());
+                        case REGISTER_ADACOMREG1 + 3:
+                            return (byte)(unit.getComReg1());
+                        default:
+                            stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    }
                 }
+                break;
             }
-            else {
-                switch (shiftedAddress) {
-                    case REGISTER_ADACLK + 3:
-                        return (byte)unit.getClk();
-                    case REGISTER_ADAMOD0 + 3:
-                        return (byte)unit.getMod0();
-                    case REGISTER_ADAMOD1 + 3:
-                        return (byte)unit.getMod1();
-                    case REGISTER_ADAMOD2 + 3:
-                        return (byte)unit.getMod2();
-                    case REGISTER_ADAMOD3 + 3:
-                        return (byte)unit.getMod3();
-                    case REGISTER_ADAMOD4 + 3:
-                        return (byte)unit.getMod4();
-                    case REGISTER_ADAMOD5 + 3:
-                        return (byte)unit.getMod5();
-                    case REGISTER_ADAREGSP + 3:
-                        return (byte)(unit.getRegSp());
-                    case REGISTER_ADACOMREG0 + 3:
-                        return (byte)(unit.getComReg0());
-                    case REGISTER_ADACOMREG1 + 3:
-                        return (byte)(unit.getComReg1());
-                    default:
-                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
-                }
+            case BLOCK_IMCG: {
+                // IMCG registers.
+                return (byte)(((TxInterruptController)platform.getInterruptController()).getImcg(addr-REGISTER_IMCGA));
             }
-        } else if (addr >= REGISTER_IMCGA && addr < (REGISTER_IMCG11+4)) {
-            // IMCG registers.
-            return (byte)(((TxInterruptController)platform.getInterruptController()).getImcg(addr-REGISTER_IMCGA));
-        }
-        else switch (addr) {
-            // Clock generator
-            case REGISTER_SYSCR:
-                return 0;
-            case REGISTER_SYSCR + 1:
-                return ((TxClockGenerator)platform.getClockGenerator()).getSyscr2();
-            case REGISTER_SYSCR + 2:
-                return ((TxClockGenerator)platform.getClockGenerator()).getSyscr1();
-            case REGISTER_SYSCR + 3:
-                return ((TxClockGenerator)platform.getClockGenerator()).getSyscr0();
-            case REGISTER_OSCCR:
-                return 0;
-            case REGISTER_OSCCR + 1:
-                return 0;
-            case REGISTER_OSCCR + 2:
-                return ((TxClockGenerator)platform.getClockGenerator()).getOsccr1();
-            case REGISTER_OSCCR + 3:
-                return ((TxClockGenerator)platform.getClockGenerator()).getOsccr0();
-            case REGISTER_PLLSEL + 3:
-                return (byte)((TxClockGenerator)platform.getClockGenerator()).getPllsel();
-            case REGISTER_NMIFLG + 3:
-                return (byte)((TxInterruptController)platform.getInterruptController()).readAndClearNmiFlag();
-            case REGISTER_RSTFLG + 3:
-                return (byte)((TxClockGenerator)platform.getClockGenerator()).getRstflg();
+            default:
+                switch (addr) {
+                    // Clock generator
+                    case REGISTER_SYSCR:
+                        return 0;
+                    case REGISTER_SYSCR + 1:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getSyscr2();
+                    case REGISTER_SYSCR + 2:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getSyscr1();
+                    case REGISTER_SYSCR + 3:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getSyscr0();
+                    case REGISTER_OSCCR:
+                        return 0;
+                    case REGISTER_OSCCR + 1:
+                        return 0;
+                    case REGISTER_OSCCR + 2:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getOsccr1();
+                    case REGISTER_OSCCR + 3:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getOsccr0();
+                    case REGISTER_PLLSEL + 3:
+                        return (byte)((TxClockGenerator)platform.getClockGenerator()).getPllsel();
+                    case REGISTER_NMIFLG + 3:
+                        return (byte)((TxInterruptController)platform.getInterruptController()).readAndClearNmiFlag();
+                    case REGISTER_RSTFLG + 3:
+                        return (byte)((TxClockGenerator)platform.getClockGenerator()).getRstflg();
 
-            case REGISTER_DREQFLG + 3:
-                return (byte)((TxInterruptController)platform.getInterruptController()).getDreqflg();
+                    case REGISTER_DREQFLG + 3:
+                        return (byte)((TxInterruptController)platform.getInterruptController()).getDreqflg();
 
-            // DMA controller
-            case REGISTER_DCR + 3:
-                return (byte)((TxDmaController)platform.getDmaController()).getDcr();
-            case REGISTER_RSR + 3:
-                return (byte)((TxDmaController)platform.getDmaController()).getRsr();
-            case REGISTER_DHR + 3:
-                return (byte)((TxDmaController)platform.getDmaController()).getDhr();
+                    // DMA controller
+                    case REGISTER_DCR + 3:
+                        return (byte)((TxDmaController)platform.getDmaController()).getDcr();
+                    case REGISTER_RSR + 3:
+                        return (byte)((TxDmaController)platform.getDmaController()).getRsr();
+                    case REGISTER_DHR + 3:
+                        return (byte)((TxDmaController)platform.getDmaController()).getDhr();
+                }
         }
 
         if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Load8 is not supported yet");
@@ -576,194 +621,205 @@ public class TxIoListener extends IoActivityListener {
      * @return value to be returned, or null to return previously written value like normal memory
      */
     public Integer onLoadData16(byte[] ioPage, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_IMC00 && addr < (REGISTER_IMC19+4)) {
-            // IMC registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_IMC: {
+                // IMC registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            return ((intc.getImc(addr-REGISTER_IMC00)<<8) | intc.getImc(addr-REGISTER_IMC00+1));
-        }
-        if (addr >= REGISTER_PORT0 && addr < REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT)) {
-            // Port configuration registers
-            stop("The I/O port registers cannot be accessed by 16-bit for now");
-        }
-        else if (addr >= REGISTER_TB0EN && addr < REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT)) {
-            // Timer configuration registers
-            int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
-            TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
-            switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
-                case REGISTER_TB0EN + 2:
-                    return txTimer.getTben() & 0xFFFF;
-                case REGISTER_TB0RUN + 2:
-                    return txTimer.getTbrun() & 0xFFFF;
-                case REGISTER_TB0CR + 2:
-                    return txTimer.getTbcr() & 0xFFFF;
-                case REGISTER_TB0MOD + 2:
-                    return txTimer.getTbmod() & 0xFFFF;
-                case REGISTER_TB0FFCR + 2:
-                    return txTimer.getTbffcr() & 0xFFFF;
-                case REGISTER_TB0ST + 2:
-                    return txTimer.getTbst() & 0xFFFF;
-                case REGISTER_TB0IM + 2:
-                    return txTimer.getTbim() & 0xFFFF;
-                case REGISTER_TB0UC + 2:
-                    return txTimer.getTbuc() & 0xFFFF;
-                case REGISTER_TB0RG0 + 2:
-                    return txTimer.getTbrg0() & 0xFFFF;
-                case REGISTER_TB0RG1 + 2:
-                    return txTimer.getTbrg1() & 0xFFFF;
-                case REGISTER_TB0CP0 + 2:
-                    return txTimer.getTbcp0() & 0xFFFF;
-                case REGISTER_TB0CP1 + 2:
-                    return txTimer.getTbcp1() & 0xFFFF;
-                default:
-                    // return upper halfs as 0 (datasheet)
-                    return 0;
+                return ((intc.getImc(addr-REGISTER_IMC00)<<8) | intc.getImc(addr-REGISTER_IMC00+1));
             }
-        }
-        else if (addr >= REGISTER_TCEN && addr < REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT )) {
-            // Capture Input configuration registers
-            TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
-            if (addr < REGISTER_CMPCTL0) {
-                switch (addr) {
-                    case REGISTER_TCEN + 2:
-                        return txInputCaptureTimer.getTcen() & 0xFFFF;
-                    case REGISTER_TBTRUN + 2:
-                        return txInputCaptureTimer.getTbtrun() & 0xFFFF;
-                    case REGISTER_TBTCR + 2:
-                        return txInputCaptureTimer.getTbtcr() & 0xFFFF;
-                    case REGISTER_TBTCAP + 2:
-                        return txInputCaptureTimer.getTbtcap() & 0xFFFF;
-                    case REGISTER_TBTRDCAP + 2:
-                        return txInputCaptureTimer.getCurrentValue() & 0xFFFF;
+            case BLOCK_PORT: {
+                // Port configuration registers
+                stop("The I/O port registers cannot be accessed by 16-bit for now");
+                break;
+            }
+            case BLOCK_TIMER: {
+                // Timer configuration registers
+                int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
+                TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
+                switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
+                    case REGISTER_TB0EN + 2:
+                        return txTimer.getTben() & 0xFFFF;
+                    case REGISTER_TB0RUN + 2:
+                        return txTimer.getTbrun() & 0xFFFF;
+                    case REGISTER_TB0CR + 2:
+                        return txTimer.getTbcr() & 0xFFFF;
+                    case REGISTER_TB0MOD + 2:
+                        return txTimer.getTbmod() & 0xFFFF;
+                    case REGISTER_TB0FFCR + 2:
+                        return txTimer.getTbffcr() & 0xFFFF;
+                    case REGISTER_TB0ST + 2:
+                        return txTimer.getTbst() & 0xFFFF;
+                    case REGISTER_TB0IM + 2:
+                        return txTimer.getTbim() & 0xFFFF;
+                    case REGISTER_TB0UC + 2:
+                        return txTimer.getTbuc() & 0xFFFF;
+                    case REGISTER_TB0RG0 + 2:
+                        return txTimer.getTbrg0() & 0xFFFF;
+                    case REGISTER_TB0RG1 + 2:
+                        return txTimer.getTbrg1() & 0xFFFF;
+                    case REGISTER_TB0CP0 + 2:
+                        return txTimer.getTbcp0() & 0xFFFF;
+                    case REGISTER_TB0CP1 + 2:
+                        return txTimer.getTbcp1() & 0xFFFF;
+                    default:
+                        // return upper halfs as 0 (datasheet)
+                        return 0;
                 }
             }
-            else if (addr < REGISTER_CAPCR0) {
-                int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
-                switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
-                    case REGISTER_CMPCTL0 + 2:
-                        return  txInputCaptureTimer.getCmpctl(compareChannel) & 0xFFFF;
-                    case REGISTER_TCCMP0 + 2:
-                        return  txInputCaptureTimer.getTccmp(compareChannel) & 0xFFFF;
+            case BLOCK_CAPTURE_TIMER: {
+                // Capture Input configuration registers
+                TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
+                if (addr < REGISTER_CMPCTL0) {
+                    switch (addr) {
+                        case REGISTER_TCEN + 2:
+                            return txInputCaptureTimer.getTcen() & 0xFFFF;
+                        case REGISTER_TBTRUN + 2:
+                            return txInputCaptureTimer.getTbtrun() & 0xFFFF;
+                        case REGISTER_TBTCR + 2:
+                            return txInputCaptureTimer.getTbtcr() & 0xFFFF;
+                        case REGISTER_TBTCAP + 2:
+                            return txInputCaptureTimer.getTbtcap() & 0xFFFF;
+                        case REGISTER_TBTRDCAP + 2:
+                            return txInputCaptureTimer.getCurrentValue() & 0xFFFF;
+                    }
                 }
+                else if (addr < REGISTER_CAPCR0) {
+                    int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
+                    switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
+                        case REGISTER_CMPCTL0 + 2:
+                            return  txInputCaptureTimer.getCmpctl(compareChannel) & 0xFFFF;
+                        case REGISTER_TCCMP0 + 2:
+                            return  txInputCaptureTimer.getTccmp(compareChannel) & 0xFFFF;
+                    }
 
+                }
+                else {
+                    int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
+                    switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
+                        case REGISTER_CAPCR0 + 2:
+                            return  txInputCaptureTimer.getCapcr(captureChannel) & 0xFFFF;
+                        case REGISTER_TCCAP0 + 2:
+                            return  txInputCaptureTimer.getTccap(captureChannel) & 0xFFFF;
+                    }
+                }
+                break;
+            }
+            case BLOCK_RTC: {
+                stop("The RTC registers cannot be accessed by 16-bit for now");
+                break;
+            }
+            case BLOCK_KEY: {
+                stop("The KEY registers cannot be accessed by 16-bit for now");
+                break;
             }
-            else {
-                int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
-                switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
-                    case REGISTER_CAPCR0 + 2:
-                        return  txInputCaptureTimer.getCapcr(captureChannel) & 0xFFFF;
-                    case REGISTER_TCCAP0 + 2:
-                        return  txInputCaptureTimer.getTccap(captureChannel) & 0xFFFF;
+            case BLOCK_SERIAL: {
+                // Serial Interface configuration registers
+                int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
+                switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_SC0EN + 2:
+                        return txSerialInterface.getEn() & 0xFFFF;
+                    case REGISTER_SC0BUF + 2:
+                        return txSerialInterface.getBuf() & 0xFFFF;
+                    case REGISTER_SC0CR + 2:
+                        return txSerialInterface.getCr() & 0xFFFF;
+                    case REGISTER_SC0MOD0 + 2:
+                        return txSerialInterface.getMod0() & 0xFFFF;
+                    case REGISTER_SC0MOD1 + 2:
+                        return txSerialInterface.getMod1() & 0xFFFF;
+                    case REGISTER_SC0MOD2 + 2:
+                        return txSerialInterface.getMod2() & 0xFFFF;
+                    case REGISTER_BR0CR + 2:
+                        return txSerialInterface.getBrcr() & 0xFFFF;
+                    case REGISTER_BR0ADD + 2:
+                        return txSerialInterface.getBradd() & 0xFFFF;
+                    case REGISTER_SC0RFC + 2:
+                        return txSerialInterface.getRfc() & 0xFFFF;
+                    case REGISTER_SC0TFC + 2:
+                        return txSerialInterface.getTfc() & 0xFFFF;
+                    case REGISTER_SC0RST + 2:
+                        return txSerialInterface.getRst() & 0xFFFF;
+                    case REGISTER_SC0TST + 2:
+                        return txSerialInterface.getTst() & 0xFFFF;
+                    case REGISTER_SC0FCNF + 2:
+                        return txSerialInterface.getFcnf() & 0xFFFF;
                 }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HOURR && addr < REGISTER_RESTR + 4) {
-            stop("The RTC registers cannot be accessed by 16-bit for now");
-        }
-        else if (addr >= REGISTER_KWUPST00 && addr < REGISTER_KWUPINT + 4) {
-            stop("The KEY registers cannot be accessed by 16-bit for now");
-        }
-        else if (addr >= REGISTER_SC0EN && addr < REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT)) {
-            // Serial Interface configuration registers
-            int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
-            switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
-                case REGISTER_SC0EN + 2:
-                    return txSerialInterface.getEn() & 0xFFFF;
-                case REGISTER_SC0BUF + 2:
-                    return txSerialInterface.getBuf() & 0xFFFF;
-                case REGISTER_SC0CR + 2:
-                    return txSerialInterface.getCr() & 0xFFFF;
-                case REGISTER_SC0MOD0 + 2:
-                    return txSerialInterface.getMod0() & 0xFFFF;
-                case REGISTER_SC0MOD1 + 2:
-                    return txSerialInterface.getMod1() & 0xFFFF;
-                case REGISTER_SC0MOD2 + 2:
-                    return txSerialInterface.getMod2() & 0xFFFF;
-                case REGISTER_BR0CR + 2:
-                    return txSerialInterface.getBrcr() & 0xFFFF;
-                case REGISTER_BR0ADD + 2:
-                    return txSerialInterface.getBradd() & 0xFFFF;
-                case REGISTER_SC0RFC + 2:
-                    return txSerialInterface.getRfc() & 0xFFFF;
-                case REGISTER_SC0TFC + 2:
-                    return txSerialInterface.getTfc() & 0xFFFF;
-                case REGISTER_SC0RST + 2:
-                    return txSerialInterface.getRst() & 0xFFFF;
-                case REGISTER_SC0TST + 2:
-                    return txSerialInterface.getTst() & 0xFFFF;
-                case REGISTER_SC0FCNF + 2:
-                    return txSerialInterface.getFcnf() & 0xFFFF;
+            case BLOCK_HSERIAL: {
+                // Hi-speed Serial Interface configuration registers
+                stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be read by 8 bits");
+                break;
             }
-        }
-        else if (addr >= REGISTER_HSC0BUF && addr < REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT)) {
-            // Hi-speed Serial Interface configuration registers
-            stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be read by 8 bits");
-        }
-        else if (addr >= REGISTER_ADACLK && addr < REGISTER_ADACLK + (NUM_AD_UNIT << AD_UNIT_OFFSET_SHIFT)) {
-            // AD unit configuration registers
-            int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
-            TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
-            int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
-            if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
-                int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
-                if (channelNumber < unit.getNumChannels()) {
-                    return unit.getReg(channelNumber) & 0xFFFF;
+            case BLOCK_AD: {
+                // AD unit configuration registers
+                int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
+                TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
+                int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
+                if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
+                    int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
+                    if (channelNumber < unit.getNumChannels()) {
+                        return unit.getReg(channelNumber) & 0xFFFF;
+                    }
+                    else {
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    }
                 }
                 else {
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
-                }
-            }
-            else {
-                switch (shiftedAddress) {
-                    case REGISTER_ADACLK + 2:
-                        return unit.getClk() & 0xFFFF;
-                    case REGISTER_ADAMOD0 + 2:
-                        return unit.getMod0() & 0xFFFF;
-                    case REGISTER_ADAMOD1 + 2:
-                        return unit.getMod1() & 0xFFFF;
-                    case REGISTER_ADAMOD2 + 2:
-                        return unit.getMod2() & 0xFFFF;
-                    case REGISTER_ADAMOD3 + 2:
-                        return unit.getMod3() & 0xFFFF;
-                    case REGISTER_ADAMOD4 + 2:
-                        return unit.getMod4() & 0xFFFF;
-                    case REGISTER_ADAMOD5 + 2:
-                        return unit.getMod5() & 0xFFFF;
-                    case REGISTER_ADAREGSP + 2:
-                        return (unit.getRegSp()) & 0xFFFF;
-                    case REGISTER_ADACOMREG0 + 2:
-                        return (unit.getComReg0()) & 0xFFFF;
-                    case REGISTER_ADACOMREG1 + 2:
-                        return (unit.getComReg1()) & 0xFFFF;
-                    default:
-                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    switch (shiftedAddress) {
+                        case REGISTER_ADACLK + 2:
+                            return unit.getClk() & 0xFFFF;
+                        case REGISTER_ADAMOD0 + 2:
+                            return unit.getMod0() & 0xFFFF;
+                        case REGISTER_ADAMOD1 + 2:
+                            return unit.getMod1() & 0xFFFF;
+                        case REGISTER_ADAMOD2 + 2:
+                            return unit.getMod2() & 0xFFFF;
+                        case REGISTER_ADAMOD3 + 2:
+                            return unit.getMod3() & 0xFFFF;
+                        case REGISTER_ADAMOD4 + 2:
+                            return unit.getMod4() & 0xFFFF;
+                        case REGISTER_ADAMOD5 + 2:
+                            return unit.getMod5() & 0xFFFF;
+                        case REGISTER_ADAREGSP + 2:
+                            return (unit.getRegSp()) & 0xFFFF;
+                        case REGISTER_ADACOMREG0 + 2:
+                            return (unit.getComReg0()) & 0xFFFF;
+                        case REGISTER_ADACOMREG1 + 2:
+                            return (unit.getComReg1()) & 0xFFFF;
+                        default:
+                            stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    }
                 }
+                break;
             }
-        } else if (addr >= REGISTER_IMCGA && addr < (REGISTER_IMCG11+4)) {
-            // IMCG registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+            case BLOCK_IMCG: {
+                // IMCG registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            return ((intc.getImcg(addr-REGISTER_IMCGA)<<8) | intc.getImcg(addr-REGISTER_IMCGA+1));
-        }
-        else switch (addr){
-            // Clock generator
-            case REGISTER_SYSCR:
-                stop("The SYSCR register can not be accessed by 16-bit for now");
-            case REGISTER_SYSCR + 2:
-                stop("The SYSCR register can not be accessed by 16-bit for now");
-            case REGISTER_OSCCR:
-                stop("The OSCCR register can not be accessed by 16-bit for now");
-            case REGISTER_OSCCR + 2:
-                stop("The OSCCR register can not be accessed by 16-bit for now");
-            case REGISTER_PLLSEL + 2:
-                return ((TxClockGenerator)platform.getClockGenerator()).getPllsel() & 0xFFFF;
-            case REGISTER_NMIFLG + 2:
-                return ((TxInterruptController)platform.getInterruptController()).readAndClearNmiFlag() & 0xFFFF;
-            case REGISTER_RSTFLG + 2:
-                return ((TxClockGenerator)platform.getClockGenerator()).getRstflg() & 0xFFFF;
-            case REGISTER_DREQFLG + 2:
-                return ((TxInterruptController)platform.getInterruptController()).getDreqflg() & 0xFFFF;
+                return ((intc.getImcg(addr-REGISTER_IMCGA)<<8) | intc.getImcg(addr-REGISTER_IMCGA+1));
+            }
+            default:
+                switch (addr) {
+                    // Clock generator
+                    case REGISTER_SYSCR:
+                        stop("The SYSCR register can not be accessed by 16-bit for now");
+                    case REGISTER_SYSCR + 2:
+                        stop("The SYSCR register can not be accessed by 16-bit for now");
+                    case REGISTER_OSCCR:
+                        stop("The OSCCR register can not be accessed by 16-bit for now");
+                    case REGISTER_OSCCR + 2:
+                        stop("The OSCCR register can not be accessed by 16-bit for now");
+                    case REGISTER_PLLSEL + 2:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getPllsel() & 0xFFFF;
+                    case REGISTER_NMIFLG + 2:
+                        return ((TxInterruptController)platform.getInterruptController()).readAndClearNmiFlag() & 0xFFFF;
+                    case REGISTER_RSTFLG + 2:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getRstflg() & 0xFFFF;
+                    case REGISTER_DREQFLG + 2:
+                        return ((TxInterruptController)platform.getInterruptController()).getDreqflg() & 0xFFFF;
+                }
         }
 
         if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Load16 is not supported yet");
@@ -782,275 +838,288 @@ public class TxIoListener extends IoActivityListener {
      * @return value to be returned, or null to return previously written value like normal memory
      */
     public Integer onLoadData32(byte[] ioPage, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_IMC00 && addr < (REGISTER_IMC19+4)) {
-            // IMC registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_IMC: {
+                // IMC registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            return ((intc.getImc(addr-REGISTER_IMC00)<<24) |
-                    (intc.getImc(addr-REGISTER_IMC00+1)<<16) |
-                    (intc.getImc(addr-REGISTER_IMC00+2)<<8) |
-                     intc.getImc(addr-REGISTER_IMC00+3));
-        }
-        else if (addr >= REGISTER_PORT0 && addr < REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT)) {
-            // Port configuration registers
-            int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
-            TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
-            switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
-                case REGISTER_PORT0:
-                    return (int) txIoPort.getValue();
-                case REGISTER_PORT0CR:
-                    return (int) txIoPort.getControlRegister();
-                case REGISTER_PORT0FC1:
-                    return (int) txIoPort.getFunctionRegister1();
-                case REGISTER_PORT0FC2:
-                    return (int) txIoPort.getFunctionRegister2();
-                case REGISTER_PORT0FC3:
-                    return (int) txIoPort.getFunctionRegister3();
-                case REGISTER_PORT0ODE:
-                    return (int) txIoPort.getOpenDrainControlRegister();
-                case REGISTER_PORT0PUP:
-                    return (int) txIoPort.getPullUp();
-                case REGISTER_PORT0PIE:
-                    return (int) txIoPort.getInputEnableControlRegister();
+                return ((intc.getImc(addr-REGISTER_IMC00)<<24) |
+                        (intc.getImc(addr-REGISTER_IMC00+1)<<16) |
+                        (intc.getImc(addr-REGISTER_IMC00+2)<<8) |
+                         intc.getImc(addr-REGISTER_IMC00+3));
             }
-        }
-        else if (addr >= REGISTER_TB0EN && addr < REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT)) {
-            // Timer configuration registers
-            int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
-            TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
-            switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
-                case REGISTER_TB0EN:
-                    return txTimer.getTben();
-                case REGISTER_TB0RUN:
-                    return txTimer.getTbrun();
-                case REGISTER_TB0CR:
-                    return txTimer.getTbcr();
-                case REGISTER_TB0MOD:
-                    return txTimer.getTbmod();
-                case REGISTER_TB0FFCR:
-                    return txTimer.getTbffcr();
-                case REGISTER_TB0ST:
-                    return txTimer.getTbst();
-                case REGISTER_TB0IM:
-                    return txTimer.getTbim();
-                case REGISTER_TB0UC:
-                    return txTimer.getTbuc();
-                case REGISTER_TB0RG0:
-                    return txTimer.getTbrg0();
-                case REGISTER_TB0RG1:
-                    return txTimer.getTbrg1();
-                case REGISTER_TB0CP0:
-                    return txTimer.getTbcp0();
-                case REGISTER_TB0CP1:
-                    return txTimer.getTbcp1();
+            case BLOCK_PORT: {
+                // Port configuration registers
+                int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
+                TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
+                switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
+                    case REGISTER_PORT0:
+                        return (int) txIoPort.getValue();
+                    case REGISTER_PORT0CR:
+                        return (int) txIoPort.getControlRegister();
+                    case REGISTER_PORT0FC1:
+                        return (int) txIoPort.getFunctionRegister1();
+                    case REGISTER_PORT0FC2:
+                        return (int) txIoPort.getFunctionRegister2();
+                    case REGISTER_PORT0FC3:
+                        return (int) txIoPort.getFunctionRegister3();
+                    case REGISTER_PORT0ODE:
+                        return (int) txIoPort.getOpenDrainControlRegister();
+                    case REGISTER_PORT0PUP:
+                        return (int) txIoPort.getPullUp();
+                    case REGISTER_PORT0PIE:
+                        return (int) txIoPort.getInputEnableControlRegister();
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_TCEN && addr < REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT )) {
-            // Capture Input configuration registers
-            TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
-            if (addr < REGISTER_CMPCTL0) {
-                switch (addr) {
-                    case REGISTER_TCEN:
-                        return txInputCaptureTimer.getTcen();
-                    case REGISTER_TBTRUN:
-                        return txInputCaptureTimer.getTbtrun();
-                    case REGISTER_TBTCR:
-                        return txInputCaptureTimer.getTbtcr();
-                    case REGISTER_TBTCAP:
-                        return txInputCaptureTimer.getTbtcap();
-                    case REGISTER_TBTRDCAP:
-                        return txInputCaptureTimer.getCurrentValue();
+            case BLOCK_TIMER: {
+                // Timer configuration registers
+                int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
+                TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
+                switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
+                    case REGISTER_TB0EN:
+                        return txTimer.getTben();
+                    case REGISTER_TB0RUN:
+                        return txTimer.getTbrun();
+                    case REGISTER_TB0CR:
+                        return txTimer.getTbcr();
+                    case REGISTER_TB0MOD:
+                        return txTimer.getTbmod();
+                    case REGISTER_TB0FFCR:
+                        return txTimer.getTbffcr();
+                    case REGISTER_TB0ST:
+                        return txTimer.getTbst();
+                    case REGISTER_TB0IM:
+                        return txTimer.getTbim();
+                    case REGISTER_TB0UC:
+                        return txTimer.getTbuc();
+                    case REGISTER_TB0RG0:
+                        return txTimer.getTbrg0();
+                    case REGISTER_TB0RG1:
+                        return txTimer.getTbrg1();
+                    case REGISTER_TB0CP0:
+                        return txTimer.getTbcp0();
+                    case REGISTER_TB0CP1:
+                        return txTimer.getTbcp1();
                 }
+                break;
             }
-            else if (addr < REGISTER_CAPCR0) {
-                int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
-                switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
-                    case REGISTER_CMPCTL0:
-                        return  txInputCaptureTimer.getCmpctl(compareChannel);
-                    case REGISTER_TCCMP0:
-                        return  txInputCaptureTimer.getTccmp(compareChannel);
+            case BLOCK_CAPTURE_TIMER: {
+                // Capture Input configuration registers
+                TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
+                if (addr < REGISTER_CMPCTL0) {
+                    switch (addr) {
+                        case REGISTER_TCEN:
+                            return txInputCaptureTimer.getTcen();
+                        case REGISTER_TBTRUN:
+                            return txInputCaptureTimer.getTbtrun();
+                        case REGISTER_TBTCR:
+                            return txInputCaptureTimer.getTbtcr();
+                        case REGISTER_TBTCAP:
+                            return txInputCaptureTimer.getTbtcap();
+                        case REGISTER_TBTRDCAP:
+                            return txInputCaptureTimer.getCurrentValue();
+                    }
                 }
+                else if (addr < REGISTER_CAPCR0) {
+                    int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
+                    switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
+                        case REGISTER_CMPCTL0:
+                            return  txInputCaptureTimer.getCmpctl(compareChannel);
+                        case REGISTER_TCCMP0:
+                            return  txInputCaptureTimer.getTccmp(compareChannel);
+                    }
 
+                }
+                else {
+                    int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
+                    switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
+                        case REGISTER_CAPCR0:
+                            return  txInputCaptureTimer.getCapcr(captureChannel);
+                        case REGISTER_TCCAP0:
+                            return  txInputCaptureTimer.getTccap(captureChannel);
+                    }
+                }
+                break;
             }
-            else {
-                int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
-                switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
-                    case REGISTER_CAPCR0:
-                        return  txInputCaptureTimer.getCapcr(captureChannel);
-                    case REGISTER_TCCAP0:
-                        return  txInputCaptureTimer.getTccap(captureChannel);
+            case BLOCK_SERIAL: {
+                // Serial Interface configuration registers
+                int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
+                switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_SC0EN:
+                        return txSerialInterface.getEn();
+                    case REGISTER_SC0BUF:
+                        return txSerialInterface.getBuf();
+                    case REGISTER_SC0CR:
+                        return txSerialInterface.getCr();
+                    case REGISTER_SC0MOD0:
+                        return txSerialInterface.getMod0();
+                    case REGISTER_SC0MOD1:
+                        return txSerialInterface.getMod1();
+                    case REGISTER_SC0MOD2:
+                        return txSerialInterface.getMod2();
+                    case REGISTER_BR0CR:
+                        return txSerialInterface.getBrcr();
+                    case REGISTER_BR0ADD:
+                        return txSerialInterface.getBradd();
+                    case REGISTER_SC0RFC:
+                        return txSerialInterface.getRfc();
+                    case REGISTER_SC0TFC:
+                        return txSerialInterface.getTfc();
+                    case REGISTER_SC0RST:
+                        return txSerialInterface.getRst();
+                    case REGISTER_SC0TST:
+                        return txSerialInterface.getTst();
+                    case REGISTER_SC0FCNF:
+                        return txSerialInterface.getFcnf();
                 }
+                break;
             }
-        }
-        else if (addr >= REGISTER_SC0EN && addr < REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT)) {
-            // Serial Interface configuration registers
-            int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
-            switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
-                case REGISTER_SC0EN:
-                    return txSerialInterface.getEn();
-                case REGISTER_SC0BUF:
-                    return txSerialInterface.getBuf();
-                case REGISTER_SC0CR:
-                    return txSerialInterface.getCr();
-                case REGISTER_SC0MOD0:
-                    return txSerialInterface.getMod0();
-                case REGISTER_SC0MOD1:
-                    return txSerialInterface.getMod1();
-                case REGISTER_SC0MOD2:
-                    return txSerialInterface.getMod2();
-                case REGISTER_BR0CR:
-                    return txSerialInterface.getBrcr();
-                case REGISTER_BR0ADD:
-                    return txSerialInterface.getBradd();
-                case REGISTER_SC0RFC:
-                    return txSerialInterface.getRfc();
-                case REGISTER_SC0TFC:
-                    return txSerialInterface.getTfc();
-                case REGISTER_SC0RST:
-                    return txSerialInterface.getRst();
-                case REGISTER_SC0TST:
-                    return txSerialInterface.getTst();
-                case REGISTER_SC0FCNF:
-                    return txSerialInterface.getFcnf();
+            case BLOCK_HSERIAL: {
+                // Hi-speed Serial Interface configuration registers
+                stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be read by 8 bits");
+                break;
             }
-        }
-        else if (addr >= REGISTER_HSC0BUF && addr < REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT)) {
-            // Hi-speed Serial Interface configuration registers
-            stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be read by 8 bits");
-        }
-        else if (addr >= REGISTER_CCR0 && addr < REGISTER_CCR0 + (NUM_DMA_CHANNEL << DMA_CHANNEL_OFFSET_SHIFT)) {
-            // DMA channel configuration registers
-            int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
-            TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
-            switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
-                case REGISTER_CCR0:
-                    return channel.getCcr();
-                case REGISTER_CSR0:
-                    return channel.getCsr();
-                case REGISTER_SAR0:
-                    return channel.getSar();
-                case REGISTER_DAR0:
-                    return channel.getDar();
-                case REGISTER_BCR0:
-                    return channel.getBcr();
-                case REGISTER_DTCR0:
-                    return channel.getDtcr();
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+            case BLOCK_DMA: {
+                // DMA channel configuration registers
+                int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
+                TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
+                switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
+                    case REGISTER_CCR0:
+                        return channel.getCcr();
+                    case REGISTER_CSR0:
+                        return channel.getCsr();
+                    case REGISTER_SAR0:
+                        return channel.getSar();
+                    case REGISTER_DAR0:
+                        return channel.getDar();
+                    case REGISTER_BCR0:
+                        return channel.getBcr();
+                    case REGISTER_DTCR0:
+                        return channel.getDtcr();
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HOURR && addr < REGISTER_RESTR + 4) {
-            // RTC registers
-            TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
-            switch (addr) {
-                case REGISTER_HOURR:
-                    return realtimeClock.getTimeReg32();
-                case REGISTER_YEARR:
-                    return realtimeClock.getDateReg32();
-                case REGISTER_PAGER:
-                    return realtimeClock.getPager();
-                case REGISTER_RESTR:
-                    return realtimeClock.getRestr();
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a RTC register");
+            case BLOCK_RTC: {
+                // RTC registers
+                TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
+                switch (addr) {
+                    case REGISTER_HOURR:
+                        return realtimeClock.getTimeReg32();
+                    case REGISTER_YEARR:
+                        return realtimeClock.getDateReg32();
+                    case REGISTER_PAGER:
+                        return realtimeClock.getPager();
+                    case REGISTER_RESTR:
+                        return realtimeClock.getRestr();
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a RTC register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_KWUPST00 && addr < REGISTER_KWUPINT + 4) {
-            // Key registers
-            TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
-            int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
-            switch (addr) {
-                case REGISTER_PKEY:
-                    return keyCircuit.getPKEY();
-                case REGISTER_KWUPCNT:
-                    return keyCircuit.getKWUPCNT();
-                case REGISTER_KWUPCLR:
-                    return keyCircuit.getKWUPCLR();
-                case REGISTER_KWUPINT:
-                    return keyCircuit.getKWUPINT();
-                default:
-                    if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT))
-                        return keyCircuit.keys[keyNumber].getKWUPST();
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+            case BLOCK_KEY: {
+                // Key registers
+                TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
+                int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
+                switch (addr) {
+                    case REGISTER_PKEY:
+                        return keyCircuit.getPKEY();
+                    case REGISTER_KWUPCNT:
+                        return keyCircuit.getKWUPCNT();
+                    case REGISTER_KWUPCLR:
+                        return keyCircuit.getKWUPCLR();
+                    case REGISTER_KWUPINT:
+                        return keyCircuit.getKWUPINT();
+                    default:
+                        if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT))
+                            return keyCircuit.keys[keyNumber].getKWUPST();
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_ADACLK && addr < REGISTER_ADACLK + (NUM_AD_UNIT << AD_UNIT_OFFSET_SHIFT)) {
-            // AD unit configuration registers
-            int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
-            TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
-            int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
-            if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
-                int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
-                if (channelNumber < unit.getNumChannels()) {
-                    return unit.getReg(channelNumber);
+            case BLOCK_AD: {
+                // AD unit configuration registers
+                int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
+                TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
+                int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
+                if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
+                    int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
+                    if (channelNumber < unit.getNumChannels()) {
+                        return unit.getReg(channelNumber);
+                    }
+                    else {
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    }
                 }
                 else {
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
-                }
-            }
-            else {
-                switch (shiftedAddress) {
-                    case REGISTER_ADACLK:
-                        return unit.getClk();
-                    case REGISTER_ADAMOD0:
-                        return unit.getMod0();
-                    case REGISTER_ADAMOD1:
-                        return unit.getMod1();
-                    case REGISTER_ADAMOD2:
-                        return unit.getMod2();
-                    case REGISTER_ADAMOD3:
-                        return unit.getMod3();
-                    case REGISTER_ADAMOD4:
-                        return unit.getMod4();
-                    case REGISTER_ADAMOD5:
-                        return unit.getMod5();
-                    case REGISTER_ADAREGSP:
-                        return (unit.getRegSp());
-                    case REGISTER_ADACOMREG0:
-                        return (unit.getComReg0());
-                    case REGISTER_ADACOMREG1:
-                        return (unit.getComReg1());
-                    default:
-                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    switch (shiftedAddress) {
+                        case REGISTER_ADACLK:
+                            return unit.getClk();
+                        case REGISTER_ADAMOD0:
+                            return unit.getMod0();
+                        case REGISTER_ADAMOD1:
+                            return unit.getMod1();
+                        case REGISTER_ADAMOD2:
+                            return unit.getMod2();
+                        case REGISTER_ADAMOD3:
+                            return unit.getMod3();
+                        case REGISTER_ADAMOD4:
+                            return unit.getMod4();
+                        case REGISTER_ADAMOD5:
+                            return unit.getMod5();
+                        case REGISTER_ADAREGSP:
+                            return (unit.getRegSp());
+                        case REGISTER_ADACOMREG0:
+                            return (unit.getComReg0());
+                        case REGISTER_ADACOMREG1:
+                            return (unit.getComReg1());
+                        default:
+                            stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    }
                 }
+                break;
             }
-        } else if (addr >= REGISTER_IMCGA && addr < (REGISTER_IMCG11+4)) {
-            // IMCG registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+            case BLOCK_IMCG: {
+                // IMCG registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            return ((intc.getImcg(addr-REGISTER_IMCGA)<<24) |
-                    (intc.getImcg(addr-REGISTER_IMCGA+1)<<16) |
-                    (intc.getImcg(addr-REGISTER_IMCGA+2)<<8) |
-                     intc.getImcg(addr-REGISTER_IMCGA+3));
-        }
-        switch (addr) {
-            // Clock generator
-            case REGISTER_SYSCR:
-                return ((TxClockGenerator) platform.getClockGenerator()).getSyscr();
-            case REGISTER_OSCCR:
-                return ((TxClockGenerator) platform.getClockGenerator()).getOsccr();
-            case REGISTER_PLLSEL:
-                return ((TxClockGenerator)platform.getClockGenerator()).getPllsel();
-            // Interrupt Controller
-            case REGISTER_ILEV:
-                return ((TxInterruptController)platform.getInterruptController()).getIlev();
-            case REGISTER_IVR:
-                // TODO Until the IVR is read, no hardware interrupt from INTC is accepted (see HW spec section 6.4.1.4)
-                return ((TxInterruptController)platform.getInterruptController()).getIvr();
-            case REGISTER_NMIFLG:
-                return ((TxInterruptController)platform.getInterruptController()).readAndClearNmiFlag();
-            case REGISTER_RSTFLG:
-                return ((TxClockGenerator)platform.getClockGenerator()).getRstflg();
-            case REGISTER_DREQFLG:
-                return ((TxInterruptController)platform.getInterruptController()).getDreqflg();
-            // DMA controller
-            case REGISTER_DCR:
-                return ((TxDmaController)platform.getDmaController()).getDcr();
-            case REGISTER_RSR:
-                return ((TxDmaController)platform.getDmaController()).getRsr();
-            case REGISTER_DHR:
-                return ((TxDmaController)platform.getDmaController()).getDhr();
+                return ((intc.getImcg(addr-REGISTER_IMCGA)<<24) |
+                        (intc.getImcg(addr-REGISTER_IMCGA+1)<<16) |
+                        (intc.getImcg(addr-REGISTER_IMCGA+2)<<8) |
+                         intc.getImcg(addr-REGISTER_IMCGA+3));
+            }
+            default:
+                switch (addr) {
+                    // Clock generator
+                    case REGISTER_SYSCR:
+                        return ((TxClockGenerator) platform.getClockGenerator()).getSyscr();
+                    case REGISTER_OSCCR:
+                        return ((TxClockGenerator) platform.getClockGenerator()).getOsccr();
+                    case REGISTER_PLLSEL:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getPllsel();
+                    // Interrupt Controller
+                    case REGISTER_ILEV:
+                        return ((TxInterruptController)platform.getInterruptController()).getIlev();
+                    case REGISTER_IVR:
+                        // TODO Until the IVR is read, no hardware interrupt from INTC is accepted (see HW spec section 6.4.1.4)
+                        return ((TxInterruptController)platform.getInterruptController()).getIvr();
+                    case REGISTER_NMIFLG:
+                        return ((TxInterruptController)platform.getInterruptController()).readAndClearNmiFlag();
+                    case REGISTER_RSTFLG:
+                        return ((TxClockGenerator)platform.getClockGenerator()).getRstflg();
+                    case REGISTER_DREQFLG:
+                        return ((TxInterruptController)platform.getInterruptController()).getDreqflg();
+                    // DMA controller
+                    case REGISTER_DCR:
+                        return ((TxDmaController)platform.getDmaController()).getDcr();
+                    case REGISTER_RSR:
+                        return ((TxDmaController)platform.getDmaController()).getRsr();
+                    case REGISTER_DHR:
+                        return ((TxDmaController)platform.getDmaController()).getDhr();
+                }
         }
 
         if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Load32 is not supported yet");
@@ -1059,763 +1128,799 @@ public class TxIoListener extends IoActivityListener {
     }
 
     public void onStore8(byte[] ioPage, int addr, byte value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_IMC00 && addr < (REGISTER_IMC19+4)) {
-            // IMC registers.
-            ((TxInterruptController)platform.getInterruptController()).setImc(addr-REGISTER_IMC00,value);
-            return;
-        }
-        if (addr >= REGISTER_PORT0 && addr < REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT)) {
-            // Port configuration registers
-            int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
-            TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
-            switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
-                case REGISTER_PORT0 + 3:
-                    txIoPort.setValue(value); break;
-                case REGISTER_PORT0CR + 3:
-                    txIoPort.setControlRegister(value); break;
-                case REGISTER_PORT0FC1 + 3:
-                    txIoPort.setFunctionRegister1(value); break;
-                case REGISTER_PORT0FC2 + 3:
-                    txIoPort.setFunctionRegister2(value); break;
-                case REGISTER_PORT0FC3 + 3:
-                    txIoPort.setFunctionRegister3(value); break;
-                case REGISTER_PORT0ODE + 3:
-                    txIoPort.setOpenDrainControlRegister(value); break;
-                case REGISTER_PORT0PUP + 3:
-                    txIoPort.setPullUp(value); break;
-                case REGISTER_PORT0PIE + 3:
-                    txIoPort.setInputEnableControlRegister(value); break;
-            }
-        }
-        else if (addr >= REGISTER_TB0EN && addr < REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT)) {
-            // Timer configuration registers
-            int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
-            TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
-            switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
-                case REGISTER_TB0EN + 3:
-                    txTimer.setTben(value); break;
-                case REGISTER_TB0RUN + 3:
-                    txTimer.setTbrun(value); break;
-                case REGISTER_TB0CR + 3:
-                    txTimer.setTbcr(value); break;
-                case REGISTER_TB0MOD + 3:
-                    txTimer.setTbmod(value); break;
-                case REGISTER_TB0FFCR + 3:
-                    txTimer.setTbffcr(value); break;
-                case REGISTER_TB0ST + 3:
-                    txTimer.setTbst(value); break;
-                case REGISTER_TB0IM + 3:
-                    txTimer.setTbim(value); break;
-                case REGISTER_TB0UC + 3:
-                    stop("The TBnUC register cannot be accessed by 8-bit");
-                case REGISTER_TB0RG0 + 2:
-                case REGISTER_TB0RG0 + 3:
-                    /* TODO To write data to the TB0RG0H/L and TB0RG1H/L timer registers, either a 2-byte data transfer
-                     * TODO instruction or a 1-byte data transfer instruction written twice in the order of low-order
-                     * TODO 8 bits followed by high-order 8 bits can be used.
-                     */
-                    stop("The TBnRG0 register cannot be accessed by 8-bit for now");
-                case REGISTER_TB0RG1 + 2:
-                case REGISTER_TB0RG1 + 3:
-                    stop("The TBnRG1 register cannot be accessed by 8-bit for now");
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_IMC: {
+                // IMC registers.
+                ((TxInterruptController)platform.getInterruptController()).setImc(addr-REGISTER_IMC00,value);
+                return;
             }
-        }
-        else if (addr >= REGISTER_TCEN && addr < REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT )) {
-            // Capture Input configuration registers
-            TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
-            if (addr < REGISTER_CMPCTL0) {
-                switch (addr) {
-                    case REGISTER_TCEN + 3:
-                        txInputCaptureTimer.setTcen(value); break;
-                    case REGISTER_TBTRUN + 3:
-                        txInputCaptureTimer.setTbtrun(value); break;
-                    case REGISTER_TBTCR + 3:
-                        txInputCaptureTimer.setTbtcr(value); break;
-                    case REGISTER_TBTCAP + 3:
-                        txInputCaptureTimer.setTbtcap(value); break;
-                    case REGISTER_TBTRDCAP + 3:
-                        txInputCaptureTimer.setCurrentValue(value);
-                        break;
+            case BLOCK_PORT: {
+                // Port configuration registers
+                int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
+                TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
+                switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
+                    case REGISTER_PORT0 + 3:
+                        txIoPort.setValue(value); break;
+                    case REGISTER_PORT0CR + 3:
+                        txIoPort.setControlRegister(value); break;
+                    case REGISTER_PORT0FC1 + 3:
+                        txIoPort.setFunctionRegister1(value); break;
+                    case REGISTER_PORT0FC2 + 3:
+                        txIoPort.setFunctionRegister2(value); break;
+                    case REGISTER_PORT0FC3 + 3:
+                        txIoPort.setFunctionRegister3(value); break;
+                    case REGISTER_PORT0ODE + 3:
+                        txIoPort.setOpenDrainControlRegister(value); break;
+                    case REGISTER_PORT0PUP + 3:
+                        txIoPort.setPullUp(value); break;
+                    case REGISTER_PORT0PIE + 3:
+                        txIoPort.setInputEnableControlRegister(value); break;
                 }
+                break;
             }
-            else if (addr < REGISTER_CAPCR0) {
-                int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
-                switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
-                    case REGISTER_CMPCTL0 + 3:
-                        txInputCaptureTimer.setCmpctl(compareChannel, value); break;
-                    case REGISTER_TCCMP0 + 3:
-                        txInputCaptureTimer.setTccmp(compareChannel, value); break;
+            case BLOCK_TIMER: {
+                // Timer configuration registers
+                int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
+                TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
+                switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
+                    case REGISTER_TB0EN + 3:
+                        txTimer.setTben(value); break;
+                    case REGISTER_TB0RUN + 3:
+                        txTimer.setTbrun(value); break;
+                    case REGISTER_TB0CR + 3:
+                        txTimer.setTbcr(value); break;
+                    case REGISTER_TB0MOD + 3:
+                        txTimer.setTbmod(value); break;
+                    case REGISTER_TB0FFCR + 3:
+                        txTimer.setTbffcr(value); break;
+                    case REGISTER_TB0ST + 3:
+                        txTimer.setTbst(value); break;
+                    case REGISTER_TB0IM + 3:
+                        txTimer.setTbim(value); break;
+                    case REGISTER_TB0UC + 3:
+                        stop("The TBnUC register cannot be accessed by 8-bit");
+                    case REGISTER_TB0RG0 + 2:
+                    case REGISTER_TB0RG0 + 3:
+                        /* TODO To write data to the TB0RG0H/L and TB0RG1H/L timer registers, either a 2-byte data transfer
+                         * TODO instruction or a 1-byte data transfer instruction written twice in the order of low-order
+                         * TODO 8 bits followed by high-order 8 bits can be used.
+                         */
+                        stop("The TBnRG0 register cannot be accessed by 8-bit for now");
+                    case REGISTER_TB0RG1 + 2:
+                    case REGISTER_TB0RG1 + 3:
+                        stop("The TBnRG1 register cannot be accessed by 8-bit for now");
                 }
+                break;
             }
-            else {
-                int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
-                switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
-                    case REGISTER_CAPCR0 + 3:
-                        txInputCaptureTimer.setCapcr(captureChannel, value); break;
-                    case REGISTER_TCCAP0 + 3:
-                        stop("Cannot write to TCCAP register of channel " + captureChannel);
+            case BLOCK_CAPTURE_TIMER: {
+                // Capture Input configuration registers
+                TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
+                if (addr < REGISTER_CMPCTL0) {
+                    switch (addr) {
+                        case REGISTER_TCEN + 3:
+                            txInputCaptureTimer.setTcen(value); break;
+                        case REGISTER_TBTRUN + 3:
+                            txInputCaptureTimer.setTbtrun(value); break;
+                        case REGISTER_TBTCR + 3:
+                            txInputCaptureTimer.setTbtcr(value); break;
+                        case REGISTER_TBTCAP + 3:
+                            txInputCaptureTimer.setTbtcap(value); break;
+                        case REGISTER_TBTRDCAP + 3:
+                            txInputCaptureTimer.setCurrentValue(value);
+                            break;
+                    }
+                }
+                else if (addr < REGISTER_CAPCR0) {
+                    int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
+                    switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
+                        case REGISTER_CMPCTL0 + 3:
+                            txInputCaptureTimer.setCmpctl(compareChannel, value); break;
+                        case REGISTER_TCCMP0 + 3:
+                            txInputCaptureTimer.setTccmp(compareChannel, value); break;
+                    }
                 }
+                else {
+                    int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
+                    switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
+                        case REGISTER_CAPCR0 + 3:
+                            txInputCaptureTimer.setCapcr(captureChannel, value); break;
+                        case REGISTER_TCCAP0 + 3:
+                            stop("Cannot write to TCCAP register of channel " + captureChannel);
+                    }
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_SC0EN && addr < REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT)) {
-            // Serial Interface configuration registers
-            int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
-            if (DEBUG_SERIAL) System.err.println("Serial #" + serialInterfaceNr  + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + StringUtils.right(Format.asHex(value, 2),2));
-            switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
-                case REGISTER_SC0EN + 3:
-                    txSerialInterface.setEn(value); break;
-                case REGISTER_SC0BUF + 3:
-                    txSerialInterface.setBuf(value); break;
-                case REGISTER_SC0CR + 3:
-                    txSerialInterface.setCr(value); break;
-                case REGISTER_SC0MOD0 + 3:
-                    txSerialInterface.setMod0(value); break;
-                case REGISTER_SC0MOD1 + 3:
-                    txSerialInterface.setMod1(value); break;
-                case REGISTER_SC0MOD2 + 3:
-                    txSerialInterface.setMod2(value); break;
-                case REGISTER_BR0CR + 3:
-                    txSerialInterface.setBrcr(value); break;
-                case REGISTER_BR0ADD + 3:
-                    txSerialInterface.setBradd(value); break;
-                case REGISTER_SC0RFC + 3:
-                    txSerialInterface.setRfc(value); break;
-                case REGISTER_SC0TFC + 3:
-                    txSerialInterface.setTfc(value); break;
-                case REGISTER_SC0RST + 3:
-                    txSerialInterface.setRst(value); break;
-                case REGISTER_SC0TST + 3:
-                    txSerialInterface.setTst(value); break;
-                case REGISTER_SC0FCNF + 3:
-                    txSerialInterface.setFcnf(value); break;
+            case BLOCK_SERIAL: {
+                // Serial Interface configuration registers
+                int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
+                if (DEBUG_SERIAL) System.err.println("Serial #" + serialInterfaceNr  + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + StringUtils.right(Format.asHex(value, 2),2));
+                switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_SC0EN + 3:
+                        txSerialInterface.setEn(value); break;
+                    case REGISTER_SC0BUF + 3:
+                        txSerialInterface.setBuf(value); break;
+                    case REGISTER_SC0CR + 3:
+                        txSerialInterface.setCr(value); break;
+                    case REGISTER_SC0MOD0 + 3:
+                        txSerialInterface.setMod0(value); break;
+                    case REGISTER_SC0MOD1 + 3:
+                        txSerialInterface.setMod1(value); break;
+                    case REGISTER_SC0MOD2 + 3:
+                        txSerialInterface.setMod2(value); break;
+                    case REGISTER_BR0CR + 3:
+                        txSerialInterface.setBrcr(value); break;
+                    case REGISTER_BR0ADD + 3:
+                        txSerialInterface.setBradd(value); break;
+                    case REGISTER_SC0RFC + 3:
+                        txSerialInterface.setRfc(value); break;
+                    case REGISTER_SC0TFC + 3:
+                        txSerialInterface.setTfc(value); break;
+                    case REGISTER_SC0RST + 3:
+                        txSerialInterface.setRst(value); break;
+                    case REGISTER_SC0TST + 3:
+                        txSerialInterface.setTst(value); break;
+                    case REGISTER_SC0FCNF + 3:
+                        txSerialInterface.setFcnf(value); break;
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HSC0BUF && addr < REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT)) {
-            // Hi-speed Serial Interface configuration registers
-            int hserialInterfaceNr = (addr - REGISTER_HSC0BUF) >> HSERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[NUM_SERIAL_IF + hserialInterfaceNr];
-            if (DEBUG_SERIAL) System.err.println("Serial H#" + hserialInterfaceNr + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + StringUtils.right(Format.asHex(value, 2),2));
-            switch (addr - (hserialInterfaceNr << HSERIAL_OFFSET_SHIFT)) {
-                case REGISTER_HSC0BUF:
-                    txSerialInterface.setBuf(value); break;
-                case REGISTER_HBR0ADD:
-                    txSerialInterface.setBradd(value); break;
-                case REGISTER_HSC0MOD1:
-                    txSerialInterface.setMod1(value); break;
-                case REGISTER_HSC0MOD2:
-                    txSerialInterface.setMod2(value); break;
-                case REGISTER_HSC0EN:
-                    txSerialInterface.setEn(value); break;
-                case REGISTER_HSC0RFC:
-                    txSerialInterface.setRfc(value); break;
-                case REGISTER_HSC0TFC:
-                    txSerialInterface.setTfc(value); break;
-                case REGISTER_HSC0RST:
-                    txSerialInterface.setRst(value); break;
-                case REGISTER_HSC0TST:
-                    txSerialInterface.setTst(value); break;
-                case REGISTER_HSC0FCNF:
-                    txSerialInterface.setFcnf(value); break;
-                case REGISTER_HSC0CR:
-                    txSerialInterface.setCr(value); break;
-                case REGISTER_HSC0MOD0:
-                    txSerialInterface.setMod0(value); break;
-                case REGISTER_HBR0CR:
-                    txSerialInterface.setBrcr(value); break;
+            case BLOCK_HSERIAL: {
+                // Hi-speed Serial Interface configuration registers
+                int hserialInterfaceNr = (addr - REGISTER_HSC0BUF) >> HSERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[NUM_SERIAL_IF + hserialInterfaceNr];
+                if (DEBUG_SERIAL) System.err.println("Serial H#" + hserialInterfaceNr + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + StringUtils.right(Format.asHex(value, 2),2));
+                switch (addr - (hserialInterfaceNr << HSERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_HSC0BUF:
+                        txSerialInterface.setBuf(value); break;
+                    case REGISTER_HBR0ADD:
+                        txSerialInterface.setBradd(value); break;
+                    case REGISTER_HSC0MOD1:
+                        txSerialInterface.setMod1(value); break;
+                    case REGISTER_HSC0MOD2:
+                        txSerialInterface.setMod2(value); break;
+                    case REGISTER_HSC0EN:
+                        txSerialInterface.setEn(value); break;
+                    case REGISTER_HSC0RFC:
+                        txSerialInterface.setRfc(value); break;
+                    case REGISTER_HSC0TFC:
+                        txSerialInterface.setTfc(value); break;
+                    case REGISTER_HSC0RST:
+                        txSerialInterface.setRst(value); break;
+                    case REGISTER_HSC0TST:
+                        txSerialInterface.setTst(value); break;
+                    case REGISTER_HSC0FCNF:
+                        txSerialInterface.setFcnf(value); break;
+                    case REGISTER_HSC0CR:
+                        txSerialInterface.setCr(value); break;
+                    case REGISTER_HSC0MOD0:
+                        txSerialInterface.setMod0(value); break;
+                    case REGISTER_HBR0CR:
+                        txSerialInterface.setBrcr(value); break;
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_CCR0 && addr < REGISTER_CCR0 + (NUM_DMA_CHANNEL << DMA_CHANNEL_OFFSET_SHIFT)) {
-            // DMA channel configuration registers
-            int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
-            TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
-            switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
-                case REGISTER_CCR0:
-                    channel.setCcrByte3(value); break;
-                case REGISTER_CCR0 + 1:
-                    channel.setCcrByte2(value); break;
-                case REGISTER_CCR0 + 2:
-                    channel.setCcrByte1(value); break;
-                case REGISTER_CCR0 + 3:
-                    channel.setCcrByte0(value); break;
-                case REGISTER_CSR0 + 3:
-                    channel.setCsr(value); break;
-                case REGISTER_SAR0 + 3:
-                    channel.setSar(value); break;
-                case REGISTER_DAR0 + 3:
-                    channel.setDar(value); break;
-                case REGISTER_BCR0 + 3:
-                    channel.setBcr(value); break;
-                case REGISTER_DTCR0 + 3:
-                    channel.setDtcr(value); break;
+            case BLOCK_DMA: {
+                // DMA channel configuration registers
+                int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
+                TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
+                switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
+                    case REGISTER_CCR0:
+                        channel.setCcrByte3(value); break;
+                    case REGISTER_CCR0 + 1:
+                        channel.setCcrByte2(value); break;
+                    case REGISTER_CCR0 + 2:
+                        channel.setCcrByte1(value); break;
+                    case REGISTER_CCR0 + 3:
+                        channel.setCcrByte0(value); break;
+                    case REGISTER_CSR0 + 3:
+                        channel.setCsr(value); break;
+                    case REGISTER_SAR0 + 3:
+                        channel.setSar(value); break;
+                    case REGISTER_DAR0 + 3:
+                        channel.setDar(value); break;
+                    case REGISTER_BCR0 + 3:
+                        channel.setBcr(value); break;
+                    case REGISTER_DTCR0 + 3:
+                        channel.setDtcr(value); break;
 
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HOURR && addr < REGISTER_RESTR + 4) {
-            // RTC registers
-            TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
-            switch (addr) {
-                case REGISTER_HOURR + 1:
-                    realtimeClock.setHourr(value); break;
-                case REGISTER_MINR:
-                    realtimeClock.setMinr(value); break;
-                case REGISTER_SECR:
-                    realtimeClock.setSecr(value); break;
+            case BLOCK_RTC: {
+                // RTC registers
+                TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
+                switch (addr) {
+                    case REGISTER_HOURR + 1:
+                        realtimeClock.setHourr(value); break;
+                    case REGISTER_MINR:
+                        realtimeClock.setMinr(value); break;
+                    case REGISTER_SECR:
+                        realtimeClock.setSecr(value); break;
 
-                case REGISTER_YEARR:
-                    realtimeClock.setYearr(value); break;
-                case REGISTER_MONTHR:
-                    realtimeClock.setMonthr(value); break;
-                case REGISTER_DATER:
-                    realtimeClock.setDater(value); break;
-                case REGISTER_DAYR:
-                    realtimeClock.setDayr(value); break;
+                    case REGISTER_YEARR:
+                        realtimeClock.setYearr(value); break;
+                    case REGISTER_MONTHR:
+                        realtimeClock.setMonthr(value); break;
+                    case REGISTER_DATER:
+                        realtimeClock.setDater(value); break;
+                    case REGISTER_DAYR:
+                        realtimeClock.setDayr(value); break;
 
-                case REGISTER_PAGER + 3:
-                    realtimeClock.setPager(value); break;
+                    case REGISTER_PAGER + 3:
+                        realtimeClock.setPager(value); break;
 
-                case REGISTER_RESTR + 3:
-                    realtimeClock.setRestr(value); break;
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a RTC register");
+                    case REGISTER_RESTR + 3:
+                        realtimeClock.setRestr(value); break;
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a RTC register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_KWUPST00 && addr < REGISTER_KWUPINT+4) {
-            // Key registers
-            TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
-            int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
-            switch (addr) {
-                case REGISTER_KWUPCNT + 3:
-                    keyCircuit.setKWUPCNT(value); break;
-                case REGISTER_KWUPCLR + 3:
-                    keyCircuit.setKWUPCLR(value); break;
-                default:
-                    if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT)) {
-                        keyCircuit.keys[keyNumber].setKWUPST(value); break;
-                    }
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+            case BLOCK_KEY: {
+                // Key registers
+                TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
+                int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
+                switch (addr) {
+                    case REGISTER_KWUPCNT + 3:
+                        keyCircuit.setKWUPCNT(value); break;
+                    case REGISTER_KWUPCLR + 3:
+                        keyCircuit.setKWUPCLR(value); break;
+                    default:
+                        if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT)) {
+                            keyCircuit.keys[keyNumber].setKWUPST(value); break;
+                        }
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_ADACLK && addr < REGISTER_ADACLK + (NUM_AD_UNIT << AD_UNIT_OFFSET_SHIFT)) {
-            // AD unit configuration registers
-            int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
-            TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
-            int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
-            if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
-                int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
-                if (channelNumber < unit.getNumChannels()) {
-                    unit.setReg(channelNumber, value);
+            case BLOCK_AD: {
+                // AD unit configuration registers
+                int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
+                TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
+                int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
+                if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
+                    int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
+                    if (channelNumber < unit.getNumChannels()) {
+                        unit.setReg(channelNumber, value);
+                    }
+                    else {
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    }
                 }
                 else {
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    switch (shiftedAddress) {
+                        case REGISTER_ADACLK + 3:
+                            unit.setClk(value); break;
+                        case REGISTER_ADAMOD0 + 3:
+                            unit.setMod0(value); break;
+                        case REGISTER_ADAMOD1 + 3:
+                            unit.setMod1(value); break;
+                        case REGISTER_ADAMOD2 + 3:
+                            unit.setMod2(value); break;
+                        case REGISTER_ADAMOD3 + 3:
+                            unit.setMod3(value); break;
+                        case REGISTER_ADAMOD4 + 3:
+                            unit.setMod4(value); break;
+                        case REGISTER_ADAMOD5 + 3:
+                            unit.setMod5(value); break;
+                        case REGISTER_ADAREGSP + 3:
+                            unit.setRegSp(value); break;
+                        case REGISTER_ADACOMREG0 + 3:
+                            unit.setComReg0(value); break;
+                        case REGISTER_ADACOMREG1 + 3:
+                            unit.setComReg1(value); break;
+                        default:
+                            stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    }
                 }
+                break;
             }
-            else {
-                switch (shiftedAddress) {
-                    case REGISTER_ADACLK + 3:
-                        unit.setClk(value); break;
-                    case REGISTER_ADAMOD0 + 3:
-                        unit.setMod0(value); break;
-                    case REGISTER_ADAMOD1 + 3:
-                        unit.setMod1(value); break;
-                    case REGISTER_ADAMOD2 + 3:
-                        unit.setMod2(value); break;
-                    case REGISTER_ADAMOD3 + 3:
-                        unit.setMod3(value); break;
-                    case REGISTER_ADAMOD4 + 3:
-                        unit.setMod4(value); break;
-                    case REGISTER_ADAMOD5 + 3:
-                        unit.setMod5(value); break;
-                    case REGISTER_ADAREGSP + 3:
-                        unit.setRegSp(value); break;
-                    case REGISTER_ADACOMREG0 + 3:
-                        unit.setComReg0(value); break;
-                    case REGISTER_ADACOMREG1 + 3:
-                        unit.setComReg1(value); break;
-                    default:
-                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
-                }
+            case BLOCK_IMCG: {
+                // IMCG registers.
+                ((TxInterruptController)platform.getInterruptController()).setImcg(addr-REGISTER_IMCGA,value);
+                return;
             }
-        } else if (addr >= REGISTER_IMCGA && addr < (REGISTER_IMCG11+4)) {
-            // IMCG registers.
-            ((TxInterruptController)platform.getInterruptController()).setImcg(addr-REGISTER_IMCGA,value);
-            return;
-        }
-        else switch (addr) {
-            // Clock generator
-            case REGISTER_SYSCR:
-                break; // ignore
-            case REGISTER_SYSCR + 1:
-                ((TxClockGenerator)platform.getClockGenerator()).setSyscr2(value); break;
-            case REGISTER_SYSCR + 2:
-                ((TxClockGenerator)platform.getClockGenerator()).setSyscr1(value); break;
-            case REGISTER_SYSCR + 3:
-                ((TxClockGenerator)platform.getClockGenerator()).setSyscr0(value); break;
-            case REGISTER_OSCCR:
-                break; // ignore
-            case REGISTER_OSCCR + 1:
-                break; // ignore
-            case REGISTER_OSCCR + 2:
-                ((TxClockGenerator)platform.getClockGenerator()).setOsccr1(value); break;
-            case REGISTER_OSCCR + 3:
-                ((TxClockGenerator)platform.getClockGenerator()).setOsccr0(value); break;
-            case REGISTER_PLLSEL + 3:
-                ((TxClockGenerator)platform.getClockGenerator()).setPllsel(value); break;
-            case REGISTER_NMIFLG + 3:
-                ((TxInterruptController)platform.getInterruptController()).setNmiFlg(value); break;
-            case REGISTER_RSTFLG + 3:
-                ((TxClockGenerator)platform.getClockGenerator()).setRstflg(value); break;
-            // Interrupt Controller
-            case REGISTER_INTCLR + 3:
-                stop("The INTCLR register can not be accessed by 8-bit");
-            case REGISTER_DREQFLG + 3:
-                ((TxInterruptController)platform.getInterruptController()).setDreqflg(value); break;
-            // DMA controller
-            case REGISTER_DCR + 3:
-                ((TxDmaController)platform.getDmaController()).setDcr(value); break;
-            case REGISTER_RSR + 3:
-                ((TxDmaController)platform.getDmaController()).setRsr(value); break;
-            case REGISTER_DHR + 3:
-                ((TxDmaController)platform.getDmaController()).setDhr(value); break;
             default:
-                if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
+                switch (addr) {
+                    // Clock generator
+                    case REGISTER_SYSCR:
+                        break; // ignore
+                    case REGISTER_SYSCR + 1:
+                        ((TxClockGenerator)platform.getClockGenerator()).setSyscr2(value); break;
+                    case REGISTER_SYSCR + 2:
+                        ((TxClockGenerator)platform.getClockGenerator()).setSyscr1(value); break;
+                    case REGISTER_SYSCR + 3:
+                        ((TxClockGenerator)platform.getClockGenerator()).setSyscr0(value); break;
+                    case REGISTER_OSCCR:
+                        break; // ignore
+                    case REGISTER_OSCCR + 1:
+                        break; // ignore
+                    case REGISTER_OSCCR + 2:
+                        ((TxClockGenerator)platform.getClockGenerator()).setOsccr1(value); break;
+                    case REGISTER_OSCCR + 3:
+                        ((TxClockGenerator)platform.getClockGenerator()).setOsccr0(value); break;
+                    case REGISTER_PLLSEL + 3:
+                        ((TxClockGenerator)platform.getClockGenerator()).setPllsel(value); break;
+                    case REGISTER_NMIFLG + 3:
+                        ((TxInterruptController)platform.getInterruptController()).setNmiFlg(value); break;
+                    case REGISTER_RSTFLG + 3:
+                        ((TxClockGenerator)platform.getClockGenerator()).setRstflg(value); break;
+                    // Interrupt Controller
+                    case REGISTER_INTCLR + 3:
+                        stop("The INTCLR register can not be accessed by 8-bit");
+                    case REGISTER_DREQFLG + 3:
+                        ((TxInterruptController)platform.getInterruptController()).setDreqflg(value); break;
+                    // DMA controller
+                    case REGISTER_DCR + 3:
+                        ((TxDmaController)platform.getDmaController()).setDcr(value); break;
+                    case REGISTER_RSR + 3:
+                        ((TxDmaController)platform.getDmaController()).setRsr(value); break;
+                    case REGISTER_DHR + 3:
+                        ((TxDmaController)platform.getDmaController()).setDhr(value); break;
+                    default:
+                        if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Store8 value 0x" + Format.asHex(value, 2) + " is not supported yet");
+                }
         }
     }
 
     public void onStore16(byte[] ioPage, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_IMC00 && addr < (REGISTER_IMC19+4)) {
-            // IMC registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_IMC: {
+                // IMC registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            intc.setImc(addr-REGISTER_IMC00,(value>>8)&0xFF);
-            intc.setImc(addr-REGISTER_IMC00+1,value&0xFF);
-            return;
-        }
-        if (addr >= REGISTER_PORT0 && addr < REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT)) {
-            // Port configuration registers
-            stop("The I/O port registers cannot be accessed by 16-bit for now");
-        }
-        else if (addr >= REGISTER_TB0EN && addr < REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT)) {
-            // Timer configuration registers
-            int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
-            TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
-            switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
-                case REGISTER_TB0EN + 2:
-                    txTimer.setTben(value); break;
-                case REGISTER_TB0RUN + 2:
-                    txTimer.setTbrun(value); break;
-                case REGISTER_TB0CR + 2:
-                    txTimer.setTbcr(value); break;
-                case REGISTER_TB0MOD + 2:
-                    txTimer.setTbmod(value); break;
-                case REGISTER_TB0FFCR + 2:
-                    txTimer.setTbffcr(value); break;
-                case REGISTER_TB0ST + 2:
-                    txTimer.setTbst(value); break;
-                case REGISTER_TB0IM + 2:
-                    txTimer.setTbim(value); break;
-                case REGISTER_TB0UC + 2:
-                    txTimer.setTbuc(value); break;
-                case REGISTER_TB0RG0 + 2:
-                    txTimer.setTbrg0(value); break;
-                case REGISTER_TB0RG1 + 2:
-                    txTimer.setTbrg1(value); break;
+                intc.setImc(addr-REGISTER_IMC00,(value>>8)&0xFF);
+                intc.setImc(addr-REGISTER_IMC00+1,value&0xFF);
+                return;
             }
-        }
-        else if (addr >= REGISTER_TCEN && addr < REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT )) {
-            // Capture Input configuration registers
-            TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
-            if (addr < REGISTER_CMPCTL0) {
-                switch (addr) {
-                    case REGISTER_TCEN + 2:
-                        txInputCaptureTimer.setTcen(value); break;
-                    case REGISTER_TBTRUN + 2:
-                        txInputCaptureTimer.setTbtrun(value); break;
-                    case REGISTER_TBTCR + 2:
-                        txInputCaptureTimer.setTbtcr(value); break;
-                    case REGISTER_TBTCAP + 2:
-                        txInputCaptureTimer.setTbtcap(value); break;
-                    case REGISTER_TBTRDCAP + 2:
-                        txInputCaptureTimer.setCurrentValue(value);
-                        break;
+            case BLOCK_PORT: {
+                // Port configuration registers
+                stop("The I/O port registers cannot be accessed by 16-bit for now");
+                break;
+            }
+            case BLOCK_TIMER: {
+                // Timer configuration registers
+                int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
+                TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
+                switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
+                    case REGISTER_TB0EN + 2:
+                        txTimer.setTben(value); break;
+                    case REGISTER_TB0RUN + 2:
+                        txTimer.setTbrun(value); break;
+                    case REGISTER_TB0CR + 2:
+                        txTimer.setTbcr(value); break;
+                    case REGISTER_TB0MOD + 2:
+                        txTimer.setTbmod(value); break;
+                    case REGISTER_TB0FFCR + 2:
+                        txTimer.setTbffcr(value); break;
+                    case REGISTER_TB0ST + 2:
+                        txTimer.setTbst(value); break;
+                    case REGISTER_TB0IM + 2:
+                        txTimer.setTbim(value); break;
+                    case REGISTER_TB0UC + 2:
+                        txTimer.setTbuc(value); break;
+                    case REGISTER_TB0RG0 + 2:
+                        txTimer.setTbrg0(value); break;
+                    case REGISTER_TB0RG1 + 2:
+                        txTimer.setTbrg1(value); break;
                 }
+                break;
             }
-            else if (addr < REGISTER_CAPCR0) {
-                int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
-                switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
-                    case REGISTER_CMPCTL0 + 2:
-                        txInputCaptureTimer.setCmpctl(compareChannel, value); break;
-                    case REGISTER_TCCMP0 + 2:
-                        txInputCaptureTimer.setTccmp(compareChannel, value); break;
+            case BLOCK_CAPTURE_TIMER: {
+                // Capture Input configuration registers
+                TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
+                if (addr < REGISTER_CMPCTL0) {
+                    switch (addr) {
+                        case REGISTER_TCEN + 2:
+                            txInputCaptureTimer.setTcen(value); break;
+                        case REGISTER_TBTRUN + 2:
+                            txInputCaptureTimer.setTbtrun(value); break;
+                        case REGISTER_TBTCR + 2:
+                            txInputCaptureTimer.setTbtcr(value); break;
+                        case REGISTER_TBTCAP + 2:
+                            txInputCaptureTimer.setTbtcap(value); break;
+                        case REGISTER_TBTRDCAP + 2:
+                            txInputCaptureTimer.setCurrentValue(value);
+                            break;
+                    }
                 }
+                else if (addr < REGISTER_CAPCR0) {
+                    int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
+                    switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
+                        case REGISTER_CMPCTL0 + 2:
+                            txInputCaptureTimer.setCmpctl(compareChannel, value); break;
+                        case REGISTER_TCCMP0 + 2:
+                            txInputCaptureTimer.setTccmp(compareChannel, value); break;
+                    }
 
+                }
+                else {
+                    int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
+                    switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
+                        case REGISTER_CAPCR0 + 2:
+                            txInputCaptureTimer.setCapcr(captureChannel, value); break;
+                        case REGISTER_TCCAP0 + 2:
+                            stop("Cannot write to TCCAP register of channel " + captureChannel);
+                    }
+                }
+                break;
+            }
+            case BLOCK_RTC: {
+                stop("The RTC registers cannot be written by 16-bit for now");
+                break;
             }
-            else {
-                int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
-                switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
-                    case REGISTER_CAPCR0 + 2:
-                        txInputCaptureTimer.setCapcr(captureChannel, value); break;
-                    case REGISTER_TCCAP0 + 2:
-                        stop("Cannot write to TCCAP register of channel " + captureChannel);
+            case BLOCK_KEY: {
+                stop("The KEY registers cannot be accessed by 16-bit for now");
+                break;
+            }
+            case BLOCK_SERIAL: {
+                // Serial Interface configuration registers
+                int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
+                if (DEBUG_SERIAL) System.err.println("Serial #" + serialInterfaceNr  + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + StringUtils.right(Format.asHex(value, 4),4));
+                switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_SC0EN + 2:
+                        txSerialInterface.setEn(value); break;
+                    case REGISTER_SC0BUF + 2:
+                        txSerialInterface.setBuf(value); break;
+                    case REGISTER_SC0CR + 2:
+                        txSerialInterface.setCr(value); break;
+                    case REGISTER_SC0MOD0 + 2:
+                        txSerialInterface.setMod0(value); break;
+                    case REGISTER_SC0MOD1 + 2:
+                        txSerialInterface.setMod1(value); break;
+                    case REGISTER_SC0MOD2 + 2:
+                        txSerialInterface.setMod2(value); break;
+                    case REGISTER_BR0CR + 2:
+                        txSerialInterface.setBrcr(value); break;
+                    case REGISTER_BR0ADD + 2:
+                        txSerialInterface.setBradd(value); break;
+                    case REGISTER_SC0RFC + 2:
+                        txSerialInterface.setRfc(value); break;
+                    case REGISTER_SC0TFC + 2:
+                        txSerialInterface.setTfc(value); break;
+                    case REGISTER_SC0RST + 2:
+                        txSerialInterface.setRst(value); break;
+                    case REGISTER_SC0TST + 2:
+                        txSerialInterface.setTst(value); break;
+                    case REGISTER_SC0FCNF + 2:
+                        txSerialInterface.setFcnf(value); break;
                 }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HOURR && addr < REGISTER_RESTR + 4) {
-            stop("The RTC registers cannot be written by 16-bit for now");
-        }
-        else if (addr >= REGISTER_KWUPST00 && addr < REGISTER_KWUPINT + 4) {
-            stop("The KEY registers cannot be accessed by 16-bit for now");
-        }
-        else if (addr >= REGISTER_SC0EN && addr < REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT)) {
-            // Serial Interface configuration registers
-            int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
-            if (DEBUG_SERIAL) System.err.println("Serial #" + serialInterfaceNr  + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + StringUtils.right(Format.asHex(value, 4),4));
-            switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
-                case REGISTER_SC0EN + 2:
-                    txSerialInterface.setEn(value); break;
-                case REGISTER_SC0BUF + 2:
-                    txSerialInterface.setBuf(value); break;
-                case REGISTER_SC0CR + 2:
-                    txSerialInterface.setCr(value); break;
-                case REGISTER_SC0MOD0 + 2:
-                    txSerialInterface.setMod0(value); break;
-                case REGISTER_SC0MOD1 + 2:
-                    txSerialInterface.setMod1(value); break;
-                case REGISTER_SC0MOD2 + 2:
-                    txSerialInterface.setMod2(value); break;
-                case REGISTER_BR0CR + 2:
-                    txSerialInterface.setBrcr(value); break;
-                case REGISTER_BR0ADD + 2:
-                    txSerialInterface.setBradd(value); break;
-                case REGISTER_SC0RFC + 2:
-                    txSerialInterface.setRfc(value); break;
-                case REGISTER_SC0TFC + 2:
-                    txSerialInterface.setTfc(value); break;
-                case REGISTER_SC0RST + 2:
-                    txSerialInterface.setRst(value); break;
-                case REGISTER_SC0TST + 2:
-                    txSerialInterface.setTst(value); break;
-                case REGISTER_SC0FCNF + 2:
-                    txSerialInterface.setFcnf(value); break;
+            case BLOCK_HSERIAL: {
+                // Hi-speed Serial Interface configuration registers
+                stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be written by 8 bits");
+                break;
             }
-        }
-        else if (addr >= REGISTER_HSC0BUF && addr < REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT)) {
-            // Hi-speed Serial Interface configuration registers
-            stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be written by 8 bits");
-        }
-        else if (addr >= REGISTER_IMCGA && addr < (REGISTER_IMCG11+4)) {
-            // IMCG registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+            case BLOCK_IMCG: {
+                // IMCG registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            intc.setImcg(addr-REGISTER_IMCGA,(value>>8)&0xFF);
-            intc.setImcg(addr-REGISTER_IMCGA+1,value&0xFF);
-            return;
-        }
-        else switch (addr){
-            // Clock generator
-            case REGISTER_SYSCR:
-            case REGISTER_SYSCR + 2:
-                stop("The SYSCR register can not be accessed by 16-bit for now");
-            case REGISTER_OSCCR:
-            case REGISTER_OSCCR + 2:
-                stop("The OSCCR register can not be accessed by 16-bit for now");
-            case REGISTER_PLLSEL + 2:
-                ((TxClockGenerator)platform.getClockGenerator()).setPllsel(value); break;
-            case REGISTER_NMIFLG + 2:
-                ((TxInterruptController)platform.getInterruptController()).setNmiFlg(value); break;
-            case REGISTER_RSTFLG + 2:
-                ((TxClockGenerator)platform.getClockGenerator()).setRstflg(value); break;
-            // Interrupt Controller
-            case REGISTER_INTCLR + 2:
-                ((TxInterruptController)platform.getInterruptController()).setIntClr(value); break;
-            case REGISTER_DREQFLG + 2:
-                ((TxInterruptController)platform.getInterruptController()).setDreqflg(value); break;
+                intc.setImcg(addr-REGISTER_IMCGA,(value>>8)&0xFF);
+                intc.setImcg(addr-REGISTER_IMCGA+1,value&0xFF);
+                return;
+            }
             default:
-                if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
+                switch (addr) {
+                    // Clock generator
+                    case REGISTER_SYSCR:
+                    case REGISTER_SYSCR + 2:
+                        stop("The SYSCR register can not be accessed by 16-bit for now");
+                    case REGISTER_OSCCR:
+                    case REGISTER_OSCCR + 2:
+                        stop("The OSCCR register can not be accessed by 16-bit for now");
+                    case REGISTER_PLLSEL + 2:
+                        ((TxClockGenerator)platform.getClockGenerator()).setPllsel(value); break;
+                    case REGISTER_NMIFLG + 2:
+                        ((TxInterruptController)platform.getInterruptController()).setNmiFlg(value); break;
+                    case REGISTER_RSTFLG + 2:
+                        ((TxClockGenerator)platform.getClockGenerator()).setRstflg(value); break;
+                    // Interrupt Controller
+                    case REGISTER_INTCLR + 2:
+                        ((TxInterruptController)platform.getInterruptController()).setIntClr(value); break;
+                    case REGISTER_DREQFLG + 2:
+                        ((TxInterruptController)platform.getInterruptController()).setDreqflg(value); break;
+                    default:
+                        if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Store16 value 0x" + Format.asHex(value, 4) + " is not supported yet");
+                }
         }
     }
 
     public void onStore32(byte[] ioPage, int addr, int value, DebuggableMemory.AccessSource accessSource) {
-        if (addr >= REGISTER_IMC00 && addr < (REGISTER_IMC19+4)) {
-            // IMC registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+        switch (IO_BLOCKS.get(addr)) {
+            case BLOCK_IMC: {
+                // IMC registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            intc.setImc(addr-REGISTER_IMC00,(value>>24)&0xFF);
-            intc.setImc(addr-REGISTER_IMC00+1,(value>>16)&0xFF);
-            intc.setImc(addr-REGISTER_IMC00+2,(value>>8)&0xFF);
-            intc.setImc(addr-REGISTER_IMC00+3,value&0xFF);
-            return;
-        }
-        if (addr >= REGISTER_PORT0 && addr < REGISTER_PORT0 + (NUM_PORT << PORT_OFFSET_SHIFT)) {
-            // Port configuration registers
-            int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
-            TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
-            switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
-                case REGISTER_PORT0:
-                    txIoPort.setValue((byte) value); break;
-                case REGISTER_PORT0CR:
-                    txIoPort.setControlRegister((byte) value); break;
-                case REGISTER_PORT0FC1:
-                    txIoPort.setFunctionRegister1((byte) value); break;
-                case REGISTER_PORT0FC2:
-                    txIoPort.setFunctionRegister2((byte) value); break;
-                case REGISTER_PORT0FC3:
-                    txIoPort.setFunctionRegister3((byte) value); break;
-                case REGISTER_PORT0ODE:
-                    txIoPort.setOpenDrainControlRegister((byte) value); break;
-                case REGISTER_PORT0PUP:
-                    txIoPort.setPullUp((byte) value); break;
-                case REGISTER_PORT0PIE:
-                    txIoPort.setInputEnableControlRegister((byte) value); break;
+                intc.setImc(addr-REGISTER_IMC00,(value>>24)&0xFF);
+                intc.setImc(addr-REGISTER_IMC00+1,(value>>16)&0xFF);
+                intc.setImc(addr-REGISTER_IMC00+2,(value>>8)&0xFF);
+                intc.setImc(addr-REGISTER_IMC00+3,value&0xFF);
+                return;
             }
-        }
-        else if (addr >= REGISTER_TB0EN && addr < REGISTER_TB0EN + (NUM_16B_TIMER << TIMER_OFFSET_SHIFT)) {
-            // Timer configuration registers
-            int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
-            TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
-            switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
-                case REGISTER_TB0EN:
-                    txTimer.setTben(value); break;
-                case REGISTER_TB0RUN:
-                    txTimer.setTbrun(value); break;
-                case REGISTER_TB0CR:
-                    txTimer.setTbcr(value); break;
-                case REGISTER_TB0MOD:
-                    txTimer.setTbmod(value); break;
-                case REGISTER_TB0FFCR:
-                    txTimer.setTbffcr(value); break;
-                case REGISTER_TB0ST:
-                    txTimer.setTbst(value); break;
-                case REGISTER_TB0IM:
-                    txTimer.setTbim(value); break;
-                case REGISTER_TB0UC:
-                    txTimer.setTbuc(value); break;
-                case REGISTER_TB0RG0:
-                    txTimer.setTbrg0(value); break;
-                case REGISTER_TB0RG1:
-                    txTimer.setTbrg1(value); break;
+            case BLOCK_PORT: {
+                // Port configuration registers
+                int portNr = (addr - REGISTER_PORT0) >> PORT_OFFSET_SHIFT;
+                TxIoPort txIoPort = (TxIoPort) platform.getIoPorts()[portNr];
+                switch (addr - (portNr << PORT_OFFSET_SHIFT)) {
+                    case REGISTER_PORT0:
+                        txIoPort.setValue((byte) value); break;
+                    case REGISTER_PORT0CR:
+                        txIoPort.setControlRegister((byte) value); break;
+                    case REGISTER_PORT0FC1:
+                        txIoPort.setFunctionRegister1((byte) value); break;
+                    case REGISTER_PORT0FC2:
+                        txIoPort.setFunctionRegister2((byte) value); break;
+                    case REGISTER_PORT0FC3:
+                        txIoPort.setFunctionRegister3((byte) value); break;
+                    case REGISTER_PORT0ODE:
+                        txIoPort.setOpenDrainControlRegister((byte) value); break;
+                    case REGISTER_PORT0PUP:
+                        txIoPort.setPullUp((byte) value); break;
+                    case REGISTER_PORT0PIE:
+                        txIoPort.setInputEnableControlRegister((byte) value); break;
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_TCEN && addr < REGISTER_CAPCR0 + (NUM_CAPTURE_CHANNEL << INPUT_CAPTURE_OFFSET_SHIFT )) {
-            // Capture Input configuration registers
-            TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
-            if (addr < REGISTER_CMPCTL0) {
-                switch (addr) {
-                    case REGISTER_TCEN:
-                        txInputCaptureTimer.setTcen(value); break;
-                    case REGISTER_TBTRUN:
-                        txInputCaptureTimer.setTbtrun(value); break;
-                    case REGISTER_TBTCR:
-                        txInputCaptureTimer.setTbtcr(value); break;
-                    case REGISTER_TBTCAP:
-                        txInputCaptureTimer.setTbtcap(value); break;
-                    case REGISTER_TBTRDCAP:
-                        /* code does exactly this even if in datasheet is read-only:
-                        	BFC1123E F71F4EE0 lui     r6, 0xFF00
-                        	BFC11242 F209DEF0 sw      r7, 0x4A10(r6)
-                         */
-                        txInputCaptureTimer.setCurrentValue(value);
-                        break;
+            case BLOCK_TIMER: {
+                // Timer configuration registers
+                int timerNr = (addr - REGISTER_TB0EN) >> TIMER_OFFSET_SHIFT;
+                TxTimer txTimer = (TxTimer)platform.getProgrammableTimers()[timerNr];
+                switch (addr - (timerNr << TIMER_OFFSET_SHIFT)) {
+                    case REGISTER_TB0EN:
+                        txTimer.setTben(value); break;
+                    case REGISTER_TB0RUN:
+                        txTimer.setTbrun(value); break;
+                    case REGISTER_TB0CR:
+                        txTimer.setTbcr(value); break;
+                    case REGISTER_TB0MOD:
+                        txTimer.setTbmod(value); break;
+                    case REGISTER_TB0FFCR:
+                        txTimer.setTbffcr(value); break;
+                    case REGISTER_TB0ST:
+                        txTimer.setTbst(value); break;
+                    case REGISTER_TB0IM:
+                        txTimer.setTbim(value); break;
+                    case REGISTER_TB0UC:
+                        txTimer.setTbuc(value); break;
+                    case REGISTER_TB0RG0:
+                        txTimer.setTbrg0(value); break;
+                    case REGISTER_TB0RG1:
+                        txTimer.setTbrg1(value); break;
                 }
+                break;
             }
-            else if (addr < REGISTER_CAPCR0) {
-                int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
-                switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
-                    case REGISTER_CMPCTL0:
-                        txInputCaptureTimer.setCmpctl(compareChannel, value); break;
-                    case REGISTER_TCCMP0:
-                        txInputCaptureTimer.setTccmp(compareChannel, value); break;
+            case BLOCK_CAPTURE_TIMER: {
+                // Capture Input configuration registers
+                TxInputCaptureTimer txInputCaptureTimer = (TxInputCaptureTimer)platform.getProgrammableTimers()[NUM_16B_TIMER];
+                if (addr < REGISTER_CMPCTL0) {
+                    switch (addr) {
+                        case REGISTER_TCEN:
+                            txInputCaptureTimer.setTcen(value); break;
+                        case REGISTER_TBTRUN:
+                            txInputCaptureTimer.setTbtrun(value); break;
+                        case REGISTER_TBTCR:
+                            txInputCaptureTimer.setTbtcr(value); break;
+                        case REGISTER_TBTCAP:
+                            txInputCaptureTimer.setTbtcap(value); break;
+                        case REGISTER_TBTRDCAP:
+                            /* code does exactly this even if in datasheet is read-only:
+                            	BFC1123E F71F4EE0 lui     r6, 0xFF00
+                            	BFC11242 F209DEF0 sw      r7, 0x4A10(r6)
+                             */
+                            txInputCaptureTimer.setCurrentValue(value);
+                            break;
+                    }
                 }
+                else if (addr < REGISTER_CAPCR0) {
+                    int compareChannel = (addr - REGISTER_CMPCTL0) >> INPUT_COMPARE_OFFSET_SHIFT;
+                    switch (addr - (compareChannel << INPUT_COMPARE_OFFSET_SHIFT)) {
+                        case REGISTER_CMPCTL0:
+                            txInputCaptureTimer.setCmpctl(compareChannel, value); break;
+                        case REGISTER_TCCMP0:
+                            txInputCaptureTimer.setTccmp(compareChannel, value); break;
+                    }
 
+                }
+                else {
+                    int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
+                    switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
+                        case REGISTER_CAPCR0:
+                            txInputCaptureTimer.setCapcr(captureChannel, value); break;
+                        case REGISTER_TCCAP0:
+                            stop("Cannot write to TCCAP register of channel " + captureChannel);
+                    }
+                }
+                break;
             }
-            else {
-                int captureChannel = (addr - REGISTER_CAPCR0) >> INPUT_CAPTURE_OFFSET_SHIFT;
-                switch (addr - (captureChannel << INPUT_CAPTURE_OFFSET_SHIFT)) {
-                    case REGISTER_CAPCR0:
-                        txInputCaptureTimer.setCapcr(captureChannel, value); break;
-                    case REGISTER_TCCAP0:
-                        stop("Cannot write to TCCAP register of channel " + captureChannel);
+            case BLOCK_SERIAL: {
+                // Serial Interface configuration registers
+                int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
+                TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
+                if (DEBUG_SERIAL) System.err.println("Serial #" + serialInterfaceNr  + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + Format.asHex(value, 8));
+                switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
+                    case REGISTER_SC0EN:
+                        txSerialInterface.setEn(value); break;
+                    case REGISTER_SC0BUF:
+                        txSerialInterface.setBuf(value); break;
+                    case REGISTER_SC0CR:
+                        txSerialInterface.setCr(value); break;
+                    case REGISTER_SC0MOD0:
+                        txSerialInterface.setMod0(value); break;
+                    case REGISTER_SC0MOD1:
+                        txSerialInterface.setMod1(value); break;
+                    case REGISTER_SC0MOD2:
+                        txSerialInterface.setMod2(value); break;
+                    case REGISTER_BR0CR:
+                        txSerialInterface.setBrcr(value); break;
+                    case REGISTER_BR0ADD:
+                        txSerialInterface.setBradd(value); break;
+                    case REGISTER_SC0RFC:
+                        txSerialInterface.setRfc(value); break;
+                    case REGISTER_SC0TFC:
+                        txSerialInterface.setTfc(value); break;
+                    case REGISTER_SC0RST:
+                        txSerialInterface.setRst(value); break;
+                    case REGISTER_SC0TST:
+                        txSerialInterface.setTst(value); break;
+                    case REGISTER_SC0FCNF:
+                        txSerialInterface.setFcnf(value); break;
                 }
+                break;
             }
-        }
-        else if (addr >= REGISTER_SC0EN && addr < REGISTER_SC0EN + (NUM_SERIAL_IF << SERIAL_OFFSET_SHIFT)) {
-            // Serial Interface configuration registers
-            int serialInterfaceNr = (addr - REGISTER_SC0EN) >> SERIAL_OFFSET_SHIFT;
-            TxSerialInterface txSerialInterface = (TxSerialInterface)platform.getSerialInterfaces()[serialInterfaceNr];
-            if (DEBUG_SERIAL) System.err.println("Serial #" + serialInterfaceNr  + " - Storing @0x" + Format.asHex(addr, 8) + " : 0x" + Format.asHex(value, 8));
-            switch (addr - (serialInterfaceNr << SERIAL_OFFSET_SHIFT)) {
-                case REGISTER_SC0EN:
-                    txSerialInterface.setEn(value); break;
-                case REGISTER_SC0BUF:
-                    txSerialInterface.setBuf(value); break;
-                case REGISTER_SC0CR:
-                    txSerialInterface.setCr(value); break;
-                case REGISTER_SC0MOD0:
-                    txSerialInterface.setMod0(value); break;
-                case REGISTER_SC0MOD1:
-                    txSerialInterface.setMod1(value); break;
-                case REGISTER_SC0MOD2:
-                    txSerialInterface.setMod2(value); break;
-                case REGISTER_BR0CR:
-                    txSerialInterface.setBrcr(value); break;
-                case REGISTER_BR0ADD:
-                    txSerialInterface.setBradd(value); break;
-                case REGISTER_SC0RFC:
-                    txSerialInterface.setRfc(value); break;
-                case REGISTER_SC0TFC:
-                    txSerialInterface.setTfc(value); break;
-                case REGISTER_SC0RST:
-                    txSerialInterface.setRst(value); break;
-                case REGISTER_SC0TST:
-                    txSerialInterface.setTst(value); break;
-                case REGISTER_SC0FCNF:
-                    txSerialInterface.setFcnf(value); break;
+            case BLOCK_HSERIAL: {
+                // Hi-speed Serial Interface configuration registers
+                stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be written by 8 bits");
+                break;
             }
-        }
-        else if (addr >= REGISTER_HSC0BUF && addr < REGISTER_HSC0BUF + (NUM_HSERIAL_IF << HSERIAL_OFFSET_SHIFT)) {
-            // Hi-speed Serial Interface configuration registers
-            stop("Serial register 0x" + Format.asHex(addr, 8) + " can only be written by 8 bits");
-        }
-        else if (addr >= REGISTER_CCR0 && addr < REGISTER_CCR0 + (NUM_DMA_CHANNEL << DMA_CHANNEL_OFFSET_SHIFT)) {
-            // DMA channel configuration registers
-            int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
-            TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
-            switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
-                case REGISTER_CCR0:
-                    channel.setCcr(value); break;
-                case REGISTER_CSR0:
-                    channel.setCsr(value); break;
-                case REGISTER_SAR0:
-                    channel.setSar(value); break;
-                case REGISTER_DAR0:
-                    channel.setDar(value); break;
-                case REGISTER_BCR0:
-                    channel.setBcr(value); break;
-                case REGISTER_DTCR0:
-                    channel.setDtcr(value); break;
-                default:
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+            case BLOCK_DMA: {
+                // DMA channel configuration registers
+                int dmaChannelNr = (addr - REGISTER_CCR0) >> DMA_CHANNEL_OFFSET_SHIFT;
+                TxDmaChannel channel = ((TxDmaController)platform.getDmaController()).getChannel(dmaChannelNr);
+                switch (addr - (dmaChannelNr << DMA_CHANNEL_OFFSET_SHIFT)) {
+                    case REGISTER_CCR0:
+                        channel.setCcr(value); break;
+                    case REGISTER_CSR0:
+                        channel.setCsr(value); break;
+                    case REGISTER_SAR0:
+                        channel.setSar(value); break;
+                    case REGISTER_DAR0:
+                        channel.setDar(value); break;
+                    case REGISTER_BCR0:
+                        channel.setBcr(value); break;
+                    case REGISTER_DTCR0:
+                        channel.setDtcr(value); break;
+                    default:
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a DMA register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_HOURR && addr < REGISTER_RESTR + 4) {
-            // RTC registers
-            TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
-            switch (addr) {
-                case REGISTER_HOURR:
-                    realtimeClock.setTimeReg32(value); break;
-                case REGISTER_YEARR:
-                    realtimeClock.setDateReg32(value); break;
-                case REGISTER_PAGER:
-                    realtimeClock.setPager(value); break;
-                case REGISTER_RESTR:
-                    realtimeClock.setRestr(value); break;
-                default:
-                    stop("Address " + Format.asHex(addr, 8) + " is not a RTC register");
+            case BLOCK_RTC: {
+                // RTC registers
+                TxRealtimeClock realtimeClock = ((TxRealtimeClock)platform.getRealtimeClock());
+                switch (addr) {
+                    case REGISTER_HOURR:
+                        realtimeClock.setTimeReg32(value); break;
+                    case REGISTER_YEARR:
+                        realtimeClock.setDateReg32(value); break;
+                    case REGISTER_PAGER:
+                        realtimeClock.setPager(value); break;
+                    case REGISTER_RESTR:
+                        realtimeClock.setRestr(value); break;
+                    default:
+                        stop("Address " + Format.asHex(addr, 8) + " is not a RTC register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_KWUPST00 && addr < REGISTER_KWUPINT + 4) {
-            // Key registers
-            TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
-            int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
-            switch (addr) {
-                case REGISTER_KWUPCNT:
-                    keyCircuit.setKWUPCNT(value); break;
-                case REGISTER_KWUPCLR:
-                    keyCircuit.setKWUPCLR(value); break;
-                default:
-                    if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT)) {
-                        keyCircuit.keys[keyNumber].setKWUPST(value); break;
-                    }
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+            case BLOCK_KEY: {
+                // Key registers
+                TxKeyCircuit keyCircuit = ((TxKeyCircuit)platform.getKeyCircuit());
+                int keyNumber = (addr - REGISTER_KWUPST00) >> KEY_OFFSET_SHIFT;
+                switch (addr) {
+                    case REGISTER_KWUPCNT:
+                        keyCircuit.setKWUPCNT(value); break;
+                    case REGISTER_KWUPCLR:
+                        keyCircuit.setKWUPCLR(value); break;
+                    default:
+                        if ((addr-REGISTER_KWUPST00) == (keyNumber << KEY_OFFSET_SHIFT)) {
+                            keyCircuit.keys[keyNumber].setKWUPST(value); break;
+                        }
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a KEY register");
+                }
+                break;
             }
-        }
-        else if (addr >= REGISTER_ADACLK && addr < REGISTER_ADACLK + (NUM_AD_UNIT << AD_UNIT_OFFSET_SHIFT)) {
-            // AD unit configuration registers
-            int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
-            TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
-            int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
-            if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
-                int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
-                if (channelNumber < unit.getNumChannels()) {
-                    unit.setReg(channelNumber, value);
+            case BLOCK_AD: {
+                // AD unit configuration registers
+                int adUnitNumber = (addr - REGISTER_ADACLK) >> AD_UNIT_OFFSET_SHIFT;
+                TxAdUnit unit = ((TxAdConverter)platform.getAdConverter()).units[adUnitNumber];
+                int shiftedAddress = addr - (adUnitNumber << AD_UNIT_OFFSET_SHIFT);
+                if (shiftedAddress >= REGISTER_ADAREG0 && shiftedAddress < REGISTER_ADAREG0 + 32 ) {
+                    int channelNumber = (shiftedAddress - REGISTER_ADAREG0) / 4;
+                    if (channelNumber < unit.getNumChannels()) {
+                        unit.setReg(channelNumber, value);
+                    }
+                    else {
+                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
+                    }
                 }
                 else {
-                    stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter channel register");
-                }
-            }
-            else {
-                switch (shiftedAddress) {
-                    case REGISTER_ADACLK:
-                        unit.setClk(value); break;
-                    case REGISTER_ADAMOD0:
-                        unit.setMod0(value); break;
-                    case REGISTER_ADAMOD1:
-                        unit.setMod1(value); break;
-                    case REGISTER_ADAMOD2:
-                        unit.setMod2(value); break;
-                    case REGISTER_ADAMOD3:
-                        unit.setMod3(value); break;
-                    case REGISTER_ADAMOD4:
-                        unit.setMod4(value); break;
-                    case REGISTER_ADAMOD5:
-                        unit.setMod5(value); break;
-                    case REGISTER_ADAREGSP:
-                        unit.setRegSp(value); break;
-                    case REGISTER_ADACOMREG0:
-                        unit.setComReg0(value); break;
-                    case REGISTER_ADACOMREG1:
-                        unit.setComReg1(value); break;
-                    default:
-                        stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    switch (shiftedAddress) {
+                        case REGISTER_ADACLK:
+                            unit.setClk(value); break;
+                        case REGISTER_ADAMOD0:
+                            unit.setMod0(value); break;
+                        case REGISTER_ADAMOD1:
+                            unit.setMod1(value); break;
+                        case REGISTER_ADAMOD2:
+                            unit.setMod2(value); break;
+                        case REGISTER_ADAMOD3:
+                            unit.setMod3(value); break;
+                        case REGISTER_ADAMOD4:
+                            unit.setMod4(value); break;
+                        case REGISTER_ADAMOD5:
+                            unit.setMod5(value); break;
+                        case REGISTER_ADAREGSP:
+                            unit.setRegSp(value); break;
+                        case REGISTER_ADACOMREG0:
+                            unit.setComReg0(value); break;
+                        case REGISTER_ADACOMREG1:
+                            unit.setComReg1(value); break;
+                        default:
+                            stop("Address 0x" + Format.asHex(addr, 8) + " is not a A/D converter register");
+                    }
                 }
+                break;
             }
-        } else if (addr >= REGISTER_IMCGA && addr < (REGISTER_IMCG11+4)) {
-            // IMCG registers.
-            TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
+            case BLOCK_IMCG: {
+                // IMCG registers.
+                TxInterruptController intc = (TxInterruptController)platform.getInterruptController();
 
-            intc.setImcg(addr-REGISTER_IMCGA,(value>>24)&0xFF);
-            intc.setImcg(addr-REGISTER_IMCGA+1,(value>>16)&0xFF);
-            intc.setImcg(addr-REGISTER_IMCGA+2,(value>>8)&0xFF);
-            intc.setImcg(addr-REGISTER_IMCGA+3,value&0xFF);
-            return;
-        }
-        else switch(addr) {
-            // Clock generator
-            case REGISTER_SYSCR:
-                ((TxClockGenerator)platform.getClockGenerator()).setSyscr(value); break;
-            case REGISTER_OSCCR:
-                ((TxClockGenerator)platform.getClockGenerator()).setOsccr(value); break;
-            case REGISTER_NMIFLG:
-                ((TxInterruptController)platform.getInterruptController()).setNmiFlg(value); break;
-            case REGISTER_RSTFLG:
-                ((TxClockGenerator)platform.getClockGenerator()).setRstflg(value); break;
-            case REGISTER_PLLSEL:
-                ((TxClockGenerator)platform.getClockGenerator()).setPllsel(value); break;
-            // Interrupt Controller
-            case REGISTER_ILEV:
-                ((TxInterruptController)platform.getInterruptController()).setIlev(value); break;
-            case REGISTER_IVR:
-                ((TxInterruptController)platform.getInterruptController()).setIvr31_9(value); break;
-            case REGISTER_INTCLR:
-                ((TxInterruptController)platform.getInterruptController()).setIntClr(value); break;
-            case REGISTER_ICRCG:
-                ((TxInterruptController)platform.getInterruptController()).setIcrcg(value); break;
-            case REGISTER_DREQFLG:
-                ((TxInterruptController)platform.getInterruptController()).setDreqflg(value); break;
-            // DMA controller
-            case REGISTER_DCR:
-                ((TxDmaController)platform.getDmaController()).setDcr(value); break;
-            case REGISTER_RSR:
-                ((TxDmaController)platform.getDmaController()).setRsr(value); break;
-            case REGISTER_DHR:
-                ((TxDmaController)platform.getDmaController()).setDhr(value); break;
+                intc.setImcg(addr-REGISTER_IMCGA,(value>>24)&0xFF);
+                intc.setImcg(addr-REGISTER_IMCGA+1,(value>>16)&0xFF);
+                intc.setImcg(addr-REGISTER_IMCGA+2,(value>>8)&0xFF);
+                intc.setImcg(addr-REGISTER_IMCGA+3,value&0xFF);
+                return;
+            }
             default:
-                // TODO if one interrupt has its active state set to "L", this should trigger a hardware interrupt
-                // See section 6.5.1.2 , 3rd bullet
-                if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
+                switch (addr) {
+                    // Clock generator
+                    case REGISTER_SYSCR:
+                        ((TxClockGenerator)platform.getClockGenerator()).setSyscr(value); break;
+                    case REGISTER_OSCCR:
+                        ((TxClockGenerator)platform.getClockGenerator()).setOsccr(value); break;
+                    case REGISTER_NMIFLG:
+                        ((TxInterruptController)platform.getInterruptController()).setNmiFlg(value); break;
+                    case REGISTER_RSTFLG:
+                        ((TxClockGenerator)platform.getClockGenerator()).setRstflg(value); break;
+                    case REGISTER_PLLSEL:
+                        ((TxClockGenerator)platform.getClockGenerator()).setPllsel(value); break;
+                    // Interrupt Controller
+                    case REGISTER_ILEV:
+                        ((TxInterruptController)platform.getInterruptController()).setIlev(value); break;
+                    case REGISTER_IVR:
+                        ((TxInterruptController)platform.getInterruptController()).setIvr31_9(value); break;
+                    case REGISTER_INTCLR:
+                        ((TxInterruptController)platform.getInterruptController()).setIntClr(value); break;
+                    case REGISTER_ICRCG:
+                        ((TxInterruptController)platform.getInterruptController()).setIcrcg(value); break;
+                    case REGISTER_DREQFLG:
+                        ((TxInterruptController)platform.getInterruptController()).setDreqflg(value); break;
+                    // DMA controller
+                    case REGISTER_DCR:
+                        ((TxDmaController)platform.getDmaController()).setDcr(value); break;
+                    case REGISTER_RSR:
+                        ((TxDmaController)platform.getDmaController()).setRsr(value); break;
+                    case REGISTER_DHR:
+                        ((TxDmaController)platform.getDmaController()).setDhr(value); break;
+                    default:
+                        // TODO if one interrupt has its active state set to "L", this should trigger a hardware interrupt
+                        // See section 6.5.1.2 , 3rd bullet
+                        if (logRegisterMessages) warn("Register 0x" + Format.asHex(addr, 8) + ": Store32 value 0x" + Format.asHex(value, 8) + " is not supported yet");
+                }
         }
     }
 }
@@ -1,13 +1,13 @@
 package com.nikonhacker.emu.peripherials.adConverter.tx;
 
 import com.nikonhacker.Format;
-import com.nikonhacker.emu.CycleCounterListener;
+import com.nikonhacker.emu.CycleDeadlineListener;
 import com.nikonhacker.emu.Emulator;
 import com.nikonhacker.emu.peripherials.adConverter.AdUnit;
 import com.nikonhacker.emu.peripherials.adConverter.AdValueProvider;
 import com.nikonhacker.emu.peripherials.interruptController.tx.TxInterruptController;
 
-public class TxAdUnit implements AdUnit, CycleCounterListener {
+public class TxAdUnit implements AdUnit, CycleDeadlineListener {
     private static final int CLK_ADCLK_MASK     = 0b00000111;
     private static final int CLK_TSH_MASK       = 0b11110000;
 
@@ -72,7 +72,6 @@ public class TxAdUnit implements AdUnit, CycleCounterListener {
     private int firstScanChannel, lastScanChannel, currentScanChannel;
 
     private long conversionIntervalCycles;
-    private int numCycles = 0;
 
     private int conversionNumber;
     private int conversionInterruptInterval;
@@ -90,8 +89,7 @@ public class TxAdUnit implements AdUnit, CycleCounterListener {
     }
 
     private void reset() {
-        emulator.removeCycleCounterListener(this);
-        numCycles = 0;
+        emulator.cancelCycleDeadline(this);
         reg = new int[9]; // 0..3 or 0..7 + 8 for SP
         isEoc[0] = false;
         isEoc[1] = false;
@@ -377,90 +375,85 @@ public class TxAdUnit implements AdUnit, CycleCounterListener {
             // determine conversion interval
             // TODO: this is plain wrong:
             conversionIntervalCycles = getClkAdclk();
-            // register timer (add is protected against multiple adds of the same listener)
-            emulator.addCycleCounterListener(this);
+            // schedule end of conversion, unless a conversion is already in progress
+            if (!emulator.isCycleDeadlineScheduled(this)) {
+                emulator.scheduleCycleDeadline(this, emulator.getTotalCycles() + conversionIntervalCycles);
+            }
         }
     }
 
 
     @Override
-    public boolean onCycleCountChange(long oldCount, int increment) {
-        numCycles += increment;
-        if (numCycles < conversionIntervalCycles) {
-            return true;
+    public long onCycleDeadline(long deadline) {
+        boolean continueNotifying = true;
+        if (isBusy[TOP_PRIORITY]) {
+            // top-priority conversion is handled first
+            // TODO: normally, a full conversion cycle should pass before this one starts
+            // top priority is always single fixed
+            setConvertedValue(REGSP, providers[getMod2Hpadch()].getAnalogValue(unitName, getMod2Hpadch()) & 0x3FF);
+            isEoc[TOP_PRIORITY] = true;
+            isBusy[TOP_PRIORITY] = false;
+            requestAdTopPriorityCompleteInterrupt();
+            if (!isBusy[NORMAL_PRIORITY]) {
+                continueNotifying = false;
+            }
         }
         else {
-            boolean continueNotifying = true;
-            numCycles -= conversionIntervalCycles;
-            if (isBusy[TOP_PRIORITY]) {
-                // top-priority conversion is handled first
-                // TODO: normally, a full conversion cycle should pass before this one starts
-                // top priority is always single fixed
-                setConvertedValue(REGSP, providers[getMod2Hpadch()].getAnalogValue(unitName, getMod2Hpadch()) & 0x3FF);
-                isEoc[TOP_PRIORITY] = true;
-                isBusy[TOP_PRIORITY] = false;
-                requestAdTopPriorityCompleteInterrupt();
-                if (!isBusy[NORMAL_PRIORITY]) {
-                    continueNotifying = false;
-                }
+            // Hopefully this reflects timings from the table at p 17-20 of the spec:
+            // "Relationships between A/D Conversion Modes, Interrupt Generation Timings and Flag Operations"
+            // And assignments described in tables at page 17-22 of the spec
+            if (currentScanChannel < lastScanChannel) {
+                // Scan still in progress
+                // target register is according to scanned channel
+                setConvertedValue(currentScanChannel, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
+                currentScanChannel++;
+                // Continue scanning
             }
             else {
-                // Hopefully this reflects timings from the table at p 17-20 of the spec:
-                // "Relationships between A/D Conversion Modes, Interrupt Generation Timings and Flag Operations"
-                // And assignments described in tables at page 17-22 of the spec
-                if (currentScanChannel < lastScanChannel) {
-                    // Scan still in progress
-                    // target register is according to scanned channel
-                    setConvertedValue(currentScanChannel, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
-                    currentScanChannel++;
-                    // Continue scanning
-                }
-                else {
-                    // Fixed, or channel scan complete
-                    if (isMod0Repeat()) {
-                        // Repeat mode
-                        if (!isMod0Scan()) {
-                            // Repeat fixed mode
-                            // target register is according to number of conversions performed
-                            setConvertedValue(conversionNumber, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
-                            conversionNumber++;
-                            if (conversionNumber == conversionInterruptInterval) {
-                                requestAdCompleteInterrupt();
-                                // <EOCF> is set with the same timing as this interrupt INTAD is generated
-                                // ADnMOD <EOCF> is set to "1."
-                                isEoc[NORMAL_PRIORITY] = true;
-                                // ADnMOD0 <ADBF> is not cleared to "0." It remains at "1."
-
-                                conversionNumber = 0;
-                            }
-                        }
-                        else {
-                            // Repeat scan mode, scan complete.
-                            // target register is according to scanned channel
-                            setConvertedValue(currentScanChannel, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
+                // Fixed, or channel scan complete
+                if (isMod0Repeat()) {
+                    // Repeat mode
+                    if (!isMod0Scan()) {
+                        // Repeat fixed mode
+                        // target register is according to number of conversions performed
+                        setConvertedValue(conversionNumber, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
+                        conversionNumber++;
+                        if (conversionNumber == conversionInterruptInterval) {
                             requestAdCompleteInterrupt();
+                            // <EOCF> is set with the same timing as this interrupt INTAD is generated
                             // ADnMOD <EOCF> is set to "1."
                             isEoc[NORMAL_PRIORITY] = true;
                             // ADnMOD0 <ADBF> is not cleared to "0." It remains at "1."
+
+                            conversionNumber = 0;
                         }
-                        // Start over
-                        currentScanChannel = firstScanChannel;
                     }
                     else {
-                        // Single fixed mode, or single channel scan complete
+                        // Repeat scan mode, scan complete.
                         // target register is according to scanned channel
                         setConvertedValue(currentScanChannel, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
-                        isEoc[NORMAL_PRIORITY] = true;
-                        isBusy[NORMAL_PRIORITY] = false;
                         requestAdCompleteInterrupt();
-                        if (!isBusy[TOP_PRIORITY]) {
-                            continueNotifying = false;
-                        }
+                        // ADnMOD <EOCF> is set to "1."
+                        isEoc[NORMAL_PRIORITY] = true;
+                        // ADnMOD0 <ADBF> is not cleared to "0." It remains at "1."
+                    }
+                    // Start over
+                    currentScanChannel = firstScanChannel;
+                }
+                else {
+                    // Single fixed mode, or single channel scan complete
+                    // target register is according to scanned channel
+                    setConvertedValue(currentScanChannel, providers[currentScanChannel].getAnalogValue(unitName, currentScanChannel) & 0x3FF);
+                    isEoc[NORMAL_PRIORITY] = true;
+                    isBusy[NORMAL_PRIORITY] = false;
+                    requestAdCompleteInterrupt();
+                    if (!isBusy[TOP_PRIORITY]) {
+                        continueNotifying = false;
                     }
                 }
             }
-            return continueNotifying;
         }
+        return continueNotifying ? deadline + conversionIntervalCycles : NO_DEADLINE;
     }
 
     private void setConvertedValue(int regNumber, int value) {
@@ -1,5 +1,6 @@
 package com.nikonhacker.emu.peripherials.clock.fr;
 
+import com.nikonhacker.Constants;
 import com.nikonhacker.Format;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.peripherials.clock.ClockGenerator;
@@ -324,7 +325,7 @@ public class FrClockGenerator extends ClockGenerator {
 //                break;
 //        }
 
-        platform.getMasterClock().requestResheduling();
+        platform.getMasterClock().requestResheduling(Constants.CHIP_FR);
     }
 
     // TODO is Main timer used outside of stabilization period ?
@@ -1,5 +1,6 @@
 package com.nikonhacker.emu.peripherials.clock.tx;
 
+import com.nikonhacker.Constants;
 import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.tx.TxCPUState;
 import com.nikonhacker.emu.Platform;
@@ -291,7 +292,7 @@ public class TxClockGenerator extends ClockGenerator {
                 break;
         }
 
-        platform.getMasterClock().requestResheduling();
+        platform.getMasterClock().requestResheduling(Constants.CHIP_TX);
         // System.out.println(toString());
     }
 
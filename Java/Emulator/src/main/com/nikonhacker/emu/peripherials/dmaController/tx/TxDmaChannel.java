@@ -420,6 +420,28 @@ public class TxDmaChannel {
             int value;
             // transfer is continuous for internal requests, or if it is specified as continuous
             boolean isContinuous = !isCcrExternalRequest() || !isCcrSioSingle();
+            if (bcr != 0 && !isCcrExternalRequest() && srcIncrement == dpsBytes && dstIncrement == dpsBytes
+                    && (dpsBytes == 1 || isCcrBig())
+                    && ((dar - sar) & 0xFFFFFFFFL) >= bcr
+                    && !memory.isListened(sar, bcr) && !memory.isListened(dar, bcr)) {
+                // Plain memory to plain memory without endian switchover nor overlap: transfer the whole block at once
+                memory.copy(sar, dar, bcr, DebuggableMemory.AccessSource.DMA);
+                int lastDar = dar + bcr - dpsBytes;
+                switch (dpsBytes) {
+                    case 1:
+                        txDmaController.setDhr(memory.loadUnsigned8(lastDar, null));
+                        break;
+                    case 2:
+                        txDmaController.setDhr(memory.loadUnsigned16(lastDar, null));
+                        break;
+                    case 4:
+                        txDmaController.setDhr(memory.load32(lastDar, null));
+                        break;
+                }
+                sar += bcr;
+                dar += bcr;
+                bcr = 0;
+            }
             boolean doLoop = true;
             while (bcr != 0 && doLoop) {
                 switch (dpsBytes) {
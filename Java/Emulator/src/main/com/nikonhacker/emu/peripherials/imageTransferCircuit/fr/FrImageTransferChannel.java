@@ -170,13 +170,9 @@ public class FrImageTransferChannel implements ImageTransferChannel {
         }
         
         for (int y=0; y<destinationImageHeight; y++) {
-            for (int x=0; x<destinationImageWidth; x++,to++,from++) {
-                memory.store8(to, 
-                              memory.loadUnsigned8(from, DebuggableMemory.AccessSource.IMGA), 
-                              DebuggableMemory.AccessSource.IMGA);
-            }
-            from += addFrom;
-            to += addTo;
+            memory.copy(from, to, destinationImageWidth, DebuggableMemory.AccessSource.IMGA);
+            from += sourceBufferWidth;
+            to += destinationBufferWidth;
         }
     }
 
@@ -191,10 +187,8 @@ public class FrImageTransferChannel implements ImageTransferChannel {
         }
         
         // fill image
-        for (int y=0; y<destinationImageHeight; y++, to += addTo) {
-            for (int x=0; x<destinationImageWidth; x++, to++) {
-                memory.store8(to, value, DebuggableMemory.AccessSource.IMGA);
-            }
+        for (int y=0; y<destinationImageHeight; y++, to += destinationBufferWidth) {
+            memory.fill(to, value, destinationImageWidth, DebuggableMemory.AccessSource.IMGA);
         }
     }
 }
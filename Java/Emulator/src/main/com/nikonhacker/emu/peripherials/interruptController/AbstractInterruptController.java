@@ -3,11 +3,14 @@ package com.nikonhacker.emu.peripherials.interruptController;
 import com.nikonhacker.emu.Platform;
 import com.nikonhacker.emu.interrupt.InterruptRequest;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public abstract class AbstractInterruptController implements InterruptController {
-    protected final List<InterruptRequest> interruptRequestQueue = new ArrayList<InterruptRequest>();
+    /** Pending requests. Requests with an interrupt number use it as slot */
+    protected PendingInterruptRequests pendingRequests;
+
+    /** Request queue, as stored by former versions. Only used to read old states */
+    private List<InterruptRequest> interruptRequestQueue;
 
     /**
      * TODO this is weird: interruptController requires a platform
@@ -17,8 +20,21 @@ public abstract class AbstractInterruptController implements InterruptController
 
     public AbstractInterruptController(Platform platform) {
         this.platform = platform;
+        this.pendingRequests = createPendingRequests();
     }
 
+    protected abstract PendingInterruptRequests createPendingRequests();
+
+    /**
+     * @return the slot of the given request in pendingRequests
+     */
+    protected abstract int getSlot(InterruptRequest interruptRequest);
+
+    /**
+     * @return the level of the given request in pendingRequests (0 is the highest priority)
+     */
+    protected abstract int getLevel(InterruptRequest interruptRequest);
+
     public abstract boolean request(int interruptNumber);
 
     /**
@@ -34,18 +50,7 @@ public abstract class AbstractInterruptController implements InterruptController
      */
     @Override
     public void removeRequest(int interruptNumber) {
-        synchronized (interruptRequestQueue) {
-            InterruptRequest requestToRemove = null;
-            for (InterruptRequest interruptRequest : interruptRequestQueue) {
-                if (interruptRequest.getInterruptNumber() == interruptNumber) {
-                    requestToRemove = interruptRequest;
-                    break;
-                }
-            }
-            if (requestToRemove != null) {
-                interruptRequestQueue.remove(requestToRemove);
-            }
-        }
+        pendingRequests.remove(interruptNumber);
     }
 
     /**
@@ -53,9 +58,7 @@ public abstract class AbstractInterruptController implements InterruptController
      * @param interruptRequest
      */
     public void removeRequest(InterruptRequest interruptRequest) {
-        synchronized (interruptRequestQueue) {
-            interruptRequestQueue.remove(interruptRequest);
-        }
+        pendingRequests.remove(getSlot(interruptRequest));
     }
 
     /**
@@ -63,7 +66,7 @@ public abstract class AbstractInterruptController implements InterruptController
      * @return
      */
     public boolean hasPendingRequests() {
-        return !interruptRequestQueue.isEmpty();
+        return !pendingRequests.isEmpty();
     }
 
     /**
@@ -71,18 +74,31 @@ public abstract class AbstractInterruptController implements InterruptController
      * @return
      */
     public InterruptRequest getNextRequest() {
-        synchronized (interruptRequestQueue) {
-            if (interruptRequestQueue.isEmpty()) {
-                return null;
-            }
-            else {
-                return interruptRequestQueue.get(0);
-            }
-        }
+        return pendingRequests.getHighest();
     }
 
+    /**
+     * @return a snapshot of pending requests, highest priority first
+     */
     public List<InterruptRequest> getInterruptRequestQueue() {
-        return interruptRequestQueue;
+        return pendingRequests.toList();
+    }
+
+    /**
+     * This method makes sure loading a state saved by a former version
+     * moves queued requests to the pending requests
+     */
+    protected Object readResolve() {
+        if (pendingRequests == null) {
+            pendingRequests = createPendingRequests();
+        }
+        if (interruptRequestQueue != null) {
+            for (InterruptRequest interruptRequest : interruptRequestQueue) {
+                pendingRequests.add(getSlot(interruptRequest), getLevel(interruptRequest), interruptRequest);
+            }
+            interruptRequestQueue = null;
+        }
+        return this;
     }
 
 }
@@ -20,6 +20,7 @@ public interface InterruptController {
 
     public InterruptRequest getNextRequest();
 
+    /** @return a snapshot of pending requests, highest priority first */
     List<InterruptRequest> getInterruptRequestQueue();
 
     public String getStatus();
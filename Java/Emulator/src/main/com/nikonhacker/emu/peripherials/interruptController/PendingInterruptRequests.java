@@ -0,0 +1,210 @@
+package com.nikonhacker.emu.peripherials.interruptController;
+
+import com.nikonhacker.emu.interrupt.InterruptRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Set of pending interrupt requests.
+ * Each request occupies a slot (typically its interrupt number), and is pending at a priority level
+ * (0 is the highest). Requests of the same level are ordered by slot number (lowest first).
+ * A bitmap of slots per level, plus a word telling which levels are not empty, make adding,
+ * removing and finding the highest priority request O(1).
+ * Changes (add, setLevel, remove, clear) take the object lock, as they update the level of a slot and the bitmaps
+ * together and may come from the GUI as well as from the CPU thread. Reads (isEmpty, getHighest, get, toList) don't,
+ * so the checks done by the CPU thread after each instruction never wait. The only change made by a read is
+ * getHighest() clearing the bit of a level found empty, hence the compare-and-set on level bits.
+ */
+public class PendingInterruptRequests {
+    public static final int MAX_LEVELS = 64;
+
+    private static final int NO_LEVEL = -1;
+
+    private final int numLevels;
+    private final int wordsPerLevel;
+
+    /**
+     * Bit (slot % 64) of word (level * wordsPerLevel + slot / 64) is set if the slot is pending at that level.
+     * Only written with the lock held
+     */
+    private final AtomicLongArray slotBits;
+
+    /** Bit n is set if level n may contain pending slots */
+    private final AtomicLong levelBits = new AtomicLong();
+
+    /** Level at which each slot is pending, or NO_LEVEL */
+    private final AtomicIntegerArray slotLevels;
+
+    /** Last request put in each slot */
+    private final AtomicReferenceArray<InterruptRequest> requests;
+
+    public PendingInterruptRequests(int numLevels, int numSlots) {
+        if (numLevels > MAX_LEVELS) {
+            throw new IllegalArgumentException("At most " + MAX_LEVELS + " levels are supported");
+        }
+        this.numLevels = numLevels;
+        this.wordsPerLevel = (numSlots + 63) >> 6;
+        slotBits = new AtomicLongArray(numLevels * wordsPerLevel);
+        slotLevels = new AtomicIntegerArray(numSlots);
+        for (int slot = 0; slot < numSlots; slot++) {
+            slotLevels.set(slot, NO_LEVEL);
+        }
+        requests = new AtomicReferenceArray<InterruptRequest>(numSlots);
+    }
+
+    /**
+     * Makes the given request pending, unless a request of same or higher priority is already pending in the same slot
+     * @return true if the request was added
+     */
+    public synchronized boolean add(int slot, int level, InterruptRequest request) {
+        int currentLevel = slotLevels.get(slot);
+        if (currentLevel != NO_LEVEL && currentLevel <= level) {
+            return false;
+        }
+        // Request must be visible before the bit pointing to it
+        requests.set(slot, request);
+        slotLevels.set(slot, level);
+        setSlotBit(level, slot);
+        if (currentLevel != NO_LEVEL) {
+            clearSlotBit(currentLevel, slot);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the request pending in the given slot, if any, to another level
+     */
+    public synchronized void setLevel(int slot, int level) {
+        int currentLevel = slotLevels.get(slot);
+        if (currentLevel != NO_LEVEL && currentLevel != level) {
+            slotLevels.set(slot, level);
+            setSlotBit(level, slot);
+            clearSlotBit(currentLevel, slot);
+        }
+    }
+
+    /**
+     * @return true if the given slot was pending
+     */
+    public synchronized boolean remove(int slot) {
+        int level = slotLevels.getAndSet(slot, NO_LEVEL);
+        if (level == NO_LEVEL) {
+            return false;
+        }
+        clearSlotBit(level, slot);
+        return true;
+    }
+
+    /**
+     * @return the request pending in the given slot, or null
+     */
+    public InterruptRequest get(int slot) {
+        return (slotLevels.get(slot) == NO_LEVEL) ? null : requests.get(slot);
+    }
+
+    /**
+     * This is a single volatile read, so it can be called after each instruction
+     */
+    public boolean isEmpty() {
+        return levelBits.get() == 0;
+    }
+
+    /**
+     * @return the highest priority request, or null if none is pending
+     */
+    public InterruptRequest getHighest() {
+        long levels;
+        while ((levels = levelBits.get()) != 0) {
+            int level = Long.numberOfTrailingZeros(levels);
+            int base = level * wordsPerLevel;
+            for (int word = 0; word < wordsPerLevel; word++) {
+                long bits = slotBits.get(base + word);
+                if (bits != 0) {
+                    return requests.get((word << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+            clearLevelBitIfEmpty(level);
+        }
+        return null;
+    }
+
+    /**
+     * @return a snapshot of pending requests, highest priority first
+     */
+    public List<InterruptRequest> toList() {
+        List<InterruptRequest> list = new ArrayList<InterruptRequest>();
+        for (int level = 0; level < numLevels; level++) {
+            int base = level * wordsPerLevel;
+            for (int word = 0; word < wordsPerLevel; word++) {
+                long bits = slotBits.get(base + word);
+                while (bits != 0) {
+                    list.add(requests.get((word << 6) + Long.numberOfTrailingZeros(bits)));
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return list;
+    }
+
+    public synchronized void clear() {
+        for (int slot = 0; slot < slotLevels.length(); slot++) {
+            remove(slot);
+        }
+    }
+
+    private void setSlotBit(int level, int slot) {
+        int index = level * wordsPerLevel + (slot >> 6);
+        slotBits.set(index, slotBits.get(index) | (1L << slot));
+        // Level must be flagged after the slot, so that a reader seeing the level finds the slot
+        setLevelBit(level);
+    }
+
+    private void clearSlotBit(int level, int slot) {
+        int index = level * wordsPerLevel + (slot >> 6);
+        long bits = slotBits.get(index) & ~(1L << slot);
+        slotBits.set(index, bits);
+        if (bits == 0) {
+            clearLevelBitIfEmpty(level);
+        }
+    }
+
+    private void setLevelBit(int level) {
+        long mask = 1L << level;
+        long levels;
+        do {
+            levels = levelBits.get();
+            if ((levels & mask) != 0) {
+                return;
+            }
+        } while (!levelBits.compareAndSet(levels, levels | mask));
+    }
+
+    private void clearLevelBitIfEmpty(int level) {
+        if (isLevelEmpty(level)) {
+            long mask = 1L << level;
+            long levels;
+            do {
+                levels = levelBits.get();
+            } while (!levelBits.compareAndSet(levels, levels & ~mask));
+            // A slot may have been set in the meantime, by a change while getHighest() was clearing the bit
+            if (!isLevelEmpty(level)) {
+                setLevelBit(level);
+            }
+        }
+    }
+
+    private boolean isLevelEmpty(int level) {
+        int base = level * wordsPerLevel;
+        for (int word = 0; word < wordsPerLevel; word++) {
+            if (slotBits.get(base + word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -10,8 +10,8 @@ import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.listener.fr.ExpeedIoListener;
 import com.nikonhacker.emu.peripherials.interruptController.AbstractInterruptController;
 import com.nikonhacker.emu.peripherials.interruptController.InterruptControllerException;
+import com.nikonhacker.emu.peripherials.interruptController.PendingInterruptRequests;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -114,6 +114,25 @@ public class FrInterruptController extends AbstractInterruptController {
         super(platform);
     }
 
+    /**
+     * Slots are interrupt numbers. Levels are NMIs by ICR, then other requests by ICR
+     */
+    @Override
+    protected PendingInterruptRequests createPendingRequests() {
+        return new PendingInterruptRequests(64, 256);
+    }
+
+    @Override
+    protected int getSlot(InterruptRequest interruptRequest) {
+        return interruptRequest.getInterruptNumber();
+    }
+
+    @Override
+    protected int getLevel(InterruptRequest interruptRequest) {
+        FrInterruptRequest frInterruptRequest = (FrInterruptRequest) interruptRequest;
+        return (frInterruptRequest.isNMI() ? 0 : 32) + (frInterruptRequest.getICR() & 0x1F);
+    }
+
     /**
      * This is the standard way to request an interrupt.
      * This method determines if it is a NMI and the respective levels and created the actual request
@@ -153,28 +172,8 @@ public class FrInterruptController extends AbstractInterruptController {
      * @return
      */
     public boolean request(InterruptRequest interruptRequest) {
-        FrInterruptRequest newInterruptRequest = (FrInterruptRequest) interruptRequest;
-        synchronized (interruptRequestQueue) {
-            for (InterruptRequest currentInterruptRequest : interruptRequestQueue) {
-                FrInterruptRequest currentFrInterruptRequest = (FrInterruptRequest) currentInterruptRequest;
-                if (currentFrInterruptRequest.getInterruptNumber() == newInterruptRequest.getInterruptNumber()) {
-                    // Same number. Keep highest priority one
-                    if ((newInterruptRequest.isNMI() && !currentFrInterruptRequest.isNMI())
-                            || (newInterruptRequest.getICR() < currentFrInterruptRequest.getICR())) {
-                        // New is better. Remove old one then go on adding
-                        interruptRequestQueue.remove(currentFrInterruptRequest);
-                        break;
-                    }
-                    else {
-                        // Old is better. No change to the list. Exit
-                        return false;
-                    }
-                }
-            }
-            interruptRequestQueue.add(newInterruptRequest);
-            Collections.sort(interruptRequestQueue);
-            return true;
-        }
+        // If a request with the same number is pending, the highest priority one is kept
+        return pendingRequests.add(getSlot(interruptRequest), getLevel(interruptRequest), interruptRequest);
     }
 
     public void removeEdgeTriggeredRequest(InterruptRequest interruptRequest) {
@@ -336,18 +335,13 @@ public class FrInterruptController extends AbstractInterruptController {
     }
 
     public void updateRequestICR(int interruptNumber, byte icr) {
-        synchronized (interruptRequestQueue) {
-            for (InterruptRequest interruptRequest : interruptRequestQueue) {
-                FrInterruptRequest frInterruptRequest = (FrInterruptRequest) interruptRequest;
-                if (frInterruptRequest.getInterruptNumber() == interruptNumber) {
-                    if (icr == 0x1F) {
-                        System.err.println("Disabling interrupt 0x" + Format.asHex(interruptNumber, 2));
-                    }
-                    frInterruptRequest.setICR(icr & 0x1F | 0x10);
-                    Collections.sort(interruptRequestQueue);
-                    break;
-                }
+        FrInterruptRequest frInterruptRequest = (FrInterruptRequest) pendingRequests.get(interruptNumber);
+        if (frInterruptRequest != null) {
+            if (icr == 0x1F) {
+                System.err.println("Disabling interrupt 0x" + Format.asHex(interruptNumber, 2));
             }
+            frInterruptRequest.setICR(icr & 0x1F | 0x10);
+            pendingRequests.setLevel(interruptNumber, getLevel(frInterruptRequest));
         }
     }
 
@@ -11,8 +11,7 @@ import com.nikonhacker.emu.interrupt.tx.Type;
 import com.nikonhacker.emu.memory.listener.tx.TxIoListener;
 import com.nikonhacker.emu.peripherials.dmaController.tx.TxDmaController;
 import com.nikonhacker.emu.peripherials.interruptController.AbstractInterruptController;
-
-import java.util.Collections;
+import com.nikonhacker.emu.peripherials.interruptController.PendingInterruptRequests;
 
 /**
  * This is based on the Toshiba hardware specification for TMP19A44FDA/FE/F10XBG
@@ -303,6 +302,26 @@ public class TxInterruptController extends AbstractInterruptController {
         hardwareInterruptDescription[127] = new InterruptDescription(null, "Reserved", NULL_REGISTER, NULL_SECTION, NULL_REGISTER, NULL_SECTION);
     }
 
+    /** Hardware interrupts use their number as slot, other types of requests use a slot per type after them */
+    private static final int NUM_HARDWARE_INTERRUPT_SLOTS = 128;
+
+    /** Maskable types have one level per interrupt level (0-7), exceptions only one */
+    private static final int[] TYPE_BASE_LEVEL = new int[Type.values().length];
+    private static final int NUM_LEVELS;
+
+    static {
+        int level = 0;
+        for (int priority = 16; priority >= 0; priority--) {
+            for (Type type : Type.values()) {
+                if (type.getPriority() == priority) {
+                    TYPE_BASE_LEVEL[type.ordinal()] = level;
+                    level += type.isMaskable() ? 8 : 1;
+                }
+            }
+        }
+        NUM_LEVELS = level;
+    }
+
     public TxInterruptController(Platform platform) {
         super(platform);
         for (int i=INTDMA0; i<=INTDMA7; i++) {
@@ -314,6 +333,32 @@ public class TxInterruptController extends AbstractInterruptController {
         }
     }
 
+    @Override
+    protected PendingInterruptRequests createPendingRequests() {
+        return new PendingInterruptRequests(NUM_LEVELS, NUM_HARDWARE_INTERRUPT_SLOTS + Type.values().length);
+    }
+
+    @Override
+    protected int getSlot(InterruptRequest interruptRequest) {
+        TxInterruptRequest txInterruptRequest = (TxInterruptRequest) interruptRequest;
+        if (txInterruptRequest.getType() == Type.HARDWARE_INTERRUPT) {
+            return txInterruptRequest.getInterruptNumber();
+        }
+        else {
+            return NUM_HARDWARE_INTERRUPT_SLOTS + txInterruptRequest.getType().ordinal();
+        }
+    }
+
+    /**
+     * Levels follow TxInterruptRequest.getPriority(): type first, then interrupt level ("7" is the highest)
+     */
+    @Override
+    protected int getLevel(InterruptRequest interruptRequest) {
+        TxInterruptRequest txInterruptRequest = (TxInterruptRequest) interruptRequest;
+        Type type = txInterruptRequest.getType();
+        return TYPE_BASE_LEVEL[type.ordinal()] + (type.isMaskable() ? 7 - (txInterruptRequest.getLevel() & 7) : 0);
+    }
+
     /**
      * Request a hardware interrupt with the given number
      * @param interruptNumber between 0 and 127d, See spec section 6.5.1.5
@@ -363,38 +408,9 @@ public class TxInterruptController extends AbstractInterruptController {
                 return false;
             }
         }
-        TxInterruptRequest newInterruptRequest = (TxInterruptRequest) interruptRequest;
-        synchronized (interruptRequestQueue) {
-            // See if it's not already in queue
-            for (InterruptRequest currentInterruptRequest : interruptRequestQueue) {
-                TxInterruptRequest currentTxInterruptRequest = (TxInterruptRequest) currentInterruptRequest;
-                if (currentTxInterruptRequest.getType() == newInterruptRequest.getType()) {
-                    // Same type. Only HW interrupt can have multiple instances
-                    if (newInterruptRequest.getType() != Type.HARDWARE_INTERRUPT) {
-                        // ignore new interrupt of same type as an already waiting one
-                        return false;
-                    }
-                    else {
-                        // 2 HW interrupts can coexist if they have different numbers
-                        if (newInterruptRequest.getInterruptNumber() == currentTxInterruptRequest.getInterruptNumber()) {
-                            // check priority and keep the highest one (whatever that means :-))
-                            if ((newInterruptRequest.getPriority() < currentTxInterruptRequest.getPriority())) {
-                                // New is better. Remove old one then go on adding
-                                interruptRequestQueue.remove(currentTxInterruptRequest);
-                                break;
-                            }
-                            else {
-                                // Old is better. No change to the list. Exit
-                                return false;
-                            }
-                        }
-                    }
-                }
-            }
-            interruptRequestQueue.add(newInterruptRequest);
-            Collections.sort(interruptRequestQueue);
-            return true;
-        }
+        // Only HW interrupts can have multiple instances, if they have different numbers.
+        // If a request is already pending in the same slot, the highest priority one is kept
+        return pendingRequests.add(getSlot(interruptRequest), getLevel(interruptRequest), interruptRequest);
     }
 
     public void removeEdgeTriggeredRequest(InterruptRequest interruptRequest) {
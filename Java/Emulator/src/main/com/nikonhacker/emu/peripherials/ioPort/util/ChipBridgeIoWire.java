@@ -0,0 +1,46 @@
+package com.nikonhacker.emu.peripherials.ioPort.util;
+
+import com.nikonhacker.emu.MasterClock;
+import com.nikonhacker.emu.peripherials.ioPort.Pin;
+
+/**
+ * This component connects a pin of one chip (to pin1) to a pin of another chip (to pin2).
+ * Values are forwarded through the MasterClock, so that they are set by the thread of the receiving chip
+ * when chips run in parallel. Each side reads the last value delivered to it.
+ */
+public class ChipBridgeIoWire extends Abstract2PinComponent {
+    private final MasterClock masterClock;
+
+    public ChipBridgeIoWire(String name, MasterClock masterClock, int chip1, int chip2) {
+        super(name);
+        this.masterClock = masterClock;
+        BridgePin bridgePin1 = new BridgePin(name + ".pin1", chip1, chip2);
+        BridgePin bridgePin2 = new BridgePin(name + ".pin2", chip2, chip1);
+        bridgePin1.otherPin = bridgePin2;
+        bridgePin2.otherPin = bridgePin1;
+        pin1 = bridgePin1;
+        pin2 = bridgePin2;
+    }
+
+    private class BridgePin extends Pin {
+        private final int chip;
+        private final int otherChip;
+        private       Pin otherPin;
+
+        public BridgePin(String name, int chip, int otherChip) {
+            super(name);
+            this.chip = chip;
+            this.otherChip = otherChip;
+        }
+
+        @Override
+        public void setInputValue(final int value) {
+            masterClock.post(chip, otherChip, new Runnable() {
+                @Override
+                public void run() {
+                    otherPin.setOutputValue(value);
+                }
+            });
+        }
+    }
+}
@@ -151,10 +151,8 @@ class DebuggableMemoryInputStream extends java.io.InputStream {
             len = size - pos;
         }
         if (len>0) {
-            // TODO optimize to use .loadBlock()
-            for (int i=0;i<len;i++) {
-                b[off++] = (byte)memory.loadUnsigned8(addr + (pos++), DebuggableMemory.AccessSource.IMGA);
-            }
+            memory.loadBlock(addr + pos, b, off, len, DebuggableMemory.AccessSource.IMGA);
+            pos += len;
         }
         return len;
     }
@@ -545,15 +543,17 @@ public class FrJpegCodec implements JpegCodec {
         // use byte array for performance reason
         final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
 
-        final int addY = widthY - width;
-        final int addCbCr = widthCbCr - (width>>1);
+        // each row is converted in buffers, then stored at once
+        final byte[] rowY = new byte[(width + 1) & ~1];
+        final byte[] rowCb = new byte[rowY.length >> 1];
+        final byte[] rowCr = new byte[rowY.length >> 1];
         int offsetY = addrY;
         int offsetCb = addrCb;
         int offsetCr = addrCr;
 
         // create output data and obey alignment
-        for (int pixel = 0; pixel < pixels.length; offsetY += addY, offsetCb += addCbCr, offsetCr += addCbCr) {
-            for (int i=0; i< width; i+=2, pixel += 6, offsetY+=2) {
+        for (int pixel = 0; pixel < pixels.length; offsetY += widthY, offsetCb += widthCbCr, offsetCr += widthCbCr) {
+            for (int i=0; i< width; i+=2, pixel += 6) {
                 /* coderat: this implementation was selected after performance tests
                    I use canonical calculation formula, because it is closest to original
                    But still 1-2 values out of 256 differs from original result (are rounded higher)
@@ -568,12 +568,15 @@ public class FrJpegCodec implements JpegCodec {
                 final int g2 = ((int)pixels[pixel+4] & 0xFF);
                 final int r2 = ((int)pixels[pixel+5] & 0xFF);
 
-                // TODO optimize to use .storeBlock(), because can be up to 16Mpix
                 // coderat: no clamp is need here, because conversion formules RGB->YCbCr are already biased
-                memory.store16(offsetY, (getY(r1, g1, b1)<<8)|getY(r2, g2, b2), DebuggableMemory.AccessSource.IMGA);
-                memory.store8(offsetCb++, getCb2(r1, g1, b1, r2, g2, b2), DebuggableMemory.AccessSource.IMGA);
-                memory.store8(offsetCr++, getCr2(r1, g1, b1, r2, g2, b2), DebuggableMemory.AccessSource.IMGA);
+                rowY[i] = (byte) getY(r1, g1, b1);
+                rowY[i + 1] = (byte) getY(r2, g2, b2);
+                rowCb[i >> 1] = (byte) getCb2(r1, g1, b1, r2, g2, b2);
+                rowCr[i >> 1] = (byte) getCr2(r1, g1, b1, r2, g2, b2);
             }
+            memory.storeBlock(offsetY, rowY, 0, rowY.length, DebuggableMemory.AccessSource.IMGA);
+            memory.storeBlock(offsetCb, rowCb, 0, rowCb.length, DebuggableMemory.AccessSource.IMGA);
+            memory.storeBlock(offsetCr, rowCr, 0, rowCr.length, DebuggableMemory.AccessSource.IMGA);
         }
         return true;
     }
@@ -1,9 +1,15 @@
 package com.nikonhacker.emu.peripherials.programmableTimer;
 
-import com.nikonhacker.emu.Clockable;
+import com.nikonhacker.emu.EventClockable;
 import com.nikonhacker.emu.Platform;
 
-public abstract class ProgrammableTimer implements Clockable {
+/**
+ * Timers are only "clocked" by the MasterClock at the tick of their next event (underflow, compare match, ...).
+ * In between, currentValue is only brought up to date when it is read or the timer is reconfigured.
+ * Subclasses must call updateCurrentValue() before any access to currentValue or change to their configuration,
+ * and updateSchedule() after any change that can move their next event.
+ */
+public abstract class ProgrammableTimer implements EventClockable {
 
     /** Lower boundary of sustainable interval between emulator scheduler ticks */
     @Deprecated
@@ -15,7 +21,7 @@ public abstract class ProgrammableTimer implements Clockable {
     /** This is the number of this timer */
     protected int timerNumber;
 
-    /** This is the current value of this timer */
+    /** This is the current value of this timer, as of the last call to updateCurrentValue() or onClockTicks() */
     protected int currentValue;
 
     /**
@@ -50,15 +56,20 @@ public abstract class ProgrammableTimer implements Clockable {
     }
 
     public int getCurrentValue() {
+        updateCurrentValue();
         return currentValue;
     }
 
     public void setCurrentValue(int currentValue) {
+        updateCurrentValue();
         this.currentValue = currentValue;
+        updateSchedule();
     }
 
     public void setActive(boolean active) {
+        updateCurrentValue();
         this.active = active;
+        updateSchedule();
     }
 
     public boolean isActive() {
@@ -70,13 +81,45 @@ public abstract class ProgrammableTimer implements Clockable {
     }
 
     protected void updateFrequency() {
-        platform.getMasterClock().requestResheduling();
+        platform.getMasterClock().requestResheduling(this);
     }
 
     protected void unRegister() {
+        updateCurrentValue();
         platform.getMasterClock().remove(this);
     }
 
+    /**
+     * Applies the ticks elapsed since the last event to currentValue
+     */
+    protected void updateCurrentValue() {
+        int ticks = platform.getMasterClock().consumeElapsedTicks(this);
+        if (ticks > 0) {
+            skipTicks(ticks);
+        }
+    }
+
+    /**
+     * Requests the MasterClock to compute the time of the next event again
+     */
+    protected void updateSchedule() {
+        platform.getMasterClock().requestResheduling(this);
+    }
+
+    /**
+     * Applies the given number of ticks to currentValue. No event can occur during these ticks
+     * @param ticks
+     */
+    protected abstract void skipTicks(int ticks);
+
+    @Override
+    public Object onClockTicks(int ticks) throws Exception {
+        if (ticks > 1) {
+            skipTicks(ticks - 1);
+        }
+        return onClockTick();
+    }
+
     @Override
     public String toString() {
         return "ProgrammableTimer #" + timerNumber + (active?" (active)":" (inactive) @" + getFrequencyHz() + "Hz");
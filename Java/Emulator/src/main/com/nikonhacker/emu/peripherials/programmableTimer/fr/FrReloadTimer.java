@@ -50,6 +50,7 @@ public class FrReloadTimer extends ProgrammableTimer {
 
 
     public int getTmr() {
+        updateCurrentValue();
         return currentValue;
     }
 
@@ -73,6 +74,9 @@ public class FrReloadTimer extends ProgrammableTimer {
         // GATE: ignored
         // OUTL: ignored
 
+        // bring counter up to date before anything changes
+        updateCurrentValue();
+
         // read old values
         int oldDivider = getDivider();
         boolean wasEnabled = isTmcsrCnteSet();
@@ -106,6 +110,8 @@ public class FrReloadTimer extends ProgrammableTimer {
         if (isTmcsrTrgSet()) {
             currentValue = tmrlra;
         }
+
+        updateSchedule();
     }
 
     private int TMCSR_TRGM_MASK() {
@@ -176,6 +182,25 @@ public class FrReloadTimer extends ProgrammableTimer {
         return ((FrClockGenerator)platform.getClockGenerator()).getPClkFrequency() / getDivider();
     }
 
+    /**
+     * The next event is the tick making the counter reach 0
+     */
+    @Override
+    public int getTicksToNextEvent() {
+        if (!active) {
+            return Integer.MAX_VALUE;
+        }
+        long ticks = currentValue & 0xFFFFFFFFL;
+        return (ticks == 0 || ticks > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) ticks;
+    }
+
+    @Override
+    protected void skipTicks(int ticks) {
+        if (active) {
+            currentValue -= ticks;
+        }
+    }
+
     @Override
     public Object onClockTick() throws Exception {
         if (active) {
@@ -42,6 +42,18 @@ public class FrReloadTimer32 extends FrReloadTimer {
         platform.getSharedInterruptCircuit().removeRequest(FrInterruptController.RELOAD_TIMER_32_INTERRUPT_REQUEST_NR, 20+timerNumber);
     }
 
+    /**
+     * The next event is the tick after the counter reached 0
+     */
+    @Override
+    public int getTicksToNextEvent() {
+        if (!active) {
+            return Integer.MAX_VALUE;
+        }
+        long ticks = (currentValue & 0xFFFFFFFFL) + 1;
+        return (ticks > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) ticks;
+    }
+
     /**
      * Overridden because it seems there is a slight difference in count:
      * - round numbers like 25000 are loaded to 0x48 timer or 0x58.
@@ -114,6 +114,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
      * @param tbtrun
      */
     public void setTbtrun(int tbtrun) {
+        updateCurrentValue();
         this.tbtrun = tbtrun;
 
         if (isTbtrunTbtcapSet()) {
@@ -127,6 +128,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
             currentValue = 0;
         }
         updateOperate();
+        updateSchedule();
     }
 
     private boolean isTbtrunTbtrunSet() {
@@ -151,6 +153,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
     }
 
     public void setTbtcr(int tbtcr) {
+        updateCurrentValue();
         int oldDivider = getDivider();
         this.tbtcr = tbtcr;
         int newDivider = getDivider();
@@ -216,6 +219,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
     }
 
     public void setCmpctl(int compareChannel, int cmpctl) {
+        updateCurrentValue();
         this.cmpctl[compareChannel] = cmpctl;
 
         // The role of the timer flip-flop is not well described in the Input Capture spec (chap 12).
@@ -234,6 +238,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
             default :
                 // don't care
         }
+        updateSchedule();
     }
 
     private boolean isCmpctlCmpenSet(int compareChannel) {
@@ -258,6 +263,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
     }
 
     public void setTccmp(int compareChannel, int tccmp) {
+        updateCurrentValue();
         if (isCmpctlCmprdeSet(compareChannel)) {
             // Double buffering
             this.tccmpBuf[compareChannel] = tccmp;
@@ -266,6 +272,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
             // No double buffering
             this.tccmp[compareChannel] = tccmp;
         }
+        updateSchedule();
     }
 
 
@@ -281,6 +288,7 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
 
     // TODO use this
     public void performCapture(int captureChannel) {
+        updateCurrentValue();
         tccap[captureChannel] = currentValue;
         platform.getInterruptController().request(TxInterruptController.INTCAP0 + captureChannel);
     }
@@ -288,7 +296,9 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
 
     @Override
     public void onCpuPowerModeChange(TxCPUState.PowerMode powerMode) {
+        updateCurrentValue();
         updateOperate();
+        updateSchedule();
     }
 
     @Override
@@ -320,6 +330,38 @@ public class TxInputCaptureTimer extends ProgrammableTimer implements CpuPowerMo
         return ((TxClockGenerator)platform.getClockGenerator()).getFt0Hz() / getDivider();
     }
 
+    /**
+     * The next event is the first tick making the counter match an enabled compare value, or overflow
+     */
+    @Override
+    public int getTicksToNextEvent() {
+        if (!operate) {
+            return Integer.MAX_VALUE;
+        }
+        long ticks = getTicksToValue(0);
+        for (int compareChannel = 0; compareChannel < TxIoListener.NUM_COMPARE_CHANNEL; compareChannel++) {
+            if (isCmpctlCmpenSet(compareChannel)) {
+                ticks = Math.min(ticks, getTicksToValue(tccmp[compareChannel]));
+            }
+        }
+        return (int) Math.min(ticks, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the number of increments for the 32-bit counter to reach the given value, between 1 and 2^32
+     */
+    private long getTicksToValue(int value) {
+        long ticks = (value - currentValue) & 0xFFFFFFFFL;
+        return (ticks == 0) ? 0x100000000L : ticks;
+    }
+
+    @Override
+    protected void skipTicks(int ticks) {
+        if (operate) {
+            currentValue += ticks;
+        }
+    }
+
     @Override
     public Object onClockTick() {
         if (operate) {
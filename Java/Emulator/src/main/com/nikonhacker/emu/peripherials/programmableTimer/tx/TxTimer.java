@@ -127,6 +127,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
      * @param tbrun
      */
     public void setTbrun(int tbrun) {
+        updateCurrentValue();
         this.tbrun = tbrun;
 
         // if counter is enabled and prescaler is enabled
@@ -140,6 +141,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
             currentValue = 0;
         }
         updateOperate();
+        updateSchedule();
     }
 
     private boolean isTbrunTbprunSet() {
@@ -156,11 +158,13 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public void setTbcr(int tbcr) {
+        updateCurrentValue();
         this.tbcr = tbcr;
         if (isTbcrTbsyncSet()) {
             throw new RuntimeException("Attempt to configure " + getName() + " in synchronization mode. This is not supported for now.");
         }
         updateOperate();
+        updateSchedule();
     }
 
     private boolean isTbcrI2tbSet() {
@@ -180,6 +184,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public void setTbmod(int tbmod) {
+        updateCurrentValue();
         int oldTbclk = getTbmodTbclk();
         this.tbmod = tbmod;
         int newTbclk = getTbmodTbclk();
@@ -211,6 +216,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
         }
         // Spec says TBnCLK "**Clears** and controls the TMRBn up-counter."
         currentValue = 0;
+        updateSchedule();
     }
 
     public boolean isTbmodTbcp0Set() {
@@ -312,12 +318,15 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public int getTbuc() {
+        updateCurrentValue();
         return currentValue;
     }
 
     public void setTbuc(int tbuc) {
+        updateCurrentValue();
         // only 16-bit are writable
         this.currentValue = tbuc & 0xFFFF;
+        updateSchedule();
     }
 
     private void toggleFf0() {
@@ -341,6 +350,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public void setTbrg0(int tbrg0) {
+        updateCurrentValue();
         // only 16-bit are writable
         tbrg0 = tbrg0 & 0xFFFF;
         // "If double buffering is enabled, data is transferred from register buffer 0 to the TB0RG0/1
@@ -353,6 +363,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
             // No double buffering
             this.tbrg0 = tbrg0;
         }
+        updateSchedule();
     }
 
     public int getTbrg1() {
@@ -360,8 +371,10 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public void setTbrg1(int tbrg1) {
+        updateCurrentValue();
         // only 16-bit are writable
         this.tbrg1 = tbrg1 & 0xFFFF;
+        updateSchedule();
     }
 
     public int getTbcp0() {
@@ -373,6 +386,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public void performCapture0() {
+        updateCurrentValue();
         setTbcp0(currentValue);
         if (isTbffcrTbc0t1Set()) {
             toggleFf0();
@@ -388,6 +402,7 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
     }
 
     public void performCapture1() {
+        updateCurrentValue();
         setTbcp1(currentValue);
         if (isTbffcrTbc1t1Set()) {
             toggleFf0();
@@ -396,7 +411,9 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
 
     @Override
     public void onCpuPowerModeChange(TxCPUState.PowerMode powerMode) {
+        updateCurrentValue();
         updateOperate();
+        updateSchedule();
     }
 
     @Override
@@ -432,6 +449,31 @@ public class TxTimer extends ProgrammableTimer implements CpuPowerModeChangeList
         return TxInterruptController.INTTB0 + timerNumber + (timerNumber>0xF ? TxInterruptController.INTTB10-TxInterruptController.INTTBF-1 : 0);
     }
 
+    /**
+     * The next event is the first tick making the counter overflow or match one of the compare values
+     */
+    @Override
+    public int getTicksToNextEvent() {
+        if (!operate) {
+            return Integer.MAX_VALUE;
+        }
+        int ticks = MAX_COUNTER_VALUE + 1 - currentValue;
+        if (tbrg0 > currentValue) {
+            ticks = Math.min(ticks, tbrg0 - currentValue);
+        }
+        if (tbrg1 > currentValue) {
+            ticks = Math.min(ticks, tbrg1 - currentValue);
+        }
+        return Math.max(1, ticks);
+    }
+
+    @Override
+    protected void skipTicks(int ticks) {
+        if (operate) {
+            currentValue += ticks;
+        }
+    }
+
     @Override
     public Object onClockTick() {
 //        System.out.println(getName() + (operate?" operates":" doesn't operate"));
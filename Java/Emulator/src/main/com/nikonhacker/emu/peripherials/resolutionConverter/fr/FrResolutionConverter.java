@@ -310,13 +310,9 @@ public class FrResolutionConverter implements ResolutionConverter {
         }
         
         for (int y=0; y<destinationImageHeight; y++) {
-            for (int x=0; x<destinationImageWidth; x++,to++,from++) {
-                memory.store8(to, 
-                              memory.loadUnsigned8(from, DebuggableMemory.AccessSource.IMGA), 
-                              DebuggableMemory.AccessSource.IMGA);
-            }
-            from += addFrom;
-            to += addTo;
+            memory.copy(from, to, destinationImageWidth, DebuggableMemory.AccessSource.IMGA);
+            from += sourceBufferWidth;
+            to += destinationBufferWidth;
         }
         return true;
     }
@@ -38,7 +38,8 @@ public class LensPrototype extends LensDevice implements Clockable {
 
     private int baudRate = SLOW_BAUD_RATE; // Bps
 
-    // TODO workaround for MasterClock.prepareSchedule() broken calculations
+    // TODO workaround for the former LCM-based MasterClock schedule, which could not handle low frequencies.
+    // Could now be replaced by the actual frequency
     // (setting too low frequency results very low speed (5cps), so use higher frequency with counter)
     private int timerCount;
 
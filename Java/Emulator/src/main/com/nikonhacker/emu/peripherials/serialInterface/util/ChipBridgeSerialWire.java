@@ -0,0 +1,52 @@
+package com.nikonhacker.emu.peripherials.serialInterface.util;
+
+import com.nikonhacker.emu.MasterClock;
+import com.nikonhacker.emu.peripherials.serialInterface.SerialDevice;
+
+/**
+ * This wire connects a serial device of one chip to a serial device of another chip.
+ * Calls are forwarded through the MasterClock, so that they are run by the thread of the target chip
+ * when chips run in parallel. One wire must be used for each direction.
+ */
+public class ChipBridgeSerialWire extends SerialWire {
+    private final MasterClock masterClock;
+    private final int         sourceChip;
+    private final int         targetChip;
+
+    public ChipBridgeSerialWire(String wireName, SerialDevice realTargetDevice, MasterClock masterClock, int sourceChip, int targetChip) {
+        super(wireName, realTargetDevice);
+        this.masterClock = masterClock;
+        this.sourceChip = sourceChip;
+        this.targetChip = targetChip;
+    }
+
+    @Override
+    public void write(final Integer value) {
+        masterClock.post(sourceChip, targetChip, new Runnable() {
+            @Override
+            public void run() {
+                targetDevice.write(value);
+            }
+        });
+    }
+
+    @Override
+    public void readHalfDuplex() {
+        masterClock.post(sourceChip, targetChip, new Runnable() {
+            @Override
+            public void run() {
+                targetDevice.readHalfDuplex();
+            }
+        });
+    }
+
+    @Override
+    public void onBitNumberChange(final SerialDevice serialDevice, final int numBits) {
+        masterClock.post(sourceChip, targetChip, new Runnable() {
+            @Override
+            public void run() {
+                targetDevice.onBitNumberChange(serialDevice, numBits);
+            }
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.nikonhacker.emu.trigger.condition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of break conditions, as checked by an Emulator after each instruction.
+ * Conditions involving a breakpoint are indexed by address, in a bitmap per 64KB page of code (a null page
+ * meaning no breakpoint in it), so that checking the current pc costs a couple of array loads. Conditions only made
+ * of watched memory values need to be evaluated after a watched word was written. Conditions testing registers are
+ * compiled in a RegisterConditionEvaluator. Other conditions have to be evaluated after each instruction.
+ * Adding a condition returns a new index sharing untouched pages (copy-on-write), so that the emulator thread
+ * can use the instance it read without locking, while other threads publish a new one.
+ */
+public final class BreakConditionIndex {
+    private static final int OFFSET_BITS = 16;
+    private static final int NUM_PAGES   = 0x10000;
+    /** One bit per halfword */
+    private static final int WORDS_PER_PAGE = (1 << OFFSET_BITS) >>> 7;
+
+    private static final BreakCondition[] NO_CONDITIONS = new BreakCondition[0];
+
+    public static final BreakConditionIndex EMPTY = new BreakConditionIndex(new long[NUM_PAGES][], Collections.<Integer, BreakCondition[]>emptyMap(), NO_CONDITIONS, NO_CONDITIONS, NO_CONDITIONS);
+
+    private final long[][]                       pages;
+    private final Map<Integer, BreakCondition[]> pcConditions;
+    private final BreakCondition[]               memoryConditions;
+    private final BreakCondition[]               registerConditions;
+    private final BreakCondition[]               otherConditions;
+
+    /** Memory values read by each of memoryConditions */
+    private final MemoryValueBreakCondition[][] memoryConditionValues;
+
+    /** Compiled form of registerConditions, or null if there are none */
+    private final RegisterConditionEvaluator registerConditionEvaluator;
+
+    private BreakConditionIndex(long[][] pages, Map<Integer, BreakCondition[]> pcConditions, BreakCondition[] memoryConditions, BreakCondition[] registerConditions, BreakCondition[] otherConditions) {
+        this.pages = pages;
+        this.pcConditions = pcConditions;
+        this.memoryConditions = memoryConditions;
+        this.registerConditions = registerConditions;
+        this.otherConditions = otherConditions;
+        memoryConditionValues = new MemoryValueBreakCondition[memoryConditions.length][];
+        for (int i = 0; i < memoryConditions.length; i++) {
+            memoryConditionValues[i] = getMemoryValues(memoryConditions[i]);
+        }
+        this.registerConditionEvaluator = (registerConditions.length == 0) ? null : new RegisterConditionEvaluator(registerConditions);
+    }
+
+    /**
+     * @return a new index containing the conditions of this one, plus the given one
+     */
+    public BreakConditionIndex with(BreakCondition condition) {
+        Integer pc = getBreakPointPc(condition);
+        if (pc == null) {
+            if (isWatchedMemoryOnly(condition)) {
+                return new BreakConditionIndex(pages, pcConditions, append(memoryConditions, condition), registerConditions, otherConditions);
+            }
+            if (RegisterConditionEvaluator.isCompilable(condition)) {
+                return new BreakConditionIndex(pages, pcConditions, memoryConditions, append(registerConditions, condition), otherConditions);
+            }
+            return new BreakConditionIndex(pages, pcConditions, memoryConditions, registerConditions, append(otherConditions, condition));
+        }
+
+        pc = pc & ~1;
+        Map<Integer, BreakCondition[]> newPcConditions = new HashMap<Integer, BreakCondition[]>(pcConditions);
+        BreakCondition[] conditions = pcConditions.get(pc);
+        newPcConditions.put(pc, (conditions == null) ? new BreakCondition[]{condition} : append(conditions, condition));
+
+        long[][] newPages = pages.clone();
+        int pte = pc >>> OFFSET_BITS;
+        newPages[pte] = (pages[pte] == null) ? new long[WORDS_PER_PAGE] : pages[pte].clone();
+        newPages[pte][(pc & ((1 << OFFSET_BITS) - 1)) >>> 7] |= 1L << (pc >>> 1);
+
+        return new BreakConditionIndex(newPages, newPcConditions, memoryConditions, registerConditions, otherConditions);
+    }
+
+    public boolean isEmpty() {
+        return pcConditions.isEmpty() && memoryConditions.length == 0 && registerConditions.length == 0 && otherConditions.length == 0;
+    }
+
+    /**
+     * @return true if some conditions are not tied to a breakpoint, and may have to be evaluated after each instruction
+     */
+    public boolean hasOtherConditions() {
+        return memoryConditions.length != 0 || registerConditions.length != 0 || otherConditions.length != 0;
+    }
+
+    /**
+     * @param pc the address of an instruction
+     * @return true if conditions are tied to a breakpoint at that address
+     */
+    public boolean isBreakPoint(int pc) {
+        long[] page = pages[pc >>> OFFSET_BITS];
+        return page != null && (page[(pc & ((1 << OFFSET_BITS) - 1)) >>> 7] & (1L << (pc >>> 1))) != 0;
+    }
+
+    /**
+     * @param pc the address of an instruction for which {@link #isBreakPoint(int)} returned true
+     * @return the conditions tied to a breakpoint at that address
+     */
+    public BreakCondition[] getPcConditions(int pc) {
+        BreakCondition[] conditions = pcConditions.get(pc & ~1);
+        return (conditions == null) ? NO_CONDITIONS : conditions;
+    }
+
+    /**
+     * @return the conditions that can only change when a watched memory word is written
+     */
+    public BreakCondition[] getMemoryConditions() {
+        return memoryConditions;
+    }
+
+    /**
+     * @param index the index of a condition in getMemoryConditions()
+     * @return true if a word read by that condition was written since it was last evaluated
+     */
+    public boolean isMemoryConditionOutdated(int index) {
+        for (MemoryValueBreakCondition memoryValue : memoryConditionValues[index]) {
+            if (!memoryValue.isUpToDate()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the evaluator of conditions testing registers, or null if there are none
+     */
+    public RegisterConditionEvaluator getRegisterConditionEvaluator() {
+        return registerConditionEvaluator;
+    }
+
+    public BreakCondition[] getOtherConditions() {
+        return otherConditions;
+    }
+
+    public List<BreakCondition> getAllConditions() {
+        List<BreakCondition> conditions = new ArrayList<BreakCondition>();
+        for (BreakCondition[] pcConditionArray : pcConditions.values()) {
+            conditions.addAll(Arrays.asList(pcConditionArray));
+        }
+        conditions.addAll(Arrays.asList(memoryConditions));
+        conditions.addAll(Arrays.asList(registerConditions));
+        conditions.addAll(Arrays.asList(otherConditions));
+        return conditions;
+    }
+
+    /**
+     * @return true if reaching the breakpoint is enough for the given condition to match
+     */
+    public static boolean isBreakPointOnly(BreakCondition condition) {
+        if (condition instanceof AndCondition) {
+            List<BreakCondition> conditions = ((AndCondition) condition).getConditions();
+            return conditions.size() == 1 && conditions.get(0) instanceof BreakPointCondition;
+        }
+        return condition instanceof BreakPointCondition;
+    }
+
+    /**
+     * @return true if the given condition only depends on memory values that are watched
+     */
+    private static boolean isWatchedMemoryOnly(BreakCondition condition) {
+        if (condition instanceof MemoryValueBreakCondition) {
+            return ((MemoryValueBreakCondition) condition).isWatched();
+        }
+        if (condition instanceof AndCondition) {
+            List<BreakCondition> conditions = ((AndCondition) condition).getConditions();
+            for (BreakCondition subCondition : conditions) {
+                if (!(subCondition instanceof MemoryValueBreakCondition) || !((MemoryValueBreakCondition) subCondition).isWatched()) {
+                    return false;
+                }
+            }
+            return !conditions.isEmpty();
+        }
+        return false;
+    }
+
+    /**
+     * @param condition a condition accepted by isWatchedMemoryOnly()
+     */
+    private static MemoryValueBreakCondition[] getMemoryValues(BreakCondition condition) {
+        if (condition instanceof MemoryValueBreakCondition) {
+            return new MemoryValueBreakCondition[]{(MemoryValueBreakCondition) condition};
+        }
+        List<BreakCondition> conditions = ((AndCondition) condition).getConditions();
+        return conditions.toArray(new MemoryValueBreakCondition[conditions.size()]);
+    }
+
+    private static BreakCondition[] append(BreakCondition[] conditions, BreakCondition condition) {
+        BreakCondition[] newConditions = Arrays.copyOf(conditions, conditions.length + 1);
+        newConditions[conditions.length] = condition;
+        return newConditions;
+    }
+
+    /**
+     * @return the address of the breakpoint the given condition requires, or null if it can match anywhere
+     */
+    private static Integer getBreakPointPc(BreakCondition condition) {
+        if (condition instanceof BreakPointCondition) {
+            return ((BreakPointCondition) condition).getPc();
+        }
+        if (condition instanceof AndCondition) {
+            for (BreakCondition subCondition : ((AndCondition) condition).getConditions()) {
+                if (subCondition instanceof BreakPointCondition) {
+                    return ((BreakPointCondition) subCondition).getPc();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -2,16 +2,29 @@ package com.nikonhacker.emu.trigger.condition;
 
 import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
+import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.Memory;
+import com.nikonhacker.emu.memory.listener.WordWriteListener;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 
-public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition implements BreakCondition {
+/**
+ * Condition on the value of a memory word.
+ * Once watched, the condition registers itself to be notified of writes to that word, and the result of the
+ * last evaluation is reused as long as the word is not written to.
+ */
+public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition implements BreakCondition, WordWriteListener {
     private int address = 0;
     private int mask = 0xFFFFFFFF;
     private boolean isChangeDetection = true;
     private boolean negate = false;
     private int value = 0;
 
+    /** Memory notifying writes to the address, or null if the value must be read at each evaluation */
+    private transient DebuggableMemory watchedMemory;
+    /** False if the value may have changed since last evaluation */
+    private transient volatile boolean upToDate;
+    private transient boolean lastResult;
+
     public MemoryValueBreakCondition(BreakTrigger breakTrigger) {
         super(breakTrigger);
     }
@@ -21,7 +34,9 @@ public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition imp
     }
 
     public void setAddress(int address) {
+        unwatch();
         this.address = address;
+        upToDate = false;
     }
 
     public int getMask() {
@@ -30,6 +45,7 @@ public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition imp
 
     public void setMask(int mask) {
         this.mask = mask;
+        upToDate = false;
     }
 
     public boolean isChangeDetection() {
@@ -38,6 +54,7 @@ public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition imp
 
     public void setChangeDetection(boolean changeDetection) {
         isChangeDetection = changeDetection;
+        upToDate = false;
     }
 
     public boolean isNegate() {
@@ -46,6 +63,7 @@ public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition imp
 
     public void setNegate(boolean negate) {
         this.negate = negate;
+        upToDate = false;
     }
 
     public int getValue() {
@@ -54,15 +72,70 @@ public class MemoryValueBreakCondition extends AbstractLoggingBreakCondition imp
 
     public void setValue(int value) {
         this.value = value & mask;
+        upToDate = false;
+    }
+
+    /**
+     * Starts reevaluating this condition only when the memory words it reads are written.
+     * Addresses handled by memory activity listeners (e.g. I/O registers) can change without being written, so
+     * the value keeps being read at each evaluation in that case. This is decided now, so watch() must be called
+     * again when activity listeners change (see DebuggableMemory.getActivityListenersVersion())
+     * @return true if the condition is now watched
+     */
+    public boolean watch(DebuggableMemory memory) {
+        unwatch();
+        if (memory.isListened(address) || memory.isListened(address + 3)) {
+            return false;
+        }
+        watchedMemory = memory;
+        upToDate = false;
+        memory.addWordWriteListener(address, this);
+        if (((address + 3) & ~3) != (address & ~3)) {
+            memory.addWordWriteListener(address + 3, this);
+        }
+        return true;
+    }
+
+    public void unwatch() {
+        if (watchedMemory != null) {
+            watchedMemory.removeWordWriteListener(address, this);
+            watchedMemory.removeWordWriteListener(address + 3, this);
+            watchedMemory = null;
+        }
+    }
+
+    public boolean isWatched() {
+        return watchedMemory != null;
+    }
+
+    /**
+     * @return true if the condition is watched and its words were not written since it was last evaluated,
+     * in which case evaluating it again can only return the same result
+     */
+    public boolean isUpToDate() {
+        return upToDate && watchedMemory != null;
+    }
+
+    public void onWordWrite(int wordAddress) {
+        upToDate = false;
     }
 
     public boolean matches(CPUState cpuState, Memory memory) {
+        if (upToDate && watchedMemory != null) {
+            return lastResult;
+        }
+        // Marked before reading, so that a write during evaluation leads to another evaluation
+        upToDate = true;
         final int currentValue = memory.load32(address) & mask;
         final boolean matches = negate ^ (currentValue == value);
         if (matches && isChangeDetection) {
             // Re-arm trigger so that if will fire when value changes from the current one
             negate = true;
             value = currentValue;
+            lastResult = false;
+        }
+        else {
+            lastResult = matches;
         }
         return matches;
     }
@@ -0,0 +1,24 @@
+package com.nikonhacker.emu.trigger.condition;
+
+import com.nikonhacker.disassembly.CPUState;
+
+/**
+ * A condition comparing a register, or some bits of it, to a value.
+ * It matches if (register & mask) == value, which allows it to be compiled in a RegisterConditionEvaluator
+ */
+public interface RegisterBreakCondition extends BreakCondition {
+    /**
+     * @return the number of the register the condition reads, or a negative number identifying a register
+     * that is not stored as is (e.g. FR CCR) and must be read using {@link #readValue(CPUState)}
+     */
+    int getSource();
+
+    /**
+     * @return the current value of the register the condition reads
+     */
+    int readValue(CPUState cpuState);
+
+    int getMask();
+
+    int getValue();
+}
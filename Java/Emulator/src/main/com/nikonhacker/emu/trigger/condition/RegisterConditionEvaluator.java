@@ -0,0 +1,186 @@
+package com.nikonhacker.emu.trigger.condition;
+
+import com.nikonhacker.disassembly.CPUState;
+import com.nikonhacker.emu.memory.Memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Flat evaluator for conditions testing register values, alone or combined with other terms in an AndCondition.
+ * Each register read by any condition is loaded once per evaluation in a primitive array, and each condition
+ * is compiled to a run of (register, mask, value) tests on that array, most selective first, followed by its
+ * other terms, if any.
+ * If no register changed since the previous evaluation and no condition matched then, conditions made of
+ * register tests only cannot match either, and are skipped.
+ */
+public final class RegisterConditionEvaluator {
+    private final BreakCondition[] conditions;
+
+    /** Register number, or negative source number, of each register value */
+    private final int[]                    sources;
+    /** Condition able to read each register value with a negative source number */
+    private final RegisterBreakCondition[] readers;
+    private final int[]                    values;
+    private final int[]                    lastValues;
+    private       boolean                  lastValuesValid;
+
+    /** Tests of condition i are at indices testStarts[i] to testStarts[i + 1] - 1 */
+    private final int[] testStarts;
+    private final int[] testSlots;
+    private final int[] testMasks;
+    private final int[] testValues;
+    /** Terms of each condition that are not register tests, or null if it has none */
+    private final BreakCondition[][] otherTerms;
+
+    private boolean registerOnlyMatched;
+    private boolean skipRegisterOnly;
+
+    /**
+     * @param conditions conditions for which {@link #isCompilable(BreakCondition)} returns true
+     */
+    public RegisterConditionEvaluator(BreakCondition[] conditions) {
+        this.conditions = conditions;
+        List<Integer> sourceList = new ArrayList<Integer>();
+        List<RegisterBreakCondition> readerList = new ArrayList<RegisterBreakCondition>();
+        List<RegisterBreakCondition> testList = new ArrayList<RegisterBreakCondition>();
+        testStarts = new int[conditions.length + 1];
+        otherTerms = new BreakCondition[conditions.length][];
+
+        for (int i = 0; i < conditions.length; i++) {
+            List<RegisterBreakCondition> tests = new ArrayList<RegisterBreakCondition>();
+            List<BreakCondition> others = new ArrayList<BreakCondition>();
+            for (BreakCondition term : getTerms(conditions[i])) {
+                if (term instanceof RegisterBreakCondition) {
+                    RegisterBreakCondition test = (RegisterBreakCondition) term;
+                    tests.add(test);
+                    if (!sourceList.contains(test.getSource())) {
+                        sourceList.add(test.getSource());
+                        readerList.add(test);
+                    }
+                }
+                else {
+                    others.add(term);
+                }
+            }
+            // Tests on more bits reject more states
+            Collections.sort(tests, new Comparator<RegisterBreakCondition>() {
+                public int compare(RegisterBreakCondition o1, RegisterBreakCondition o2) {
+                    return Integer.bitCount(o2.getMask()) - Integer.bitCount(o1.getMask());
+                }
+            });
+            testStarts[i] = testList.size();
+            testList.addAll(tests);
+            if (!others.isEmpty()) {
+                otherTerms[i] = others.toArray(new BreakCondition[others.size()]);
+            }
+        }
+        testStarts[conditions.length] = testList.size();
+
+        sources = new int[sourceList.size()];
+        readers = readerList.toArray(new RegisterBreakCondition[readerList.size()]);
+        for (int slot = 0; slot < sources.length; slot++) {
+            sources[slot] = sourceList.get(slot);
+        }
+        values = new int[sources.length];
+        lastValues = new int[sources.length];
+
+        testSlots = new int[testList.size()];
+        testMasks = new int[testList.size()];
+        testValues = new int[testList.size()];
+        for (int t = 0; t < testList.size(); t++) {
+            RegisterBreakCondition test = testList.get(t);
+            testSlots[t] = sourceList.indexOf(test.getSource());
+            testMasks[t] = test.getMask();
+            testValues[t] = test.getValue();
+        }
+    }
+
+    /**
+     * @return true if the given condition tests at least one register, and no breakpoint
+     */
+    public static boolean isCompilable(BreakCondition condition) {
+        boolean hasRegisterTest = false;
+        for (BreakCondition term : getTerms(condition)) {
+            if (term instanceof BreakPointCondition) {
+                return false;
+            }
+            if (term instanceof RegisterBreakCondition) {
+                hasRegisterTest = true;
+            }
+        }
+        return hasRegisterTest;
+    }
+
+    private static List<BreakCondition> getTerms(BreakCondition condition) {
+        if (condition instanceof AndCondition) {
+            return ((AndCondition) condition).getConditions();
+        }
+        return Collections.singletonList(condition);
+    }
+
+    public BreakCondition getCondition(int index) {
+        return conditions[index];
+    }
+
+    /**
+     * Looks for the next matching condition.
+     * A full evaluation starts with index 0 and goes on from the index following the last match, until -1 is returned
+     * @param from index of the first condition to test
+     * @return the index of the first matching condition at or after from, or -1 if none matches
+     */
+    public int findMatch(CPUState cpuState, Memory memory, int from) {
+        boolean changed = !lastValuesValid;
+        for (int slot = 0; slot < sources.length; slot++) {
+            int value = (sources[slot] >= 0) ? cpuState.getReg(sources[slot]) : readers[slot].readValue(cpuState);
+            values[slot] = value;
+            if (value != lastValues[slot]) {
+                lastValues[slot] = value;
+                changed = true;
+            }
+        }
+        lastValuesValid = true;
+        if (from == 0) {
+            skipRegisterOnly = !changed && !registerOnlyMatched;
+            registerOnlyMatched = false;
+        }
+        else if (changed) {
+            // A trigger modified registers
+            skipRegisterOnly = false;
+        }
+
+        for (int i = from; i < conditions.length; i++) {
+            BreakCondition[] others = otherTerms[i];
+            if (others == null && skipRegisterOnly) {
+                continue;
+            }
+            if (testsPass(i) && (others == null || othersMatch(others, cpuState, memory))) {
+                if (others == null) {
+                    registerOnlyMatched = true;
+                }
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean testsPass(int index) {
+        for (int t = testStarts[index]; t < testStarts[index + 1]; t++) {
+            if ((values[testSlots[t]] & testMasks[t]) != testValues[t]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean othersMatch(BreakCondition[] others, CPUState cpuState, Memory memory) {
+        for (BreakCondition other : others) {
+            if (!other.matches(cpuState, memory)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
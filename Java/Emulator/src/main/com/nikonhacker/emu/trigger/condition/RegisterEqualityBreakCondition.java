@@ -4,7 +4,7 @@ import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 
-public class RegisterEqualityBreakCondition extends AbstractLoggingBreakCondition implements BreakCondition {
+public class RegisterEqualityBreakCondition extends AbstractLoggingBreakCondition implements RegisterBreakCondition {
     private int regNumber;
     private int value;
 
@@ -17,4 +17,20 @@ public class RegisterEqualityBreakCondition extends AbstractLoggingBreakConditio
     public boolean matches(CPUState cpuState, Memory memory) {
         return cpuState.getReg(regNumber) == value;
     }
+
+    public int getSource() {
+        return regNumber;
+    }
+
+    public int readValue(CPUState cpuState) {
+        return cpuState.getReg(regNumber);
+    }
+
+    public int getMask() {
+        return 0xFFFFFFFF;
+    }
+
+    public int getValue() {
+        return value;
+    }
 }
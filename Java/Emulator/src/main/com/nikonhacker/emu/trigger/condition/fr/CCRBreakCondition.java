@@ -5,9 +5,11 @@ import com.nikonhacker.disassembly.fr.FrCPUState;
 import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 import com.nikonhacker.emu.trigger.condition.AbstractLoggingBreakCondition;
-import com.nikonhacker.emu.trigger.condition.BreakCondition;
+import com.nikonhacker.emu.trigger.condition.RegisterBreakCondition;
+
+public class CCRBreakCondition extends AbstractLoggingBreakCondition implements RegisterBreakCondition {
+    public static final int SOURCE = -1;
 
-public class CCRBreakCondition extends AbstractLoggingBreakCondition implements BreakCondition {
     private int ccr;
     private int ccrMask;
 
@@ -20,4 +22,20 @@ public class CCRBreakCondition extends AbstractLoggingBreakCondition implements
     public boolean matches(CPUState cpuState, Memory memory) {
         return (((FrCPUState)cpuState).getCCR() & ccrMask) == ccr;
     }
+
+    public int getSource() {
+        return SOURCE;
+    }
+
+    public int readValue(CPUState cpuState) {
+        return ((FrCPUState)cpuState).getCCR();
+    }
+
+    public int getMask() {
+        return ccrMask;
+    }
+
+    public int getValue() {
+        return ccr;
+    }
 }
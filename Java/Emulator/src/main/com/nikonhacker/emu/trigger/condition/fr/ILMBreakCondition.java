@@ -5,9 +5,11 @@ import com.nikonhacker.disassembly.fr.FrCPUState;
 import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 import com.nikonhacker.emu.trigger.condition.AbstractLoggingBreakCondition;
-import com.nikonhacker.emu.trigger.condition.BreakCondition;
+import com.nikonhacker.emu.trigger.condition.RegisterBreakCondition;
+
+public class ILMBreakCondition extends AbstractLoggingBreakCondition implements RegisterBreakCondition {
+    public static final int SOURCE = -3;
 
-public class ILMBreakCondition extends AbstractLoggingBreakCondition implements BreakCondition {
     private int ilm;
     private int ilmMask;
 
@@ -20,4 +22,20 @@ public class ILMBreakCondition extends AbstractLoggingBreakCondition implements
     public boolean matches(CPUState cpuState, Memory memory) {
         return (((FrCPUState)cpuState).getILM() & ilmMask) == ilm;
     }
+
+    public int getSource() {
+        return SOURCE;
+    }
+
+    public int readValue(CPUState cpuState) {
+        return ((FrCPUState)cpuState).getILM();
+    }
+
+    public int getMask() {
+        return ilmMask;
+    }
+
+    public int getValue() {
+        return ilm;
+    }
 }
@@ -5,9 +5,11 @@ import com.nikonhacker.disassembly.fr.FrCPUState;
 import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.trigger.BreakTrigger;
 import com.nikonhacker.emu.trigger.condition.AbstractLoggingBreakCondition;
-import com.nikonhacker.emu.trigger.condition.BreakCondition;
+import com.nikonhacker.emu.trigger.condition.RegisterBreakCondition;
+
+public class SCRBreakCondition extends AbstractLoggingBreakCondition implements RegisterBreakCondition {
+    public static final int SOURCE = -2;
 
-public class SCRBreakCondition extends AbstractLoggingBreakCondition implements BreakCondition {
     private int scr;
     private int scrMask;
 
@@ -20,4 +22,20 @@ public class SCRBreakCondition extends AbstractLoggingBreakCondition implements
     public boolean matches(CPUState cpuState, Memory memory) {
         return (((FrCPUState)cpuState).getSCR() & scrMask) == scr;
     }
+
+    public int getSource() {
+        return SOURCE;
+    }
+
+    public int readValue(CPUState cpuState) {
+        return ((FrCPUState)cpuState).getSCR();
+    }
+
+    public int getMask() {
+        return scrMask;
+    }
+
+    public int getValue() {
+        return scr;
+    }
 }
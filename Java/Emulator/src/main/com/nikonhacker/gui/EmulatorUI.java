@@ -22,6 +22,8 @@ import com.nikonhacker.disassembly.tx.TxCPUState;
 import com.nikonhacker.emu.ClockableCallbackHandler;
 import com.nikonhacker.emu.EmulationException;
 import com.nikonhacker.emu.EmulationFramework;
+import com.nikonhacker.emu.Emulator;
+import com.nikonhacker.emu.MasterClock;
 import com.nikonhacker.emu.memory.DebuggableMemory;
 import com.nikonhacker.emu.memory.Memory;
 import com.nikonhacker.emu.memory.listener.TrackingMemoryActivityListener;
@@ -1156,9 +1158,42 @@ public class EmulatorUI extends JFrame implements ActionListener {
             }
         });
         menuBar.add(syncEmulators);
+
+        // Global "Run by time quanta" setting
+        final JCheckBox quantumClock = new JCheckBox("Run CPUs by time quanta");
+        quantumClock.setToolTipText("If checked, CPUs execute all their cycles until the next peripheral event in one go. Faster, but chips can drift apart by up to " + (MasterClock.MAX_QUANTUM_PS / 1000000) + "us");
+        quantumClock.setSelected(prefs.isQuantumClock());
+        framework.getMasterClock().setQuantumMode(prefs.isQuantumClock());
+        quantumClock.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                prefs.setQuantumClock(quantumClock.isSelected());
+                framework.getMasterClock().setQuantumMode(quantumClock.isSelected());
+            }
+        });
+        menuBar.add(quantumClock);
+
+        // Global "Run chips in parallel" setting
+        final JCheckBox parallelClock = new JCheckBox("Run chips in parallel");
+        parallelClock.setToolTipText("If checked, each chip is emulated by its own thread. Exchanges between chips are delayed by " + prefs.getParallelClockQuantumUs() + "us. Takes effect when emulation is stopped");
+        parallelClock.setSelected(prefs.isParallelClock());
+        applyParallelClockPrefs();
+        parallelClock.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                prefs.setParallelClock(parallelClock.isSelected());
+                applyParallelClockPrefs();
+            }
+        });
+        menuBar.add(parallelClock);
         return menuBar;
     }
 
+    private void applyParallelClockPrefs() {
+        framework.getMasterClock().setParallelQuantumPs(prefs.getParallelClockQuantumUs() * (MasterClock.PS_PER_MS / 1000));
+        framework.getMasterClock().setParallelMode(prefs.isParallelClock());
+    }
+
     // Event listeners
 
     /**
@@ -1436,6 +1471,8 @@ public class EmulatorUI extends JFrame implements ActionListener {
                     framework = EmulationFramework.load(source, prefs);
                     framework.setupCallbacks(getCallbackHandler(0), getCallbackHandler(1));
                     framework.getMasterClock().setSyncPlay(prefs.isSyncPlay());
+                    framework.getMasterClock().setQuantumMode(prefs.isQuantumClock());
+                    applyParallelClockPrefs();
                     setTitle(ApplicationInfo.getNameVersion() + " - Loaded " + source);
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -1998,6 +2035,34 @@ public class EmulatorUI extends JFrame implements ActionListener {
         emulationOptionsPanel.add(altStepPanel);
         emulationOptionsPanel.add(new JLabel("If 'sync mode' is selected, this is the mode the " + Constants.CHIP_LABEL[1 - chip] + " chip will run in when running the " + Constants.CHIP_LABEL[chip] + " in Step mode"));
 
+        emulationOptionsPanel.add(new JSeparator(JSeparator.HORIZONTAL));
+
+        // Interpreter used in Run mode
+        JPanel runInterpreterPanel = new JPanel(new FlowLayout());
+        Object[] interpreters = EnumSet.allOf(Emulator.Interpreter.class).toArray();
+        final JComboBox runInterpreterCombo = new JComboBox(new DefaultComboBoxModel(interpreters));
+        for (int j = 0; j < interpreters.length; j++) {
+            if (interpreters[j].equals(prefs.getRunInterpreter(chip))) {
+                runInterpreterCombo.setSelectedIndex(j);
+            }
+        }
+        runInterpreterPanel.add(new JLabel("Interpreter used in Run mode: "));
+        runInterpreterPanel.add(runInterpreterCombo);
+        emulationOptionsPanel.add(runInterpreterPanel);
+        emulationOptionsPanel.add(new JLabel("BLOCK executes straight-line code in one go and only checks interrupts at branches. TIERED also runs hot blocks in their own clone of a block class, which the JIT can optimize separately. Debug and Step modes always run instruction by instruction."));
+
+        final JCheckBox idleFastForwardCheckBox = new JCheckBox("Fast-forward idle time");
+        idleFastForwardCheckBox.setSelected(prefs.isIdleFastForward(chip));
+        emulationOptionsPanel.add(idleFastForwardCheckBox);
+        emulationOptionsPanel.add(new JLabel("If checked, time spent in stand-by or in idle loops is skipped up to the next event that may wake the CPU. Disabled while logging or evaluating break conditions other than breakpoints."));
+
+        JPanel idleLoopPanel = new JPanel(new FlowLayout());
+        final JTextField idleLoopAddressesField = new JTextField(prefs.getIdleLoopAddresses(chip), 30);
+        idleLoopPanel.add(new JLabel("Additional idle loop addresses: "));
+        idleLoopPanel.add(idleLoopAddressesField);
+        emulationOptionsPanel.add(idleLoopPanel);
+        emulationOptionsPanel.add(new JLabel("Short loops waiting for an interrupt are detected automatically. Enter here the start of other ones, e.g. 0x001D0A40, 0x001D0B10"));
+
 
         // ------------------------ Prepare tabbed pane
 
@@ -2083,6 +2148,9 @@ public class EmulatorUI extends JFrame implements ActionListener {
             prefs.setLogMemoryMessages(chip, logMemoryMessagesCheckBox.isSelected());
             prefs.setAltExecutionModeForSyncedCpuUponDebug(chip, (EmulationFramework.ExecutionMode) altModeForDebugCombo.getSelectedItem());
             prefs.setAltExecutionModeForSyncedCpuUponStep(chip, (EmulationFramework.ExecutionMode) altModeForStepCombo.getSelectedItem());
+            prefs.setRunInterpreter(chip, (Emulator.Interpreter) runInterpreterCombo.getSelectedItem());
+            prefs.setIdleFastForward(chip, idleFastForwardCheckBox.isSelected());
+            prefs.setIdleLoopAddresses(chip, idleLoopAddressesField.getText());
 
         }
     }
@@ -2911,6 +2979,8 @@ public class EmulatorUI extends JFrame implements ActionListener {
                 JOptionPane.showMessageDialog(this, "Cannot start " + Constants.CHIP_LABEL[otherChip] + " in sync because no image is loaded.\nOnly " + Constants.CHIP_LABEL[chip] + " will run.", "Warning", JOptionPane.WARNING_MESSAGE);
             }
         }
+        // Parallel mode may have been toggled while running
+        applyParallelClockPrefs();
         //System.err.println("Requesting clock start");
         framework.getMasterClock().start();
     }
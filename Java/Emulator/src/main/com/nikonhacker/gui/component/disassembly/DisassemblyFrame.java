@@ -36,6 +36,7 @@ public class DisassemblyFrame extends DocumentFrame implements LoggingStateChang
     private final JCheckBox         indentCheckbox;
     private final JCheckBox         instructionCheckbox;
     private final JCheckBox         interruptMarksCheckbox;
+    private final JCheckBox         dropCheckbox;
     private final JComboBox<Object> destinationComboBox;
 
 
@@ -93,6 +94,16 @@ public class DisassemblyFrame extends DocumentFrame implements LoggingStateChang
         });
         selectionPanelContainer.add(interruptMarksCheckbox);
 
+        dropCheckbox = new JCheckBox("drop lines if lagging");
+        dropCheckbox.setSelected(logger.getOverflowPolicy() == DisassemblyLogger.OverflowPolicy.DROP);
+        dropCheckbox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                logger.setOverflowPolicy(dropCheckbox.isSelected() ? DisassemblyLogger.OverflowPolicy.DROP : DisassemblyLogger.OverflowPolicy.BLOCK);
+            }
+        });
+        selectionPanelContainer.add(dropCheckbox);
+
         destinationComboBox = new JComboBox<>();
         destinationComboBox.addItem("to here");
         destinationComboBox.addItem("to file");
@@ -100,6 +111,8 @@ public class DisassemblyFrame extends DocumentFrame implements LoggingStateChang
         destinationComboBox.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                // Write out pending lines before closing their destination
+                logger.flush();
                 for (Writer writer : logger.getWriters()) {
                     try {
                         if (writer instanceof FileWriter) {
@@ -183,6 +196,7 @@ public class DisassemblyFrame extends DocumentFrame implements LoggingStateChang
         indentCheckbox.setEnabled(editable && !isLogging);
         instructionCheckbox.setEnabled(editable && !isLogging);
         interruptMarksCheckbox.setEnabled(editable && !isLogging);
+        dropCheckbox.setEnabled(editable && !isLogging);
         destinationComboBox.setEnabled(editable && !isLogging);
         rangeButton.setEnabled(editable && !isLogging);
         startStopButton.setEnabled(editable);
@@ -195,8 +209,12 @@ public class DisassemblyFrame extends DocumentFrame implements LoggingStateChang
 
     @Override
     public void dispose() {
-        if (logger.isLogging()) {
-            logger.setLogging(false);
+        emulator.setDisassemblyLogger(null);
+        boolean wasLogging = logger.isLogging();
+        logger.setLogging(false);
+        // Writes out pending lines and stops the logger thread
+        logger.close();
+        if (wasLogging) {
             for (Writer writer : logger.getWriters()) {
                 try {
                     writer.close();
@@ -205,7 +223,6 @@ public class DisassemblyFrame extends DocumentFrame implements LoggingStateChang
                 }
             }
         }
-        emulator.setDisassemblyLogger(null);
         super.dispose();
     }
 
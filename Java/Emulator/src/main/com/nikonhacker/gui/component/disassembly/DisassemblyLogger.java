@@ -1,29 +1,103 @@
 package com.nikonhacker.gui.component.disassembly;
 
+import com.nikonhacker.Format;
+import com.nikonhacker.disassembly.DisassemblyException;
+import com.nikonhacker.disassembly.Statement;
+import com.nikonhacker.disassembly.StatementContext;
+import com.nikonhacker.disassembly.StatementSnapshot;
 import com.nikonhacker.emu.AddressRange;
+import com.nikonhacker.emu.MasterClock;
 
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Logs executed instructions and messages to a list of writers.
+ * Logging threads only push raw entries (timestamp, PC, indent level, text or statement snapshot) into a preallocated
+ * ring buffer, without locking. A background thread turns them into lines and appends them to the writers, so that
+ * the emulation thread never formats statements, timestamps or addresses nor performs I/O.
+ */
 public class DisassemblyLogger {
+    /** Timestamp of entries logged without one */
+    public static final long NO_TIMESTAMP = -1;
+
+    /**
+     * Formats statements logged with logStatement(), in the writer thread
+     */
+    public interface StatementFormatter {
+        String format(StatementSnapshot snapshot) throws DisassemblyException;
+    }
+
+    /** What to do when the writer thread lags behind and the buffer is full */
+    public enum OverflowPolicy {
+        /** Logging threads wait for room in the buffer: no line is lost, but emulation slows down to the writing speed */
+        BLOCK,
+        /** New entries are dropped and their number reported in the log: emulation speed is preserved */
+        DROP
+    }
+
+    private static final int CAPACITY         = 1 << 14; // entries
+    private static final int WRITE_INTERVAL_MS = 20;
+
+    private static final byte TYPE_TEXT        = 0;
+    private static final byte TYPE_INSTRUCTION = 1;
+    private static final byte TYPE_STATEMENT   = 2;
+
     private boolean logging;
     boolean includeTimestamp      = true;
     boolean includeIndent         = true;
     boolean includeInstruction    = true;
     boolean includeInterruptMarks = true;
-    String  prefix                = "";
-    private List<Writer> writers = new ArrayList<>();
+    int     indentLevel           = 0;
+    private List<Writer> writers = new CopyOnWriteArrayList<>();
     private List<AddressRange> ranges;
     private List<LoggingStateChangeListener> listeners = new ArrayList<>();
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    // One array per entry field. Only the logging threads write them, only the writer thread reads them
+    private final long[]   timestamps   = new long[CAPACITY];
+    private final int[]    pcs          = new int[CAPACITY];
+    private final int[]    indentLevels = new int[CAPACITY];
+    private final String[] texts        = new String[CAPACITY];
+    private final byte[]   types        = new byte[CAPACITY];
+    /** Allocated on first use of each slot, then reused */
+    private final StatementSnapshot[]  snapshots  = new StatementSnapshot[CAPACITY];
+    private final StatementFormatter[] formatters = new StatementFormatter[CAPACITY];
+
+    /** Number of entries claimed by logging threads */
+    private final AtomicLong      head      = new AtomicLong();
+    /** For each slot, index + 1 of the last entry completely written to it */
+    private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    /** Number of entries written out */
+    private volatile long    tail;
+    private final AtomicLong numDropped = new AtomicLong();
+    private volatile boolean closed;
+
+    private final Thread writerThread;
+
+    // Only used by the writer thread
+    private final DecimalFormat milliSecondFormatter = new DecimalFormat("0000.000000000");
+    private final StringBuilder lines                = new StringBuilder();
 
     /**
      * Basic empty constructor
      */
     public DisassemblyLogger() {
+        writerThread = new Thread(new Runnable() {
+            public void run() {
+                writeEntries();
+            }
+        }, "Disassembly logger");
+        writerThread.setDaemon(true);
+        writerThread.start();
     }
 
     public List<LoggingStateChangeListener> getListeners() {
@@ -35,6 +109,7 @@ public class DisassemblyLogger {
      * @param printStream
      */
     public DisassemblyLogger(PrintStream printStream) {
+        this();
         writers.add(new PrintWriter(printStream));
         includeInstruction = true;
         logging = true;
@@ -85,16 +160,24 @@ public class DisassemblyLogger {
         this.includeInterruptMarks = includeInterruptMarks;
     }
 
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
     public void indent() {
         if (includeIndent) {
-            prefix += "  ";
+            indentLevel++;
         }
     }
 
     public void outdent() {
         if (includeIndent) {
-            if (prefix.length() > 1) {
-                prefix = prefix.substring(0, prefix.length() - 2);
+            if (indentLevel > 0) {
+                indentLevel--;
             }
             else {
                 println("<< requested outdent cannot be honored");
@@ -103,11 +186,11 @@ public class DisassemblyLogger {
     }
 
     public void clearIndent() {
-        prefix = "";
+        indentLevel = 0;
     }
 
-    public String getIndent() {
-        return prefix;
+    public int getIndentLevel() {
+        return indentLevel;
     }
 
     public void print(String s) {
@@ -124,12 +207,209 @@ public class DisassemblyLogger {
 
     public void rawPrint(String s) {
         if (logging) {
-            for (Writer writer : writers) {
-                try {
-                    writer.append(s);
-                } catch (IOException e) {
-                    e.printStackTrace();
+            enqueue(TYPE_TEXT, NO_TIMESTAMP, 0, 0, s);
+        }
+    }
+
+    /**
+     * Logs one executed instruction as a line. Formatting is left to the writer thread.
+     * @param timestamp time of execution in ps, or NO_TIMESTAMP
+     * @param pc address of the instruction
+     * @param indentLevel indent level to print before the instruction
+     * @param instruction formatted instruction, or null to only log the address
+     */
+    public void logInstruction(long timestamp, int pc, int indentLevel, String instruction) {
+        if (logging) {
+            enqueue(TYPE_INSTRUCTION, timestamp, pc, indentLevel, instruction);
+        }
+    }
+
+    /**
+     * Logs one executed statement as a line. Only the values needed to format it are captured now:
+     * the statement is formatted later by the given formatter, in the writer thread.
+     * @param timestamp time of execution in ps, or NO_TIMESTAMP
+     * @param pc address of the statement
+     * @param indentLevel indent level to print before the statement
+     * @param statement the statement, about to be executed in the given context
+     * @param context the context the statement is executed in
+     * @param formatter the formatter to call with the snapshot of the statement
+     */
+    public void logStatement(long timestamp, int pc, int indentLevel, Statement statement, StatementContext context, StatementFormatter formatter) {
+        if (logging) {
+            long index = claim();
+            if (index < 0) {
+                return;
+            }
+            int slot = (int) index & (CAPACITY - 1);
+            StatementSnapshot snapshot = snapshots[slot];
+            if (snapshot == null) {
+                snapshot = new StatementSnapshot();
+                snapshots[slot] = snapshot;
+            }
+            statement.captureOperands(context, snapshot);
+            formatters[slot] = formatter;
+            publish(index, TYPE_STATEMENT, timestamp, pc, indentLevel, null);
+        }
+    }
+
+    private void enqueue(byte type, long timestamp, int pc, int indentLevel, String text) {
+        long index = claim();
+        if (index >= 0) {
+            publish(index, type, timestamp, pc, indentLevel, text);
+        }
+    }
+
+    /**
+     * @return the index of the entry to fill, or -1 if the entry must not be logged
+     */
+    private long claim() {
+        long index;
+        while (true) {
+            if (closed) {
+                return -1;
+            }
+            index = head.get();
+            if (index - tail < CAPACITY) {
+                if (head.compareAndSet(index, index + 1)) {
+                    break;
+                }
+            }
+            else if (overflowPolicy == OverflowPolicy.DROP) {
+                numDropped.incrementAndGet();
+                return -1;
+            }
+            else {
+                Thread.yield();
+            }
+        }
+        return index;
+    }
+
+    private void publish(long index, byte type, long timestamp, int pc, int indentLevel, String text) {
+        int slot = (int) index & (CAPACITY - 1);
+        types[slot] = type;
+        timestamps[slot] = timestamp;
+        pcs[slot] = pc;
+        indentLevels[slot] = indentLevel;
+        texts[slot] = text;
+        published.set(slot, index + 1);
+    }
+
+    /**
+     * Waits until all entries logged so far have been written out.
+     * Call it before closing or removing writers.
+     */
+    public void flush() {
+        long end = head.get();
+        while (tail < end && writerThread.isAlive()) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes out pending entries and stops the writer thread. Nothing is logged afterwards.
+     * Writers are left open.
+     */
+    public void close() {
+        flush();
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeEntries() {
+        try {
+            while (true) {
+                boolean wasClosed = closed;
+                long index = tail;
+                lines.setLength(0);
+                long dropped = numDropped.getAndSet(0);
+                if (dropped > 0) {
+                    lines.append("<< ").append(dropped).append(" lines dropped").append(System.lineSeparator());
+                }
+                int slot = (int) index & (CAPACITY - 1);
+                while (published.get(slot) == index + 1) {
+                    if (types[slot] == TYPE_INSTRUCTION) {
+                        appendInstruction(timestamps[slot], pcs[slot], indentLevels[slot], texts[slot]);
+                    }
+                    else if (types[slot] == TYPE_STATEMENT) {
+                        appendInstruction(timestamps[slot], pcs[slot], indentLevels[slot], formatStatement(slot));
+                        formatters[slot] = null;
+                    }
+                    else {
+                        lines.append(texts[slot]);
+                    }
+                    texts[slot] = null;
+                    index++;
+                    slot = (int) index & (CAPACITY - 1);
+                }
+                if (lines.length() == 0) {
+                    if (wasClosed) {
+                        break;
+                    }
+                    flushWriters();
+                    Thread.sleep(WRITE_INTERVAL_MS);
+                    continue;
+                }
+                // One append per writer for the whole batch
+                String s = lines.toString();
+                for (Writer writer : writers) {
+                    try {
+                        writer.append(s);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
                 }
+                tail = index;
+            }
+        }
+        catch (InterruptedException e) {
+            // stop writing
+        }
+        finally {
+            // Unblock logging threads if writing stopped early
+            closed = true;
+            flushWriters();
+        }
+    }
+
+    private String formatStatement(int slot) {
+        try {
+            return formatters[slot].format(snapshots[slot]);
+        }
+        catch (Exception e) {
+            return "<< cannot format statement: " + e.getMessage();
+        }
+    }
+
+    private void appendInstruction(long timestamp, int pc, int indentLevel, String instruction) {
+        if (timestamp != NO_TIMESTAMP) {
+            lines.append(milliSecondFormatter.format(timestamp / (double) MasterClock.PS_PER_MS)).append("ms ");
+        }
+        lines.append("0x").append(Format.asHex(pc, 8));
+        for (int i = 0; i < indentLevel; i++) {
+            lines.append("  ");
+        }
+        if (instruction != null) {
+            lines.append(" ").append(instruction);
+        }
+        lines.append(System.lineSeparator());
+    }
+
+    private void flushWriters() {
+        for (Writer writer : writers) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         }
     }
@@ -12,6 +12,8 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
 import java.util.Timer;
 
 /**
@@ -33,6 +35,9 @@ public abstract class InterruptControllerFrame extends DocumentFrame {
     private final JTabbedPane tabbedPane;
     private final JButton removeButton;
 
+    /** Requests currently displayed in the list */
+    private List<InterruptRequest> displayedRequests = Collections.emptyList();
+
     public InterruptControllerFrame(String title, String imageName, boolean resizable, boolean closable, boolean maximizable, boolean iconifiable, final int chip, final EmulatorUI ui, final InterruptController interruptController, final Memory memory) {
         super(title, imageName, resizable, closable, maximizable, iconifiable, chip, ui);
         this.interruptController = interruptController;
@@ -66,8 +71,8 @@ public abstract class InterruptControllerFrame extends DocumentFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 int selectedIndex = interruptQueueJList.getSelectedIndex();
-                if (selectedIndex != -1) {
-                    interruptController.getInterruptRequestQueue().remove(selectedIndex);
+                if (selectedIndex != -1 && selectedIndex < displayedRequests.size()) {
+                    interruptController.removeRequest(displayedRequests.get(selectedIndex));
                     updateList();
                 }
             }
@@ -102,14 +107,13 @@ public abstract class InterruptControllerFrame extends DocumentFrame {
 
     private void updateList() {
         statusText.setText(interruptController.getStatus());
-        synchronized (interruptController.getInterruptRequestQueue()) {
-            DefaultListModel model = new DefaultListModel();
-            // Real stack
-            for (InterruptRequest request : interruptController.getInterruptRequestQueue()) {
-                model.addElement(request.toString());
-            }
-            interruptQueueJList.setModel(model);
+        displayedRequests = interruptController.getInterruptRequestQueue();
+        DefaultListModel model = new DefaultListModel();
+        // Real stack
+        for (InterruptRequest request : displayedRequests) {
+            model.addElement(request.toString());
         }
+        interruptQueueJList.setModel(model);
     }
 
     protected void updateInterruptListRefreshTimer() {
@@ -223,6 +223,8 @@ public class MemoryHexEditorFrame extends DocumentFrame implements ActionListene
     private void refreshMemoryPage() {
         if (currentPage != null) {
             try {
+                // The page may have been given its own storage since it was loaded
+                currentPage = memory.getPageForAddress(baseAddress);
                 hexEditor.open(new ByteArrayInputStream(currentPage));
                 hexEditor.setColorMap(createColorMap());
             } catch (IOException e) {
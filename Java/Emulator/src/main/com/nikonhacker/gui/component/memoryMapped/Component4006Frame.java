@@ -1,7 +1,10 @@
 package com.nikonhacker.gui.component.memoryMapped;
 
+import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.emu.memory.DebuggableMemory;
+import com.nikonhacker.emu.memory.listener.RegisterMap;
+import com.nikonhacker.emu.memory.listener.fr.Expeed4006IoListener;
 import com.nikonhacker.gui.EmulatorUI;
 
 import javax.swing.*;
@@ -14,13 +17,24 @@ public class Component4006Frame extends MemoryPageMappedComponentFrame {
     public Component4006Frame(String title, String imageName, boolean resizable, boolean closable, boolean maximizable, boolean iconifiable, int chip, EmulatorUI ui, final DebuggableMemory memory, int page, CPUState cpuState) {
         super(title, imageName, resizable, closable, maximizable, iconifiable, chip, ui, memory, page, cpuState);
 
-        JButton addButton = new JButton("Store 0x1000 at 0x40060010");
-        addButton.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                memory.store16(0x40060010, 0x1000);
-            }
-        });
-        add(addButton, BorderLayout.SOUTH);
+        // One button per declared register, storing the value the register currently returns
+        JPanel buttonPanel = new JPanel(new GridLayout(0, 1));
+        for (final RegisterMap.Register<Void> register : Expeed4006IoListener.REGISTERS.getRegisters()) {
+            final int address = Expeed4006IoListener.BASE_ADDRESS + register.offset;
+            final int value = register.load(null);
+            JButton addButton = new JButton("Store 0x" + Format.asHex(value, register.width / 4) + " at 0x" + Format.asHex(address, 8) + " (" + register.name + ")");
+            addButton.addActionListener(new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    switch (register.width) {
+                        case 8:  memory.store8(address, value);  break;
+                        case 16: memory.store16(address, value); break;
+                        default: memory.store32(address, value);
+                    }
+                }
+            });
+            buttonPanel.add(addButton);
+        }
+        add(buttonPanel, BorderLayout.SOUTH);
     }
     
     public void dispose() {
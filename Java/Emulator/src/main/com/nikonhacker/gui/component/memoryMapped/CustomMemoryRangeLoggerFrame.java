@@ -4,7 +4,8 @@ import com.nikonhacker.Constants;
 import com.nikonhacker.Format;
 import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.emu.memory.DebuggableMemory;
-import com.nikonhacker.emu.memory.listener.MemoryActivityListener;
+import com.nikonhacker.emu.memory.listener.AccessTraceRecorder;
+import com.nikonhacker.emu.memory.listener.AccessTraceRenderer;
 import com.nikonhacker.emu.memory.listener.RangeAccessLoggerActivityListener;
 import com.nikonhacker.gui.EmulatorUI;
 import com.nikonhacker.gui.swing.DocumentFrame;
@@ -27,9 +28,14 @@ public class CustomMemoryRangeLoggerFrame extends DocumentFrame {
 
     private DebuggableMemory memory;
     private CPUState         cpuState;
-    private java.util.Map<JTextField, MemoryActivityListener> listeners = new HashMap<>();
+    private java.util.Map<JTextField, RangeAccessLoggerActivityListener> listeners = new HashMap<>();
     private final PrintWriterArea textArea;
 
+    /** Renders accesses to the text area */
+    private final AccessTraceRecorder textRecorder;
+    /** Records accesses to a binary trace file instead, when not null */
+    private       AccessTraceRecorder fileRecorder;
+
     // By default, only log code access
     private final Set<DebuggableMemory.AccessSource> selectedAccessSources = EnumSet.of(DebuggableMemory.AccessSource.CODE);
 
@@ -43,6 +49,7 @@ public class CustomMemoryRangeLoggerFrame extends DocumentFrame {
         textArea = new PrintWriterArea(ROWS, COLUMNS);
         textArea.setAutoScroll(true);
         textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 10));
+        textRecorder = new AccessTraceRecorder(textArea.getPrintWriter(), ui.getFramework().getMasterClock());
 
         JPanel selectionPanelContainer = new JPanel(new VerticalLayout());
 
@@ -63,7 +70,23 @@ public class CustomMemoryRangeLoggerFrame extends DocumentFrame {
                 }
             }
         });
-        contentPanel.add(clearButton, BorderLayout.SOUTH);
+        final JToggleButton recordButton = new JToggleButton("Record to file");
+        recordButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (recordButton.isSelected()) {
+                    recordButton.setSelected(startRecording());
+                }
+                else {
+                    stopRecording();
+                }
+            }
+        });
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(clearButton);
+        buttonPanel.add(recordButton);
+        contentPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         getContentPane().add(contentPanel);
     }
@@ -77,12 +100,12 @@ public class CustomMemoryRangeLoggerFrame extends DocumentFrame {
                 try {
                     int minAddress = Format.parseIntHexField(minAddressField);
                     int maxAddress = Format.parseIntHexField(maxAddressField);
-                    MemoryActivityListener listener = listeners.get(minAddressField);
+                    RangeAccessLoggerActivityListener listener = listeners.get(minAddressField);
                     if (listener != null) {
                         memory.removeActivityListener(listener);
                         textArea.getPrintWriter().println("Stopping previous listener");
                     }
-                    listener = new RangeAccessLoggerActivityListener(textArea.getPrintWriter(), minAddress, maxAddress, cpuState, selectedAccessSources, ui.getFramework().getMasterClock());
+                    listener = new RangeAccessLoggerActivityListener(getRecorder(), minAddress, maxAddress, cpuState, selectedAccessSources);
                     memory.addActivityListener(listener);
                     listeners.put(minAddressField, listener);
                     textArea.getPrintWriter().println("Starting listener for " + Constants.CHIP_LABEL[chip] + " range 0x" + Format.asHex(minAddress, 8) + " - 0x" + Format.asHex(maxAddress, 8));
@@ -136,7 +159,7 @@ public class CustomMemoryRangeLoggerFrame extends DocumentFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (listeners.size() > 0) {
-                    MemoryActivityListener listener = listeners.get(minAddressField);
+                    RangeAccessLoggerActivityListener listener = listeners.get(minAddressField);
                     if (listener != null) {
                         memory.removeActivityListener(listener);
                         textArea.getPrintWriter().println("Stopping previous listener");
@@ -156,10 +179,62 @@ public class CustomMemoryRangeLoggerFrame extends DocumentFrame {
         this.pack();
     }
 
+    private AccessTraceRecorder getRecorder() {
+        return (fileRecorder != null) ? fileRecorder : textRecorder;
+    }
+
+    /**
+     * Asks for a file and sends the accesses of all ranges to it as a binary trace
+     * @return true if recording started
+     */
+    private boolean startRecording() {
+        final JFileChooser fc = new JFileChooser();
+        fc.setDialogTitle("Record binary trace as...");
+        fc.setCurrentDirectory(new java.io.File("."));
+        fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return false;
+        }
+        try {
+            fileRecorder = new AccessTraceRecorder(fc.getSelectedFile(), ui.getFramework().getMasterClock());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Error creating trace file", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        for (RangeAccessLoggerActivityListener listener : listeners.values()) {
+            listener.setRecorder(fileRecorder);
+        }
+        textArea.getPrintWriter().println("Recording to " + fc.getSelectedFile() + ". Use " + AccessTraceRenderer.class.getName() + " to render it as text");
+        return true;
+    }
+
+    private void stopRecording() {
+        if (fileRecorder == null) {
+            return;
+        }
+        AccessTraceRecorder recorder = fileRecorder;
+        fileRecorder = null;
+        for (RangeAccessLoggerActivityListener listener : listeners.values()) {
+            listener.setRecorder(textRecorder);
+        }
+        try {
+            recorder.close();
+            textArea.getPrintWriter().println("Recording stopped");
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Error writing trace file", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     public void dispose() {
-        for (MemoryActivityListener listener : listeners.values()) {
+        for (RangeAccessLoggerActivityListener listener : listeners.values()) {
             memory.removeActivityListener(listener);
         }
+        stopRecording();
+        try {
+            textRecorder.close();
+        } catch (IOException e) {
+            // ignore
+        }
         super.dispose();
     }
 }
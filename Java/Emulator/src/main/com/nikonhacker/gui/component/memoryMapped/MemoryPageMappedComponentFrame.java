@@ -2,6 +2,7 @@ package com.nikonhacker.gui.component.memoryMapped;
 
 import com.nikonhacker.disassembly.CPUState;
 import com.nikonhacker.emu.memory.DebuggableMemory;
+import com.nikonhacker.emu.memory.listener.AccessTraceRecorder;
 import com.nikonhacker.emu.memory.listener.MemoryActivityListener;
 import com.nikonhacker.emu.memory.listener.PageAccessLoggerActivityListener;
 import com.nikonhacker.gui.EmulatorUI;
@@ -10,6 +11,7 @@ import com.nikonhacker.gui.swing.PrintWriterArea;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 import java.util.EnumSet;
 
 
@@ -19,6 +21,7 @@ public class MemoryPageMappedComponentFrame extends DocumentFrame {
 
     private DebuggableMemory memory;
     private final MemoryActivityListener listener;
+    private final AccessTraceRecorder    recorder;
 
     public MemoryPageMappedComponentFrame(String title, String imageName, boolean resizable, boolean closable, boolean maximizable, boolean iconifiable, int chip, EmulatorUI ui, DebuggableMemory memory, int page, CPUState cpuState) {
         super(title, imageName, resizable, closable, maximizable, iconifiable, chip, ui);
@@ -26,7 +29,8 @@ public class MemoryPageMappedComponentFrame extends DocumentFrame {
         final PrintWriterArea textArea = new PrintWriterArea(ROWS, COLUMNS);
         textArea.setAutoScroll(true);
         textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 10));
-        listener = new PageAccessLoggerActivityListener(textArea.getPrintWriter(), page, cpuState, EnumSet.of(DebuggableMemory.AccessSource.CODE), ui.getFramework().getMasterClock());
+        recorder = new AccessTraceRecorder(textArea.getPrintWriter(), ui.getFramework().getMasterClock());
+        listener = new PageAccessLoggerActivityListener(recorder, page, cpuState, EnumSet.of(DebuggableMemory.AccessSource.CODE));
         memory.addActivityListener(listener);
         setLayout(new BorderLayout());
         add(new JScrollPane(textArea), BorderLayout.CENTER);
@@ -34,6 +38,11 @@ public class MemoryPageMappedComponentFrame extends DocumentFrame {
     
     public void dispose() {
         memory.removeActivityListener(listener);
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            // ignore
+        }
         super.dispose();
     }
     
@@ -0,0 +1,40 @@
+package com.nikonhacker.disassembly.tx;
+
+import com.nikonhacker.Prefs;
+import com.nikonhacker.XStreamUtils;
+import com.nikonhacker.emu.EmulationFramework;
+import com.thoughtworks.xstream.XStream;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class TxCPUStateTest extends TestCase {
+
+    /**
+     * The resource was saved by the version storing registers as Register32 objects,
+     * after writing r1 and SP in set 0, then switching to set 2 and writing r1
+     */
+    public void testLoadFormerVersion() {
+        for (XStream xStream : new XStream[]{Prefs.getPrefsXStream(), EmulationFramework.getFrameworkXStream()}) {
+            TxCPUState cpuState = (TxCPUState) XStreamUtils.load(getClass().getResourceAsStream("TxCPUState-former-version.xml"), xStream);
+            assertEquals(0xBFC00000, cpuState.pc);
+            assertEquals(0x44, cpuState.getReg(1));
+            assertEquals(0x11, cpuState.getShadowReg(0, 1));
+            assertEquals(0x22, cpuState.getShadowReg(0, TxCPUState.SP));
+            assertEquals(0x00074000, cpuState.getReg(TxCPUState.PRId));
+
+            // Switching sets still works on the converted registers
+            cpuState.setReg(TxCPUState.SSCR, 0);
+            assertEquals(0x11, cpuState.getReg(1));
+            assertEquals(0x44, cpuState.getShadowReg(2, 1));
+
+            // And the state can be saved and loaded again
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            XStreamUtils.save(cpuState, outputStream, xStream);
+            TxCPUState reloaded = (TxCPUState) XStreamUtils.load(new ByteArrayInputStream(outputStream.toByteArray()), xStream);
+            assertEquals(0x11, reloaded.getReg(1));
+            assertEquals(0x44, reloaded.getShadowReg(2, 1));
+        }
+    }
+}
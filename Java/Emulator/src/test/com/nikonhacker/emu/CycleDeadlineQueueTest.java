@@ -0,0 +1,42 @@
+package com.nikonhacker.emu;
+
+import junit.framework.TestCase;
+
+public class CycleDeadlineQueueTest extends TestCase {
+
+    private static class Listener implements CycleDeadlineListener {
+        public long onCycleDeadline(long deadline) {
+            return NO_DEADLINE;
+        }
+    }
+
+    public void testOrder() {
+        CycleDeadlineQueue queue = new CycleDeadlineQueue();
+        assertEquals(Long.MAX_VALUE, queue.getNextDeadline());
+        assertNull(queue.getNextListener());
+
+        Listener[] listeners = new Listener[10];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = new Listener();
+            // 70, 30, 90, 50, 10, ...
+            queue.schedule(listeners[i], (i * 7 % 10) * 10);
+        }
+        assertEquals(10, queue.size());
+
+        // Rescheduling replaces the previous deadline
+        queue.schedule(listeners[0], 1000);
+        assertEquals(10, queue.size());
+        assertTrue(queue.remove(listeners[3]));
+        assertFalse(queue.remove(listeners[3]));
+        assertFalse(queue.contains(listeners[3]));
+
+        long previous = -1;
+        while (queue.size() > 0) {
+            long deadline = queue.getNextDeadline();
+            assertTrue(deadline > previous);
+            previous = deadline;
+            queue.remove(queue.getNextListener());
+        }
+        assertEquals(1000, previous);
+    }
+}
@@ -1,13 +1,27 @@
 package com.nikonhacker.emu;
 
+import com.nikonhacker.Format;
+import com.nikonhacker.disassembly.OutputOption;
+import com.nikonhacker.disassembly.Statement;
 import com.nikonhacker.disassembly.fr.FrCPUState;
+import com.nikonhacker.disassembly.fr.FrInstructionSet;
+import com.nikonhacker.disassembly.fr.FrStatement;
 import com.nikonhacker.emu.memory.DebuggableMemory;
+import com.nikonhacker.emu.memory.listener.Abstract8BitMemoryActivityListener;
+import com.nikonhacker.emu.memory.listener.MemoryActivityListener;
+import com.nikonhacker.emu.peripherials.clock.fr.FrClockGenerator;
 import com.nikonhacker.emu.peripherials.interruptController.fr.FrInterruptController;
 import com.nikonhacker.emu.trigger.condition.AlwaysBreakCondition;
 import com.nikonhacker.emu.trigger.condition.BreakPointCondition;
+import com.nikonhacker.emu.trigger.condition.MemoryValueBreakCondition;
+import com.nikonhacker.gui.component.disassembly.DisassemblyLogger;
 import junit.framework.TestCase;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Random;
 
 /**
@@ -3068,6 +3082,342 @@ public class FrEmulatorTest extends TestCase {
         testXCHB();
     }
 
+    /**
+     * Runs a small loop with each interpreter, once straight to the end and once with a breakpoint
+     * inside the loop body, and checks the result is the same as with the step by step interpreter.
+     * The loop runs long enough for the tiered interpreter to clone it
+     */
+    public void testBlockInterpreter() throws EmulationException {
+        System.out.println("EmulatorTest.testBlockInterpreter");
+        try {
+            for (Emulator.Interpreter interpreter : Emulator.Interpreter.values()) {
+                emulator.setInterpreter(interpreter);
+
+                runLoop(2 * BlockCloner.HOT_THRESHOLD, BASE_ADDRESS + 8);
+                checkRegister(0, 0);
+                checkRegister(1, 2 * BlockCloner.HOT_THRESHOLD);
+                checkRegister(2, 1);
+                assertEquals(BASE_ADDRESS + 8, cpuState.pc);
+
+                runLoop(10, BASE_ADDRESS + 2);
+                checkRegister(0, 10);
+                checkRegister(1, 1);
+                checkRegister(2, 0);
+                assertEquals(BASE_ADDRESS + 2, cpuState.pc);
+            }
+        }
+        finally {
+            emulator.setInterpreter(Emulator.Interpreter.INSTRUCTION);
+        }
+    }
+
+    /**
+     * Clones more blocks than a cloner keeps, and checks the oldest one goes back to interpretation
+     */
+    public void testClonesAreBounded() {
+        System.out.println("EmulatorTest.testClonesAreBounded");
+        memory.store16(BASE_ADDRESS, 0x9fa0); // 0b1001111110100000 NOP
+        FrStatement nop = new FrStatement();
+        nop.getNextStatement(memory, BASE_ADDRESS);
+        nop.setInstruction(FrInstructionSet.instructionMap[nop.data[0]]);
+        nop.decodeOperands(BASE_ADDRESS, memory);
+
+        BlockCloner cloner = new BlockCloner();
+        BasicBlock[] blocks = new BasicBlock[BlockCloner.MAX_CLONED_BLOCKS + 1];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new BasicBlock(BASE_ADDRESS + 2 * i, Collections.<Statement>singletonList(nop), BASE_ADDRESS + 2 * i + 2);
+            blocks[i].executionCount = BlockCloner.HOT_THRESHOLD;
+            blocks[i].clonedBlock = cloner.createClone(blocks[i]);
+            assertNotNull(blocks[i].clonedBlock);
+        }
+        assertNull(blocks[0].clonedBlock);
+        assertEquals(0, blocks[0].executionCount);
+        assertNotNull(blocks[1].clonedBlock);
+    }
+
+    private void runLoop(int count, int breakPointAddress) throws EmulationException {
+        initCpu();
+
+        memory.store16(BASE_ADDRESS     , 0xa411); // 0b1010010000010001 ADD   #1,R1
+        memory.store16(BASE_ADDRESS +  2, 0xa5f0); // 0b1010010111110000 ADD2  #-1,R0
+        memory.store16(BASE_ADDRESS +  4, 0xe3fd); // 0b1110001111111101 BNE   BASE_ADDRESS
+        memory.store16(BASE_ADDRESS +  6, 0xa412); // 0b1010010000010010 ADD   #1,R2
+        memory.store16(BASE_ADDRESS +  8, 0xe0ff); // 0b1110000011111111 BRA   BASE_ADDRESS + 8
+
+        cpuState.setReg(0, count);
+        cpuState.setReg(1, 0);
+        cpuState.setReg(2, 0);
+
+        emulator.clearBreakConditions();
+        emulator.addBreakCondition(new BreakPointCondition(breakPointAddress, null));
+
+        emulator.play();
+    }
+
+    /**
+     * Checks that a memory condition watched while its address was plain memory is evaluated again at each
+     * instruction once an activity listener starts handling that address
+     */
+    public void testMemoryConditionOnNewlyListenedAddress() throws EmulationException {
+        System.out.println("EmulatorTest.testMemoryConditionOnNewlyListenedAddress");
+        final int address = 0x50000;
+        memory.store32(address, 0);
+
+        MemoryValueBreakCondition condition = new MemoryValueBreakCondition(null);
+        condition.setAddress(address);
+        condition.setMask(0xFFFFFFFF);
+        condition.setValue(0x12345678);
+        MemoryActivityListener listener = new Abstract8BitMemoryActivityListener() {
+            public boolean matches(int listenedAddress) {
+                return listenedAddress >= address && listenedAddress < address + 4;
+            }
+
+            public boolean matchesPage(int pte) {
+                return pte == address >>> 16;
+            }
+
+            public boolean isReadOnly() {
+                return true;
+            }
+
+            public Byte onLoadData8(byte[] pageData, int listenedAddress, byte value, DebuggableMemory.AccessSource accessSource) {
+                return null;
+            }
+
+            @Override
+            public Integer onLoadData32(byte[] pageData, int listenedAddress, int value, DebuggableMemory.AccessSource accessSource) {
+                return 0x12345678;
+            }
+
+            public void onLoadInstruction8(byte[] pageData, int listenedAddress, byte value, DebuggableMemory.AccessSource accessSource) {
+            }
+
+            public void onStore8(byte[] pageData, int listenedAddress, byte value, DebuggableMemory.AccessSource accessSource) {
+            }
+        };
+
+        initCpu();
+        memory.store16(BASE_ADDRESS     , 0xa411); // 0b1010010000010001 ADD   #1,R1
+        memory.store16(BASE_ADDRESS +  2, 0xa5f0); // 0b1010010111110000 ADD2  #-1,R0
+        memory.store16(BASE_ADDRESS +  4, 0xe3fd); // 0b1110001111111101 BNE   BASE_ADDRESS
+        memory.store16(BASE_ADDRESS +  6, 0xa412); // 0b1010010000010010 ADD   #1,R2
+        memory.store16(BASE_ADDRESS +  8, 0xe0ff); // 0b1110000011111111 BRA   BASE_ADDRESS + 8
+        cpuState.setReg(0, 1000);
+        cpuState.setReg(1, 0);
+        emulator.clearBreakConditions();
+        emulator.addBreakCondition(new BreakPointCondition(BASE_ADDRESS + 6, null));
+        emulator.addBreakCondition(condition);
+        assertTrue(condition.isWatched());
+
+        memory.addActivityListener(listener);
+        try {
+            emulator.play();
+        }
+        finally {
+            memory.removeActivityListener(listener);
+        }
+        // Value now comes from the listener and is read at the first instruction, instead of after the loop
+        assertFalse(condition.isWatched());
+        assertEquals(1, cpuState.getReg(1));
+    }
+
+    /**
+     * Checks that logged statements show the register and memory values of the time they were executed,
+     * although they are formatted later, in the logger thread
+     */
+    public void testLoggedOperandValues() throws EmulationException {
+        System.out.println("EmulatorTest.testLoggedOperandValues");
+        initCpu();
+        memory.store32(0x50000, 0x12345678);
+        memory.store16(BASE_ADDRESS     , 0x0412); // 0b0000010000010010 LD    @R1,R2
+        memory.store16(BASE_ADDRESS +  2, 0x1410); // 0b0001010000010000 ST    R0,@R1
+        memory.store16(BASE_ADDRESS +  4, 0x0412); // 0b0000010000010010 LD    @R1,R2
+        cpuState.setAllRegistersDefined();
+        cpuState.setReg(0, 0);
+        cpuState.setReg(1, 0x50000);
+        cpuState.setReg(2, 0);
+        emulator.clearBreakConditions();
+        emulator.addBreakCondition(new BreakPointCondition(BASE_ADDRESS + 6, null));
+
+        StringWriter log = new StringWriter();
+        DisassemblyLogger logger = new DisassemblyLogger();
+        logger.getWriters().add(log);
+        logger.setIncludeTimestamp(false);
+        logger.setLogging(true);
+        emulator.setDisassemblyLogger(logger);
+        emulator.setOutputOptions(EnumSet.of(OutputOption.MEMORY));
+        try {
+            emulator.play();
+        }
+        finally {
+            emulator.setDisassemblyLogger(null);
+            logger.close();
+            emulator.setOutputOptions(EnumSet.noneOf(OutputOption.class));
+        }
+        String nl = System.lineSeparator();
+        assertEquals("0x00040000  LD      @R1,R2 ; (00050000):12345678" + nl
+                + "0x00040002  ST      R0,@R1 ; (00050000)=00000000" + nl
+                + "0x00040004  LD      @R1,R2 ; (00050000):00000000" + nl, log.toString());
+    }
+
+    /**
+     * Runs a counting loop followed by an idle loop, with and without idle fast-forward, with each interpreter,
+     * and checks that the idle loop is actually skipped, while the emulated time, cycle count and timestamps logged
+     * after the skip stay exactly the same as when it is interpreted
+     */
+    public void testIdleFastForward() throws EmulationException {
+        System.out.println("EmulatorTest.testIdleFastForward");
+        for (Emulator.Interpreter interpreter : Emulator.Interpreter.values()) {
+            long[] expected = null;
+            String expectedLog = null;
+            for (boolean idleFastForward : new boolean[]{false, true}) {
+                MasterClock masterClock = new MasterClock();
+                masterClock.setQuantumMode(true);
+                StringWriter log = new StringWriter();
+                DisassemblyLogger logger = new DisassemblyLogger();
+                logger.getWriters().add(log);
+                logger.setIncludeInstruction(false);
+                logger.setLogging(true);
+                FrEmulator frEmulator = runIdleLoop(masterClock, interpreter, idleFastForward, logger);
+                logger.close();
+                FrCPUState frCpuState = (FrCPUState) frEmulator.platform.getCpuState();
+                assertEquals(0, frCpuState.getReg(0));
+                assertEquals(100, frCpuState.getReg(1));
+                assertEquals(BASE_ADDRESS + 6, frCpuState.pc);
+                // Stopped at the first instruction after the deadline
+                assertTrue(frEmulator.getTotalCycles() >= IDLE_LOOP_STOP_CYCLE);
+                assertTrue(frEmulator.getTotalCycles() < IDLE_LOOP_STOP_CYCLE + 10);
+                // Logging started with the idle loop instruction at the time of the deadline
+                String firstLine = log.toString().split(System.lineSeparator())[0];
+                assertTrue(firstLine, firstLine.endsWith(" 0x" + Format.asHex(BASE_ADDRESS + 6, 8)));
+                long firstTimestampPs = Math.round(Double.parseDouble(firstLine.substring(0, firstLine.indexOf("ms"))) * MasterClock.PS_PER_MS);
+                long tickPs = MasterClock.PS_PER_MS / 100_000;
+                assertTrue(firstLine, firstTimestampPs >= IDLE_LOOP_LOG_CYCLE * tickPs && firstTimestampPs < (IDLE_LOOP_LOG_CYCLE + 10) * tickPs);
+                if (idleFastForward) {
+                    // Nearly all the idle loop was skipped
+                    assertTrue("Skipped ticks: " + frEmulator.getSkippedIdleTicks(), frEmulator.getSkippedIdleTicks() > IDLE_LOOP_STOP_CYCLE / 2);
+                    assertEquals(expected[0], masterClock.getTotalElapsedTimePs());
+                    assertEquals(expected[1], frEmulator.getTotalCycles());
+                    assertEquals(expectedLog, log.toString());
+                }
+                else {
+                    assertEquals(0, frEmulator.getSkippedIdleTicks());
+                    expected = new long[]{masterClock.getTotalElapsedTimePs(), frEmulator.getTotalCycles()};
+                    expectedLog = log.toString();
+                }
+            }
+        }
+    }
+
+    private static final long IDLE_LOOP_LOG_CYCLE  = 99_900;
+    private static final long IDLE_LOOP_STOP_CYCLE = 100_000;
+
+    /**
+     * Runs, on a new emulator driven by the given clock, a counting loop followed by an idle loop. A cycle deadline
+     * attaches the given logger, then another one adds a break condition
+     * @return the stopped emulator
+     */
+    private static FrEmulator runIdleLoop(MasterClock masterClock, Emulator.Interpreter interpreter, boolean idleFastForward, final DisassemblyLogger logger) {
+        Platform platform = new Platform(masterClock);
+
+        FrCPUState frCpuState = new FrCPUState(BASE_ADDRESS);
+        platform.setCpuState(frCpuState);
+
+        DebuggableMemory frMemory = new DebuggableMemory(false);
+        frMemory.setLogMemoryMessages(false);
+        platform.setMemory(frMemory);
+
+        FrInterruptController interruptController = new FrInterruptController(platform);
+        platform.setInterruptController(interruptController);
+
+        FrClockGenerator clockGenerator = new FrClockGenerator();
+        platform.setClockGenerator(clockGenerator);
+        clockGenerator.setPlatform(platform);
+
+        final FrEmulator frEmulator = new FrEmulator(platform);
+        frEmulator.setContext(frMemory, frCpuState, interruptController);
+        frEmulator.setInterpreter(interpreter);
+        frEmulator.setIdleFastForward(idleFastForward);
+
+        frMemory.store16(BASE_ADDRESS     , 0xa411); // 0b1010010000010001 ADD   #1,R1
+        frMemory.store16(BASE_ADDRESS +  2, 0xa5f0); // 0b1010010111110000 ADD2  #-1,R0
+        frMemory.store16(BASE_ADDRESS +  4, 0xe3fd); // 0b1110001111111101 BNE   BASE_ADDRESS
+        frMemory.store16(BASE_ADDRESS +  6, 0xe0ff); // 0b1110000011111111 BRA   BASE_ADDRESS + 6
+
+        frCpuState.setReg(0, 100);
+        frCpuState.setReg(1, 0);
+
+        frEmulator.clearBreakConditions();
+        frEmulator.scheduleCycleDeadline(new CycleDeadlineListener() {
+            @Override
+            public long onCycleDeadline(long deadline) {
+                // Like opening the disassembly log from the UI
+                frEmulator.setDisassemblyLogger(logger);
+                return NO_DEADLINE;
+            }
+        }, IDLE_LOOP_LOG_CYCLE);
+        frEmulator.scheduleCycleDeadline(new CycleDeadlineListener() {
+            @Override
+            public long onCycleDeadline(long deadline) {
+                // Like a stop request from the UI
+                frEmulator.addBreakCondition(new AlwaysBreakCondition());
+                return NO_DEADLINE;
+            }
+        }, IDLE_LOOP_STOP_CYCLE);
+
+        masterClock.add(frEmulator);
+        // Returns once the emulator is stopped
+        masterClock.run();
+        return frEmulator;
+    }
+
+    /**
+     * Runs a loop of delayed calls, returns and branches without break conditions, with each interpreter,
+     * and checks that executing it does not allocate any memory once warmed up
+     */
+    public void testDelaySlotAllocation() throws EmulationException {
+        System.out.println("EmulatorTest.testDelaySlotAllocation");
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println(" Allocation measurement not supported by this JVM, skipped");
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        long threadId = Thread.currentThread().getId();
+        try {
+            for (Emulator.Interpreter interpreter : Emulator.Interpreter.values()) {
+                emulator.setInterpreter(interpreter);
+                initCpu();
+
+                memory.store16(BASE_ADDRESS     , 0xd807); // 0b1101100000000111 CALL:D BASE_ADDRESS + 0x10
+                memory.store16(BASE_ADDRESS +  2, 0x9fa0); // 0b1001111110100000 NOP
+                memory.store16(BASE_ADDRESS +  4, 0xf0fd); // 0b1111000011111101 BRA:D  BASE_ADDRESS
+                memory.store16(BASE_ADDRESS +  6, 0x9fa0); // 0b1001111110100000 NOP
+                memory.store16(BASE_ADDRESS + 16, 0x9f20); // 0b1001111100100000 RET:D
+                memory.store16(BASE_ADDRESS + 18, 0x9fa0); // 0b1001111110100000 NOP
+
+                emulator.clearBreakConditions();
+
+                // Warm up: decode, build and clone blocks
+                for (int i = 0; i < 100; i++) {
+                    assertNull(emulator.onClockTicks(10_000));
+                }
+
+                long allocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < 100; i++) {
+                    emulator.onClockTicks(10_000);
+                }
+                allocatedBytes = allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+                assertEquals("Bytes allocated by the " + interpreter + " interpreter", 0, allocatedBytes);
+                checkRegister(FrCPUState.RP, BASE_ADDRESS + 4);
+            }
+        }
+        finally {
+            emulator.setInterpreter(Emulator.Interpreter.INSTRUCTION);
+        }
+    }
+
     public void testAll() throws EmulationException {
         testArithmetic();
         testLogical();
@@ -1,5 +1,6 @@
 package com.nikonhacker.emu;
 
+import com.nikonhacker.Constants;
 import junit.framework.TestCase;
 
 public class MasterClockTest  extends TestCase {
@@ -28,6 +29,307 @@ public class MasterClockTest  extends TestCase {
         Thread.sleep(5000);
     }
 
+    /**
+     * Checks that a CPU gets the exact number of ticks between two timer ticks, in one call, with or without quantum mode
+     */
+    public void testQuantumClockable() throws Exception {
+        for (boolean quantumMode : new boolean[]{false, true}) {
+            MasterClock masterClock = new MasterClock();
+            masterClock.setQuantumMode(quantumMode);
+            TestQuantumClockable cpu = new TestQuantumClockable(100000000, 10000);
+            TestTimer timer = new TestTimer(1000000, 100, cpu);
+
+            masterClock.add(timer);
+            masterClock.add(cpu);
+            masterClock.start();
+            for (int i = 0; i < 100 && (cpu.ticks < 10000 || timer.runs < 100); i++) {
+                Thread.sleep(50);
+            }
+
+            for (int i = 0; i < timer.cpuTicksAtTimerTick.length; i++) {
+                assertEquals("CPU ticks at timer tick #" + i, i * 100, timer.cpuTicksAtTimerTick[i]);
+            }
+            assertEquals(10000, cpu.ticks);
+            assertTrue("Too many calls: " + cpu.calls, cpu.calls <= 200);
+        }
+    }
+
+    /**
+     * Checks that an EventClockable is only called at its events, and that ticks counted in between
+     * are consistent with the time seen by a CPU
+     */
+    public void testEventClockable() throws Exception {
+        for (boolean quantumMode : new boolean[]{false, true}) {
+            MasterClock masterClock = new MasterClock();
+            masterClock.setQuantumMode(quantumMode);
+            TestQuantumClockable cpu = new TestQuantumClockable(100000000, 1000000);
+            TestEventTimer timer = new TestEventTimer(1000000, 1000, cpu);
+            cpu.masterClock = masterClock;
+            cpu.timer = timer;
+
+            masterClock.add(timer);
+            masterClock.add(cpu);
+            masterClock.start();
+            for (int i = 0; i < 100 && cpu.ticks < 1000000; i++) {
+                Thread.sleep(50);
+            }
+
+            assertEquals(1000000, cpu.ticks);
+            assertTrue("Timer was not called", timer.calls > 0);
+            assertTrue("Too many timer calls: " + timer.calls, timer.calls <= 10);
+            for (int i = 0; i < timer.calls; i++) {
+                assertEquals("CPU ticks at timer event #" + i, timer.ticksAtCall[i] * 100, timer.cpuTicksAtCall[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks that in parallel mode, messages between chips are delivered one parallel quantum after they were sent
+     */
+    public void testParallelMode() throws Exception {
+        MasterClock masterClock = new MasterClock();
+        masterClock.setParallelMode(true);
+        masterClock.setParallelQuantumPs(10 * MasterClock.PS_PER_MS / 1000);
+        TestQuantumClockable frCpu = new TestQuantumClockable(100000000, 100000);
+        frCpu.chip = Constants.CHIP_FR;
+        final TestQuantumClockable txCpu = new TestQuantumClockable(100000000, 100000);
+        txCpu.chip = Constants.CHIP_TX;
+        TestPinger pinger = new TestPinger(masterClock, 100000, 50, txCpu);
+
+        masterClock.add(frCpu);
+        masterClock.add(txCpu);
+        masterClock.add(pinger);
+        masterClock.start();
+        for (int i = 0; i < 100 && (frCpu.ticks < 100000 || txCpu.ticks < 100000); i++) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(100000, frCpu.ticks);
+        assertEquals(100000, txCpu.ticks);
+        for (int i = 0; i < pinger.txTicksAtDelivery.length; i++) {
+            assertEquals("TX CPU ticks at delivery of message #" + i, (i + 1) * 1000, pinger.txTicksAtDelivery[i]);
+        }
+    }
+
+    /**
+     * Checks that the time read by a CPU during a long budget is the time of the tick it is processing
+     */
+    public void testTimeDuringBudget() throws Exception {
+        MasterClock masterClock = new MasterClock();
+        TestTimeReader cpu = new TestTimeReader(masterClock, 100000000, 200000);
+
+        masterClock.add(cpu);
+        // Returns once the CPU has stopped
+        masterClock.run();
+
+        assertEquals(200000, cpu.ticks);
+        assertTrue("Budget of " + cpu.maxBudget + " ticks", cpu.maxBudget > 1000);
+        for (int i = 0; i < cpu.timesPs.length; i++) {
+            assertEquals("Time at tick #" + i, i * 10000L, cpu.timesPs[i]);
+        }
+    }
+
+    /**
+     * A CPU reading the time at each tick, like an emulator logging instructions
+     */
+    private static class TestTimeReader implements QuantumClockable {
+        private MasterClock masterClock;
+        private int frequencyHz;
+        private long[] timesPs;
+        private int ticks = 0;
+        private int maxBudget = 0;
+        private int processedTicks = 0;
+
+        public TestTimeReader(MasterClock masterClock, int frequencyHz, int maxTicks) {
+            this.masterClock = masterClock;
+            this.frequencyHz = frequencyHz;
+            this.timesPs = new long[maxTicks];
+        }
+
+        @Override
+        public int getChip() {
+            return -1;
+        }
+
+        public int getFrequencyHz() {
+            return frequencyHz;
+        }
+
+        public Object onClockTick() {
+            return onClockTicks(1);
+        }
+
+        public Object onClockTicks(int ticks) {
+            maxBudget = Math.max(maxBudget, ticks);
+            for (processedTicks = 0; processedTicks < ticks && this.ticks < timesPs.length; processedTicks++) {
+                timesPs[this.ticks++] = masterClock.getTotalElapsedTimePs();
+            }
+            return (this.ticks < timesPs.length)?null:new Object();
+        }
+
+        public int getProcessedTicks() {
+            return processedTicks;
+        }
+
+        public void endQuantum() {
+        }
+    }
+
+    private static class TestQuantumClockable implements QuantumClockable {
+        private int chip = -1;
+        private int frequencyHz;
+        private int maxTicks;
+        private int ticks = 0;
+        private int calls = 0;
+        private int processedTicks = 0;
+        private MasterClock masterClock;
+        private TestEventTimer timer;
+
+        public TestQuantumClockable(int frequencyHz, int maxTicks) {
+            this.frequencyHz = frequencyHz;
+            this.maxTicks = maxTicks;
+        }
+
+        @Override
+        public int getChip() {
+            return chip;
+        }
+
+        public int getFrequencyHz() {
+            return frequencyHz;
+        }
+
+        public Object onClockTick() {
+            return onClockTicks(1);
+        }
+
+        public Object onClockTicks(int ticks) {
+            calls++;
+            processedTicks = 0;
+            if (timer != null) {
+                // Like firmware reading a counter register
+                timer.ticks += masterClock.consumeElapsedTicks(timer);
+            }
+            // Like an emulator reaching a breakpoint, stop before the end of the budget
+            processedTicks = Math.min(ticks, maxTicks - this.ticks);
+            this.ticks += processedTicks;
+            return (this.ticks < maxTicks)?null:new Object();
+        }
+
+        public int getProcessedTicks() {
+            return processedTicks;
+        }
+
+        public void endQuantum() {
+        }
+    }
+
+    /**
+     * A FR device sending a message to the TX at each tick
+     */
+    private static class TestPinger implements Clockable {
+        private MasterClock masterClock;
+        private int frequencyHz;
+        private TestQuantumClockable txCpu;
+        private int[] txTicksAtDelivery;
+        private int runs = 0;
+
+        public TestPinger(MasterClock masterClock, int frequencyHz, int maxRuns, TestQuantumClockable txCpu) {
+            this.masterClock = masterClock;
+            this.frequencyHz = frequencyHz;
+            this.txCpu = txCpu;
+            this.txTicksAtDelivery = new int[maxRuns];
+        }
+
+        @Override
+        public int getChip() {
+            return Constants.CHIP_FR;
+        }
+
+        public int getFrequencyHz() {
+            return frequencyHz;
+        }
+
+        public Object onClockTick() {
+            final int run = runs++;
+            masterClock.post(Constants.CHIP_FR, Constants.CHIP_TX, new Runnable() {
+                @Override
+                public void run() {
+                    txTicksAtDelivery[run] = txCpu.ticks;
+                }
+            });
+            return (runs < txTicksAtDelivery.length)?null:new Object();
+        }
+    }
+
+    private static class TestEventTimer implements EventClockable {
+        private int frequencyHz;
+        private int period;
+        private TestQuantumClockable cpu;
+        private int ticks = 0;
+        private int calls = 0;
+        private int[] ticksAtCall = new int[100];
+        private int[] cpuTicksAtCall = new int[100];
+
+        public TestEventTimer(int frequencyHz, int period, TestQuantumClockable cpu) {
+            this.frequencyHz = frequencyHz;
+            this.period = period;
+            this.cpu = cpu;
+        }
+
+        @Override
+        public int getChip() {
+            return -1;
+        }
+
+        public int getFrequencyHz() {
+            return frequencyHz;
+        }
+
+        public int getTicksToNextEvent() {
+            return period - ticks % period;
+        }
+
+        public Object onClockTick() {
+            return onClockTicks(1);
+        }
+
+        public Object onClockTicks(int ticks) {
+            this.ticks += ticks;
+            ticksAtCall[calls] = this.ticks;
+            cpuTicksAtCall[calls] = cpu.ticks;
+            calls++;
+            return (cpu.ticks < cpu.maxTicks)?null:new Object();
+        }
+    }
+
+    private static class TestTimer implements Clockable {
+        private int frequencyHz;
+        private TestQuantumClockable cpu;
+        private int[] cpuTicksAtTimerTick;
+        private int runs = 0;
+
+        public TestTimer(int frequencyHz, int maxRuns, TestQuantumClockable cpu) {
+            this.frequencyHz = frequencyHz;
+            this.cpu = cpu;
+            this.cpuTicksAtTimerTick = new int[maxRuns];
+        }
+
+        @Override
+        public int getChip() {
+            return -1;
+        }
+
+        public int getFrequencyHz() {
+            return frequencyHz;
+        }
+
+        public Object onClockTick() {
+            cpuTicksAtTimerTick[runs++] = cpu.ticks;
+            return (runs < cpuTicksAtTimerTick.length)?null:new Object();
+        }
+    }
+
     private static class TestClockable implements Clockable, ClockableCallbackHandler {
         private String name;
         private int frequencyHz;
@@ -0,0 +1,184 @@
+package com.nikonhacker.emu.memory;
+
+import com.nikonhacker.emu.memory.listener.Abstract8BitMemoryActivityListener;
+import com.nikonhacker.emu.memory.listener.WordWriteListener;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class DebuggableMemoryTest extends TestCase {
+
+    /**
+     * Listener returning 0x5A for the bytes of a range, and counting the stores it sees
+     */
+    private static class RangeListener extends Abstract8BitMemoryActivityListener {
+        private final int minAddress;
+        private final int maxAddress;
+        int numStores;
+
+        RangeListener(int minAddress, int maxAddress) {
+            this.minAddress = minAddress;
+            this.maxAddress = maxAddress;
+        }
+
+        public boolean matches(int address) {
+            return address >= minAddress && address <= maxAddress;
+        }
+
+        public boolean matchesPage(int pte) {
+            return pte >= minAddress >>> 16 && pte <= maxAddress >>> 16;
+        }
+
+        public boolean isReadOnly() {
+            return false;
+        }
+
+        public Byte onLoadData8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
+            return (byte) 0x5A;
+        }
+
+        public void onLoadInstruction8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
+        }
+
+        public void onStore8(byte[] pageData, int address, byte value, DebuggableMemory.AccessSource accessSource) {
+            numStores++;
+        }
+    }
+
+    public void testMultiByteAccesses() {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        // Within a page, then crossing a page boundary
+        for (int address : new int[]{0x0001_0100, 0x0001_FFFE}) {
+            memory.store32(address, 0x89ABCDEF);
+            assertEquals(0x89, memory.loadUnsigned8(address));
+            assertEquals(0xEF, memory.loadUnsigned8(address + 3));
+            assertEquals(0x89ABCDEF, memory.load32(address));
+            assertEquals(0x89AB, memory.loadUnsigned16(address));
+            assertEquals(0xFFFF89AB, memory.loadSigned16(address));
+            assertEquals(0xABCD, memory.loadInstruction16(address + 1));
+            assertEquals(0x89ABCDEF, memory.loadInstruction32(address));
+
+            memory.store16(address + 1, 0x1234);
+            assertEquals(0x891234EF, memory.load32(address));
+        }
+    }
+
+    public void testZeroPage() throws Exception {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        memory.map(0x0002_0000, 0x2_0000, true, true, true);
+        assertEquals(0, memory.load32(0x0002_1000));
+        assertEquals(0, memory.loadUnsigned8(0x0005_0000));
+        assertEquals(0, memory.loadInstruction16(0x0003_0000));
+        assertEquals(3, memory.getNumUsedPages());
+        assertEquals(0, memory.getNumResidentPages());
+
+        memory.store16(0x0003_FFFE, 0x1234);
+        assertEquals(1, memory.getNumResidentPages());
+        assertEquals(0x1234, memory.loadInstruction16(0x0003_FFFE));
+        assertEquals(0, memory.loadUnsigned16(0x0002_FFFE));
+        assertEquals(0, AbstractMemory.ZERO_PAGE[0xFFFE]);
+
+        // Pages still sharing the zero page are restored as such
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        memory.saveAllToStream(outputStream);
+        memory.loadAllFromStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(3, memory.getNumUsedPages());
+        assertEquals(1, memory.getNumResidentPages());
+        assertEquals(0x1234, memory.loadUnsigned16(0x0003_FFFE));
+        memory.store8(0x0005_0000, 0x56);
+        assertEquals(0x56, memory.loadUnsigned8(0x0005_0000));
+    }
+
+    /**
+     * Checks that listeners of the first store to an untouched page get the page being written
+     */
+    public void testListenerPageOnFirstStore() throws Exception {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        memory.map(0x0002_0000, 0x2_0000, true, true, true);
+        final byte[][] pages = new byte[2][];
+        memory.addActivityListener(new RangeListener(0x0002_0000, 0x0003_FFFF) {
+            public void onStore16(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
+                // Like a register listener reading the rest of the page
+                assertEquals(0, pageData[address & 0xFFFF]);
+                pages[0] = pageData;
+            }
+
+            public void onStore32(byte[] pageData, int address, int value, DebuggableMemory.AccessSource accessSource) {
+                assertEquals(0, pageData[address & 0xFFFF]);
+                pages[1] = pageData;
+            }
+        });
+        assertEquals(0, memory.getNumResidentPages());
+
+        memory.store16(0x0002_0010, 0x1234);
+        memory.store32(0x0003_0010, 0x12345678);
+        assertEquals(2, memory.getNumResidentPages());
+        assertSame(memory.getPageForAddress(0x0002_0000), pages[0]);
+        assertSame(memory.getPageForAddress(0x0003_0000), pages[1]);
+        assertEquals(0x12, pages[0][0x0010]);
+        assertEquals(0x12, pages[1][0x0010]);
+    }
+
+    public void testBlockTransfers() {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        byte[] data = new byte[0x100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        final int[] numWordWrites = new int[1];
+        memory.addWordWriteListener(0x0002_0010, new WordWriteListener() {
+            public void onWordWrite(int wordAddress) {
+                numWordWrites[0]++;
+            }
+        });
+
+        // Crossing a page boundary
+        memory.storeBlock(0x0001_FF80, data, 0, data.length, DebuggableMemory.AccessSource.DMA);
+        assertEquals(1, numWordWrites[0]);
+        assertEquals(0x7F, memory.loadUnsigned8(0x0001_FFFF));
+        assertEquals(0x80, memory.loadUnsigned8(0x0002_0000));
+
+        memory.copy(0x0001_FF80, 0x0005_0000, 0x100, DebuggableMemory.AccessSource.DMA);
+        memory.fill(0x0005_0010, 0xEE, 0x10, DebuggableMemory.AccessSource.DMA);
+        byte[] result = new byte[0x100];
+        memory.loadBlock(0x0005_0000, result, 0, result.length, DebuggableMemory.AccessSource.DMA);
+        for (int i = 0; i < result.length; i++) {
+            assertEquals((i >= 0x10 && i < 0x20) ? (byte) 0xEE : data[i], result[i]);
+        }
+
+        // Listened pages still see each byte
+        RangeListener listener = new RangeListener(0x0005_0000, 0x0005_0003);
+        memory.addActivityListener(listener);
+        assertTrue(memory.isListened(0x0004_FFF0, 0x20));
+        assertFalse(memory.isListened(0x0005_0004, 0x1_0000));
+        memory.fill(0x0004_FFF0, 0, 0x20, DebuggableMemory.AccessSource.DMA);
+        assertEquals(4, listener.numStores);
+        memory.loadBlock(0x0005_0000, result, 0, 8, DebuggableMemory.AccessSource.DMA);
+        assertEquals(0x5A, result[3]);
+        assertEquals(0, result[4]);
+    }
+
+    public void testPageDispatch() {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        RangeListener listener = new RangeListener(0x1234_FF00, 0x1235_00FF);
+        memory.addActivityListener(listener);
+
+        // Both pages of the range are listened, but only addresses in the range match
+        assertTrue(memory.isListened(0x1234_FF00));
+        assertTrue(memory.isListened(0x1235_00FF));
+        assertFalse(memory.isListened(0x1234_0000));
+        assertFalse(memory.isListened(0x1235_0100));
+        assertFalse(memory.isListened(0x0000_0000));
+
+        memory.store8(0x1235_0000, 0x11);
+        memory.store8(0x1235_0100, 0x22);
+        assertEquals(1, listener.numStores);
+        assertEquals(0x5A, memory.loadUnsigned8(0x1235_0000));
+        assertEquals(0x22, memory.loadUnsigned8(0x1235_0100));
+
+        assertTrue(memory.removeActivityListener(listener));
+        assertFalse(memory.isListened(0x1235_0000));
+        assertEquals(0x11, memory.loadUnsigned8(0x1235_0000));
+    }
+}
@@ -0,0 +1,91 @@
+package com.nikonhacker.emu.memory;
+
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.nio.ByteOrder;
+
+public class OffHeapMemoryTest extends TestCase {
+
+    public void testAccesses() {
+        OffHeapMemory bigEndian = new OffHeapMemory(ByteOrder.BIG_ENDIAN);
+        OffHeapMemory littleEndian = new OffHeapMemory(ByteOrder.LITTLE_ENDIAN);
+        for (OffHeapMemory memory : new OffHeapMemory[]{bigEndian, littleEndian}) {
+            memory.map(0x0001_0000, 0x2_0000, true, true, true);
+            // Within a page, then crossing a page boundary
+            for (int address : new int[]{0x0001_0100, 0x0001_FFFE}) {
+                memory.store32(address, 0x89ABCDEF);
+                assertEquals(0x89ABCDEF, memory.load32(address));
+                assertEquals(0x89ABCDEF, memory.loadInstruction32(address));
+                memory.store16(address + 1, 0x1234);
+                assertEquals(0x1234, memory.loadUnsigned16(address + 1));
+                assertEquals(0x1234, memory.loadInstruction16(address + 1));
+            }
+        }
+        assertEquals(0x89, bigEndian.loadUnsigned8(0x0001_0100));
+        assertEquals(0xFFFF8912, bigEndian.loadSigned16(0x0001_FFFE));
+        assertEquals(0xEF, littleEndian.loadUnsigned8(0x0001_0100));
+        assertEquals(0xFFFF8912, littleEndian.loadSigned16(0x0001_0102));
+
+        try {
+            bigEndian.loadUnsigned8(0x0003_0000);
+            fail("Unmapped memory should not be readable");
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+
+    public void testLoadFile() throws IOException {
+        File file = File.createTempFile("firmware", ".bin");
+        file.deleteOnExit();
+        // One page and a half
+        byte[] contents = new byte[0x1_8000];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = (byte) (i >> 8);
+        }
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(contents);
+        outputStream.close();
+
+        OffHeapMemory memory = new OffHeapMemory(ByteOrder.BIG_ENDIAN);
+        memory.loadFile(file, 0x0010_0000, false);
+        assertEquals(0x1213, memory.loadUnsigned16(0x0010_12FF));
+        assertEquals(0x7F7F, memory.loadUnsigned16(0x0011_7FFE));
+        assertEquals(0, memory.loadUnsigned16(0x0011_8000));
+
+        // Stores to a file loaded without write protection never reach the file
+        memory.store32(0x0010_0000, 0xFFFFFFFF);
+        memory.store32(0x0011_0000, 0xFFFFFFFF);
+        assertEquals(0xFFFFFFFF, memory.load32(0x0010_0000));
+        FileInputStream inputStream = new FileInputStream(file);
+        assertEquals(0, inputStream.read());
+        inputStream.close();
+
+        OffHeapMemory protectedMemory = new OffHeapMemory(ByteOrder.BIG_ENDIAN);
+        protectedMemory.loadFile(file, 0x0010_0000, true);
+        try {
+            protectedMemory.store8(0x0010_0000, 0);
+            fail("Write protected memory should not be writable");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    public void testStateCompatibility() throws IOException {
+        OffHeapMemory memory = new OffHeapMemory(ByteOrder.BIG_ENDIAN);
+        memory.map(0x1234_0000, 0x1_0000, true, true, true);
+        memory.store32(0x1234_5678, 0xCAFEBABE);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        memory.saveAllToStream(outputStream);
+        DebuggableMemory debuggableMemory = new DebuggableMemory(false);
+        debuggableMemory.loadAllFromStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(0xCAFEBABE, debuggableMemory.load32(0x1234_5678));
+
+        outputStream = new ByteArrayOutputStream();
+        debuggableMemory.saveAllToStream(outputStream);
+        memory.loadAllFromStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(0xCAFEBABE, memory.load32(0x1234_5678));
+        assertEquals(1, memory.getNumUsedPages());
+    }
+}
@@ -0,0 +1,49 @@
+package com.nikonhacker.emu.memory.listener;
+
+import com.nikonhacker.disassembly.fr.FrCPUState;
+import com.nikonhacker.emu.memory.DebuggableMemory;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.EnumSet;
+
+public class AccessTraceRecorderTest extends TestCase {
+
+    private static final String EXPECTED =
+            "            read from 0x00001234 : 0x5A        (@0x00100000)\n" +
+            "0x1234     written to 0x00001236               (DMA ctrlr)\n" +
+            "   CODE EXECUTED from 0x00001238 : 0x89ABCDEF  (@0x00100000)\n";
+
+    private void logAccesses(AccessTraceRecorder recorder) throws IOException {
+        FrCPUState cpuState = new FrCPUState();
+        cpuState.pc = 0x0010_0000;
+        RangeAccessLoggerActivityListener listener = new RangeAccessLoggerActivityListener(recorder, 0x1000, 0x1FFF, cpuState, EnumSet.of(DebuggableMemory.AccessSource.CODE, DebuggableMemory.AccessSource.DMA));
+        listener.onLoadData8(null, 0x1234, (byte) 0x5A, DebuggableMemory.AccessSource.CODE);
+        listener.onStore16(null, 0x1236, 0x1234, DebuggableMemory.AccessSource.DMA);
+        // Not selected
+        listener.onStore8(null, 0x1236, (byte) 0, DebuggableMemory.AccessSource.IMGA);
+        listener.onLoadInstruction32(null, 0x1238, 0x89ABCDEF, DebuggableMemory.AccessSource.CODE);
+        recorder.close();
+    }
+
+    public void testTextRecording() throws IOException {
+        StringWriter writer = new StringWriter();
+        logAccesses(new AccessTraceRecorder(new PrintWriter(writer), null));
+        assertEquals(EXPECTED, writer.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    public void testFileRecording() throws IOException {
+        File traceFile = File.createTempFile("access", ".trace");
+        traceFile.deleteOnExit();
+        logAccesses(new AccessTraceRecorder(traceFile, null));
+        // Header, then 24 bytes per record
+        assertEquals(12 + 3 * 24, traceFile.length());
+
+        StringWriter writer = new StringWriter();
+        AccessTraceRenderer.render(traceFile, new PrintWriter(writer));
+        assertEquals(EXPECTED, writer.toString().replace(System.lineSeparator(), "\n"));
+    }
+}
@@ -0,0 +1,27 @@
+package com.nikonhacker.emu.memory.listener;
+
+import junit.framework.TestCase;
+
+public class RegisterBlockMapTest extends TestCase {
+
+    public void testBlocks() {
+        RegisterBlockMap map = new RegisterBlockMap()
+                .add(0xFF00_1000, 0xFF00_1068, (byte) 1)
+                .add(0xFF00_4000, 0xFF00_4500, (byte) 2)
+                .add(0x0000_00F0, 0x0000_00F4, (byte) 1);
+
+        assertEquals(1, map.get(0xFF00_1000));
+        assertEquals(1, map.get(0xFF00_1067));
+        assertEquals(RegisterBlockMap.NO_BLOCK, map.get(0xFF00_1068));
+        assertEquals(2, map.get(0xFF00_44FF));
+        assertEquals(1, map.get(0x0000_00F3));
+        assertEquals(RegisterBlockMap.NO_BLOCK, map.get(0x0000_0000));
+
+        try {
+            map.add(0xFF00_44F0, 0xFF00_4510, (byte) 3);
+            fail("Overlapping blocks should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.nikonhacker.emu.memory.listener;
+
+import junit.framework.TestCase;
+
+public class RegisterMapTest extends TestCase {
+
+    private static class Unit {
+        int command;
+        int status;
+    }
+
+    private static final RegisterMap.Accessor<Unit> COMMAND = new RegisterMap.Accessor<Unit>() {
+        public int get(Unit unit) { return unit.command; }
+        public void set(Unit unit, int value) { unit.command = value; }
+    };
+
+    private static final RegisterMap.Accessor<Unit> STATUS = new RegisterMap.Accessor<Unit>() {
+        public int get(Unit unit) { return unit.status; }
+        public void set(Unit unit, int value) { unit.status = value; }
+    };
+
+    public void testDispatch() {
+        RegisterMap<Unit> map = new RegisterMap<Unit>(0x1_0000)
+                .add(0x002, 16, "Command", COMMAND)
+                .addWriteOnly(0x00F, 8, "Status", STATUS);
+
+        Unit unit = new Unit();
+        map.getForStore16(0x4002_0002).store(unit, 0x1234);
+        assertEquals(0x1234, unit.command);
+        assertEquals(0x1234, map.getForLoad16(0x4012_0002).load(unit));
+        // Only the declared width answers
+        assertNull(map.getForLoad8(0x4002_0002));
+        assertNull(map.getForLoad32(0x4002_0000));
+        // Beyond the last declared offset
+        assertNull(map.getForLoad16(0x4002_1002));
+
+        map.getForStore8(0x4002_000F).store(unit, 0x56);
+        assertEquals(0x56, unit.status);
+        assertNull(map.getForLoad8(0x4002_000F));
+
+        assertEquals(2, map.getRegisters().size());
+        assertEquals("Command", map.getRegisters().get(0).name);
+    }
+
+    public void testInvalidDeclarations() {
+        RegisterMap<Unit> map = new RegisterMap<Unit>(0x1000).add(0x010, 32, "Command", COMMAND);
+        try {
+            map.add(0x010, 32, "Status", STATUS);
+            fail("Registers at the same offset should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            map.add(0x012, 32, "Status", STATUS);
+            fail("Misaligned registers should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            map.add(0x1000, 8, "Status", STATUS);
+            fail("Registers outside the block should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.nikonhacker.emu.peripherials.interruptController;
+
+import com.nikonhacker.emu.interrupt.InterruptRequest;
+import com.nikonhacker.emu.interrupt.fr.FrInterruptRequest;
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class PendingInterruptRequestsTest extends TestCase {
+
+    public void testOrder() {
+        PendingInterruptRequests pending = new PendingInterruptRequests(64, 256);
+        assertTrue(pending.isEmpty());
+        assertNull(pending.getHighest());
+
+        FrInterruptRequest r1 = new FrInterruptRequest(0x30, false, 0x18);
+        FrInterruptRequest r2 = new FrInterruptRequest(0x20, false, 0x18);
+        FrInterruptRequest r3 = new FrInterruptRequest(0xC0, false, 0x12);
+        pending.add(0x30, 0x18, r1);
+        assertSame(r1, pending.getHighest());
+        // same level, lower slot first
+        pending.add(0x20, 0x18, r2);
+        assertSame(r2, pending.getHighest());
+        // higher level (lower number) first, even in another word of the bitmap
+        pending.add(0xC0, 0x12, r3);
+        assertSame(r3, pending.getHighest());
+
+        List<InterruptRequest> list = pending.toList();
+        assertEquals(3, list.size());
+        assertSame(r3, list.get(0));
+        assertSame(r2, list.get(1));
+        assertSame(r1, list.get(2));
+
+        assertTrue(pending.remove(0xC0));
+        assertFalse(pending.remove(0xC0));
+        assertSame(r2, pending.getHighest());
+
+        pending.setLevel(0x30, 0x10);
+        assertSame(r1, pending.getHighest());
+
+        pending.clear();
+        assertTrue(pending.isEmpty());
+        assertNull(pending.getHighest());
+    }
+
+    public void testSameSlot() {
+        PendingInterruptRequests pending = new PendingInterruptRequests(64, 256);
+        FrInterruptRequest low = new FrInterruptRequest(0x20, false, 0x18);
+        FrInterruptRequest high = new FrInterruptRequest(0x20, false, 0x10);
+
+        assertTrue(pending.add(0x20, 0x18, low));
+        // Same priority is ignored, higher priority replaces
+        assertFalse(pending.add(0x20, 0x18, high));
+        assertTrue(pending.add(0x20, 0x10, high));
+        assertFalse(pending.add(0x20, 0x18, low));
+
+        assertSame(high, pending.get(0x20));
+        assertEquals(1, pending.toList().size());
+
+        pending.remove(0x20);
+        assertNull(pending.get(0x20));
+        assertTrue(pending.isEmpty());
+    }
+
+    /**
+     * Several threads add and remove requests in their own slots, and at the end, only the requests
+     * left by each thread must be pending
+     */
+    public void testConcurrentAccess() throws InterruptedException {
+        final PendingInterruptRequests pending = new PendingInterruptRequests(64, 256);
+        final int numThreads = 4;
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int firstSlot = t * 64;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 200_000; i++) {
+                        int slot = firstSlot + (i % 64);
+                        pending.add(slot, i % 64, new FrInterruptRequest(slot, false, 0));
+                        pending.getHighest();
+                        pending.remove(slot);
+                    }
+                    pending.add(firstSlot, 63, new FrInterruptRequest(firstSlot, false, 0));
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertFalse(pending.isEmpty());
+        assertEquals(numThreads, pending.toList().size());
+        assertEquals(0, pending.getHighest().getInterruptNumber());
+        for (int t = 0; t < numThreads; t++) {
+            assertTrue(pending.remove(t * 64));
+        }
+        assertNull(pending.getHighest());
+        assertTrue(pending.isEmpty());
+    }
+
+    /**
+     * While a change is in progress (simulated by holding the lock), a remove from another thread, like the GUI does,
+     * must wait for it, while the CPU thread can still read pending requests
+     */
+    public void testChangesWaitButReadsDont() throws InterruptedException {
+        final PendingInterruptRequests pending = new PendingInterruptRequests(64, 256);
+        final FrInterruptRequest request = new FrInterruptRequest(0x20, false, 0x18);
+        pending.add(0x20, 0x18, request);
+
+        Thread remover = new Thread() {
+            @Override
+            public void run() {
+                pending.remove(0x20);
+            }
+        };
+        final InterruptRequest[] highest = new InterruptRequest[1];
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                highest[0] = pending.getHighest();
+            }
+        };
+        synchronized (pending) {
+            remover.start();
+            while (remover.getState() != Thread.State.BLOCKED && remover.getState() != Thread.State.TERMINATED) {
+                Thread.sleep(1);
+            }
+            assertEquals(Thread.State.BLOCKED, remover.getState());
+
+            reader.start();
+            reader.join();
+            assertSame(request, highest[0]);
+            assertFalse(pending.isEmpty());
+        }
+        remover.join();
+        assertNull(pending.getHighest());
+        assertTrue(pending.isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package com.nikonhacker.emu.trigger.condition;
+
+import com.nikonhacker.emu.memory.DebuggableMemory;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BreakConditionIndexTest extends TestCase {
+
+    public void testBreakPoints() {
+        BreakConditionIndex empty = BreakConditionIndex.EMPTY;
+        BreakPointCondition bp1 = new BreakPointCondition(0x00040000, null);
+        BreakPointCondition bp2 = new BreakPointCondition(0xBFC0007F, null);
+        List<BreakCondition> andConditions = new ArrayList<BreakCondition>();
+        andConditions.add(new BreakPointCondition(0x00040000, null));
+        andConditions.add(new RegisterEqualityBreakCondition(4, 0x10, null));
+        AndCondition and = new AndCondition(andConditions, null);
+
+        BreakConditionIndex index = empty.with(bp1).with(bp2).with(and);
+
+        // previous instances are left untouched
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.isBreakPoint(0x00040000));
+
+        assertFalse(index.isEmpty());
+        assertFalse(index.hasOtherConditions());
+        assertTrue(index.isBreakPoint(0x00040000));
+        assertFalse(index.isBreakPoint(0x00040002));
+        assertFalse(index.isBreakPoint(0x00050000));
+        // bit 0 (e.g. TX 16-bit ISA mode) is ignored
+        assertTrue(index.isBreakPoint(0xBFC0007E));
+        assertTrue(index.isBreakPoint(0xBFC0007F));
+
+        BreakCondition[] conditions = index.getPcConditions(0x00040000);
+        assertEquals(2, conditions.length);
+        assertSame(bp1, conditions[0]);
+        assertSame(and, conditions[1]);
+        assertTrue(BreakConditionIndex.isBreakPointOnly(bp1));
+        assertFalse(BreakConditionIndex.isBreakPointOnly(and));
+        assertEquals(0, index.getPcConditions(0x00040002).length);
+    }
+
+    public void testMemoryConditionsOutdatedByTheirOwnWords() {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        memory.store32(0x1000, 0x11);
+        memory.store32(0x2000, 0x22);
+        MemoryValueBreakCondition first = newWatchedEquality(memory, 0x1000, 0x11);
+        MemoryValueBreakCondition second = newWatchedEquality(memory, 0x2000, 0x22);
+        List<BreakCondition> andConditions = new ArrayList<BreakCondition>();
+        andConditions.add(newWatchedEquality(memory, 0x1000, 0x11));
+        andConditions.add(newWatchedEquality(memory, 0x3000, 0));
+        AndCondition and = new AndCondition(andConditions, null);
+
+        BreakConditionIndex index = BreakConditionIndex.EMPTY.with(first).with(second).with(and);
+        BreakCondition[] conditions = index.getMemoryConditions();
+        assertEquals(3, conditions.length);
+        for (int i = 0; i < conditions.length; i++) {
+            assertTrue(index.isMemoryConditionOutdated(i));
+            assertTrue(conditions[i].matches(null, memory));
+            assertFalse(index.isMemoryConditionOutdated(i));
+        }
+
+        // Writing the second word leaves the other conditions, although true, out of reevaluation
+        memory.store32(0x2000, 0x22);
+        assertFalse(index.isMemoryConditionOutdated(0));
+        assertTrue(index.isMemoryConditionOutdated(1));
+        assertFalse(index.isMemoryConditionOutdated(2));
+        assertTrue(conditions[1].matches(null, memory));
+
+        // Any word of an AndCondition outdates it
+        memory.store32(0x3000, 0);
+        assertFalse(index.isMemoryConditionOutdated(0));
+        assertFalse(index.isMemoryConditionOutdated(1));
+        assertTrue(index.isMemoryConditionOutdated(2));
+    }
+
+    private static MemoryValueBreakCondition newWatchedEquality(DebuggableMemory memory, int address, int value) {
+        MemoryValueBreakCondition condition = new MemoryValueBreakCondition(null);
+        condition.setAddress(address);
+        condition.setMask(0xFFFFFFFF);
+        condition.setValue(value);
+        condition.setChangeDetection(false);
+        assertTrue(condition.watch(memory));
+        return condition;
+    }
+
+    public void testOtherConditions() {
+        AlwaysBreakCondition always = new AlwaysBreakCondition();
+        BreakConditionIndex index = BreakConditionIndex.EMPTY.with(always);
+
+        assertFalse(index.isEmpty());
+        assertTrue(index.hasOtherConditions());
+        assertSame(always, index.getOtherConditions()[0]);
+        assertFalse(index.isBreakPoint(0));
+    }
+}
@@ -0,0 +1,45 @@
+package com.nikonhacker.emu.trigger.condition;
+
+import com.nikonhacker.emu.memory.DebuggableMemory;
+import junit.framework.TestCase;
+
+public class MemoryValueBreakConditionTest extends TestCase {
+
+    public void testWatchedChangeDetection() {
+        DebuggableMemory memory = new DebuggableMemory(false);
+        memory.store32(0x1000, 0x12345678);
+
+        MemoryValueBreakCondition condition = new MemoryValueBreakCondition(null);
+        condition.setAddress(0x1002);
+        condition.setMask(0x0000FF00);
+        condition.setValue(memory.load32(0x1002));
+        condition.setNegate(true);
+        assertTrue(condition.watch(memory));
+
+        int count = memory.getWordWriteCount();
+        assertFalse(condition.matches(null, memory));
+
+        // Other words don't affect the condition
+        memory.store32(0x1008, 0xFFFFFFFF);
+        assertEquals(count, memory.getWordWriteCount());
+
+        // Word at 0x1004 is watched too, as the condition spans two words
+        memory.store16(0x1004, 0xAAAA);
+        assertTrue(memory.getWordWriteCount() != count);
+        assertTrue(condition.matches(null, memory));
+        // re-armed
+        assertFalse(condition.matches(null, memory));
+
+        // Bits outside the mask don't count
+        count = memory.getWordWriteCount();
+        memory.store8(0x1005, 0x55);
+        assertTrue(memory.getWordWriteCount() != count);
+        assertFalse(condition.matches(null, memory));
+
+        condition.unwatch();
+        count = memory.getWordWriteCount();
+        memory.store16(0x1004, 0x0000);
+        assertEquals(count, memory.getWordWriteCount());
+        assertTrue(condition.matches(null, memory));
+    }
+}
@@ -0,0 +1,61 @@
+package com.nikonhacker.emu.trigger.condition;
+
+import com.nikonhacker.disassembly.fr.FrCPUState;
+import com.nikonhacker.emu.trigger.condition.fr.CCRBreakCondition;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RegisterConditionEvaluatorTest extends TestCase {
+
+    public void testEvaluation() {
+        RegisterEqualityBreakCondition r4 = new RegisterEqualityBreakCondition(4, 0x10, null);
+        List<BreakCondition> terms = new ArrayList<BreakCondition>();
+        // Z flag set
+        terms.add(new CCRBreakCondition(0x04, 0x04, null));
+        terms.add(new RegisterEqualityBreakCondition(5, 0x20, null));
+        AndCondition r5AndZ = new AndCondition(terms, null);
+
+        assertTrue(RegisterConditionEvaluator.isCompilable(r4));
+        assertTrue(RegisterConditionEvaluator.isCompilable(r5AndZ));
+        assertFalse(RegisterConditionEvaluator.isCompilable(new AlwaysBreakCondition()));
+
+        RegisterConditionEvaluator evaluator = new RegisterConditionEvaluator(new BreakCondition[]{r4, r5AndZ});
+        FrCPUState cpuState = new FrCPUState();
+
+        assertEquals(-1, evaluator.findMatch(cpuState, null, 0));
+
+        cpuState.setReg(4, 0x10);
+        assertEquals(0, evaluator.findMatch(cpuState, null, 0));
+        assertEquals(-1, evaluator.findMatch(cpuState, null, 1));
+        // Still matching if nothing changed
+        assertEquals(0, evaluator.findMatch(cpuState, null, 0));
+
+        cpuState.setReg(4, 0);
+        cpuState.setReg(5, 0x20);
+        assertEquals(-1, evaluator.findMatch(cpuState, null, 0));
+        assertEquals(-1, evaluator.findMatch(cpuState, null, 0));
+
+        cpuState.Z = 1;
+        assertSame(r5AndZ, evaluator.getCondition(evaluator.findMatch(cpuState, null, 0)));
+    }
+
+    public void testOtherTerms() {
+        List<BreakCondition> terms = new ArrayList<BreakCondition>();
+        terms.add(new RegisterEqualityBreakCondition(1, 0, null));
+        final boolean[] otherResult = new boolean[1];
+        terms.add(new AbstractLoggingBreakCondition(null) {
+            public boolean matches(com.nikonhacker.disassembly.CPUState cpuState, com.nikonhacker.emu.memory.Memory memory) {
+                return otherResult[0];
+            }
+        });
+        RegisterConditionEvaluator evaluator = new RegisterConditionEvaluator(new BreakCondition[]{new AndCondition(terms, null)});
+        FrCPUState cpuState = new FrCPUState();
+
+        assertEquals(-1, evaluator.findMatch(cpuState, null, 0));
+        // Registers did not change, but the other term has to be evaluated again
+        otherResult[0] = true;
+        assertEquals(0, evaluator.findMatch(cpuState, null, 0));
+    }
+}
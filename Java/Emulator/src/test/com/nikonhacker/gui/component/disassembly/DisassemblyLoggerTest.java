@@ -0,0 +1,58 @@
+package com.nikonhacker.gui.component.disassembly;
+
+import com.nikonhacker.emu.MasterClock;
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+
+public class DisassemblyLoggerTest extends TestCase {
+
+    public void testLinesAreFormattedInOrder() {
+        DisassemblyLogger logger = new DisassemblyLogger();
+        StringWriter writer = new StringWriter();
+        logger.getWriters().add(writer);
+        logger.setLogging(true);
+
+        logger.logInstruction(3 * MasterClock.PS_PER_MS / 2, 0x0004_0000, 0, "CALL 0x00041000");
+        logger.println("------------------------- Accepting interrupt");
+        logger.logInstruction(DisassemblyLogger.NO_TIMESTAMP, 0x0004_1000, 2, null);
+        logger.close();
+
+        String nl = System.lineSeparator();
+        assertEquals("0001.500000000ms 0x00040000 CALL 0x00041000" + nl
+                + "------------------------- Accepting interrupt" + nl
+                + "0x00041000    " + nl, writer.toString());
+
+        // Nothing is logged once closed
+        logger.println("too late");
+        assertFalse(writer.toString().contains("too late"));
+    }
+
+    public void testDropPolicy() {
+        DisassemblyLogger logger = new DisassemblyLogger();
+        StringWriter writer = new StringWriter();
+        logger.getWriters().add(writer);
+        logger.setOverflowPolicy(DisassemblyLogger.OverflowPolicy.DROP);
+        logger.setLogging(true);
+
+        // Far more lines than the buffer holds: some may be dropped, but logging never blocks
+        int numLines = 100_000;
+        for (int i = 0; i < numLines; i++) {
+            logger.logInstruction(DisassemblyLogger.NO_TIMESTAMP, i, 0, null);
+        }
+        logger.close();
+
+        String log = writer.toString();
+        int numWritten = 0;
+        int numDropped = 0;
+        for (String line : log.split(System.lineSeparator())) {
+            if (line.startsWith("<< ")) {
+                numDropped += Integer.parseInt(line.substring(3, line.indexOf(" lines dropped")));
+            }
+            else {
+                numWritten++;
+            }
+        }
+        assertEquals(numLines, numWritten + numDropped);
+    }
+}